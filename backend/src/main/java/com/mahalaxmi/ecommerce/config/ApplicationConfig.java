@@ -1,8 +1,10 @@
 package com.mahalaxmi.ecommerce.config;
 
 import com.mahalaxmi.ecommerce.repository.UserRepository;
+import com.mahalaxmi.ecommerce.util.SnowflakeIdGenerator;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -51,4 +53,9 @@ public class ApplicationConfig {
     public ModelMapper modelMapper() {
         return new ModelMapper();
     }
+
+    @Bean
+    public SnowflakeIdGenerator orderIdGenerator(@Value("${application.orders.node-id}") long nodeId) {
+        return new SnowflakeIdGenerator(nodeId);
+    }
 }
@@ -23,6 +23,8 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String STREAM_PATH = "/api/orders/stream";
+
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
 
@@ -36,16 +38,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String jwt;
         final String userEmail;
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        // EventSource cannot set headers, so the order stream takes a short-lived stream ticket as a
+        // parameter; access tokens never travel in URLs, where logs and browser history keep them
+        final String ticket = STREAM_PATH.equals(request.getRequestURI())
+                ? request.getParameter("ticket")
+                : null;
+        final boolean bearer = authHeader != null && authHeader.startsWith("Bearer ");
+
+        if (!bearer && ticket == null) {
             filterChain.doFilter(request, response);
             return;
         }
 
         try {
-            jwt = authHeader.substring(7);
+            jwt = bearer ? authHeader.substring(7) : ticket;
             userEmail = jwtService.extractUsername(jwt);
 
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Tickets only open the stream, and access tokens are only accepted from the header
+            if (userEmail != null && jwtService.isStreamTicket(jwt) == !bearer
+                    && SecurityContextHolder.getContext().getAuthentication() == null) {
                 UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
 
                 if (jwtService.isTokenValid(jwt, userDetails)) {
@@ -20,6 +20,9 @@ import java.util.function.Function;
 @Service
 public class JwtService {
 
+    private static final String PURPOSE_CLAIM = "purpose";
+    private static final String STREAM_TICKET_PURPOSE = "order-stream";
+
     @Value("${application.security.jwt.secret-key}")
     private String secretKey;
 
@@ -29,6 +32,9 @@ public class JwtService {
     @Value("${application.security.jwt.refresh-token.expiration}")
     private long refreshExpiration;
 
+    @Value("${application.security.jwt.stream-ticket.expiration}")
+    private long streamTicketExpiration;
+
     /**
      * Extract username (email) from JWT token.
      *
@@ -83,6 +89,36 @@ public class JwtService {
         return buildToken(new HashMap<>(), userDetails, refreshExpiration);
     }
 
+    /**
+     * Generate a short-lived ticket for opening the order status stream. EventSource cannot send
+     * headers, so the ticket travels in the URL; it is accepted nowhere else.
+     *
+     * @param userDetails user details
+     * @return stream ticket
+     */
+    public String generateStreamTicket(UserDetails userDetails) {
+        return buildToken(Map.of(PURPOSE_CLAIM, STREAM_TICKET_PURPOSE), userDetails, streamTicketExpiration);
+    }
+
+    /**
+     * Lifetime of stream tickets.
+     *
+     * @return milliseconds
+     */
+    public long getStreamTicketExpiration() {
+        return streamTicketExpiration;
+    }
+
+    /**
+     * Check whether a token is a stream ticket rather than an access token.
+     *
+     * @param token JWT token
+     * @return true if it was issued by {@link #generateStreamTicket}
+     */
+    public boolean isStreamTicket(String token) {
+        return STREAM_TICKET_PURPOSE.equals(extractClaim(token, claims -> claims.get(PURPOSE_CLAIM, String.class)));
+    }
+
     /**
      * Build JWT token.
      *
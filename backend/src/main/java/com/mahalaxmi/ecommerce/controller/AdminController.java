@@ -1,19 +1,34 @@
 package com.mahalaxmi.ecommerce.controller;
 
+import com.mahalaxmi.ecommerce.dto.BulkOrderStatusUpdateRequest;
+import com.mahalaxmi.ecommerce.dto.BulkOrderStatusUpdateResponse;
 import com.mahalaxmi.ecommerce.dto.DashboardStatsDto;
 import com.mahalaxmi.ecommerce.dto.OrderDto;
+import com.mahalaxmi.ecommerce.dto.PromotionDto;
 import com.mahalaxmi.ecommerce.dto.UpdateOrderStatusRequest;
 import com.mahalaxmi.ecommerce.dto.UserDto;
 import com.mahalaxmi.ecommerce.entity.Order;
 import com.mahalaxmi.ecommerce.service.AdminService;
+import com.mahalaxmi.ecommerce.service.BulkOrderStatusService;
+import com.mahalaxmi.ecommerce.service.ExportService;
+import com.mahalaxmi.ecommerce.service.PromotionService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 
 /**
  * REST controller for admin operations.
@@ -26,6 +41,9 @@ import org.springframework.web.bind.annotation.*;
 public class AdminController {
 
     private final AdminService adminService;
+    private final ExportService exportService;
+    private final BulkOrderStatusService bulkOrderStatusService;
+    private final PromotionService promotionService;
 
     /**
      * Get dashboard statistics with analytics.
@@ -71,6 +89,18 @@ public class AdminController {
         return ResponseEntity.ok(adminService.searchOrders(keyword, pageable));
     }
 
+    /**
+     * Search archived orders by order number or email; omit the keyword to list them all.
+     */
+    @GetMapping("/orders/archive")
+    public ResponseEntity<Page<OrderDto>> searchArchivedOrders(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        return ResponseEntity.ok(adminService.searchArchivedOrders(keyword, pageable));
+    }
+
     /**
      * Get order by ID.
      */
@@ -90,6 +120,29 @@ public class AdminController {
         return ResponseEntity.ok(adminService.updateOrderStatus(orderId, request));
     }
 
+    /**
+     * Apply status changes to many orders at once.
+     */
+    @PatchMapping("/orders/bulk/status")
+    public ResponseEntity<BulkOrderStatusUpdateResponse> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkOrderStatusUpdateRequest request) {
+        log.info("Bulk updating status of {} orders", request.getItems().size());
+        return ResponseEntity.ok(bulkOrderStatusService.updateStatuses(request));
+    }
+
+    /**
+     * Apply status changes from an uploaded CSV manifest (orderId,status,trackingNumber). The
+     * response counts every line but lists only the failures.
+     */
+    @PostMapping(value = "/orders/bulk/status/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BulkOrderStatusUpdateResponse> uploadOrderStatusManifest(
+            @RequestParam("file") MultipartFile file) throws IOException {
+        log.info("Applying order status manifest {}", file.getOriginalFilename());
+        try (InputStream in = file.getInputStream()) {
+            return ResponseEntity.ok(bulkOrderStatusService.updateStatuses(in));
+        }
+    }
+
     /**
      * Get all users (paginated).
      */
@@ -100,4 +153,75 @@ public class AdminController {
         Pageable pageable = PageRequest.of(page, size);
         return ResponseEntity.ok(adminService.getAllUsers(pageable));
     }
+
+    /**
+     * Stream the full product catalog as NDJSON or CSV.
+     */
+    @GetMapping("/export/products")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        log.info("Exporting products as {}", exportFormat);
+        StreamingResponseBody body = out -> exportService.exportProducts(exportFormat, out);
+        return exportResponse("products", exportFormat, body);
+    }
+
+    /**
+     * Stream the full order history, archived orders included, with items as NDJSON or CSV.
+     */
+    @GetMapping("/export/orders")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        log.info("Exporting orders as {}", exportFormat);
+        StreamingResponseBody body = out -> exportService.exportOrders(exportFormat, out);
+        return exportResponse("orders", exportFormat, body);
+    }
+
+    /**
+     * Get all promotions and coupons.
+     */
+    @GetMapping("/promotions")
+    public ResponseEntity<List<PromotionDto>> getAllPromotions() {
+        return ResponseEntity.ok(promotionService.getAllPromotions());
+    }
+
+    /**
+     * Create a promotion or coupon.
+     */
+    @PostMapping("/promotions")
+    public ResponseEntity<PromotionDto> createPromotion(@Valid @RequestBody PromotionDto promotionDto) {
+        log.info("Creating promotion: {}", promotionDto.getName());
+        return ResponseEntity.ok(promotionService.createPromotion(promotionDto));
+    }
+
+    /**
+     * Update a promotion or coupon.
+     */
+    @PutMapping("/promotions/{id}")
+    public ResponseEntity<PromotionDto> updatePromotion(
+            @PathVariable Long id,
+            @Valid @RequestBody PromotionDto promotionDto) {
+        log.info("Updating promotion: {}", id);
+        return ResponseEntity.ok(promotionService.updatePromotion(id, promotionDto));
+    }
+
+    /**
+     * Delete a promotion or coupon.
+     */
+    @DeleteMapping("/promotions/{id}")
+    public ResponseEntity<Void> deletePromotion(@PathVariable Long id) {
+        log.info("Deleting promotion: {}", id);
+        promotionService.deletePromotion(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportResponse(
+            String name, ExportService.Format format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + name + "." + format.getExtension() + "\"")
+                .body(body);
+    }
 }
@@ -4,20 +4,28 @@ import com.mahalaxmi.ecommerce.dto.AuthRequest;
 import com.mahalaxmi.ecommerce.dto.AuthResponse;
 import com.mahalaxmi.ecommerce.dto.RegisterRequest;
 import com.mahalaxmi.ecommerce.service.AuthService;
+import com.mahalaxmi.ecommerce.service.CartService;
+import com.mahalaxmi.ecommerce.service.GuestCartCodec;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 /**
- * REST controller for authentication endpoints.
+ * REST controller for authentication endpoints. A guest cart sent with a login or registration is
+ * merged into the user's cart.
  */
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
+@Slf4j
 public class AuthController {
 
     private final AuthService authService;
+    private final CartService cartService;
+    private final GuestCartCodec guestCartCodec;
 
     /**
      * Register a new user.
@@ -26,8 +34,11 @@ public class AuthController {
      * @return authentication response with JWT token
      */
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
-        return ResponseEntity.ok(authService.register(request));
+    public ResponseEntity<AuthResponse> register(
+            @Valid @RequestBody RegisterRequest request,
+            @CookieValue(name = GuestCartCodec.COOKIE_NAME, required = false) String guestCart
+    ) {
+        return withGuestCartMerged(authService.register(request), guestCart);
     }
 
     /**
@@ -37,7 +48,26 @@ public class AuthController {
      * @return authentication response with JWT token
      */
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest request) {
-        return ResponseEntity.ok(authService.authenticate(request));
+    public ResponseEntity<AuthResponse> login(
+            @Valid @RequestBody AuthRequest request,
+            @CookieValue(name = GuestCartCodec.COOKIE_NAME, required = false) String guestCart
+    ) {
+        return withGuestCartMerged(authService.authenticate(request), guestCart);
+    }
+
+    private ResponseEntity<AuthResponse> withGuestCartMerged(AuthResponse response, String guestCart) {
+        if (guestCart == null) {
+            return ResponseEntity.ok(response);
+        }
+        try {
+            cartService.mergeGuestCart(response.getUserId(), guestCartCodec.decode(guestCart));
+        } catch (RuntimeException e) {
+            // Keep the guest cart so it merges on the next login
+            log.warn("Failed to merge guest cart for user {}", response.getUserId(), e);
+            return ResponseEntity.ok(response);
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, guestCartCodec.expiredCookie().toString())
+                .body(response);
     }
 }
@@ -2,14 +2,21 @@ package com.mahalaxmi.ecommerce.controller;
 
 import com.mahalaxmi.ecommerce.dto.AddToCartRequest;
 import com.mahalaxmi.ecommerce.dto.CartDto;
+import com.mahalaxmi.ecommerce.dto.CartOperationsRequest;
+import com.mahalaxmi.ecommerce.dto.CartSummaryDto;
 import com.mahalaxmi.ecommerce.service.CartService;
+import com.mahalaxmi.ecommerce.service.GuestCartCodec;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 /**
- * REST controller for cart endpoints.
+ * REST controller for cart endpoints. Anonymous shoppers get a guest cart kept in a signed cookie.
  */
 @RestController
 @RequestMapping("/api/cart")
@@ -17,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 public class CartController {
 
     private final CartService cartService;
+    private final GuestCartCodec guestCartCodec;
 
     /**
      * Get current user's cart.
@@ -24,10 +32,30 @@ public class CartController {
      * @return cart details
      */
     @GetMapping
-    public ResponseEntity<CartDto> getCart() {
+    public ResponseEntity<CartDto> getCart(
+            @CookieValue(name = GuestCartCodec.COOKIE_NAME, required = false) String guestCart
+    ) {
+        if (cartService.isGuest()) {
+            return ResponseEntity.ok(cartService.getGuestCart(guestCartCodec.decode(guestCart)));
+        }
         return ResponseEntity.ok(cartService.getCart());
     }
 
+    /**
+     * Get the item count and total of the current user's cart, for the cart badge.
+     *
+     * @return cart summary
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<CartSummaryDto> getCartSummary(
+            @CookieValue(name = GuestCartCodec.COOKIE_NAME, required = false) String guestCart
+    ) {
+        if (cartService.isGuest()) {
+            return ResponseEntity.ok(cartService.getGuestSummary(guestCartCodec.decode(guestCart)));
+        }
+        return ResponseEntity.ok(cartService.getSummary());
+    }
+
     /**
      * Add item to cart.
      *
@@ -35,7 +63,14 @@ public class CartController {
      * @return updated cart
      */
     @PostMapping("/items")
-    public ResponseEntity<CartDto> addToCart(@Valid @RequestBody AddToCartRequest request) {
+    public ResponseEntity<CartDto> addToCart(
+            @Valid @RequestBody AddToCartRequest request,
+            @CookieValue(name = GuestCartCodec.COOKIE_NAME, required = false) String guestCart
+    ) {
+        if (cartService.isGuest()) {
+            return updateGuestCart(guestCart, List.of(CartOperationsRequest.Operation.builder()
+                    .op("ADD").productId(request.getProductId()).quantity(request.getQuantity()).build()));
+        }
         return ResponseEntity.ok(cartService.addToCart(request));
     }
 
@@ -44,34 +79,80 @@ public class CartController {
      *
      * @param itemId cart item ID
      * @param quantity new quantity
+     * @param version cart version the change is based on, if known
      * @return updated cart
      */
     @PutMapping("/items/{itemId}")
     public ResponseEntity<CartDto> updateCartItem(
             @PathVariable Long itemId,
-            @RequestParam Integer quantity
+            @RequestParam Integer quantity,
+            @RequestParam(required = false) Long version,
+            @CookieValue(name = GuestCartCodec.COOKIE_NAME, required = false) String guestCart
     ) {
-        return ResponseEntity.ok(cartService.updateCartItem(itemId, quantity));
+        if (cartService.isGuest()) {
+            return updateGuestCart(guestCart, List.of(CartOperationsRequest.Operation.builder()
+                    .op("UPDATE").itemId(itemId).quantity(quantity).build()));
+        }
+        return ResponseEntity.ok(cartService.updateCartItem(itemId, quantity, version));
     }
 
     /**
      * Remove item from cart.
      *
      * @param itemId cart item ID
+     * @param version cart version the change is based on, if known
      * @return updated cart
      */
     @DeleteMapping("/items/{itemId}")
-    public ResponseEntity<CartDto> removeFromCart(@PathVariable Long itemId) {
-        return ResponseEntity.ok(cartService.removeFromCart(itemId));
+    public ResponseEntity<CartDto> removeFromCart(
+            @PathVariable Long itemId,
+            @RequestParam(required = false) Long version,
+            @CookieValue(name = GuestCartCodec.COOKIE_NAME, required = false) String guestCart
+    ) {
+        if (cartService.isGuest()) {
+            return updateGuestCart(guestCart, List.of(CartOperationsRequest.Operation.builder()
+                    .op("REMOVE").itemId(itemId).build()));
+        }
+        return ResponseEntity.ok(cartService.removeFromCart(itemId, version));
+    }
+
+    /**
+     * Apply several cart changes at once.
+     *
+     * @param request ordered add, update and remove operations
+     * @return updated cart
+     */
+    @PatchMapping
+    public ResponseEntity<CartDto> applyOperations(
+            @Valid @RequestBody CartOperationsRequest request,
+            @CookieValue(name = GuestCartCodec.COOKIE_NAME, required = false) String guestCart
+    ) {
+        if (cartService.isGuest()) {
+            return updateGuestCart(guestCart, request.getOperations());
+        }
+        return ResponseEntity.ok(cartService.applyOperations(request));
     }
 
     /**
      * Clear entire cart.
      *
+     * @param version cart version the change is based on, if known
      * @return empty cart
      */
     @DeleteMapping
-    public ResponseEntity<CartDto> clearCart() {
-        return ResponseEntity.ok(cartService.clearCart());
+    public ResponseEntity<CartDto> clearCart(@RequestParam(required = false) Long version) {
+        if (cartService.isGuest()) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, guestCartCodec.expiredCookie().toString())
+                    .body(cartService.getGuestCart(Map.of()));
+        }
+        return ResponseEntity.ok(cartService.clearCart(version));
+    }
+
+    private ResponseEntity<CartDto> updateGuestCart(String guestCart, List<CartOperationsRequest.Operation> operations) {
+        CartService.GuestCart result = cartService.applyGuestOperations(guestCartCodec.decode(guestCart), operations);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, guestCartCodec.cookie(result.lines()).toString())
+                .body(result.cart());
     }
 }
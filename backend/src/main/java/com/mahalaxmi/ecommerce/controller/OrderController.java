@@ -1,18 +1,26 @@
 package com.mahalaxmi.ecommerce.controller;
 
+import com.mahalaxmi.ecommerce.config.JwtService;
+import com.mahalaxmi.ecommerce.dto.CheckoutQuoteDto;
+import com.mahalaxmi.ecommerce.dto.CheckoutQuoteRequest;
 import com.mahalaxmi.ecommerce.dto.CreateOrderRequest;
 import com.mahalaxmi.ecommerce.dto.OrderDto;
+import com.mahalaxmi.ecommerce.dto.OrderSummaryPageDto;
+import com.mahalaxmi.ecommerce.dto.StreamTicketDto;
 import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.service.CheckoutQuoteService;
+import com.mahalaxmi.ecommerce.service.IdempotencyService;
 import com.mahalaxmi.ecommerce.service.OrderService;
+import com.mahalaxmi.ecommerce.service.OrderStatusStreamService;
+import com.mahalaxmi.ecommerce.service.OrderSummaryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * REST controller for order operations.
@@ -24,30 +32,78 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderStatusStreamService orderStatusStreamService;
+    private final CheckoutQuoteService checkoutQuoteService;
+    private final JwtService jwtService;
 
     /**
      * Create a new order from the user's cart.
+     * Retries carrying the same Idempotency-Key return the original order instead of checking out again.
      */
     @PostMapping
     public ResponseEntity<OrderDto> createOrder(
             @AuthenticationPrincipal User user,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody CreateOrderRequest request) {
         log.info("Creating order for user: {}", user.getEmail());
-        OrderDto order = orderService.createOrder(user.getId(), request);
+        OrderDto order = idempotencyKey == null
+                ? orderService.createOrder(user.getId(), request)
+                : idempotencyService.execute(user.getId(), idempotencyKey, request, OrderDto.class,
+                        () -> orderService.createOrder(user.getId(), request));
         return ResponseEntity.ok(order);
     }
 
     /**
-     * Get all orders for the authenticated user.
+     * Quote the authenticated user's cart: lines and totals under a signed, short-lived quote ID.
+     */
+    @PostMapping("/quote")
+    public ResponseEntity<CheckoutQuoteDto> quote(
+            @AuthenticationPrincipal User user,
+            @RequestBody(required = false) CheckoutQuoteRequest request) {
+        String shippingMethod = request != null ? request.getShippingMethod() : null;
+        String couponCode = request != null ? request.getCouponCode() : null;
+        String postalCode = request != null ? request.getPostalCode() : null;
+        return ResponseEntity.ok(checkoutQuoteService.quote(user.getId(), shippingMethod, couponCode, postalCode));
+    }
+
+    /**
+     * Get the authenticated user's order history, newest first.
+     * Pass the returned nextCursor to fetch the following page.
      */
     @GetMapping
-    public ResponseEntity<Page<OrderDto>> getUserOrders(
+    public ResponseEntity<OrderSummaryPageDto> getUserOrders(
             @AuthenticationPrincipal User user,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<OrderDto> orders = orderService.getUserOrders(user.getId(), pageable);
-        return ResponseEntity.ok(orders);
+        return ResponseEntity.ok(orderSummaryService.getUserOrders(user.getId(), cursor, size));
+    }
+
+    /**
+     * Issue a short-lived ticket for opening the order status stream, which browsers cannot
+     * authenticate with a header.
+     */
+    @PostMapping("/stream/ticket")
+    public ResponseEntity<StreamTicketDto> createStreamTicket(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(StreamTicketDto.builder()
+                .ticket(jwtService.generateStreamTicket(user))
+                .expiresInMs(jwtService.getStreamTicketExpiration())
+                .build());
+    }
+
+    /**
+     * Stream order status changes as Server-Sent Events: the user's own orders, or every order
+     * for admins. Authenticated by a ticket from {@code POST /stream/ticket} in the ticket
+     * parameter; a reconnect after the ticket expired needs a new one, and passes the last event
+     * ID it received as a parameter since a new EventSource cannot send Last-Event-ID.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderStatus(
+            @AuthenticationPrincipal User user,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) Long lastEventIdParam) {
+        return orderStatusStreamService.subscribe(user, lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam);
     }
 
     /**
@@ -1,8 +1,12 @@
 package com.mahalaxmi.ecommerce.controller;
 
+import com.mahalaxmi.ecommerce.dto.BulkProductUpdateRequest;
+import com.mahalaxmi.ecommerce.dto.BulkProductUpdateResponse;
+import com.mahalaxmi.ecommerce.dto.FlashSaleStatusDto;
 import com.mahalaxmi.ecommerce.dto.ProductDto;
 import com.mahalaxmi.ecommerce.entity.Product;
 import com.mahalaxmi.ecommerce.service.ProductService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -164,6 +168,48 @@ public class ProductController {
         return ResponseEntity.ok(productService.updateProduct(id, productDto));
     }
 
+    /**
+     * Bulk update price and stock for many products (admin only).
+     *
+     * @param request list of (id, price, stockQuantity) updates
+     * @return summary of the applied updates
+     */
+    @PatchMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkProductUpdateResponse> bulkUpdateProducts(
+            @Valid @RequestBody BulkProductUpdateRequest request
+    ) {
+        return ResponseEntity.ok(productService.bulkUpdateProducts(request));
+    }
+
+    /**
+     * Get flash-sale inventory state for a product (admin only).
+     *
+     * @param id product ID
+     * @return flash-sale status
+     */
+    @GetMapping("/{id}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<FlashSaleStatusDto> getFlashSaleStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(productService.getFlashSaleStatus(id));
+    }
+
+    /**
+     * Enable or disable flash-sale inventory mode for a product (admin only).
+     *
+     * @param id product ID
+     * @param enabled whether flash-sale mode should be on
+     * @return flash-sale status
+     */
+    @PutMapping("/{id}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<FlashSaleStatusDto> setFlashSale(
+            @PathVariable Long id,
+            @RequestParam boolean enabled
+    ) {
+        return ResponseEntity.ok(productService.setFlashSale(id, enabled));
+    }
+
     /**
      * Delete a product (admin only).
      *
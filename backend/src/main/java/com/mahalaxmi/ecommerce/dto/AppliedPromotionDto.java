@@ -0,0 +1,23 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for a promotion applied to a cart or checkout.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AppliedPromotionDto {
+
+    private Long promotionId;
+    private String name;
+    private String code;
+    private BigDecimal discount;
+}
@@ -0,0 +1,40 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for applying status changes to many orders at once.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkOrderStatusUpdateRequest {
+
+    @NotEmpty(message = "At least one item is required")
+    private List<@Valid Item> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        @NotNull(message = "Order ID is required")
+        private Long orderId;
+
+        @NotNull(message = "Status is required")
+        private String status;
+
+        @Size(max = 100, message = "Tracking number must not exceed 100 characters")
+        private String trackingNumber;
+    }
+}
@@ -0,0 +1,37 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO with the per-order outcome of a bulk status update. Every requested entry is counted once
+ * as updated, failed or superseded by a later entry for the same order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkOrderStatusUpdateResponse {
+
+    private int requested;
+    private int updated;
+    private int failed;
+    private int superseded;
+    private List<Result> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Result {
+        private Long orderId;
+        private boolean success;
+        private String previousStatus;
+        private String status;
+        private String error;
+    }
+}
@@ -0,0 +1,42 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO for bulk price and stock updates pushed by inventory sync.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkProductUpdateRequest {
+
+    @NotEmpty(message = "At least one item is required")
+    private List<@Valid Item> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        @NotNull(message = "Product ID is required")
+        private Long id;
+
+        @DecimalMin(value = "0.0", inclusive = false, message = "Price must be greater than 0")
+        private BigDecimal price;
+
+        @Min(value = 0, message = "Stock quantity cannot be negative")
+        private Integer stockQuantity;
+    }
+}
@@ -0,0 +1,37 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO summarizing the outcome of a bulk product update.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkProductUpdateResponse {
+
+    private int requested;
+
+    /**
+     * Updates sent to the database, after dropping unknown IDs and flash-sale stock changes.
+     */
+    private int submitted;
+
+    /**
+     * Rows the database confirmed as updated. Lower than {@code submitted} if a product was
+     * deleted or put into flash-sale mode meanwhile, or the driver did not report row counts.
+     */
+    private int updated;
+    private List<Long> notFoundIds;
+
+    /**
+     * IDs not updated because a stock change was sent for a product in flash-sale mode.
+     */
+    private List<Long> flashSaleIds;
+}
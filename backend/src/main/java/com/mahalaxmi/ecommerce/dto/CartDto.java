@@ -19,6 +19,13 @@ public class CartDto {
 
     private Long id;
     private List<CartItemDto> items;
+    private BigDecimal subtotal;
+    private BigDecimal discount;
+    private List<AppliedPromotionDto> promotions;
     private BigDecimal total;
     private Integer itemCount;
+    /**
+     * Version of the cart's lines; null for guest carts.
+     */
+    private Long version;
 }
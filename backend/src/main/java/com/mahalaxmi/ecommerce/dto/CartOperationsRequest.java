@@ -0,0 +1,59 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for applying several cart changes at once, in order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartOperationsRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 100, message = "At most 100 operations can be applied at once")
+    private List<@Valid Operation> operations;
+
+    /**
+     * Cart version the operations are based on. Checked unless every operation is an ADD, since
+     * adding quantities does not depend on what the cart held.
+     */
+    private Long version;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Operation {
+        /**
+         * ADD, UPDATE or REMOVE.
+         */
+        @NotNull(message = "Operation type is required")
+        private String op;
+
+        /**
+         * Product to add; for UPDATE and REMOVE, an alternative to the item ID.
+         */
+        private Long productId;
+
+        /**
+         * Cart item to update or remove.
+         */
+        private Long itemId;
+
+        /**
+         * Quantity to add for ADD, or the new quantity for UPDATE (0 or less removes the line).
+         */
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,21 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for the cart badge: line count and total only.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartSummaryDto {
+
+    private Integer itemCount;
+    private BigDecimal total;
+}
@@ -0,0 +1,33 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import com.mahalaxmi.ecommerce.util.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Snapshot of a cart line and the current state of its product, read in one query at checkout.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutLine {
+
+    private Long cartId;
+    private Long productId;
+    private String productName;
+    private Long categoryId;
+    private String brand;
+    private BigDecimal price;
+    private Integer stockQuantity;
+    private Boolean active;
+    private Boolean flashSale;
+    private Integer quantity;
+    private String thumbnailUrl;
+
+    public Money getSubtotal() {
+        return Money.of(price).times(quantity);
+    }
+}
@@ -0,0 +1,46 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for a checkout quote. Pass {@code quoteId} when creating the order to be charged exactly
+ * these totals, provided the cart has not changed and the quote has not expired.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckoutQuoteDto {
+
+    private String quoteId;
+    private List<Line> lines;
+    private BigDecimal subtotal;
+    private BigDecimal discount;
+    private String couponCode;
+    private List<AppliedPromotionDto> promotions;
+    private BigDecimal tax;
+    private BigDecimal shippingCost;
+    private BigDecimal total;
+    private String shippingMethod;
+    private LocalDateTime expiresAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Line {
+        private Long productId;
+        private String productName;
+        private String thumbnailUrl;
+        private Integer quantity;
+        private BigDecimal price;
+        private BigDecimal subtotal;
+    }
+}
@@ -0,0 +1,25 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for requesting a checkout quote.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckoutQuoteRequest {
+
+    private String shippingMethod;
+
+    private String couponCode;
+
+    /**
+     * Delivery PIN code; shipping is quoted for the default zone without one.
+     */
+    private String postalCode;
+}
@@ -26,6 +26,13 @@ public class CreateOrderRequest {
 
     private String notes;
 
+    /**
+     * Optional quote from POST /api/orders/quote; its totals are used as-is if still valid.
+     */
+    private String quoteId;
+
+    private String couponCode;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -0,0 +1,20 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for a product's flash-sale inventory state.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FlashSaleStatusDto {
+
+    private Long productId;
+    private boolean enabled;
+    private Integer availableQuantity;
+}
@@ -22,6 +22,8 @@ public class OrderDto {
     private String orderNumber;
     private List<OrderItemDto> items;
     private BigDecimal subtotal;
+    private BigDecimal discount;
+    private String couponCode;
     private BigDecimal tax;
     private BigDecimal shippingCost;
     private BigDecimal total;
@@ -0,0 +1,27 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for an entry in the customer's order history.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSummaryDto {
+
+    private Long id;
+    private String orderNumber;
+    private String status;
+    private BigDecimal total;
+    private Integer itemCount;
+    private String thumbnailUrl;
+    private LocalDateTime createdAt;
+}
@@ -24,6 +24,7 @@ public class ProductDto {
     private String description;
     private BigDecimal price;
     private Integer stockQuantity;
+    private Integer availableQuantity;
     private String brand;
     private String model;
     private String type;
@@ -32,4 +33,8 @@ public class ProductDto {
     private CategoryDto category;
     private Boolean active;
     private Boolean featured;
+    /**
+     * Version the client last read; an update based on an older version is rejected.
+     */
+    private Long version;
 }
@@ -0,0 +1,60 @@
+package com.mahalaxmi.ecommerce.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for creating, updating and listing promotions.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PromotionDto {
+
+    private Long id;
+
+    @NotBlank(message = "Name is required")
+    @Size(max = 100)
+    private String name;
+
+    @Pattern(regexp = "[A-Za-z0-9_-]{3,40}", message = "Code must be 3-40 letters, digits, '-' or '_'")
+    private String code;
+
+    @NotNull(message = "Type is required")
+    private String type;
+
+    @NotNull(message = "Scope is required")
+    private String scope;
+
+    private Long targetId;
+
+    @Size(max = 100)
+    private String targetBrand;
+
+    @DecimalMin(value = "0.0", inclusive = false, message = "Percent off must be greater than 0")
+    @DecimalMax(value = "100.0", message = "Percent off cannot exceed 100")
+    private BigDecimal percentOff;
+
+    @Min(value = 1, message = "Minimum quantity must be at least 1")
+    private Integer minQuantity;
+
+    @DecimalMin(value = "0.0", message = "Minimum subtotal cannot be negative")
+    private BigDecimal minSubtotal;
+
+    private LocalDateTime startsAt;
+    private LocalDateTime endsAt;
+    private Boolean active;
+}
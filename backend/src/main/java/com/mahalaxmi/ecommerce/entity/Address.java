@@ -17,7 +17,9 @@ import java.time.LocalDateTime;
  * Address entity for user shipping and billing addresses.
  */
 @Entity
-@Table(name = "addresses")
+@Table(name = "addresses", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_addresses_user_content_hash", columnNames = {"user_id", "content_hash"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -66,6 +68,12 @@ public class Address {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    /**
+     * SHA-256 of the normalized address fields, used to reuse an existing row for a repeat address.
+     */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
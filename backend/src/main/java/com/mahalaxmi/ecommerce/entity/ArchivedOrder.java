@@ -0,0 +1,62 @@
+package com.mahalaxmi.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * ArchivedOrder entity for completed orders moved out of the hot {@code orders} table.
+ * The full order, items and addresses included, is kept as gzip-compressed JSON; only the
+ * columns needed to find and total archived orders are stored alongside it.
+ */
+@Entity
+@Table(name = "archived_orders", indexes = {
+    @Index(name = "idx_archived_orders_user_created", columnList = "user_id, created_at"),
+    @Index(name = "idx_archived_orders_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedOrder {
+
+    /**
+     * ID the order had in the hot table.
+     */
+    @Id
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 50)
+    private String orderNumber;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 100)
+    private String customerEmail;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Order.OrderStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Order.PaymentStatus paymentStatus;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal total;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] payload;
+}
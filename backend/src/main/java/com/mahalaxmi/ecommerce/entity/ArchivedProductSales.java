@@ -0,0 +1,33 @@
+package com.mahalaxmi.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * ArchivedProductSales entity holding per-product totals of paid orders that have been moved to
+ * the archive, whose items are only kept inside compressed payloads. Sales reports add these to
+ * the totals computed from the hot order tables.
+ */
+@Entity
+@Table(name = "archived_product_sales")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedProductSales {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private Long quantitySold;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenue;
+}
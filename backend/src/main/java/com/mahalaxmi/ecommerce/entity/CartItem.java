@@ -12,7 +12,9 @@ import lombok.NoArgsConstructor;
  * CartItem entity representing individual products in a cart.
  */
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_cart_items_cart_product", columnNames = {"cart_id", "product_id"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -35,4 +37,8 @@ public class CartItem {
     @Min(value = 1, message = "Quantity must be at least 1")
     @Column(nullable = false)
     private Integer quantity;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
@@ -18,7 +18,10 @@ import java.util.List;
  * Order entity representing customer purchases.
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_created_at", columnList = "created_at"),
+    @Index(name = "idx_orders_status_created_at", columnList = "status, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,6 +47,16 @@ public class Order {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal subtotal;
 
+    /**
+     * Amount taken off the subtotal by promotions and coupons.
+     */
+    @Column(nullable = false, precision = 10, scale = 2)
+    @Builder.Default
+    private BigDecimal discount = BigDecimal.ZERO;
+
+    @Column(length = 40)
+    private String couponCode;
+
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal tax;
 
@@ -81,6 +94,14 @@ public class Order {
     @Column(length = 1000)
     private String notes;
 
+    /**
+     * Whether checkout took this order's units out of stock. Orders placed before checkout
+     * reserved stock have nothing to return when cancelled.
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean stockReserved = false;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -100,7 +121,25 @@ public class Order {
         SHIPPED,
         DELIVERED,
         CANCELLED,
-        REFUNDED
+        REFUNDED;
+
+        /**
+         * Whether an order may move from this status to the given one. Re-applying the
+         * current status is allowed so tracking details can be corrected.
+         */
+        public boolean canTransitionTo(OrderStatus next) {
+            if (next == this) {
+                return this != REFUNDED;
+            }
+            return switch (this) {
+                case PENDING -> next == CONFIRMED || next == CANCELLED;
+                case CONFIRMED -> next == PROCESSING || next == SHIPPED || next == CANCELLED;
+                case PROCESSING -> next == SHIPPED || next == CANCELLED;
+                case SHIPPED -> next == DELIVERED;
+                case DELIVERED, CANCELLED -> next == REFUNDED;
+                case REFUNDED -> false;
+            };
+        }
     }
 
     public enum PaymentStatus {
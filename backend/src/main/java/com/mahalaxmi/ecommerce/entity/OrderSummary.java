@@ -0,0 +1,51 @@
+package com.mahalaxmi.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * OrderSummary entity, a denormalized row per order holding only what the order history list shows.
+ * Kept in step with {@link Order} by {@code OrderSummaryService}.
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+    @Index(name = "idx_order_summary_user_created", columnList = "user_id, created_at, order_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSummary {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 50)
+    private String orderNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Order.OrderStatus status;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal total;
+
+    @Column(nullable = false)
+    private Integer itemCount;
+
+    @Column(length = 500)
+    private String thumbnailUrl;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -87,6 +87,28 @@ public class Product {
     @Builder.Default
     private Boolean featured = false;
 
+    /**
+     * When enabled, checkout reserves stock from an in-memory counter and
+     * stockQuantity is reconciled asynchronously from the reservation log.
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean flashSale = false;
+
+    /**
+     * Sequence number of the last flash-sale reservation log entry applied to stockQuantity.
+     */
+    @Column(name = "flash_sale_log_seq", nullable = false)
+    @Builder.Default
+    private Long flashSaleLogSequence = 0L;
+
+    /**
+     * Optimistic lock version. Direct SQL updates of the row increment it too.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
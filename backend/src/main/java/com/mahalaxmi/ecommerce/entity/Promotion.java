@@ -0,0 +1,107 @@
+package com.mahalaxmi.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Promotion rule applied to carts and orders. A rule matches the cart lines in its scope and,
+ * once those lines reach the minimum quantity and subtotal, either takes a percentage off them
+ * or waives shipping. Rules with a code only apply when that coupon code is supplied.
+ */
+@Entity
+@Table(name = "promotions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EntityListeners(AuditingEntityListener.class)
+public class Promotion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    /**
+     * Coupon code, stored upper-case, or null for a promotion applied automatically.
+     */
+    @Column(unique = true, length = 40)
+    private String code;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PromotionType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PromotionScope scope;
+
+    /**
+     * Product or category ID for PRODUCT and CATEGORY scopes. A category also covers its subcategories.
+     */
+    private Long targetId;
+
+    /**
+     * Brand name for the BRAND scope, matched case-insensitively.
+     */
+    @Column(length = 100)
+    private String targetBrand;
+
+    /**
+     * Percentage taken off the matching lines for PERCENT_OFF promotions.
+     */
+    @Column(precision = 5, scale = 2)
+    private BigDecimal percentOff;
+
+    /**
+     * Minimum total quantity of matching lines, e.g. 3 for a buy-three brand bundle.
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer minQuantity = 1;
+
+    /**
+     * Minimum subtotal of matching lines, e.g. the threshold of a free shipping promotion.
+     */
+    @Column(precision = 10, scale = 2)
+    private BigDecimal minSubtotal;
+
+    private LocalDateTime startsAt;
+
+    private LocalDateTime endsAt;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean active = true;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum PromotionType {
+        PERCENT_OFF,
+        FREE_SHIPPING
+    }
+
+    public enum PromotionScope {
+        ALL,
+        PRODUCT,
+        CATEGORY,
+        BRAND
+    }
+}
@@ -0,0 +1,39 @@
+package com.mahalaxmi.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * SweepCheckpoint entity recording how far a background sweep has got through its table, so a
+ * sweep interrupted by load or a restart resumes where it stopped.
+ */
+@Entity
+@Table(name = "sweep_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EntityListeners(AuditingEntityListener.class)
+public class SweepCheckpoint {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    /**
+     * Highest row ID the current pass has examined; 0 when the next pass starts from the beginning.
+     */
+    @Column(nullable = false)
+    private Long lastId;
+
+    @LastModifiedDate
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,24 @@
+package com.mahalaxmi.ecommerce.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Order event handler that records order activity in the application log.
+ */
+@Component
+@Slf4j
+public class LoggingOrderEventHandler implements OrderEventHandler {
+
+    @Override
+    public void onOrderCreated(OrderCreatedEvent event, long eventId) {
+        log.info("Order {} created for user {} with {} items, total {}",
+                event.getOrderNumber(), event.getUserId(), event.getItems().size(), event.getTotal());
+    }
+
+    @Override
+    public void onOrderStatusChanged(OrderStatusChangedEvent event, long eventId) {
+        log.info("Order {} moved from {} to {}",
+                event.getOrderNumber(), event.getPreviousStatus(), event.getStatus());
+    }
+}
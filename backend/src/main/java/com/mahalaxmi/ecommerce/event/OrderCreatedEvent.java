@@ -0,0 +1,37 @@
+package com.mahalaxmi.ecommerce.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Event published when a customer places an order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderCreatedEvent {
+
+    private Long orderId;
+    private String orderNumber;
+    private Long userId;
+    private BigDecimal total;
+    private List<Line> items;
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Line {
+        private Long productId;
+        private Integer quantity;
+        private BigDecimal price;
+    }
+}
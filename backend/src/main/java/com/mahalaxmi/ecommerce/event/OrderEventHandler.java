@@ -0,0 +1,29 @@
+package com.mahalaxmi.ecommerce.event;
+
+/**
+ * Handler for order events delivered from the transactional outbox.
+ * <p>
+ * Every Spring bean implementing this interface receives each event at least once, on a
+ * dispatcher worker thread and after the originating transaction has committed. Handlers must
+ * be idempotent: a failure in any handler causes the event to be redelivered to all of them.
+ */
+public interface OrderEventHandler {
+
+    /**
+     * Called after an order has been created.
+     *
+     * @param event the event
+     * @param eventId outbox event ID, unique and increasing
+     */
+    default void onOrderCreated(OrderCreatedEvent event, long eventId) {
+    }
+
+    /**
+     * Called after an order's status has changed.
+     *
+     * @param event the event
+     * @param eventId outbox event ID, unique and increasing
+     */
+    default void onOrderStatusChanged(OrderStatusChangedEvent event, long eventId) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.mahalaxmi.ecommerce.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event published when an order moves to a new status.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStatusChangedEvent {
+
+    private Long orderId;
+    private String orderNumber;
+    private Long userId;
+    private String previousStatus;
+    private String status;
+    private String trackingNumber;
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,24 @@
+package com.mahalaxmi.ecommerce.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.List;
+
+/**
+ * Exception thrown when cart lines can no longer be ordered as they are, listing every problem found.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CheckoutValidationException extends RuntimeException {
+
+    private final List<String> problems;
+
+    public CheckoutValidationException(List<String> problems) {
+        super("Some items in your cart cannot be ordered: " + String.join("; ", problems));
+        this.problems = problems;
+    }
+
+    public List<String> getProblems() {
+        return problems;
+    }
+}
@@ -0,0 +1,21 @@
+package com.mahalaxmi.ecommerce.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception thrown when an Idempotency-Key cannot be honoured: the key is still being
+ * processed by another request, or it was already used with a different request body.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public IdempotencyConflictException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
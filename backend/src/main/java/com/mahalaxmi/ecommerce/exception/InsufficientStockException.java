@@ -0,0 +1,22 @@
+package com.mahalaxmi.ecommerce.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when an order line cannot be reserved because stock ran out.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InsufficientStockException extends RuntimeException {
+
+    private final Long productId;
+
+    public InsufficientStockException(Long productId, String productName) {
+        super(String.format("Insufficient stock for product: '%s'", productName));
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
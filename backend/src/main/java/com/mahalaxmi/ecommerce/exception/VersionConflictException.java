@@ -0,0 +1,23 @@
+package com.mahalaxmi.ecommerce.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a change was based on a version of a cart or product that someone else
+ * has since changed, carrying the current state so the client can redo the change on top of it.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class VersionConflictException extends RuntimeException {
+
+    private final transient Object current;
+
+    public VersionConflictException(String message, Object current) {
+        super(message);
+        this.current = current;
+    }
+
+    public Object getCurrent() {
+        return current;
+    }
+}
@@ -11,7 +11,7 @@ import java.util.Optional;
  * Repository interface for Address entity operations.
  */
 @Repository
-public interface AddressRepository extends JpaRepository<Address, Long> {
+public interface AddressRepository extends JpaRepository<Address, Long>, AddressRepositoryCustom {
     
     /**
      * Find all addresses for a specific user.
@@ -28,4 +28,13 @@ public interface AddressRepository extends JpaRepository<Address, Long> {
      * @return Optional containing the default address if found
      */
     Optional<Address> findByUserIdAndIsDefaultTrue(Long userId);
+    
+    /**
+     * Find a user's address by the hash of its normalized content.
+     *
+     * @param userId the user ID
+     * @param contentHash the content hash
+     * @return Optional containing the address if found
+     */
+    Optional<Address> findByUserIdAndContentHash(Long userId, String contentHash);
 }
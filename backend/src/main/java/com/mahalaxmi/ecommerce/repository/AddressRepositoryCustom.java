@@ -0,0 +1,19 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.entity.Address;
+
+/**
+ * Custom JDBC-backed address writes used at checkout.
+ */
+public interface AddressRepositoryCustom {
+
+    /**
+     * Insert an address, or find the owner's existing row with the same content hash, in a single
+     * statement. Runs in the caller's transaction; a concurrent insert of the same address waits
+     * on the unique (user_id, content_hash) index instead of failing the transaction.
+     *
+     * @param address the address to insert; its user and content hash must be set
+     * @return the ID of the inserted or existing row
+     */
+    long upsert(Address address);
+}
@@ -0,0 +1,44 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.entity.Address;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * JDBC implementation of {@link AddressRepositoryCustom}.
+ */
+@RequiredArgsConstructor
+public class AddressRepositoryCustomImpl implements AddressRepositoryCustom {
+
+    // LAST_INSERT_ID(id) makes the existing row's ID the statement's insert ID on a duplicate
+    private static final String UPSERT_SQL = """
+            INSERT INTO addresses (user_id, street, city, state, postal_code, country, type, is_default,
+                                   content_hash, created_at, updated_at)
+            VALUES (:userId, :street, :city, :state, :postalCode, :country, :type, :isDefault,
+                    :contentHash, :now, :now)
+            ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public long upsert(Address address) {
+        jdbcTemplate.update(UPSERT_SQL, new MapSqlParameterSource()
+                .addValue("userId", address.getUser().getId())
+                .addValue("street", address.getStreet())
+                .addValue("city", address.getCity())
+                .addValue("state", address.getState())
+                .addValue("postalCode", address.getPostalCode())
+                .addValue("country", address.getCountry())
+                .addValue("type", address.getType().name())
+                .addValue("isDefault", address.getIsDefault())
+                .addValue("contentHash", address.getContentHash())
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now())));
+        // Same connection as the insert: the caller's transaction
+        return jdbcTemplate.getJdbcTemplate().queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+    }
+}
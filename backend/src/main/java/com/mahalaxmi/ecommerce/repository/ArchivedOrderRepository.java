@@ -0,0 +1,61 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.entity.ArchivedOrder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for ArchivedOrder entity operations.
+ */
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+    
+    /**
+     * Find an archived order by order number.
+     *
+     * @param orderNumber the order number
+     * @return Optional containing the archived order if found
+     */
+    Optional<ArchivedOrder> findByOrderNumber(String orderNumber);
+    
+    /**
+     * Search archived orders by order number or customer email, newest first.
+     *
+     * @param keyword search keyword
+     * @param pageable pagination information
+     * @return page of archived orders
+     */
+    @Query("SELECT a FROM ArchivedOrder a WHERE a.orderNumber LIKE %:keyword% OR a.customerEmail LIKE %:keyword% " +
+           "ORDER BY a.createdAt DESC")
+    Page<ArchivedOrder> search(@Param("keyword") String keyword, Pageable pageable);
+    
+    /**
+     * Find all archived orders, newest first.
+     *
+     * @param pageable pagination information
+     * @return page of archived orders
+     */
+    Page<ArchivedOrder> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    
+    /**
+     * Sum total revenue for archived orders with PAID payment status.
+     */
+    @Query("SELECT COALESCE(SUM(a.total), 0) FROM ArchivedOrder a WHERE a.paymentStatus = 'PAID'")
+    BigDecimal sumTotalRevenue();
+    
+    /**
+     * Count archived orders per status.
+     *
+     * @return rows of [OrderStatus, Long]
+     */
+    @Query("SELECT a.status, COUNT(a) FROM ArchivedOrder a GROUP BY a.status")
+    List<Object[]> countByStatus();
+}
@@ -0,0 +1,32 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.entity.ArchivedProductSales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Repository interface for ArchivedProductSales entity operations.
+ */
+@Repository
+public interface ArchivedProductSalesRepository extends JpaRepository<ArchivedProductSales, Long> {
+    
+    /**
+     * Add archived sales to a product's totals, creating its row on first use.
+     *
+     * @param productId the product ID
+     * @param quantity units sold
+     * @param revenue revenue from those units
+     */
+    @Modifying
+    @Query(value = "INSERT INTO archived_product_sales (product_id, quantity_sold, revenue) " +
+                   "VALUES (:productId, :quantity, :revenue) " +
+                   "ON DUPLICATE KEY UPDATE quantity_sold = quantity_sold + VALUES(quantity_sold), " +
+                   "revenue = revenue + VALUES(revenue)",
+           nativeQuery = true)
+    void add(@Param("productId") Long productId, @Param("quantity") long quantity, @Param("revenue") BigDecimal revenue);
+}
@@ -1,16 +1,22 @@
 package com.mahalaxmi.ecommerce.repository;
 
+import com.mahalaxmi.ecommerce.dto.CheckoutLine;
 import com.mahalaxmi.ecommerce.entity.Cart;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository interface for Cart entity operations.
  */
 @Repository
-public interface CartRepository extends JpaRepository<Cart, Long> {
+public interface CartRepository extends JpaRepository<Cart, Long>, CartRepositoryCustom {
     
     /**
      * Find a cart by user ID.
@@ -19,4 +25,47 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
      * @return Optional containing the cart if found
      */
     Optional<Cart> findByUserId(Long userId);
+    
+    /**
+     * Find the ID of a user's cart.
+     *
+     * @param userId the user ID
+     * @return Optional containing the cart ID if the user has a cart
+     */
+    @Query("SELECT c.id FROM Cart c WHERE c.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+    
+    /**
+     * Find a user's cart with its items, their products and categories in one query.
+     *
+     * @param userId the user ID
+     * @return Optional containing the cart if found
+     */
+    @EntityGraph(attributePaths = {"items", "items.product", "items.product.category"})
+    @Query("SELECT c FROM Cart c WHERE c.user.id = :userId")
+    Optional<Cart> findWithItemsByUserId(@Param("userId") Long userId);
+    
+    /**
+     * Read a user's cart lines with the current price, stock, status, category, brand and first
+     * image of each product in a single query.
+     *
+     * @param userId the user ID
+     * @return cart lines in product ID order
+     */
+    @Query("SELECT new com.mahalaxmi.ecommerce.dto.CheckoutLine(" +
+           "c.id, p.id, p.name, cat.id, p.brand, p.price, p.stockQuantity, p.active, p.flashSale, ci.quantity, img) " +
+           "FROM Cart c JOIN c.items ci JOIN ci.product p LEFT JOIN p.category cat " +
+           "LEFT JOIN p.imageUrls img ON INDEX(img) = 0 " +
+           "WHERE c.user.id = :userId ORDER BY p.id")
+    List<CheckoutLine> findCheckoutLines(@Param("userId") Long userId);
+    
+    /**
+     * Remove all items from a cart.
+     *
+     * @param cartId the cart ID
+     * @return number of items removed
+     */
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
+    int deleteItemsByCartId(@Param("cartId") Long cartId);
 }
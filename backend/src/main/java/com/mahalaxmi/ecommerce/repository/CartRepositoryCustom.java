@@ -0,0 +1,73 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom JDBC-backed cart writes used by the in-memory cart store.
+ */
+public interface CartRepositoryCustom {
+
+    /**
+     * A cart line's new quantity, written only if the line is still at the version it was read at.
+     */
+    record ItemQuantity(long itemId, int quantity, long expectedVersion) {
+    }
+
+    /**
+     * A cart's new version, written only if the cart is still at the version it was read at.
+     */
+    record CartVersion(long cartId, long expectedVersion, long version) {
+    }
+
+    /**
+     * Insert an empty cart for a user.
+     *
+     * @return the new cart ID
+     */
+    long insertCart(Long userId);
+
+    /**
+     * Add quantities to a cart's lines with a single batched upsert, inserting lines for products
+     * not yet in the cart.
+     *
+     * @param quantitiesByProductId quantity to add per product ID
+     */
+    void upsertItems(Long cartId, Map<Long, Integer> quantitiesByProductId);
+
+    /**
+     * Insert a cart line.
+     *
+     * @return the new cart item ID
+     */
+    long insertItem(Long cartId, Long productId, int quantity);
+
+    /**
+     * Set the quantity of several cart lines with a single batched UPDATE, incrementing their
+     * versions. Lines whose version has changed since they were read are left as they are.
+     *
+     * @return IDs of the lines not updated because another writer changed them
+     */
+    List<Long> updateQuantities(Collection<ItemQuantity> updates);
+
+    /**
+     * Delete cart lines by ID.
+     *
+     * @return number of lines deleted
+     */
+    int deleteItems(Collection<Long> itemIds);
+
+    /**
+     * Set the last-modified time of carts to now and their versions to the given ones, with a
+     * single batched UPDATE. Carts whose version has changed since they were read are left as they are.
+     *
+     * @return IDs of the carts not updated because another writer changed them
+     */
+    List<Long> touch(Collection<CartVersion> versions);
+
+    /**
+     * Set the last-modified time of a cart to now and increment its version.
+     */
+    void incrementVersion(Long cartId);
+}
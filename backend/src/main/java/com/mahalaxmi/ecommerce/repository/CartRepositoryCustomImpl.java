@@ -0,0 +1,135 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC implementation of {@link CartRepositoryCustom}.
+ */
+@RequiredArgsConstructor
+public class CartRepositoryCustomImpl implements CartRepositoryCustom {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public long insertCart(Long userId) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(
+                "INSERT INTO carts (user_id, version, created_at, updated_at) VALUES (:userId, 0, :now, :now)",
+                new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("now", now),
+                keyHolder, new String[]{"id"});
+        return keyHolder.getKey().longValue();
+    }
+
+    @Override
+    public void upsertItems(Long cartId, Map<Long, Integer> quantitiesByProductId) {
+        if (quantitiesByProductId.isEmpty()) {
+            return;
+        }
+        // Relies on the unique (cart_id, product_id) constraint on cart_items; see database/dedupe_cart_items.sql
+        List<Map.Entry<Long, Integer>> upserts = new ArrayList<>(quantitiesByProductId.entrySet());
+        jdbcTemplate.getJdbcTemplate().batchUpdate(
+                "INSERT INTO cart_items (cart_id, product_id, quantity, version) VALUES (?, ?, ?, 0) "
+                        + "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), version = version + 1",
+                upserts, upserts.size(), (ps, upsert) -> {
+                    ps.setLong(1, cartId);
+                    ps.setLong(2, upsert.getKey());
+                    ps.setInt(3, upsert.getValue());
+                });
+    }
+
+    @Override
+    public long insertItem(Long cartId, Long productId, int quantity) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(
+                "INSERT INTO cart_items (cart_id, product_id, quantity, version) VALUES (:cartId, :productId, :quantity, 0)",
+                new MapSqlParameterSource()
+                        .addValue("cartId", cartId)
+                        .addValue("productId", productId)
+                        .addValue("quantity", quantity),
+                keyHolder, new String[]{"id"});
+        return keyHolder.getKey().longValue();
+    }
+
+    @Override
+    public List<Long> updateQuantities(Collection<ItemQuantity> updates) {
+        if (updates.isEmpty()) {
+            return List.of();
+        }
+        List<ItemQuantity> batch = new ArrayList<>(updates);
+        int[][] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(
+                "UPDATE cart_items SET quantity = ?, version = version + 1 WHERE id = ? AND version = ?",
+                batch, batch.size(), (ps, update) -> {
+                    ps.setInt(1, update.quantity());
+                    ps.setLong(2, update.itemId());
+                    ps.setLong(3, update.expectedVersion());
+                });
+        return notUpdated(counts, batch.stream().map(ItemQuantity::itemId).toList());
+    }
+
+    @Override
+    public int deleteItems(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update("DELETE FROM cart_items WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", itemIds));
+    }
+
+    @Override
+    public List<Long> touch(Collection<CartVersion> versions) {
+        if (versions.isEmpty()) {
+            return List.of();
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<CartVersion> batch = new ArrayList<>(versions);
+        int[][] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(
+                "UPDATE carts SET updated_at = ?, version = ? WHERE id = ? AND version = ?",
+                batch, batch.size(), (ps, update) -> {
+                    ps.setTimestamp(1, now);
+                    ps.setLong(2, update.version());
+                    ps.setLong(3, update.cartId());
+                    ps.setLong(4, update.expectedVersion());
+                });
+        return notUpdated(counts, batch.stream().map(CartVersion::cartId).toList());
+    }
+
+    @Override
+    public void incrementVersion(Long cartId) {
+        jdbcTemplate.update("UPDATE carts SET updated_at = :now, version = version + 1 WHERE id = :id",
+                new MapSqlParameterSource()
+                        .addValue("now", Timestamp.valueOf(LocalDateTime.now()))
+                        .addValue("id", cartId));
+    }
+
+    /**
+     * IDs of the batch's rows that matched nothing. Rewritten MySQL batches of UPDATEs run as one
+     * multi-statement query and still report each statement's row count.
+     */
+    private static List<Long> notUpdated(int[][] counts, List<Long> ids) {
+        List<Long> notUpdated = new ArrayList<>();
+        int i = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                if (count == 0) {
+                    notUpdated.add(ids.get(i));
+                }
+                i++;
+            }
+        }
+        return notUpdated;
+    }
+}
@@ -2,6 +2,7 @@ package com.mahalaxmi.ecommerce.repository;
 
 import com.mahalaxmi.ecommerce.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -42,4 +43,20 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @return list of subcategories
      */
     List<Category> findByParentIdAndActiveTrue(Long parentId);
+    
+    /**
+     * Find the parent of every category as [id, parentId] pairs; parentId is null for roots.
+     *
+     * @return list of id and parent ID pairs
+     */
+    @Query("SELECT c.id, parent.id FROM Category c LEFT JOIN c.parent parent")
+    List<Object[]> findAllParentIds();
+    
+    /**
+     * Find every category as [id, name, parentId] rows; parentId is null for roots.
+     *
+     * @return list of id, name and parent ID rows
+     */
+    @Query("SELECT c.id, c.name, parent.id FROM Category c LEFT JOIN c.parent parent")
+    List<Object[]> findAllNamesAndParentIds();
 }
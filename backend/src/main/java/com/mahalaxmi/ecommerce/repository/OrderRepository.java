@@ -3,6 +3,7 @@ package com.mahalaxmi.ecommerce.repository;
 import com.mahalaxmi.ecommerce.entity.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,7 +19,7 @@ import java.util.Optional;
  * Repository interface for Order entity operations.
  */
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
     
     /**
      * Find an order by order number.
@@ -45,13 +47,62 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     Page<Order> findAllByOrderByCreatedAtDesc(Pageable pageable);
     
     /**
-     * Find orders by status.
+     * Find a page of all order IDs, newest first (admin view).
+     *
+     * @param pageable pagination information
+     * @return page of order IDs
+     */
+    @Query(value = "SELECT o.id FROM Order o ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<Long> findAllIds(Pageable pageable);
+    
+    /**
+     * Find a page of order IDs with the given status, newest first.
      *
      * @param status the order status
      * @param pageable pagination information
-     * @return page of orders with the specified status
+     * @return page of order IDs
+     */
+    @Query(value = "SELECT o.id FROM Order o WHERE o.status = :status ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status = :status")
+    Page<Long> findIdsByStatus(@Param("status") Order.OrderStatus status, Pageable pageable);
+    
+    /**
+     * Find a page of order IDs matching an order number or user email, newest first.
+     *
+     * @param keyword search keyword
+     * @param pageable pagination information
+     * @return page of order IDs
+     */
+    @Query(value = "SELECT o.id FROM Order o WHERE o.orderNumber LIKE %:keyword% OR o.user.email LIKE %:keyword% " +
+                   "ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.orderNumber LIKE %:keyword% OR o.user.email LIKE %:keyword%")
+    Page<Long> searchOrderIds(@Param("keyword") String keyword, Pageable pageable);
+    
+    /**
+     * Load orders with their items, item products and addresses in a single query.
+     * Product image lists are loaded in batches (see hibernate.default_batch_fetch_size).
+     *
+     * @param ids order IDs
+     * @return orders in no particular order
+     */
+    @EntityGraph(attributePaths = {"items", "items.product", "shippingAddress", "billingAddress"})
+    @Query("SELECT DISTINCT o FROM Order o WHERE o.id IN :ids")
+    List<Order> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Find IDs of orders in the given statuses last updated before a cut-off, oldest first.
+     *
+     * @param statuses order statuses eligible for archiving
+     * @param before cut-off time
+     * @param pageable batch size
+     * @return order IDs
      */
-    Page<Order> findByStatusOrderByCreatedAtDesc(Order.OrderStatus status, Pageable pageable);
+    @Query("SELECT o.id FROM Order o WHERE o.status IN :statuses AND o.createdAt < :before " +
+           "AND o.updatedAt < :before ORDER BY o.createdAt")
+    List<Long> findArchivableIds(@Param("statuses") Collection<Order.OrderStatus> statuses,
+                                 @Param("before") LocalDateTime before,
+                                 Pageable pageable);
     
     /**
      * Count orders by status.
@@ -0,0 +1,63 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.entity.Order;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom JDBC-backed operations for Order that bypass entity loading.
+ */
+public interface OrderRepositoryCustom {
+
+    /**
+     * Current status of an order, as read by {@link #lockStatuses}.
+     */
+    record StatusRow(Long id, String orderNumber, Long userId, Order.OrderStatus status, String trackingNumber) {
+    }
+
+    /**
+     * A status change to apply with {@link #batchUpdateStatus}.
+     */
+    record StatusUpdate(Long id, Order.OrderStatus status, String trackingNumber) {
+    }
+
+    /**
+     * Units sold and revenue of one product across paid orders, as read by {@link #findTopSellingProducts}.
+     */
+    record ProductSales(Long productId, String productName, long quantitySold, BigDecimal revenue) {
+    }
+
+    /**
+     * Read and lock the status of the given orders until the current transaction ends.
+     *
+     * @param ids order IDs
+     * @return rows for the orders that exist
+     */
+    List<StatusRow> lockStatuses(Collection<Long> ids);
+
+    /**
+     * Apply status changes with a single batched UPDATE. Sets shippedAt or deliveredAt the first
+     * time an order reaches SHIPPED or DELIVERED; a null tracking number keeps the current one.
+     *
+     * @param updates the changes to apply
+     */
+    void batchUpdateStatus(List<StatusUpdate> updates);
+
+    /**
+     * Best-selling products by units sold across paid orders, live and archived.
+     *
+     * @param limit maximum number of products
+     * @return products, best-selling first
+     */
+    List<ProductSales> findTopSellingProducts(int limit);
+
+    /**
+     * Revenue of paid orders, live and archived, per product category.
+     *
+     * @return revenue per category name, highest first; products without a category are under "Uncategorized"
+     */
+    Map<String, BigDecimal> sumSalesByCategory();
+}
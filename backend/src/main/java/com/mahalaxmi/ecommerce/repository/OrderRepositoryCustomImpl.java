@@ -0,0 +1,105 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.entity.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC implementation of {@link OrderRepositoryCustom}.
+ */
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE orders SET status = ?, tracking_number = COALESCE(?, tracking_number), " +
+            "shipped_at = CASE WHEN ? = 'SHIPPED' THEN COALESCE(shipped_at, ?) ELSE shipped_at END, " +
+            "delivered_at = CASE WHEN ? = 'DELIVERED' THEN COALESCE(delivered_at, ?) ELSE delivered_at END, " +
+            "updated_at = ? WHERE id = ?";
+
+    // Paid order lines from the hot tables plus the per-product totals of archived orders
+    private static final String PAID_SALES_SQL = """
+            SELECT i.product_id, i.quantity, i.subtotal AS revenue
+            FROM order_items i JOIN orders o ON o.id = i.order_id
+            WHERE o.payment_status = 'PAID'
+            UNION ALL
+            SELECT product_id, quantity_sold, revenue FROM archived_product_sales
+            """;
+
+    private static final String TOP_SELLING_PRODUCTS_SQL =
+            "SELECT s.product_id, p.name, SUM(s.quantity) AS quantity_sold, SUM(s.revenue) AS revenue " +
+            "FROM (" + PAID_SALES_SQL + ") s JOIN products p ON p.id = s.product_id " +
+            "GROUP BY s.product_id, p.name ORDER BY quantity_sold DESC, s.product_id LIMIT :limit";
+
+    private static final String SALES_BY_CATEGORY_SQL =
+            "SELECT COALESCE(c.name, 'Uncategorized') AS category, SUM(s.revenue) AS revenue " +
+            "FROM (" + PAID_SALES_SQL + ") s JOIN products p ON p.id = s.product_id " +
+            "LEFT JOIN categories c ON c.id = p.category_id " +
+            "GROUP BY COALESCE(c.name, 'Uncategorized') ORDER BY revenue DESC";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<StatusRow> lockStatuses(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+                "SELECT id, order_number, user_id, status, tracking_number FROM orders " +
+                "WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+                new MapSqlParameterSource("ids", ids),
+                (rs, rowNum) -> new StatusRow(
+                        rs.getLong("id"),
+                        rs.getString("order_number"),
+                        rs.getLong("user_id"),
+                        Order.OrderStatus.valueOf(rs.getString("status")),
+                        rs.getString("tracking_number")));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void batchUpdateStatus(List<StatusUpdate> updates) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_STATUS_SQL, updates, updates.size(), (ps, update) -> {
+            String status = update.status().name();
+            ps.setString(1, status);
+            ps.setString(2, update.trackingNumber());
+            ps.setString(3, status);
+            ps.setTimestamp(4, now);
+            ps.setString(5, status);
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+            ps.setLong(8, update.id());
+        });
+    }
+
+    @Override
+    public List<ProductSales> findTopSellingProducts(int limit) {
+        return jdbcTemplate.query(TOP_SELLING_PRODUCTS_SQL, new MapSqlParameterSource("limit", limit),
+                (rs, rowNum) -> new ProductSales(
+                        rs.getLong("product_id"),
+                        rs.getString("name"),
+                        rs.getLong("quantity_sold"),
+                        rs.getBigDecimal("revenue")));
+    }
+
+    @Override
+    public Map<String, BigDecimal> sumSalesByCategory() {
+        Map<String, BigDecimal> salesByCategory = new LinkedHashMap<>();
+        jdbcTemplate.query(SALES_BY_CATEGORY_SQL, rs -> {
+            salesByCategory.put(rs.getString("category"), rs.getBigDecimal("revenue"));
+        });
+        return salesByCategory;
+    }
+}
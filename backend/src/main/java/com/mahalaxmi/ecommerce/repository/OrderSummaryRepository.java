@@ -0,0 +1,54 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.entity.Order;
+import com.mahalaxmi.ecommerce.entity.OrderSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for OrderSummary entity operations.
+ */
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+    
+    /**
+     * Find the newest order summaries for a user.
+     *
+     * @param userId the user ID
+     * @param pageable limit (page number is ignored)
+     * @return summaries, newest first
+     */
+    @Query("SELECT s FROM OrderSummary s WHERE s.userId = :userId ORDER BY s.createdAt DESC, s.orderId DESC")
+    List<OrderSummary> findFirstPage(@Param("userId") Long userId, Pageable pageable);
+    
+    /**
+     * Find the order summaries for a user that come after the given position.
+     *
+     * @param userId the user ID
+     * @param createdAt creation time of the last summary already returned
+     * @param orderId order ID of the last summary already returned
+     * @param pageable limit (page number is ignored)
+     * @return summaries, newest first
+     */
+    @Query("SELECT s FROM OrderSummary s WHERE s.userId = :userId " +
+           "AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.orderId < :orderId)) " +
+           "ORDER BY s.createdAt DESC, s.orderId DESC")
+    List<OrderSummary> findPageAfter(@Param("userId") Long userId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("orderId") Long orderId,
+                                     Pageable pageable);
+    
+    /**
+     * Update the status shown for an order.
+     */
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.status = :status WHERE s.orderId = :orderId")
+    int updateStatus(@Param("orderId") Long orderId, @Param("status") Order.OrderStatus status);
+}
@@ -0,0 +1,73 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for OutboxEvent entity operations.
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    /**
+     * Lock the next batch of due events, skipping rows already locked by another dispatcher.
+     * Includes in-progress events whose lease has run out. Only the oldest undelivered event of
+     * each aggregate is returned, so an aggregate's events are delivered one at a time and in
+     * order, even while an earlier one waits for a retry; events parked as FAILED no longer hold
+     * back later ones.
+     *
+     * @param now the current time
+     * @param pageable batch size
+     * @return due events in ID order, at most one per aggregate
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status IN ('PENDING', 'IN_PROGRESS') " +
+           "AND e.nextAttemptAt <= :now " +
+           "AND NOT EXISTS (SELECT 1 FROM OutboxEvent p WHERE p.aggregateType = e.aggregateType " +
+           "AND p.aggregateId = e.aggregateId AND p.id < e.id AND p.status IN ('PENDING', 'IN_PROGRESS')) " +
+           "ORDER BY e.id")
+    List<OutboxEvent> lockDueEvents(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * Mark an event as delivered.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.status = 'DISPATCHED', " +
+           "e.dispatchedAt = :now, e.lastError = null WHERE e.id = :id")
+    int markDispatched(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    /**
+     * Record a failed delivery attempt and schedule the next one.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.attempts = e.attempts + 1, " +
+           "e.nextAttemptAt = :nextAttemptAt, e.lastError = :error WHERE e.id = :id")
+    int markFailedAttempt(@Param("id") Long id,
+                          @Param("status") OutboxEvent.Status status,
+                          @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                          @Param("error") String error);
+    
+    /**
+     * Delete delivered events older than the given time.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = 'DISPATCHED' AND e.dispatchedAt < :before")
+    int deleteDispatchedBefore(@Param("before") LocalDateTime before);
+}
@@ -4,6 +4,7 @@ import com.mahalaxmi.ecommerce.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,7 +15,7 @@ import java.util.List;
  * Repository interface for Product entity operations.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     
     /**
      * Find all active products.
@@ -79,4 +80,31 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     @Query("SELECT DISTINCT p.brand FROM Product p WHERE p.active = true AND p.brand IS NOT NULL ORDER BY p.brand")
     List<String> findAllBrands();
+    
+    /**
+     * Atomically reserve stock for a product, only if enough is available after keeping back
+     * units held by other shoppers' carts.
+     * Products in flash-sale mode are skipped; their stock is reserved in memory.
+     *
+     * @param id the product ID
+     * @param quantity the quantity to reserve
+     * @param heldByOthers units held for other shoppers, which must stay in stock
+     * @return 1 if the stock was decremented, 0 if there was not enough stock or the product is in flash-sale mode
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.version = p.version + 1 " +
+           "WHERE p.id = :id AND p.stockQuantity - :heldByOthers >= :quantity AND p.flashSale = false")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("heldByOthers") int heldByOthers);
+    
+    /**
+     * Return previously reserved stock for a product.
+     *
+     * @param id the product ID
+     * @param quantity the quantity to release
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity, p.version = p.version + 1 " +
+           "WHERE p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
 }
@@ -0,0 +1,47 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.dto.BulkProductUpdateRequest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Custom JDBC-backed operations for Product that bypass entity loading.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Find which of the given product IDs exist.
+     *
+     * @param ids candidate product IDs
+     * @return the subset of IDs present in the products table
+     */
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Find which of the given product IDs are in flash-sale mode.
+     *
+     * @param ids candidate product IDs
+     * @return the subset of IDs whose stock is held by the flash-sale counter
+     */
+    Set<Long> findFlashSaleIds(Collection<Long> ids);
+
+    /**
+     * Apply price and stock changes with a single batched UPDATE per chunk.
+     * Null fields leave the current column value untouched. Stock changes for products in
+     * flash-sale mode are not applied.
+     *
+     * @param items the updates to apply
+     * @return how many updates were sent and how many rows the database confirmed as updated
+     */
+    UpdateCounts batchUpdatePriceAndStock(List<BulkProductUpdateRequest.Item> items);
+
+    /**
+     * Outcome of a batched update. {@code updated} only counts rows the driver reported, so it is
+     * lower than {@code submitted} when a row no longer matched or the driver did not report
+     * counts for a rewritten batch.
+     */
+    record UpdateCounts(int submitted, int updated) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.dto.BulkProductUpdateRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JDBC implementation of {@link ProductRepositoryCustom}.
+ */
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String UPDATE_PRICE_AND_STOCK_SQL =
+            "UPDATE products SET price = COALESCE(?, price), " +
+            "stock_quantity = COALESCE(?, stock_quantity), updated_at = ?, version = version + 1 " +
+            "WHERE id = ? AND (? IS NULL OR flash_sale = false)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids),
+                Long.class));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<Long> findFlashSaleIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE id IN (:ids) AND flash_sale = true",
+                new MapSqlParameterSource("ids", ids),
+                Long.class));
+    }
+
+    @Override
+    @Transactional
+    public UpdateCounts batchUpdatePriceAndStock(List<BulkProductUpdateRequest.Item> items) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(
+                UPDATE_PRICE_AND_STOCK_SQL, items, items.size(), (ps, item) -> {
+                    ps.setObject(1, item.getPrice(), Types.DECIMAL);
+                    ps.setObject(2, item.getStockQuantity(), Types.INTEGER);
+                    ps.setTimestamp(3, now);
+                    ps.setLong(4, item.getId());
+                    ps.setObject(5, item.getStockQuantity(), Types.INTEGER);
+                });
+
+        int updated = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                // SUCCESS_NO_INFO says the statement ran, not that it matched a row
+                if (count > 0) {
+                    updated += count;
+                }
+            }
+        }
+        return new UpdateCounts(items.size(), updated);
+    }
+}
@@ -0,0 +1,29 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.entity.Promotion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for Promotion entity operations.
+ */
+@Repository
+public interface PromotionRepository extends JpaRepository<Promotion, Long> {
+
+    /**
+     * Find all active promotions.
+     *
+     * @return list of active promotions
+     */
+    List<Promotion> findByActiveTrue();
+
+    /**
+     * Check whether another promotion already uses a coupon code.
+     *
+     * @param code the coupon code
+     * @return true if the code is taken
+     */
+    boolean existsByCode(String code);
+}
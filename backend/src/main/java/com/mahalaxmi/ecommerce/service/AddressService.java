@@ -0,0 +1,140 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.dto.CreateOrderRequest;
+import com.mahalaxmi.ecommerce.entity.Address;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.repository.AddressRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Service for resolving checkout addresses to address rows.
+ * <p>
+ * Addresses are matched on a hash of their normalized fields (trimmed, whitespace collapsed,
+ * lower-cased, spaces removed from the postal code), so a repeat customer shipping to the same
+ * place reuses one row. Recently resolved addresses are remembered in a bounded LRU cache;
+ * a newly inserted address is cached only once its transaction commits.
+ * The normalization must stay in step with {@code database/dedupe_addresses.sql}.
+ */
+@Service
+public class AddressService {
+
+    private final AddressRepository addressRepository;
+    private final Map<String, Long> addressIdCache;
+
+    public AddressService(
+            AddressRepository addressRepository,
+            @Value("${application.addresses.cache-size}") int cacheSize) {
+        this.addressRepository = addressRepository;
+        this.addressIdCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Find the user's existing address matching the given one, or create it.
+     * A new row is inserted in the caller's transaction with an upsert, so a concurrent checkout
+     * inserting the same address waits on the unique index and then reuses the row.
+     *
+     * @param user the address owner
+     * @param dto the address entered at checkout
+     * @return a reference to the address, usable in the caller's persistence context
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Address findOrCreate(User user, CreateOrderRequest.ShippingAddressDto dto) {
+        String contentHash = contentHash(dto);
+        String cacheKey = user.getId() + ":" + contentHash;
+
+        Long addressId = addressIdCache.get(cacheKey);
+        if (addressId == null) {
+            Long existingId = addressRepository.findByUserIdAndContentHash(user.getId(), contentHash)
+                    .map(Address::getId)
+                    .orElse(null);
+            if (existingId != null) {
+                addressId = existingId;
+                addressIdCache.put(cacheKey, addressId);
+            } else {
+                addressId = insert(user, dto, contentHash);
+                cacheAfterCommit(cacheKey, addressId);
+            }
+        }
+        return addressRepository.getReferenceById(addressId);
+    }
+
+    /**
+     * Forget cached IDs of addresses that have been deleted, so checkout looks them up again.
+     *
+     * @param addressIds IDs of the deleted addresses
+     */
+    public void evict(Collection<Long> addressIds) {
+        synchronized (addressIdCache) {
+            addressIdCache.values().removeAll(addressIds);
+        }
+    }
+
+    private Long insert(User user, CreateOrderRequest.ShippingAddressDto dto, String contentHash) {
+        return addressRepository.upsert(Address.builder()
+                .user(user)
+                .street(dto.getStreet().trim())
+                .city(dto.getCity().trim())
+                .state(dto.getState().trim())
+                .postalCode(dto.getPostalCode().trim())
+                .country(dto.getCountry().trim())
+                .type(Address.AddressType.SHIPPING)
+                .isDefault(false)
+                .contentHash(contentHash)
+                .build());
+    }
+
+    /**
+     * Cache an address ID once the transaction that may have inserted the row commits, so a rolled
+     * back insert is never handed to a later checkout.
+     */
+    private void cacheAfterCommit(String cacheKey, Long addressId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addressIdCache.put(cacheKey, addressId);
+            }
+        });
+    }
+
+    /**
+     * Hash of the normalized address fields.
+     */
+    static String contentHash(CreateOrderRequest.ShippingAddressDto dto) {
+        String normalized = String.join("|",
+                normalize(dto.getStreet()),
+                normalize(dto.getCity()),
+                normalize(dto.getState()),
+                normalize(dto.getPostalCode()).replace(" ", ""),
+                normalize(dto.getCountry()));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
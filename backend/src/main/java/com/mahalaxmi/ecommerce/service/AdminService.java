@@ -4,8 +4,9 @@ import com.mahalaxmi.ecommerce.dto.DashboardStatsDto;
 import com.mahalaxmi.ecommerce.dto.OrderDto;
 import com.mahalaxmi.ecommerce.dto.UpdateOrderStatusRequest;
 import com.mahalaxmi.ecommerce.dto.UserDto;
+import com.mahalaxmi.ecommerce.event.OrderStatusChangedEvent;
 import com.mahalaxmi.ecommerce.entity.Order;
-import com.mahalaxmi.ecommerce.entity.OrderItem;
+import com.mahalaxmi.ecommerce.entity.OutboxEvent;
 import com.mahalaxmi.ecommerce.entity.User;
 import com.mahalaxmi.ecommerce.exception.ResourceNotFoundException;
 import com.mahalaxmi.ecommerce.repository.CategoryRepository;
@@ -40,6 +41,9 @@ public class AdminService {
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
     private final OrderService orderService;
+    private final OutboxService outboxService;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderArchiveService orderArchiveService;
 
     /**
      * Get dashboard statistics with analytics.
@@ -52,9 +56,9 @@ public class AdminService {
         
         // Basic counts
         long totalProducts = productRepository.count();
-        long totalOrders = orderRepository.count();
+        long totalOrders = orderRepository.count() + orderArchiveService.count();
         long totalUsers = userRepository.count();
-        BigDecimal totalRevenue = orderRepository.sumTotalRevenue();
+        BigDecimal totalRevenue = orderRepository.sumTotalRevenue().add(orderArchiveService.sumTotalRevenue());
         
         // Today's stats
         long ordersToday = orderRepository.countByCreatedAtAfter(startOfToday);
@@ -66,8 +70,10 @@ public class AdminService {
         
         // Orders by status
         Map<String, Long> ordersByStatus = new LinkedHashMap<>();
+        Map<Order.OrderStatus, Long> archivedByStatus = orderArchiveService.countByStatus();
         for (Order.OrderStatus status : Order.OrderStatus.values()) {
-            ordersByStatus.put(status.name(), orderRepository.countByStatus(status));
+            ordersByStatus.put(status.name(),
+                    orderRepository.countByStatus(status) + archivedByStatus.getOrDefault(status, 0L));
         }
         
         // Daily sales for last 7 days
@@ -121,62 +127,24 @@ public class AdminService {
     }
     
     /**
-     * Get top selling products.
+     * Get top selling products across live and archived paid orders.
      */
     private List<DashboardStatsDto.TopProductDto> getTopProducts(int limit) {
-        List<Order> allOrders = orderRepository.findAll();
-        Map<Long, DashboardStatsDto.TopProductDto> productSales = new HashMap<>();
-        
-        for (Order order : allOrders) {
-            if (order.getPaymentStatus() == Order.PaymentStatus.PAID) {
-                for (OrderItem item : order.getItems()) {
-                    Long productId = item.getProduct().getId();
-                    DashboardStatsDto.TopProductDto existing = productSales.get(productId);
-                    
-                    if (existing == null) {
-                        productSales.put(productId, DashboardStatsDto.TopProductDto.builder()
-                                .productId(productId)
-                                .productName(item.getProduct().getName())
-                                .quantitySold(item.getQuantity())
-                                .totalRevenue(item.getSubtotal())
-                                .build());
-                    } else {
-                        productSales.put(productId, DashboardStatsDto.TopProductDto.builder()
-                                .productId(productId)
-                                .productName(existing.getProductName())
-                                .quantitySold(existing.getQuantitySold() + item.getQuantity())
-                                .totalRevenue(existing.getTotalRevenue().add(item.getSubtotal()))
-                                .build());
-                    }
-                }
-            }
-        }
-        
-        return productSales.values().stream()
-                .sorted((a, b) -> Long.compare(b.getQuantitySold(), a.getQuantitySold()))
-                .limit(limit)
+        return orderRepository.findTopSellingProducts(limit).stream()
+                .map(sales -> DashboardStatsDto.TopProductDto.builder()
+                        .productId(sales.productId())
+                        .productName(sales.productName())
+                        .quantitySold(sales.quantitySold())
+                        .totalRevenue(sales.revenue())
+                        .build())
                 .collect(Collectors.toList());
     }
     
     /**
-     * Get sales breakdown by category.
+     * Get sales breakdown by category across live and archived paid orders.
      */
     private Map<String, BigDecimal> getSalesByCategory() {
-        List<Order> allOrders = orderRepository.findAll();
-        Map<String, BigDecimal> salesByCategory = new LinkedHashMap<>();
-        
-        for (Order order : allOrders) {
-            if (order.getPaymentStatus() == Order.PaymentStatus.PAID) {
-                for (OrderItem item : order.getItems()) {
-                    String categoryName = item.getProduct().getCategory() != null 
-                            ? item.getProduct().getCategory().getName() 
-                            : "Uncategorized";
-                    salesByCategory.merge(categoryName, item.getSubtotal(), BigDecimal::add);
-                }
-            }
-        }
-        
-        return salesByCategory;
+        return orderRepository.sumSalesByCategory();
     }
     
     /**
@@ -184,8 +152,7 @@ public class AdminService {
      */
     @Transactional(readOnly = true)
     public Page<OrderDto> getAllOrders(Pageable pageable) {
-        return orderRepository.findAllByOrderByCreatedAtDesc(pageable)
-                .map(this::convertToOrderDto);
+        return orderService.loadOrderPage(orderRepository.findAllIds(pageable));
     }
     
     /**
@@ -193,8 +160,7 @@ public class AdminService {
      */
     @Transactional(readOnly = true)
     public Page<OrderDto> getOrdersByStatus(Order.OrderStatus status, Pageable pageable) {
-        return orderRepository.findByStatusOrderByCreatedAtDesc(status, pageable)
-                .map(this::convertToOrderDto);
+        return orderService.loadOrderPage(orderRepository.findIdsByStatus(status, pageable));
     }
     
     /**
@@ -202,8 +168,7 @@ public class AdminService {
      */
     @Transactional(readOnly = true)
     public Page<OrderDto> searchOrders(String keyword, Pageable pageable) {
-        return orderRepository.searchOrders(keyword, pageable)
-                .map(this::convertToOrderDto);
+        return orderService.loadOrderPage(orderRepository.searchOrderIds(keyword, pageable));
     }
     
     /**
@@ -214,9 +179,18 @@ public class AdminService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
         
+        Order.OrderStatus previousStatus = order.getStatus();
         Order.OrderStatus newStatus = Order.OrderStatus.valueOf(request.getStatus());
+        if (!previousStatus.canTransitionTo(newStatus)) {
+            throw new RuntimeException("Cannot change status from " + previousStatus + " to " + newStatus);
+        }
         order.setStatus(newStatus);
         
+        // Return reserved stock when an order is cancelled; a cancelled order cannot be reopened
+        if (newStatus == Order.OrderStatus.CANCELLED && previousStatus != Order.OrderStatus.CANCELLED) {
+            orderService.releaseStock(order);
+        }
+        
         if (request.getTrackingNumber() != null) {
             order.setTrackingNumber(request.getTrackingNumber());
         }
@@ -235,6 +209,20 @@ public class AdminService {
         Order savedOrder = orderRepository.save(order);
         log.info("Updated order {} status to {}", orderId, newStatus);
         
+        if (newStatus != previousStatus) {
+            orderSummaryService.recordStatusChanged(savedOrder.getId(), newStatus);
+            outboxService.publish("Order", savedOrder.getId(), OutboxEvent.EventType.ORDER_STATUS_CHANGED,
+                    OrderStatusChangedEvent.builder()
+                            .orderId(savedOrder.getId())
+                            .orderNumber(savedOrder.getOrderNumber())
+                            .userId(savedOrder.getUser().getId())
+                            .previousStatus(previousStatus.name())
+                            .status(newStatus.name())
+                            .trackingNumber(savedOrder.getTrackingNumber())
+                            .changedAt(LocalDateTime.now())
+                            .build());
+        }
+        
         return convertToOrderDto(savedOrder);
     }
     
@@ -247,13 +235,22 @@ public class AdminService {
     }
     
     /**
-     * Get order by ID (admin view - any order).
+     * Get order by ID (admin view - any order, including archived ones).
      */
     @Transactional(readOnly = true)
     public OrderDto getOrderById(Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        return orderRepository.findById(orderId)
+                .map(this::convertToOrderDto)
+                .or(() -> orderArchiveService.findById(null, orderId))
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
-        return convertToOrderDto(order);
+    }
+    
+    /**
+     * Search archived orders by order number or email (admin view).
+     */
+    @Transactional(readOnly = true)
+    public Page<OrderDto> searchArchivedOrders(String keyword, Pageable pageable) {
+        return orderArchiveService.search(keyword, pageable);
     }
     
     private OrderDto convertToOrderDto(Order order) {
@@ -4,9 +4,7 @@ import com.mahalaxmi.ecommerce.config.JwtService;
 import com.mahalaxmi.ecommerce.dto.AuthRequest;
 import com.mahalaxmi.ecommerce.dto.AuthResponse;
 import com.mahalaxmi.ecommerce.dto.RegisterRequest;
-import com.mahalaxmi.ecommerce.entity.Cart;
 import com.mahalaxmi.ecommerce.entity.User;
-import com.mahalaxmi.ecommerce.repository.CartRepository;
 import com.mahalaxmi.ecommerce.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,7 +23,6 @@ import org.springframework.transaction.annotation.Transactional;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final CartRepository cartRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
@@ -60,13 +57,7 @@ public class AuthService {
             user = userRepository.save(user);
             log.debug("User saved with ID: {}", user.getId());
 
-            // Create cart for new user
-            var cart = Cart.builder()
-                    .user(user)
-                    .build();
-            log.debug("Saving cart for user...");
-            cartRepository.save(cart);
-            log.debug("Cart created successfully");
+            // The cart row is created when the user first adds something to it
 
             var jwtToken = jwtService.generateToken(user);
             var refreshToken = jwtService.generateRefreshToken(user);
@@ -0,0 +1,246 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.dto.BulkOrderStatusUpdateRequest;
+import com.mahalaxmi.ecommerce.dto.BulkOrderStatusUpdateResponse;
+import com.mahalaxmi.ecommerce.entity.Order;
+import com.mahalaxmi.ecommerce.entity.OutboxEvent;
+import com.mahalaxmi.ecommerce.event.OrderStatusChangedEvent;
+import com.mahalaxmi.ecommerce.repository.OrderRepository;
+import com.mahalaxmi.ecommerce.repository.OrderRepositoryCustom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service for applying status changes to many orders at once, e.g. when the warehouse
+ * ships a day's orders.
+ * <p>
+ * Items are processed in chunks, each in its own transaction: the chunk's orders are locked
+ * and validated against the {@link Order.OrderStatus} lifecycle, valid changes are written with
+ * one batched UPDATE, and the usual side effects (order summary, outbox event, restock on
+ * cancellation) are applied. An invalid item fails on its own without affecting the others.
+ */
+@Service
+@Slf4j
+public class BulkOrderStatusService {
+
+    private static final int CHUNK_SIZE = 500;
+    // Failures listed in a manifest response; the counts cover every line
+    private static final int MAX_REPORTED_FAILURES = 1000;
+
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final OrderSummaryService orderSummaryService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+
+    public BulkOrderStatusService(
+            OrderRepository orderRepository,
+            OrderService orderService,
+            OrderSummaryService orderSummaryService,
+            OutboxService outboxService,
+            PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.orderSummaryService = orderSummaryService;
+        this.outboxService = outboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Apply a list of status changes.
+     *
+     * @param request the (orderId, status, trackingNumber) changes; later entries win for duplicate IDs
+     * @return per-order results
+     */
+    public BulkOrderStatusUpdateResponse updateStatuses(BulkOrderStatusUpdateRequest request) {
+        Map<Long, BulkOrderStatusUpdateRequest.Item> byId = new LinkedHashMap<>();
+        for (BulkOrderStatusUpdateRequest.Item item : request.getItems()) {
+            byId.put(item.getOrderId(), item);
+        }
+
+        List<BulkOrderStatusUpdateResponse.Result> results = new ArrayList<>(byId.size());
+        List<BulkOrderStatusUpdateRequest.Item> items = new ArrayList<>(byId.values());
+        for (int from = 0; from < items.size(); from += CHUNK_SIZE) {
+            results.addAll(applyChunk(items.subList(from, Math.min(from + CHUNK_SIZE, items.size()))));
+        }
+        int updated = (int) results.stream().filter(BulkOrderStatusUpdateResponse.Result::isSuccess).count();
+        return summarize(request.getItems().size(), updated, results.size() - updated,
+                request.getItems().size() - items.size(), results);
+    }
+
+    /**
+     * Apply status changes from a CSV manifest with columns {@code orderId,status,trackingNumber}.
+     * A header row and blank lines are skipped, and a blank status means SHIPPED. The file is read
+     * and applied chunk by chunk, so its size is not limited by memory. Within a chunk a later line
+     * for the same order supersedes an earlier one.
+     *
+     * @param in the CSV content
+     * @return counts for every line, and the first {@value #MAX_REPORTED_FAILURES} failures,
+     *         including unreadable lines; successful updates are only counted
+     */
+    public BulkOrderStatusUpdateResponse updateStatuses(InputStream in) throws IOException {
+        List<BulkOrderStatusUpdateResponse.Result> failures = new ArrayList<>();
+        Map<Long, BulkOrderStatusUpdateRequest.Item> chunk = new LinkedHashMap<>();
+        int requested = 0;
+        int superseded = 0;
+        int[] outcomes = new int[2];
+        int lineNumber = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && line.toLowerCase().startsWith("orderid"))) {
+                    continue;
+                }
+                requested++;
+                String[] fields = line.split(",", -1);
+                try {
+                    Long orderId = Long.parseLong(fields[0].trim());
+                    String status = fields.length > 1 && !fields[1].isBlank() ? fields[1].trim() : "SHIPPED";
+                    String trackingNumber = fields.length > 2 && !fields[2].isBlank() ? fields[2].trim() : null;
+                    if (chunk.put(orderId, new BulkOrderStatusUpdateRequest.Item(orderId, status, trackingNumber)) != null) {
+                        superseded++;
+                    }
+                } catch (NumberFormatException e) {
+                    tally(List.of(failure(null, null, "Line " + lineNumber + ": invalid order ID")), outcomes, failures);
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    tally(applyChunk(new ArrayList<>(chunk.values())), outcomes, failures);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            tally(applyChunk(new ArrayList<>(chunk.values())), outcomes, failures);
+        }
+        return summarize(requested, outcomes[0], outcomes[1], superseded, failures);
+    }
+
+    /**
+     * Count a chunk's results as updated ({@code outcomes[0]}) or failed ({@code outcomes[1]}),
+     * keeping the failures up to the reporting limit.
+     */
+    private static void tally(List<BulkOrderStatusUpdateResponse.Result> results, int[] outcomes,
+                              List<BulkOrderStatusUpdateResponse.Result> failures) {
+        for (BulkOrderStatusUpdateResponse.Result result : results) {
+            if (result.isSuccess()) {
+                outcomes[0]++;
+            } else {
+                outcomes[1]++;
+                if (failures.size() < MAX_REPORTED_FAILURES) {
+                    failures.add(result);
+                }
+            }
+        }
+    }
+
+    private List<BulkOrderStatusUpdateResponse.Result> applyChunk(List<BulkOrderStatusUpdateRequest.Item> items) {
+        return transactionTemplate.execute(tx -> {
+            Map<Long, OrderRepositoryCustom.StatusRow> current = orderRepository.lockStatuses(
+                            items.stream().map(BulkOrderStatusUpdateRequest.Item::getOrderId).toList())
+                    .stream()
+                    .collect(Collectors.toMap(OrderRepositoryCustom.StatusRow::id, Function.identity()));
+
+            List<BulkOrderStatusUpdateResponse.Result> results = new ArrayList<>(items.size());
+            List<OrderRepositoryCustom.StatusUpdate> updates = new ArrayList<>(items.size());
+            Map<Long, Order.OrderStatus> changed = new LinkedHashMap<>();
+            List<Long> cancelled = new ArrayList<>();
+
+            for (BulkOrderStatusUpdateRequest.Item item : items) {
+                OrderRepositoryCustom.StatusRow row = current.get(item.getOrderId());
+                if (row == null) {
+                    results.add(failure(item.getOrderId(), null, "Order not found"));
+                    continue;
+                }
+                Order.OrderStatus next;
+                try {
+                    next = Order.OrderStatus.valueOf(item.getStatus().trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    results.add(failure(item.getOrderId(), row.status(), "Unknown status: " + item.getStatus()));
+                    continue;
+                }
+                if (!row.status().canTransitionTo(next)) {
+                    results.add(failure(item.getOrderId(), row.status(),
+                            "Cannot change status from " + row.status() + " to " + next));
+                    continue;
+                }
+
+                updates.add(new OrderRepositoryCustom.StatusUpdate(row.id(), next, item.getTrackingNumber()));
+                results.add(BulkOrderStatusUpdateResponse.Result.builder()
+                        .orderId(row.id())
+                        .success(true)
+                        .previousStatus(row.status().name())
+                        .status(next.name())
+                        .build());
+                if (next != row.status()) {
+                    changed.put(row.id(), next);
+                    if (next == Order.OrderStatus.CANCELLED) {
+                        cancelled.add(row.id());
+                    }
+                    outboxService.publish("Order", row.id(), OutboxEvent.EventType.ORDER_STATUS_CHANGED,
+                            OrderStatusChangedEvent.builder()
+                                    .orderId(row.id())
+                                    .orderNumber(row.orderNumber())
+                                    .userId(row.userId())
+                                    .previousStatus(row.status().name())
+                                    .status(next.name())
+                                    .trackingNumber(item.getTrackingNumber() != null
+                                            ? item.getTrackingNumber()
+                                            : row.trackingNumber())
+                                    .changedAt(LocalDateTime.now())
+                                    .build());
+                }
+            }
+
+            if (!updates.isEmpty()) {
+                orderRepository.batchUpdateStatus(updates);
+            }
+            if (!changed.isEmpty()) {
+                orderSummaryService.recordStatusChanges(changed);
+            }
+            // Return reserved stock for cancelled orders
+            if (!cancelled.isEmpty()) {
+                orderRepository.findWithDetailsByIdIn(cancelled).forEach(orderService::releaseStock);
+            }
+            return results;
+        });
+    }
+
+    private BulkOrderStatusUpdateResponse summarize(int requested, int updated, int failed, int superseded,
+                                                    List<BulkOrderStatusUpdateResponse.Result> results) {
+        log.info("Bulk order status update: {} requested, {} updated, {} failed, {} superseded",
+                requested, updated, failed, superseded);
+        return BulkOrderStatusUpdateResponse.builder()
+                .requested(requested)
+                .updated(updated)
+                .failed(failed)
+                .superseded(superseded)
+                .results(results)
+                .build();
+    }
+
+    private static BulkOrderStatusUpdateResponse.Result failure(Long orderId, Order.OrderStatus status, String error) {
+        return BulkOrderStatusUpdateResponse.Result.builder()
+                .orderId(orderId)
+                .success(false)
+                .previousStatus(status != null ? status.name() : null)
+                .error(error)
+                .build();
+    }
+}
@@ -3,45 +3,81 @@ package com.mahalaxmi.ecommerce.service;
 import com.mahalaxmi.ecommerce.dto.AddToCartRequest;
 import com.mahalaxmi.ecommerce.dto.CartDto;
 import com.mahalaxmi.ecommerce.dto.CartItemDto;
-import com.mahalaxmi.ecommerce.entity.Cart;
-import com.mahalaxmi.ecommerce.entity.CartItem;
-import com.mahalaxmi.ecommerce.entity.Product;
+import com.mahalaxmi.ecommerce.dto.CartOperationsRequest;
+import com.mahalaxmi.ecommerce.dto.CartSummaryDto;
 import com.mahalaxmi.ecommerce.entity.User;
-import com.mahalaxmi.ecommerce.repository.CartRepository;
-import com.mahalaxmi.ecommerce.repository.ProductRepository;
+import com.mahalaxmi.ecommerce.exception.VersionConflictException;
 import com.mahalaxmi.ecommerce.repository.UserRepository;
+import com.mahalaxmi.ecommerce.util.Money;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
- * Service for managing shopping cart operations.
+ * Service for managing shopping cart operations. Users' carts are read and changed through the
+ * in-memory {@link CartStore}; anonymous shoppers' carts are kept in a signed cookie (see
+ * {@link GuestCartCodec}) and merged into the user's cart on login or registration.
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CartService {
 
-    private final CartRepository cartRepository;
-    private final ProductRepository productRepository;
+    private static final String OP_ADD = "ADD";
+    private static final String OP_UPDATE = "UPDATE";
+    private static final String OP_REMOVE = "REMOVE";
+
+    private final CartStore cartStore;
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
+    private final StockHoldService stockHoldService;
+    private final PromotionEngine promotionEngine;
+    private final GuestCartCodec guestCartCodec;
+    private final CartSummaryCache cartSummaryCache;
+
+    @Value("${application.cart.max-attempts}")
+    private int maxAttempts;
 
     /**
      * Get the current user's cart.
      *
      * @return cart DTO
      */
-    @Transactional(readOnly = true)
     public CartDto getCart() {
         User user = getCurrentUser();
-        Cart cart = cartRepository.findByUserId(user.getId())
-                .orElseGet(() -> createCartForUser(user));
-        return convertToDto(cart);
+        CartDto cart = cartStore.withCart(user, this::convertToDto);
+        cartSummaryCache.put(user.getId(), cart);
+        return cart;
+    }
+
+    /**
+     * Get the item count and total of the current user's cart, from the summary cache when it
+     * has one.
+     *
+     * @return cart summary
+     */
+    public CartSummaryDto getSummary() {
+        User user = getCurrentUser();
+        CartSummaryDto summary = cartSummaryCache.get(user.getId());
+        if (summary != null) {
+            return summary;
+        }
+        return cartSummaryCache.put(user.getId(), cartStore.withCart(user, this::convertToDto));
     }
 
     /**
@@ -50,42 +86,36 @@ public class CartService {
      * @param request add to cart request
      * @return updated cart
      */
-    @Transactional
     public CartDto addToCart(AddToCartRequest request) {
         User user = getCurrentUser();
-        Cart cart = cartRepository.findByUserId(user.getId())
-                .orElseGet(() -> createCartForUser(user));
+        CartStore.ProductSnapshot product = cartStore.loadProduct(request.getProductId());
 
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        if (!product.getActive()) {
+        if (!product.active()) {
             throw new RuntimeException("Product is not available");
         }
 
-        if (product.getStockQuantity() < request.getQuantity()) {
+        if (product.stockQuantity() < request.getQuantity()) {
             throw new RuntimeException("Insufficient stock");
         }
 
-        // Check if product already in cart
-        CartItem existingItem = cart.getItems().stream()
-                .filter(item -> item.getProduct().getId().equals(product.getId()))
-                .findFirst()
-                .orElse(null);
+        return write(user, true, cart -> {
+            // Check if product already in cart
+            CartStore.Line existingItem = cart.line(request.getProductId());
 
-        if (existingItem != null) {
-            existingItem.setQuantity(existingItem.getQuantity() + request.getQuantity());
-        } else {
-            CartItem newItem = CartItem.builder()
-                    .cart(cart)
-                    .product(product)
-                    .quantity(request.getQuantity())
-                    .build();
-            cart.getItems().add(newItem);
-        }
+            int newQuantity = existingItem != null
+                    ? existingItem.quantity() + request.getQuantity()
+                    : request.getQuantity();
+            if (!stockHoldService.hold(user.getId(), request.getProductId(), newQuantity, product.stockQuantity())) {
+                throw new RuntimeException("Insufficient stock");
+            }
 
-        Cart savedCart = cartRepository.save(cart);
-        return convertToDto(savedCart);
+            if (existingItem != null) {
+                cartStore.setQuantity(cart, request.getProductId(), newQuantity);
+            } else {
+                cartStore.addLine(cart, product, newQuantity);
+            }
+            return convertToDto(cart);
+        });
     }
 
     /**
@@ -93,102 +123,384 @@ public class CartService {
      *
      * @param itemId cart item ID
      * @param quantity new quantity
+     * @param expectedVersion cart version the change is based on, or null to skip the check
      * @return updated cart
      */
-    @Transactional
-    public CartDto updateCartItem(Long itemId, Integer quantity) {
+    public CartDto updateCartItem(Long itemId, Integer quantity, Long expectedVersion) {
         User user = getCurrentUser();
-        Cart cart = cartRepository.findByUserId(user.getId())
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
-
-        CartItem item = cart.getItems().stream()
-                .filter(i -> i.getId().equals(itemId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Item not found in cart"));
-
-        if (quantity <= 0) {
-            cart.getItems().remove(item);
-        } else {
-            if (item.getProduct().getStockQuantity() < quantity) {
-                throw new RuntimeException("Insufficient stock");
+        return write(user, false, cart -> {
+            checkVersion(cart, expectedVersion);
+            CartStore.Line item = cart.lineByItemId(itemId);
+            if (item == null) {
+                throw new RuntimeException("Item not found in cart");
             }
-            item.setQuantity(quantity);
-        }
 
-        Cart savedCart = cartRepository.save(cart);
-        return convertToDto(savedCart);
+            Long productId = item.product().product().getId();
+            if (quantity <= 0) {
+                cartStore.removeLine(cart, productId);
+                stockHoldService.release(user.getId(), productId);
+            } else {
+                int stock = item.product().stockQuantity();
+                if (stock < quantity || !stockHoldService.hold(user.getId(), productId, quantity, stock)) {
+                    throw new RuntimeException("Insufficient stock");
+                }
+                cartStore.setQuantity(cart, productId, quantity);
+            }
+            return convertToDto(cart);
+        });
     }
 
     /**
      * Remove an item from the cart.
      *
      * @param itemId cart item ID
+     * @param expectedVersion cart version the change is based on, or null to skip the check
      * @return updated cart
      */
-    @Transactional
-    public CartDto removeFromCart(Long itemId) {
+    public CartDto removeFromCart(Long itemId, Long expectedVersion) {
         User user = getCurrentUser();
-        Cart cart = cartRepository.findByUserId(user.getId())
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
+        return write(user, false, cart -> {
+            checkVersion(cart, expectedVersion);
+            Long productId = cart.productIdOf(itemId);
+            if (productId != null) {
+                cartStore.removeLine(cart, productId);
+                stockHoldService.release(user.getId(), productId);
+            }
+            return convertToDto(cart);
+        });
+    }
+
+    /**
+     * Apply several cart changes in order as one unit. Every product being added is read in a
+     * single query, the changes are validated against the resulting quantities, and either all
+     * of them apply or, if any fails, none do.
+     *
+     * @param request the operations, in order
+     * @return updated cart
+     */
+    public CartDto applyOperations(CartOperationsRequest request) {
+        User user = getCurrentUser();
+        List<CartOperationsRequest.Operation> operations = request.getOperations();
+
+        Set<Long> addedIds = new HashSet<>();
+        boolean onlyAdds = true;
+        for (CartOperationsRequest.Operation operation : operations) {
+            if (OP_ADD.equalsIgnoreCase(operation.getOp())) {
+                if (operation.getProductId() != null) {
+                    addedIds.add(operation.getProductId());
+                }
+            } else {
+                onlyAdds = false;
+            }
+        }
+        Map<Long, CartStore.ProductSnapshot> products = cartStore.loadProducts(addedIds);
+        // Adding quantities gives the same result whatever else happened to the cart meanwhile
+        boolean commutative = onlyAdds;
+
+        return write(user, commutative, cart -> {
+            if (!commutative) {
+                checkVersion(cart, request.getVersion());
+            }
+            // Work out the resulting quantity per product before changing anything
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            for (CartStore.Line line : cart.lines()) {
+                quantities.put(line.product().product().getId(), line.quantity());
+            }
+            for (int i = 0; i < operations.size(); i++) {
+                applyOperation(operations.get(i), i + 1, cart::productIdOf, products, quantities);
+            }
+
+            // Hold stock for every changed line, undoing earlier holds if a later one fails
+            List<Long> held = new ArrayList<>();
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                Long productId = entry.getKey();
+                CartStore.Line existing = cart.line(productId);
+                if (existing != null && existing.quantity() == entry.getValue()) {
+                    continue;
+                }
+                CartStore.ProductSnapshot loaded = products.get(productId);
+                int stock = loaded != null ? loaded.stockQuantity() : existing.product().stockQuantity();
+                if (stock < entry.getValue() || !stockHoldService.hold(user.getId(), productId, entry.getValue(), stock)) {
+                    for (Long heldId : held) {
+                        CartStore.Line previous = cart.line(heldId);
+                        if (previous != null) {
+                            stockHoldService.hold(user.getId(), heldId, previous.quantity(), previous.product().stockQuantity());
+                        } else {
+                            stockHoldService.release(user.getId(), heldId);
+                        }
+                    }
+                    throw new RuntimeException("Insufficient stock for product " + productId);
+                }
+                held.add(productId);
+            }
+
+            // New lines go first: inserting them is the only step that can fail
+            Map<Long, Integer> added = new LinkedHashMap<>();
+            quantities.forEach((productId, quantity) -> {
+                if (cart.line(productId) == null) {
+                    added.put(productId, quantity);
+                }
+            });
+            if (!added.isEmpty()) {
+                cartStore.addLines(cart, added, products);
+            }
+            for (CartStore.Line line : cart.lines()) {
+                Long productId = line.product().product().getId();
+                Integer quantity = quantities.get(productId);
+                if (quantity == null) {
+                    cartStore.removeLine(cart, productId);
+                    stockHoldService.release(user.getId(), productId);
+                } else if (quantity != line.quantity()) {
+                    cartStore.setQuantity(cart, productId, quantity);
+                }
+            }
+            return convertToDto(cart);
+        });
+    }
+
+    private void applyOperation(CartOperationsRequest.Operation operation, int position,
+                                Function<Long, Long> productIdOfItem, Map<Long, CartStore.ProductSnapshot> products,
+                                Map<Long, Integer> quantities) {
+        String op = operation.getOp().toUpperCase(Locale.ROOT);
+        if (OP_ADD.equals(op)) {
+            if (operation.getProductId() == null || operation.getQuantity() == null || operation.getQuantity() < 1) {
+                throw new RuntimeException("Operation " + position + ": product ID and a quantity of at least 1 are required");
+            }
+            Long productId = operation.getProductId();
+            CartStore.ProductSnapshot product = products.get(productId);
+            if (product == null) {
+                throw new RuntimeException("Operation " + position + ": product not found");
+            }
+            if (!product.active()) {
+                throw new RuntimeException("Operation " + position + ": product is not available");
+            }
+            quantities.merge(productId, operation.getQuantity(), Integer::sum);
+            return;
+        }
+
+        // UPDATE and REMOVE name a line by item ID, or by product ID for lines added earlier in the batch
+        Long productId = operation.getItemId() != null ? productIdOfItem.apply(operation.getItemId()) : operation.getProductId();
+        if (OP_REMOVE.equals(op)) {
+            if (productId != null) {
+                quantities.remove(productId);
+            }
+        } else if (OP_UPDATE.equals(op)) {
+            if (operation.getQuantity() == null) {
+                throw new RuntimeException("Operation " + position + ": quantity is required");
+            }
+            if (productId == null || !quantities.containsKey(productId)) {
+                throw new RuntimeException("Operation " + position + ": item not found in cart");
+            }
+            if (operation.getQuantity() <= 0) {
+                quantities.remove(productId);
+            } else {
+                quantities.put(productId, operation.getQuantity());
+            }
+        } else {
+            throw new RuntimeException("Operation " + position + ": unknown operation '" + operation.getOp() + "'");
+        }
+    }
 
-        cart.getItems().removeIf(item -> item.getId().equals(itemId));
+    /**
+     * Whether the current request comes from an anonymous shopper, whose cart lives in a cookie.
+     */
+    public boolean isGuest() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken;
+    }
+
+    /**
+     * Show a guest cart. Lines use the product ID as their item ID.
+     *
+     * @param lines quantity per product ID, as decoded from the guest cart cookie
+     * @return cart DTO
+     */
+    public CartDto getGuestCart(Map<Long, Integer> lines) {
+        return applyGuestOperations(lines, List.of()).cart();
+    }
+
+    /**
+     * Get the item count and total of a guest cart.
+     *
+     * @param lines quantity per product ID, as decoded from the guest cart cookie
+     * @return cart summary
+     */
+    public CartSummaryDto getGuestSummary(Map<Long, Integer> lines) {
+        if (lines.isEmpty()) {
+            return CartSummaryDto.builder().itemCount(0).total(Money.ZERO.toBigDecimal()).build();
+        }
+        return CartSummaryCache.summaryOf(getGuestCart(lines));
+    }
+
+    /**
+     * Apply cart changes to a guest cart, validated the same way as for a user's cart. Products
+     * that no longer exist are dropped from the cart.
+     *
+     * @param lines quantity per product ID, as decoded from the guest cart cookie
+     * @param operations the operations, in order; item IDs are product IDs
+     * @return the new lines to store in the cookie and the cart to show
+     */
+    public GuestCart applyGuestOperations(Map<Long, Integer> lines, List<CartOperationsRequest.Operation> operations) {
+        Set<Long> productIds = new HashSet<>(lines.keySet());
+        for (CartOperationsRequest.Operation operation : operations) {
+            if (OP_ADD.equalsIgnoreCase(operation.getOp()) && operation.getProductId() != null) {
+                productIds.add(operation.getProductId());
+            }
+        }
+        Map<Long, CartStore.ProductSnapshot> products = cartStore.loadProducts(productIds);
 
-        Cart savedCart = cartRepository.save(cart);
-        return convertToDto(savedCart);
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        lines.forEach((productId, quantity) -> {
+            if (products.containsKey(productId)) {
+                quantities.put(productId, quantity);
+            }
+        });
+        Map<Long, Integer> before = new HashMap<>(quantities);
+        for (int i = 0; i < operations.size(); i++) {
+            applyOperation(operations.get(i), i + 1, Function.identity(), products, quantities);
+        }
+
+        if (quantities.size() > guestCartCodec.getMaxLines()) {
+            throw new RuntimeException("A guest cart can hold at most " + guestCartCodec.getMaxLines()
+                    + " products; log in to add more");
+        }
+        List<CartStore.Line> guestLines = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            CartStore.ProductSnapshot product = products.get(entry.getKey());
+            if (!entry.getValue().equals(before.get(entry.getKey())) && product.stockQuantity() < entry.getValue()) {
+                throw new RuntimeException("Insufficient stock for product " + entry.getKey());
+            }
+            guestLines.add(new CartStore.Line(entry.getKey(), entry.getValue(), product));
+        }
+        return new GuestCart(quantities, convertToDto(null, guestLines));
+    }
+
+    /**
+     * Merge a guest cart into a user's cart with one batched upsert, adding quantities for
+     * products already in it. Products that no longer exist or are unavailable are skipped.
+     *
+     * @param userId the user who just logged in or registered
+     * @param lines quantity per product ID, as decoded from the guest cart cookie
+     */
+    public void mergeGuestCart(Long userId, Map<Long, Integer> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        Map<Long, CartStore.ProductSnapshot> products = cartStore.loadProducts(lines.keySet());
+        Map<Long, Integer> mergeable = new LinkedHashMap<>();
+        lines.forEach((productId, quantity) -> {
+            CartStore.ProductSnapshot product = products.get(productId);
+            if (product != null && product.active()) {
+                mergeable.put(productId, quantity);
+            }
+        });
+        cartStore.merge(userId, mergeable);
+        cartSummaryCache.invalidate(userId);
     }
 
     /**
      * Clear the entire cart.
      *
+     * @param expectedVersion cart version the change is based on, or null to skip the check
      * @return empty cart
      */
-    @Transactional
-    public CartDto clearCart() {
+    public CartDto clearCart(Long expectedVersion) {
         User user = getCurrentUser();
-        Cart cart = cartRepository.findByUserId(user.getId())
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
+        return write(user, false, cart -> {
+            checkVersion(cart, expectedVersion);
+            cartStore.clear(cart);
+            stockHoldService.releaseAll(user.getId());
+            return convertToDto(cart);
+        });
+    }
 
-        cart.getItems().clear();
-        Cart savedCart = cartRepository.save(cart);
-        return convertToDto(savedCart);
+    /**
+     * Run a change against a user's cart. If it conflicts with a concurrent write to the cart in
+     * the database, the cart is reloaded; commutative changes are then retried a bounded number
+     * of times, and others are rejected with the current cart.
+     */
+    private CartDto write(User user, boolean commutative, Function<CartStore.CachedCart, CartDto> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                CartDto cart = cartStore.withCart(user, action);
+                cartSummaryCache.put(user.getId(), cart);
+                return cart;
+            } catch (DuplicateKeyException | OptimisticLockingFailureException e) {
+                cartStore.reload(user.getId());
+                if (!commutative || attempt >= maxAttempts) {
+                    CartDto current = cartStore.withCart(user, this::convertToDto);
+                    cartSummaryCache.put(user.getId(), current);
+                    throw new VersionConflictException("Your cart was changed elsewhere; review it and try again", current);
+                }
+                log.debug("Cart write for user {} conflicted, retrying (attempt {})", user.getId(), attempt, e);
+            }
+        }
     }
 
-    private Cart createCartForUser(User user) {
-        Cart cart = Cart.builder()
-                .user(user)
-                .build();
-        return cartRepository.save(cart);
+    /**
+     * Reject a change based on a cart version other than the current one.
+     */
+    private void checkVersion(CartStore.CachedCart cart, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != cart.getVersion()) {
+            throw new VersionConflictException("Your cart has changed since it was loaded; review it and try again",
+                    convertToDto(cart));
+        }
     }
 
-    private CartDto convertToDto(Cart cart) {
+    private CartDto convertToDto(CartStore.CachedCart cart) {
+        CartDto cartDto = convertToDto(cart.getCartId(), cart.lines());
+        cartDto.setVersion(cart.getVersion());
+        return cartDto;
+    }
+
+    private CartDto convertToDto(Long cartId, List<CartStore.Line> lines) {
         CartDto cartDto = new CartDto();
-        cartDto.setId(cart.getId());
-        
-        var items = cart.getItems().stream()
-                .map(item -> {
-                    CartItemDto itemDto = modelMapper.map(item, CartItemDto.class);
-                    BigDecimal subtotal = item.getProduct().getPrice()
-                            .multiply(BigDecimal.valueOf(item.getQuantity()));
-                    itemDto.setSubtotal(subtotal);
-                    return itemDto;
-                })
-                .collect(Collectors.toList());
-        
+        cartDto.setId(cartId);
+
+        List<CartItemDto> items = new ArrayList<>(lines.size());
+        List<PromotionEngine.Line> promotionLines = new ArrayList<>(lines.size());
+        Money total = Money.ZERO;
+        for (CartStore.Line line : lines) {
+            CartStore.ProductSnapshot product = line.product();
+            Money subtotal = line.getSubtotal();
+            items.add(CartItemDto.builder()
+                    .id(line.itemId())
+                    .product(product.product())
+                    .quantity(line.quantity())
+                    .subtotal(subtotal.toBigDecimal())
+                    .build());
+            total = total.plus(subtotal);
+            promotionLines.add(new PromotionEngine.Line(product.product().getId(), product.categoryId(),
+                    product.brand(), line.quantity(), subtotal));
+        }
+
         cartDto.setItems(items);
-        
-        BigDecimal total = items.stream()
-                .map(CartItemDto::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        cartDto.setTotal(total);
+
+        // Automatic promotions only; coupons are applied at checkout
+        PromotionEngine.Result promotions = promotionEngine.evaluate(promotionLines, null);
+        cartDto.setSubtotal(total.toBigDecimal());
+        cartDto.setDiscount(promotions.discount().toBigDecimal());
+        cartDto.setPromotions(CheckoutQuoteService.toAppliedPromotionDtos(promotions));
+        cartDto.setTotal(total.minus(promotions.discount()).toBigDecimal());
         cartDto.setItemCount(items.size());
-        
+
         return cartDto;
     }
 
+    /**
+     * A guest cart after changes: the lines to store in the cookie and the cart to show.
+     */
+    public record GuestCart(Map<Long, Integer> lines, CartDto cart) {
+    }
+
     private User getCurrentUser() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByEmail(email)
+        // The JWT filter already loaded the user; only look it up again for other authentication types
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        return userRepository.findByEmail(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 }
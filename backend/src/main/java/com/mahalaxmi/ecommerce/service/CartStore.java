@@ -0,0 +1,801 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.dto.ProductDto;
+import com.mahalaxmi.ecommerce.entity.Cart;
+import com.mahalaxmi.ecommerce.entity.CartItem;
+import com.mahalaxmi.ecommerce.entity.Product;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.repository.CartRepository;
+import com.mahalaxmi.ecommerce.repository.CartRepositoryCustom.CartVersion;
+import com.mahalaxmi.ecommerce.repository.CartRepositoryCustom.ItemQuantity;
+import com.mahalaxmi.ecommerce.repository.ProductRepository;
+import com.mahalaxmi.ecommerce.util.Money;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-memory store of active carts with write-behind persistence.
+ * <p>
+ * A cart is loaded with its items, products and categories in one query on first use and then
+ * read and changed in memory. New lines are inserted immediately so every line has a stable item
+ * ID; quantity changes and removals are applied in memory and, in WRITE_BEHIND mode, persisted by
+ * a background flush that coalesces all pending changes into one batched transaction every
+ * flush interval, so a burst of edits to a line costs one UPDATE. In WRITE_THROUGH mode every
+ * change is persisted before the request returns and memory only serves reads.
+ * <p>
+ * Product details shown in the cart are a snapshot refreshed in one query once it is older than
+ * the product refresh interval; checkout always re-reads products from the database. Checkout
+ * flushes the user's cart first, and evicts it once the order commits.
+ * <p>
+ * Carts idle for longer than the idle timeout, or beyond the size bound, are evicted once they
+ * have been flushed. Carts live on this instance only, so deployments with several instances
+ * must route each user to the same instance or use WRITE_THROUGH with a short idle timeout.
+ * <p>
+ * A flush writes a cart only if its row and lines still have the versions this store last read
+ * or wrote. If another instance or a checkout changed the cart meanwhile, its pending changes
+ * are dropped and the cart is evicted so the next access reads the other writer's state; in
+ * WRITE_THROUGH mode the write then fails with an {@link OptimisticLockingFailureException}.
+ * <p>
+ * The data sweeper deletes idle carts only for users it has claimed: users with no cart in
+ * memory and none being loaded or merged. Loading or merging a claimed user's cart waits until
+ * the sweep's transaction ends.
+ */
+@Service
+@Slf4j
+public class CartStore {
+
+    public enum Durability {
+        WRITE_THROUGH,
+        WRITE_BEHIND
+    }
+
+    /**
+     * Product details as shown in a cart line.
+     */
+    public record ProductSnapshot(ProductDto product, Money price, Long categoryId, String brand,
+                                  int stockQuantity, boolean active) {
+    }
+
+    /**
+     * A cart line. Lines are immutable; changes replace them.
+     */
+    public record Line(long itemId, int quantity, ProductSnapshot product) {
+
+        public Money getSubtotal() {
+            return product.price().times(quantity);
+        }
+    }
+
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final ModelMapper modelMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final Durability durability;
+    private final int maxCarts;
+    private final long idleMillis;
+    private final long productRefreshMillis;
+
+    private final Map<Long, CachedCart> carts;
+    private final Set<CachedCart> dirtyCarts = ConcurrentHashMap.newKeySet();
+    // Both guarded by the carts map's lock
+    private final Map<Long, Integer> pinnedUsers = new HashMap<>();
+    private final Set<Long> sweptUsers = new HashSet<>();
+
+    public CartStore(
+            CartRepository cartRepository,
+            ProductRepository productRepository,
+            ModelMapper modelMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${application.cart.store.durability}") Durability durability,
+            @Value("${application.cart.store.max-carts}") int maxCarts,
+            @Value("${application.cart.store.idle-seconds}") long idleSeconds,
+            @Value("${application.cart.store.product-refresh-seconds}") long productRefreshSeconds) {
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.modelMapper = modelMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Writes commit on their own so a caller that rolls back cannot take cart edits with it
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.durability = durability;
+        this.maxCarts = maxCarts;
+        this.idleMillis = idleSeconds * 1000;
+        this.productRefreshMillis = productRefreshSeconds * 1000;
+        this.carts = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedCart> eldest) {
+                // Carts with unflushed changes stay until the next flush trims the map
+                return size() > CartStore.this.maxCarts && eldest.getValue().tryEvict();
+            }
+        });
+    }
+
+    /**
+     * Read or change a user's cart, loading it on first use. A user without a cart row gets an
+     * empty cart; the row is created when the first line is added. The function runs while
+     * holding the cart's lock and must not keep references to it.
+     *
+     * @param user the cart owner
+     * @param action reads or changes the cart through this store's methods
+     * @return the function's result
+     */
+    public <T> T withCart(User user, Function<CachedCart, T> action) {
+        while (true) {
+            CachedCart cart = carts.get(user.getId());
+            if (cart == null) {
+                // Pinned until it is in the map, so the sweeper cannot delete the cart being loaded
+                pin(user.getId());
+                try {
+                    CachedCart loaded = load(user);
+                    CachedCart existing = carts.putIfAbsent(user.getId(), loaded);
+                    cart = existing != null ? existing : loaded;
+                } finally {
+                    unpin(user.getId());
+                }
+            }
+            synchronized (cart) {
+                if (!cart.evicted) {
+                    return apply(cart, action);
+                }
+            }
+            // Evicted between lookup and lock; drop it if it is still mapped and load it again.
+            // The map lock is never taken while holding a cart's lock, as the map's eviction
+            // takes them the other way round.
+            carts.remove(user.getId(), cart);
+        }
+    }
+
+    private <T> T apply(CachedCart cart, Function<CachedCart, T> action) {
+        cart.lastAccess = System.currentTimeMillis();
+        if (cart.lastAccess - cart.productsLoadedAt > productRefreshMillis) {
+            refreshProducts(cart);
+        }
+        T result = action.apply(cart);
+        if (cart.isDirty()) {
+            if (durability == Durability.WRITE_THROUGH) {
+                flushNow(cart);
+            } else {
+                dirtyCarts.add(cart);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read a product's current details for adding it to a cart.
+     *
+     * @throws RuntimeException if the product does not exist
+     */
+    public ProductSnapshot loadProduct(Long productId) {
+        return transactionTemplate.execute(status -> productRepository.findById(productId)
+                .map(this::snapshot)
+                .orElseThrow(() -> new RuntimeException("Product not found")));
+    }
+
+    /**
+     * Read several products' current details in one query.
+     *
+     * @return snapshots by product ID; products that do not exist are absent
+     */
+    public Map<Long, ProductSnapshot> loadProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        return transactionTemplate.execute(status -> {
+            Map<Long, ProductSnapshot> loaded = new HashMap<>();
+            for (Product product : productRepository.findAllById(productIds)) {
+                loaded.put(product.getId(), snapshot(product));
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Add a new line to a cart, inserting it immediately. If the product was removed from the
+     * cart since the last flush, its pending removal is cancelled and the line reused instead.
+     */
+    public Line addLine(CachedCart cart, ProductSnapshot product, int quantity) {
+        Long productId = product.product().getId();
+        synchronized (cart) {
+            addLines(cart, Map.of(productId, quantity), Map.of(productId, product));
+            return cart.lines.get(productId);
+        }
+    }
+
+    /**
+     * Add several new lines to a cart, inserting them together in one transaction. Pending
+     * removals of the same products are cancelled and their lines reused, as in {@link #addLine}.
+     *
+     * @param quantities quantity per product, in the order the lines should appear
+     * @param products snapshots of at least the products being added
+     */
+    public void addLines(CachedCart cart, Map<Long, Integer> quantities, Map<Long, ProductSnapshot> products) {
+        synchronized (cart) {
+            Map<Long, Long> itemIds = new HashMap<>();
+            List<Long> toInsert = new ArrayList<>();
+            for (Long productId : quantities.keySet()) {
+                if (!cart.removedItems.containsKey(productId)) {
+                    toInsert.add(productId);
+                }
+            }
+            // Insert before changing anything in memory, so a failed insert leaves the cart as it was
+            if (!toInsert.isEmpty()) {
+                cart.cartId = writeTransaction.execute(status -> {
+                    // The cart row is only created once it gets its first line
+                    Long cartId = cart.cartId != null ? cart.cartId : cartRepository.insertCart(cart.userId);
+                    for (Long productId : toInsert) {
+                        itemIds.put(productId, cartRepository.insertItem(cartId, productId, quantities.get(productId)));
+                    }
+                    return cartId;
+                });
+                toInsert.forEach(productId -> cart.itemVersions.put(itemIds.get(productId), 0L));
+                cart.touched = true;
+            }
+            quantities.forEach((productId, quantity) -> {
+                Long removedItemId = cart.removedItems.remove(productId);
+                if (removedItemId != null) {
+                    itemIds.put(productId, removedItemId);
+                    cart.dirtyQuantities.put(removedItemId, quantity);
+                }
+                cart.lines.put(productId, new Line(itemIds.get(productId), quantity, products.get(productId)));
+            });
+            cart.version++;
+        }
+    }
+
+    /**
+     * Change the quantity of an existing line.
+     */
+    public void setQuantity(CachedCart cart, Long productId, int quantity) {
+        synchronized (cart) {
+            Line line = cart.lines.get(productId);
+            if (line == null) {
+                throw new IllegalStateException("No cart line for product " + productId);
+            }
+            cart.lines.put(productId, new Line(line.itemId(), quantity, line.product()));
+            cart.dirtyQuantities.put(line.itemId(), quantity);
+            cart.version++;
+        }
+    }
+
+    /**
+     * Remove a line from a cart.
+     *
+     * @return the removed line, or null if the product was not in the cart
+     */
+    public Line removeLine(CachedCart cart, Long productId) {
+        synchronized (cart) {
+            Line line = cart.lines.remove(productId);
+            if (line != null) {
+                cart.dirtyQuantities.remove(line.itemId());
+                cart.removedItems.put(productId, line.itemId());
+                cart.version++;
+            }
+            return line;
+        }
+    }
+
+    /**
+     * Remove every line from a cart.
+     */
+    public void clear(CachedCart cart) {
+        synchronized (cart) {
+            for (Long productId : new ArrayList<>(cart.lines.keySet())) {
+                removeLine(cart, productId);
+            }
+        }
+    }
+
+    /**
+     * Persist a user's pending cart changes now. Called before checkout reads the cart from the database.
+     *
+     * @throws OptimisticLockingFailureException if the cart was changed elsewhere; its pending
+     *                                           changes were dropped
+     */
+    public void flush(Long userId) {
+        CachedCart cart = carts.get(userId);
+        if (cart != null) {
+            flushNow(cart);
+        }
+    }
+
+    private void flushNow(CachedCart cart) {
+        if (!flush(List.of(cart), true).isEmpty()) {
+            throw new OptimisticLockingFailureException("Cart " + cart.cartId + " was changed elsewhere");
+        }
+    }
+
+    /**
+     * Add quantities to a user's persistent cart with one batched upsert, creating the cart if
+     * the user has none. Pending changes are flushed first and the cached cart is evicted so the
+     * next read sees the merged lines.
+     *
+     * @param quantities quantity to add per product ID; every product must exist
+     */
+    public void merge(Long userId, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        CachedCart cart = carts.get(userId);
+        if (cart == null) {
+            pin(userId);
+            try {
+                upsert(userId, quantities);
+            } finally {
+                unpin(userId);
+            }
+            return;
+        }
+        synchronized (cart) {
+            if (cart.isDirty()) {
+                // Changes based on a cart changed elsewhere are dropped; the merge still applies
+                flush(List.of(cart), true);
+                if (cart.isDirty()) {
+                    throw new RuntimeException("Failed to save cart");
+                }
+            }
+            upsert(userId, quantities);
+            discard(cart);
+        }
+        carts.remove(userId, cart);
+        dirtyCarts.remove(cart);
+    }
+
+    private void upsert(Long userId, Map<Long, Integer> quantities) {
+        writeTransaction.executeWithoutResult(status -> {
+            Long cartId = cartRepository.findIdByUserId(userId)
+                    .orElseGet(() -> cartRepository.insertCart(userId));
+            cartRepository.upsertItems(cartId, quantities);
+            cartRepository.incrementVersion(cartId);
+        });
+    }
+
+    /**
+     * Persist a user's pending cart changes and drop the cart from memory, so the next access
+     * reads it from the database. Called after a write conflicted with another writer.
+     */
+    public void reload(Long userId) {
+        CachedCart cart = carts.get(userId);
+        if (cart == null) {
+            return;
+        }
+        flush(List.of(cart), true);
+        // A cart whose flush failed keeps its changes in memory until a later flush succeeds
+        if (cart.tryEvict()) {
+            carts.remove(userId, cart);
+        }
+    }
+
+    /**
+     * Claim users whose carts the sweeper is about to delete. Users with a cart in memory, or one
+     * being loaded or merged, are not claimed; claimed users' carts cannot be loaded or merged
+     * until {@link #releaseSweep} is called, which must happen once the deletion commits or rolls back.
+     *
+     * @param userIds owners of the carts to delete
+     * @return the users claimed, whose carts may be deleted
+     */
+    public List<Long> claimForSweep(Collection<Long> userIds) {
+        List<Long> claimed = new ArrayList<>(userIds.size());
+        synchronized (carts) {
+            for (Long userId : userIds) {
+                if (!carts.containsKey(userId) && !pinnedUsers.containsKey(userId) && sweptUsers.add(userId)) {
+                    claimed.add(userId);
+                }
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Release users claimed by {@link #claimForSweep}, letting waiting loads and merges proceed.
+     */
+    public void releaseSweep(Collection<Long> userIds) {
+        synchronized (carts) {
+            sweptUsers.removeAll(userIds);
+            carts.notifyAll();
+        }
+    }
+
+    /**
+     * Keep the sweeper away from a user's cart, waiting for a sweep that has already claimed it.
+     * Callers must not hold a cart's lock.
+     */
+    private void pin(Long userId) {
+        synchronized (carts) {
+            while (sweptUsers.contains(userId)) {
+                try {
+                    carts.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for the cart sweeper", e);
+                }
+            }
+            pinnedUsers.merge(userId, 1, Integer::sum);
+        }
+    }
+
+    private void unpin(Long userId) {
+        synchronized (carts) {
+            pinnedUsers.computeIfPresent(userId, (id, pins) -> pins > 1 ? pins - 1 : null);
+        }
+    }
+
+    /**
+     * Drop a user's cart from memory, discarding pending changes. Called once an order has
+     * emptied the cart in the database.
+     */
+    public void evict(Long userId) {
+        CachedCart cart = carts.remove(userId);
+        if (cart != null) {
+            synchronized (cart) {
+                discard(cart);
+            }
+            dirtyCarts.remove(cart);
+        }
+    }
+
+    private static void discard(CachedCart cart) {
+        cart.evicted = true;
+        cart.dirtyQuantities.clear();
+        cart.removedItems.clear();
+        cart.touched = false;
+    }
+
+    /**
+     * Persist all pending changes in one transaction, then evict idle carts and trim the store
+     * to its size bound.
+     */
+    @Scheduled(fixedDelayString = "${application.cart.store.flush-interval-ms}")
+    public void flushAndEvict() {
+        if (!dirtyCarts.isEmpty()) {
+            List<CachedCart> pending = new ArrayList<>(dirtyCarts);
+            dirtyCarts.removeAll(pending);
+            flush(pending, false);
+        }
+
+        long idleBefore = System.currentTimeMillis() - idleMillis;
+        synchronized (carts) {
+            carts.values().removeIf(cart -> cart.lastAccess < idleBefore && cart.tryEvict());
+            var eldest = carts.values().iterator();
+            while (carts.size() > maxCarts && eldest.hasNext()) {
+                if (eldest.next().tryEvict()) {
+                    eldest.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Persist pending changes before the application stops.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        List<CachedCart> pending = new ArrayList<>(dirtyCarts);
+        dirtyCarts.clear();
+        flush(pending, true);
+        log.info("Flushed {} carts on shutdown", pending.size());
+    }
+
+    /**
+     * Persist pending changes of several carts in one transaction. A cart changed elsewhere since
+     * this store last read or wrote it has its pending changes dropped and is evicted, and the
+     * others are written without it.
+     *
+     * @param waitForRunning wait for flushes of the same carts already running on other threads,
+     *                       rather than leaving those carts for the next scheduled flush
+     * @return carts whose changes were dropped because of a conflicting write
+     */
+    private List<CachedCart> flush(List<CachedCart> pending, boolean waitForRunning) {
+        List<Drained> drained = new ArrayList<>(pending.size());
+        for (CachedCart cart : pending) {
+            synchronized (cart) {
+                if (cart.flushing) {
+                    if (!waitForRunning) {
+                        // The next flush must expect the version the running one writes
+                        dirtyCarts.add(cart);
+                        continue;
+                    }
+                    awaitFlush(cart);
+                }
+                if (cart.evicted || !cart.isDirty()) {
+                    continue;
+                }
+                Map<Long, Long> itemVersions = new HashMap<>();
+                cart.dirtyQuantities.keySet().forEach(itemId -> itemVersions.put(itemId, cart.itemVersions.getOrDefault(itemId, 0L)));
+                drained.add(new Drained(cart, new HashMap<>(cart.dirtyQuantities), new HashMap<>(cart.removedItems),
+                        itemVersions, cart.persistedVersion, cart.version));
+                cart.dirtyQuantities.clear();
+                cart.removedItems.clear();
+                cart.touched = false;
+                cart.flushing = true;
+            }
+        }
+        if (drained.isEmpty()) {
+            return List.of();
+        }
+
+        List<Drained> toWrite = new ArrayList<>(drained);
+        List<CachedCart> conflicted = new ArrayList<>();
+        try {
+            Set<Drained> stale = write(toWrite);
+            while (!stale.isEmpty()) {
+                // The batch was rolled back; write it again without the carts changed elsewhere
+                for (Drained changes : stale) {
+                    changes.drop();
+                    dirtyCarts.remove(changes.cart());
+                    conflicted.add(changes.cart());
+                }
+                toWrite.removeAll(stale);
+                stale = write(toWrite);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} carts, will retry", toWrite.size(), e);
+            for (Drained changes : toWrite) {
+                changes.restore();
+                dirtyCarts.add(changes.cart());
+            }
+            if (durability == Durability.WRITE_THROUGH) {
+                throw e;
+            }
+            return conflicted;
+        }
+        toWrite.forEach(Drained::written);
+        if (!conflicted.isEmpty()) {
+            log.warn("Dropped pending changes of {} carts changed elsewhere", conflicted.size());
+        }
+        return conflicted;
+    }
+
+    /**
+     * Write drained changes in one transaction, rolling it back if any cart or line was changed elsewhere.
+     *
+     * @return the changes of carts changed elsewhere; empty if the transaction committed
+     */
+    private Set<Drained> write(List<Drained> batch) {
+        if (batch.isEmpty()) {
+            return Set.of();
+        }
+        Map<Long, Drained> byCartId = new HashMap<>();
+        Map<Long, Drained> byItemId = new HashMap<>();
+        List<CartVersion> versions = new ArrayList<>(batch.size());
+        List<ItemQuantity> quantities = new ArrayList<>();
+        List<Long> removedItemIds = new ArrayList<>();
+        for (Drained changes : batch) {
+            byCartId.put(changes.cart().cartId, changes);
+            versions.add(new CartVersion(changes.cart().cartId, changes.expectedVersion(), changes.version()));
+            changes.quantities().forEach((itemId, quantity) -> {
+                byItemId.put(itemId, changes);
+                quantities.add(new ItemQuantity(itemId, quantity, changes.itemVersions().get(itemId)));
+            });
+            removedItemIds.addAll(changes.removedItems().values());
+        }
+        return writeTransaction.execute(status -> {
+            Set<Drained> stale = new HashSet<>();
+            cartRepository.touch(versions).forEach(cartId -> stale.add(byCartId.get(cartId)));
+            cartRepository.updateQuantities(quantities).forEach(itemId -> stale.add(byItemId.get(itemId)));
+            if (!stale.isEmpty()) {
+                status.setRollbackOnly();
+                return stale;
+            }
+            cartRepository.deleteItems(removedItemIds);
+            return stale;
+        });
+    }
+
+    /**
+     * Wait, holding the cart's lock, until a flush running on another thread has finished with it.
+     */
+    private static void awaitFlush(CachedCart cart) {
+        while (cart.flushing) {
+            try {
+                cart.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for a cart flush", e);
+            }
+        }
+    }
+
+    private CachedCart load(User user) {
+        return transactionTemplate.execute(status -> {
+            // Users without a cart row get an empty cart; the row is created on the first write
+            Cart cart = cartRepository.findWithItemsByUserId(user.getId()).orElse(null);
+            CachedCart cached = new CachedCart(cart != null ? cart.getId() : null, user.getId());
+            if (cart != null) {
+                cached.version = cart.getVersion() != null ? cart.getVersion() : 0;
+                cached.persistedVersion = cached.version;
+                for (CartItem item : cart.getItems()) {
+                    cached.lines.put(item.getProduct().getId(),
+                            new Line(item.getId(), item.getQuantity(), snapshot(item.getProduct())));
+                    cached.itemVersions.put(item.getId(), item.getVersion() != null ? item.getVersion() : 0);
+                }
+            }
+            cached.productsLoadedAt = System.currentTimeMillis();
+            return cached;
+        });
+    }
+
+    private void refreshProducts(CachedCart cart) {
+        if (!cart.lines.isEmpty()) {
+            Map<Long, ProductSnapshot> snapshots = loadProducts(cart.lines.keySet());
+            cart.lines.replaceAll((productId, line) -> {
+                ProductSnapshot snapshot = snapshots.get(productId);
+                // A deleted product stays in the cart as unavailable until removed
+                return new Line(line.itemId(), line.quantity(), snapshot != null ? snapshot : new ProductSnapshot(
+                        line.product().product(), line.product().price(), line.product().categoryId(),
+                        line.product().brand(), 0, false));
+            });
+        }
+        cart.productsLoadedAt = System.currentTimeMillis();
+    }
+
+    private ProductSnapshot snapshot(Product product) {
+        return new ProductSnapshot(
+                modelMapper.map(product, ProductDto.class),
+                Money.of(product.getPrice()),
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                product.getBrand(),
+                product.getStockQuantity(),
+                Boolean.TRUE.equals(product.getActive()));
+    }
+
+    /**
+     * A cart held in memory. Guarded by its own monitor.
+     */
+    public static final class CachedCart {
+
+        private Long cartId;
+        private final Long userId;
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+        private final Map<Long, Integer> dirtyQuantities = new HashMap<>();
+        private final Map<Long, Long> removedItems = new HashMap<>();
+        // Versions of the cart row and its lines as last read or written by this store
+        private final Map<Long, Long> itemVersions = new HashMap<>();
+        private long persistedVersion;
+        private boolean touched;
+        private boolean evicted;
+        private boolean flushing;
+        private long lastAccess = System.currentTimeMillis();
+        private long productsLoadedAt;
+        private long version;
+
+        private CachedCart(Long cartId, Long userId) {
+            this.cartId = cartId;
+            this.userId = userId;
+        }
+
+        /**
+         * The cart's ID, or null if the user has no cart row yet.
+         */
+        public synchronized Long getCartId() {
+            return cartId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        /**
+         * Version of the cart's lines, incremented by every change. Clients send it back with
+         * changes that depend on what they last saw.
+         */
+        public synchronized long getVersion() {
+            return version;
+        }
+
+        /**
+         * Lines in the order they were added.
+         */
+        public synchronized List<Line> lines() {
+            return List.copyOf(lines.values());
+        }
+
+        public synchronized Line line(Long productId) {
+            return lines.get(productId);
+        }
+
+        public synchronized Line lineByItemId(Long itemId) {
+            for (Line line : lines.values()) {
+                if (line.itemId() == itemId) {
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Product ID of the line with the given item ID, or null if it is not in this cart.
+         */
+        public synchronized Long productIdOf(Long itemId) {
+            for (Map.Entry<Long, Line> entry : lines.entrySet()) {
+                if (entry.getValue().itemId() == itemId) {
+                    return entry.getKey();
+                }
+            }
+            return null;
+        }
+
+        private boolean isDirty() {
+            return touched || !dirtyQuantities.isEmpty() || !removedItems.isEmpty();
+        }
+
+        /**
+         * Mark the cart evicted unless it has unflushed changes or is being flushed. Only reads
+         * and sets the cart's own state; callers remove it from the map.
+         */
+        private synchronized boolean tryEvict() {
+            if (isDirty() || flushing) {
+                return false;
+            }
+            evicted = true;
+            return true;
+        }
+    }
+
+    private record Drained(CachedCart cart, Map<Long, Integer> quantities, Map<Long, Long> removedItems,
+                           Map<Long, Long> itemVersions, long expectedVersion, long version) {
+
+        void written() {
+            synchronized (cart) {
+                cart.persistedVersion = version;
+                itemVersions.forEach((itemId, itemVersion) -> cart.itemVersions.put(itemId, itemVersion + 1));
+                removedItems.values().forEach(cart.itemVersions::remove);
+                finish();
+            }
+        }
+
+        void drop() {
+            synchronized (cart) {
+                discard(cart);
+                finish();
+            }
+        }
+
+        void restore() {
+            synchronized (cart) {
+                finish();
+                if (cart.evicted) {
+                    return;
+                }
+                // Changes made since the drain are newer and win
+                quantities.forEach((itemId, quantity) -> {
+                    if (!cart.removedItems.containsValue(itemId)) {
+                        cart.dirtyQuantities.putIfAbsent(itemId, quantity);
+                    }
+                });
+                removedItems.forEach((productId, itemId) -> {
+                    if (!cart.lines.containsKey(productId)) {
+                        cart.removedItems.putIfAbsent(productId, itemId);
+                    }
+                });
+                cart.touched = true;
+            }
+        }
+
+        private void finish() {
+            cart.flushing = false;
+            cart.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.dto.CartDto;
+import com.mahalaxmi.ecommerce.dto.CartSummaryDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of each user's cart summary for the cart badge.
+ * <p>
+ * {@link CartService} stores a fresh summary whenever it builds a user's cart, so every cart
+ * change refreshes it, and checkout removes it once the order commits. Entries older than the
+ * TTL are dropped on read so price and promotion changes eventually show without a cart change.
+ */
+@Service
+public class CartSummaryCache {
+
+    private final long ttlMillis;
+    private final Map<Long, Entry> summaries;
+
+    public CartSummaryCache(
+            @Value("${application.cart.summary.cache-size}") int cacheSize,
+            @Value("${application.cart.summary.ttl-seconds}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.summaries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * The cached summary of a user's cart, or null if there is none or it has expired.
+     */
+    public CartSummaryDto get(Long userId) {
+        Entry entry = summaries.get(userId);
+        if (entry == null || System.currentTimeMillis() - entry.cachedAt() > ttlMillis) {
+            return null;
+        }
+        return entry.summary();
+    }
+
+    /**
+     * Remember the summary of a user's cart as just built.
+     */
+    public CartSummaryDto put(Long userId, CartDto cart) {
+        CartSummaryDto summary = summaryOf(cart);
+        summaries.put(userId, new Entry(summary, System.currentTimeMillis()));
+        return summary;
+    }
+
+    /**
+     * Forget a user's summary, e.g. once checkout has emptied the cart.
+     */
+    public void invalidate(Long userId) {
+        summaries.remove(userId);
+    }
+
+    /**
+     * The summary of a cart.
+     */
+    public static CartSummaryDto summaryOf(CartDto cart) {
+        return CartSummaryDto.builder()
+                .itemCount(cart.getItemCount())
+                .total(cart.getTotal())
+                .build();
+    }
+
+    private record Entry(CartSummaryDto summary, long cachedAt) {
+    }
+}
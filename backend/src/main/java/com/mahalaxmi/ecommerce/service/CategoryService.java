@@ -7,6 +7,8 @@ import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -20,6 +22,8 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ModelMapper modelMapper;
+    private final PricingRulesEngine pricingRulesEngine;
+    private final PromotionEngine promotionEngine;
 
     /**
      * Get all active categories.
@@ -81,6 +85,7 @@ public class CategoryService {
     public CategoryDto createCategory(CategoryDto categoryDto) {
         Category category = convertToEntity(categoryDto);
         Category savedCategory = categoryRepository.save(category);
+        refreshAfterCommit();
         return convertToDto(savedCategory);
     }
 
@@ -100,6 +105,7 @@ public class CategoryService {
         existingCategory.setId(id);
 
         Category updatedCategory = categoryRepository.save(existingCategory);
+        refreshAfterCommit();
         return convertToDto(updatedCategory);
     }
 
@@ -116,6 +122,19 @@ public class CategoryService {
         categoryRepository.save(category);
     }
 
+    /**
+     * GST slabs and category promotions apply to whole subtrees; resolve them against the new tree.
+     */
+    private void refreshAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pricingRulesEngine.refreshCategories();
+                promotionEngine.reload();
+            }
+        });
+    }
+
     private CategoryDto convertToDto(Category category) {
         CategoryDto dto = modelMapper.map(category, CategoryDto.class);
         if (category.getParent() != null) {
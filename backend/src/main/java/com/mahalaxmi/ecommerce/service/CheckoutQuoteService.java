@@ -0,0 +1,345 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.dto.AppliedPromotionDto;
+import com.mahalaxmi.ecommerce.dto.CheckoutLine;
+import com.mahalaxmi.ecommerce.dto.CheckoutQuoteDto;
+import com.mahalaxmi.ecommerce.exception.CheckoutValidationException;
+import com.mahalaxmi.ecommerce.repository.CartRepository;
+import com.mahalaxmi.ecommerce.util.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Service for checkout validation, pricing and quotes.
+ * <p>
+ * A quote is a signed, self-contained token carrying the user, a fingerprint of the cart lines
+ * (product, quantity, price and availability), the shipping method, the coupon code, the
+ * destination PIN code, the totals and an expiry.
+ * Any instance can verify it without shared state; it is honoured only while the fingerprint of
+ * the cart at checkout still matches. Quotes are cached per user and cart fingerprint so repeated
+ * requests for an unchanged cart return the same quote.
+ */
+@Service
+public class CheckoutQuoteService {
+
+    private static final long BASIS_POINTS = 10_000;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final CartRepository cartRepository;
+    private final CartStore cartStore;
+    private final PromotionEngine promotionEngine;
+    private final PricingRulesEngine pricingRulesEngine;
+    private final SecretKeySpec signingKey;
+    private final Duration ttl;
+    private final Map<Long, CachedQuote> quoteCache;
+
+    public CheckoutQuoteService(
+            CartRepository cartRepository,
+            CartStore cartStore,
+            PromotionEngine promotionEngine,
+            PricingRulesEngine pricingRulesEngine,
+            @Value("${application.orders.quote.secret}") String secret,
+            @Value("${application.orders.quote.ttl-seconds}") long ttlSeconds,
+            @Value("${application.orders.quote.cache-size}") int cacheSize) {
+        this.cartRepository = cartRepository;
+        this.cartStore = cartStore;
+        this.promotionEngine = promotionEngine;
+        this.pricingRulesEngine = pricingRulesEngine;
+        this.signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.quoteCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedQuote> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Totals for a set of checkout lines. Tax is charged on the subtotal less the discount.
+     */
+    public record Totals(Money subtotal, Money discount, Money tax, Money shippingCost, Money total,
+                         String couponCode, int postalCode) {
+    }
+
+    /**
+     * Quote the user's current cart.
+     *
+     * @param userId the user ID
+     * @param shippingMethod requested shipping method, or null for standard
+     * @param couponCode coupon code to apply, or null
+     * @param postalCode destination PIN code, or null to quote shipping for the default zone
+     * @return the quote
+     */
+    @Transactional(readOnly = true)
+    public CheckoutQuoteDto quote(Long userId, String shippingMethod, String couponCode, String postalCode) {
+        cartStore.flush(userId);
+        List<CheckoutLine> lines = cartRepository.findCheckoutLines(userId);
+        if (lines.isEmpty()) {
+            throw new RuntimeException("Cart is empty");
+        }
+        validate(lines);
+
+        String method = normalizeMethod(shippingMethod);
+        String coupon = normalizeCoupon(couponCode);
+        int pin = PricingRulesEngine.parsePin(postalCode);
+        String fingerprint = fingerprint(lines);
+        Instant now = Instant.now();
+
+        CachedQuote cached = quoteCache.get(userId);
+        // Reuse while more than half the lifetime remains so a client never receives a nearly expired quote
+        if (cached != null && cached.fingerprint().equals(fingerprint) && cached.shippingMethod().equals(method)
+                && cached.couponCode().equals(coupon) && cached.postalCode() == pin && cached.expiresAt().minus(ttl.dividedBy(2)).isAfter(now)) {
+            return cached.quote();
+        }
+
+        PromotionEngine.Result promotions = promotionEngine.evaluate(toPromotionLines(lines), couponCode);
+        Totals totals = price(lines, method, coupon, pin, promotions);
+        Instant expiresAt = now.plus(ttl);
+        String quoteId = sign(new Claims(userId, fingerprint, method, totals, expiresAt.getEpochSecond()));
+
+        CheckoutQuoteDto quote = CheckoutQuoteDto.builder()
+                .quoteId(quoteId)
+                .lines(lines.stream()
+                        .map(line -> CheckoutQuoteDto.Line.builder()
+                                .productId(line.getProductId())
+                                .productName(line.getProductName())
+                                .thumbnailUrl(line.getThumbnailUrl())
+                                .quantity(line.getQuantity())
+                                .price(line.getPrice())
+                                .subtotal(line.getSubtotal().toBigDecimal())
+                                .build())
+                        .collect(Collectors.toList()))
+                .subtotal(totals.subtotal().toBigDecimal())
+                .discount(totals.discount().toBigDecimal())
+                .couponCode(totals.couponCode())
+                .promotions(toAppliedPromotionDtos(promotions))
+                .tax(totals.tax().toBigDecimal())
+                .shippingCost(totals.shippingCost().toBigDecimal())
+                .total(totals.total().toBigDecimal())
+                .shippingMethod(method)
+                .expiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))
+                .build();
+        quoteCache.put(userId, new CachedQuote(fingerprint, method, coupon, pin, expiresAt, quote));
+        return quote;
+    }
+
+    /**
+     * Check every cart line against its product's current state and report all problems together.
+     * Stock is only pre-checked for regular products; flash-sale stock lives in memory and is
+     * checked when it is reserved.
+     */
+    public void validate(List<CheckoutLine> lines) {
+        List<String> problems = new ArrayList<>();
+        for (CheckoutLine line : lines) {
+            if (!Boolean.TRUE.equals(line.getActive())) {
+                problems.add(String.format("'%s' is no longer available", line.getProductName()));
+            } else if (!Boolean.TRUE.equals(line.getFlashSale()) && line.getQuantity() > line.getStockQuantity()) {
+                problems.add(String.format("Only %d of '%s' left in stock",
+                        line.getStockQuantity(), line.getProductName()));
+            }
+        }
+        if (!problems.isEmpty()) {
+            throw new CheckoutValidationException(problems);
+        }
+    }
+
+    /**
+     * Price checkout lines from scratch, applying the current promotions.
+     *
+     * @throws CheckoutValidationException if the coupon code is not valid
+     */
+    public Totals price(List<CheckoutLine> lines, String shippingMethod, String couponCode, String postalCode) {
+        PromotionEngine.Result promotions = promotionEngine.evaluate(toPromotionLines(lines), couponCode);
+        return price(lines, normalizeMethod(shippingMethod), normalizeCoupon(couponCode),
+                PricingRulesEngine.parsePin(postalCode), promotions);
+    }
+
+    /**
+     * Convert the applied promotions of an evaluation to DTOs.
+     */
+    public static List<AppliedPromotionDto> toAppliedPromotionDtos(PromotionEngine.Result promotions) {
+        return promotions.applied().stream()
+                .map(applied -> AppliedPromotionDto.builder()
+                        .promotionId(applied.promotionId())
+                        .name(applied.name())
+                        .code(applied.code())
+                        .discount(applied.discount().toBigDecimal())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private Totals price(List<CheckoutLine> lines, String method, String coupon, int pin,
+                         PromotionEngine.Result promotions) {
+        Money subtotal = Money.ZERO;
+        for (CheckoutLine line : lines) {
+            subtotal = subtotal.plus(line.getSubtotal());
+        }
+        Money discounted = subtotal.minus(promotions.discount());
+        Money shippingCost = promotions.freeShipping()
+                ? Money.ZERO
+                : pricingRulesEngine.shippingCost(pin, method, discounted);
+
+        // GST per line at its category's slab, with the discount spread over the lines in proportion to their subtotals
+        Money tax = Money.ZERO;
+        if (!subtotal.isZero()) {
+            long denominator = Math.multiplyExact(subtotal.toPaise(), BASIS_POINTS);
+            for (CheckoutLine line : lines) {
+                long slab = pricingRulesEngine.taxBasisPoints(line.getCategoryId());
+                tax = tax.plus(line.getSubtotal().scaledBy(Math.multiplyExact(slab, discounted.toPaise()), denominator));
+            }
+        }
+        return new Totals(subtotal, promotions.discount(), tax, shippingCost,
+                discounted.plus(shippingCost).plus(tax), coupon.isEmpty() ? null : coupon, pin);
+    }
+
+    private static List<PromotionEngine.Line> toPromotionLines(List<CheckoutLine> lines) {
+        List<PromotionEngine.Line> promotionLines = new ArrayList<>(lines.size());
+        for (CheckoutLine line : lines) {
+            promotionLines.add(new PromotionEngine.Line(line.getProductId(), line.getCategoryId(), line.getBrand(),
+                    line.getQuantity(), line.getSubtotal()));
+        }
+        return promotionLines;
+    }
+
+    /**
+     * Totals of a previously issued quote, provided it was issued to this user for the same
+     * shipping method and coupon, has not expired and the cart lines and PIN code still match.
+     * Promotions and rates priced into the quote are honoured even if they have since been edited.
+     *
+     * @throws CheckoutValidationException if the quote is not valid for this checkout, expired, or the
+     *         cart or PIN code changed since
+     */
+    public Totals redeem(Long userId, String quoteId, String shippingMethod, String couponCode, String postalCode,
+                         List<CheckoutLine> lines) {
+        Claims claims = verify(quoteId);
+        if (!claims.userId().equals(userId) || !claims.shippingMethod().equals(normalizeMethod(shippingMethod))
+                || !Objects.equals(claims.totals().couponCode(), PromotionEngine.normalizeCode(couponCode))) {
+            throw invalidQuote();
+        }
+        if (Instant.now().getEpochSecond() >= claims.expiresAt()) {
+            throw new CheckoutValidationException(List.of("Your quote has expired, please review the updated total"));
+        }
+        if (!claims.fingerprint().equals(fingerprint(lines))) {
+            throw new CheckoutValidationException(
+                    List.of("Your cart or its prices changed since the quote, please review the updated total"));
+        }
+        if (claims.totals().postalCode() != PricingRulesEngine.parsePin(postalCode)) {
+            throw new CheckoutValidationException(
+                    List.of("Your delivery PIN code changed since the quote, please review the updated total"));
+        }
+        return claims.totals();
+    }
+
+    private static String normalizeMethod(String shippingMethod) {
+        return shippingMethod == null || shippingMethod.isBlank() ? "standard" : shippingMethod.trim().toLowerCase();
+    }
+
+    private static String normalizeCoupon(String couponCode) {
+        String code = PromotionEngine.normalizeCode(couponCode);
+        return code != null ? code : "";
+    }
+
+    private static String fingerprint(List<CheckoutLine> lines) {
+        StringBuilder content = new StringBuilder();
+        for (CheckoutLine line : lines) {
+            content.append(line.getProductId()).append(':')
+                    .append(line.getQuantity()).append(':')
+                    .append(line.getPrice().stripTrailingZeros().toPlainString()).append(':')
+                    .append(line.getActive()).append(':')
+                    .append(line.getFlashSale()).append(';');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String sign(Claims claims) {
+        String payload = String.join("|",
+                claims.userId().toString(),
+                claims.fingerprint(),
+                claims.shippingMethod(),
+                claims.totals().couponCode() != null ? claims.totals().couponCode() : "",
+                Integer.toString(claims.totals().postalCode()),
+                Long.toString(claims.totals().subtotal().toPaise()),
+                Long.toString(claims.totals().discount().toPaise()),
+                Long.toString(claims.totals().tax().toPaise()),
+                Long.toString(claims.totals().shippingCost().toPaise()),
+                Long.toString(claims.totals().total().toPaise()),
+                Long.toString(claims.expiresAt()));
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(hmac(payloadBytes));
+    }
+
+    private Claims verify(String quoteId) {
+        int dot = quoteId != null ? quoteId.indexOf('.') : -1;
+        if (dot < 0) {
+            throw invalidQuote();
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payloadBytes = decoder.decode(quoteId.substring(0, dot));
+            byte[] signature = decoder.decode(quoteId.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, hmac(payloadBytes))) {
+                throw new IllegalArgumentException("Bad signature");
+            }
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|");
+            return new Claims(
+                    Long.parseLong(fields[0]),
+                    fields[1],
+                    fields[2],
+                    new Totals(Money.ofPaise(Long.parseLong(fields[5])), Money.ofPaise(Long.parseLong(fields[6])),
+                            Money.ofPaise(Long.parseLong(fields[7])), Money.ofPaise(Long.parseLong(fields[8])),
+                            Money.ofPaise(Long.parseLong(fields[9])), fields[3].isEmpty() ? null : fields[3],
+                            Integer.parseInt(fields[4])),
+                    Long.parseLong(fields[10]));
+        } catch (RuntimeException e) {
+            throw invalidQuote();
+        }
+    }
+
+    private static CheckoutValidationException invalidQuote() {
+        return new CheckoutValidationException(List.of("Your quote is not valid, please review the updated total"));
+    }
+
+    private byte[] hmac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign quote", e);
+        }
+    }
+
+    private record Claims(Long userId, String fingerprint, String shippingMethod, Totals totals, long expiresAt) {
+    }
+
+    private record CachedQuote(String fingerprint, String shippingMethod, String couponCode, int postalCode,
+                               Instant expiresAt, CheckoutQuoteDto quote) {
+    }
+}
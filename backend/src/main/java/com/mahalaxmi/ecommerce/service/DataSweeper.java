@@ -0,0 +1,265 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.entity.SweepCheckpoint;
+import com.mahalaxmi.ecommerce.repository.SweepCheckpointRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * Deletes abandoned carts and shipping addresses no order references any more, so the tables
+ * checkout and the cart read from do not grow forever.
+ * <p>
+ * Each sweep walks its table in ID order, one bounded batch per transaction: it selects and locks
+ * up to a batch of eligible rows after its checkpoint, deletes them and advances the checkpoint in
+ * the same transaction. A run ends when a pass reaches the end of the table, and the next pass
+ * starts from the beginning; a run stopped by load or a restart resumes from the checkpoint.
+ * Before each batch the sweeper waits while the connection pool is busy, and gives up the run if
+ * the load does not drop.
+ */
+@Component
+@Slf4j
+public class DataSweeper {
+
+    private static final String CARTS = "carts";
+    private static final String ADDRESSES = "addresses";
+
+    // Rows being written are skipped rather than waited for; the next pass looks at them again
+    private static final String IDLE_CARTS_SQL = """
+            SELECT c.id, c.user_id FROM carts c
+            WHERE c.id > :afterId
+              AND (c.updated_at < :idleBefore
+                   OR (c.updated_at < :emptyIdleBefore
+                       AND NOT EXISTS (SELECT 1 FROM cart_items i WHERE i.cart_id = c.id)))
+            ORDER BY c.id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String ORPHANED_ADDRESSES_SQL = """
+            SELECT a.id FROM addresses a
+            WHERE a.id > :afterId
+              AND a.type = 'SHIPPING'
+              AND a.is_default = FALSE
+              AND a.created_at < :createdBefore
+              AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.shipping_address_id = a.id)
+              AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.billing_address_id = a.id)
+            ORDER BY a.id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SweepCheckpointRepository checkpointRepository;
+    private final CartStore cartStore;
+    private final CartSummaryCache cartSummaryCache;
+    private final AddressService addressService;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.sweeper.enabled}")
+    private boolean enabled;
+
+    @Value("${application.sweeper.batch-size}")
+    private int batchSize;
+
+    @Value("${application.sweeper.cart-idle-days}")
+    private int cartIdleDays;
+
+    @Value("${application.sweeper.empty-cart-idle-days}")
+    private int emptyCartIdleDays;
+
+    @Value("${application.sweeper.address-min-age-days}")
+    private int addressMinAgeDays;
+
+    @Value("${application.sweeper.max-pool-utilization}")
+    private double maxPoolUtilization;
+
+    @Value("${application.sweeper.busy-pause-ms}")
+    private long busyPauseMs;
+
+    @Value("${application.sweeper.max-busy-pauses}")
+    private int maxBusyPauses;
+
+    public DataSweeper(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            SweepCheckpointRepository checkpointRepository,
+            CartStore cartStore,
+            CartSummaryCache cartSummaryCache,
+            AddressService addressService,
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.cartStore = cartStore;
+        this.cartSummaryCache = cartSummaryCache;
+        this.addressService = addressService;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Keeps the locking reads from taking gap locks that would block new carts and addresses
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    /**
+     * Sweep idle carts, then orphaned addresses, until each pass completes or the database is busy.
+     */
+    @Scheduled(fixedDelayString = "${application.sweeper.interval-ms}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        if (sweep(CARTS, this::sweepCartBatch)) {
+            sweep(ADDRESSES, this::sweepAddressBatch);
+        }
+    }
+
+    /**
+     * @return true if the pass completed, false if the run was given up under load
+     */
+    private boolean sweep(String name, LongFunction<Batch> batchAfter) {
+        int total = 0;
+        Batch batch;
+        do {
+            if (!waitForCapacity()) {
+                log.info("Paused {} sweep under load after deleting {} rows", name, total);
+                return false;
+            }
+            batch = transactionTemplate.execute(status -> {
+                long afterId = checkpointRepository.findById(name)
+                        .map(SweepCheckpoint::getLastId)
+                        .orElse(0L);
+                Batch result = batchAfter.apply(afterId);
+                checkpointRepository.save(SweepCheckpoint.builder()
+                        .name(name)
+                        .lastId(result.passComplete() ? 0L : result.lastId())
+                        .build());
+                return result;
+            });
+            total += batch.deleted().size();
+            evict(name, batch.deleted());
+        } while (!batch.passComplete());
+
+        if (total > 0) {
+            log.info("Swept {} {}", total, name);
+        }
+        return true;
+    }
+
+    private Batch sweepCartBatch(long afterId) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Map<String, Object>> candidates = jdbcTemplate.queryForList(IDLE_CARTS_SQL, new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("idleBefore", Timestamp.valueOf(now.minusDays(cartIdleDays)))
+                .addValue("emptyIdleBefore", Timestamp.valueOf(now.minusDays(emptyCartIdleDays)))
+                .addValue("limit", batchSize));
+
+        Map<Long, Long> cartIdsByUserId = new LinkedHashMap<>();
+        for (Map<String, Object> row : candidates) {
+            cartIdsByUserId.put(((Number) row.get("user_id")).longValue(), ((Number) row.get("id")).longValue());
+        }
+        // A cart in memory may have changes not yet flushed to updated_at; claimed users' carts
+        // cannot be loaded until this batch's transaction ends
+        List<Long> userIds = cartStore.claimForSweep(cartIdsByUserId.keySet());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cartStore.releaseSweep(userIds);
+            }
+        });
+        List<Long> cartIds = userIds.stream().map(cartIdsByUserId::get).toList();
+        if (!cartIds.isEmpty()) {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", cartIds);
+            jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (:ids)", params);
+            jdbcTemplate.update("DELETE FROM carts WHERE id IN (:ids)", params);
+        }
+        long lastId = candidates.isEmpty() ? afterId : ((Number) candidates.get(candidates.size() - 1).get("id")).longValue();
+        return new Batch(userIds, lastId, candidates.size() < batchSize);
+    }
+
+    private Batch sweepAddressBatch(long afterId) {
+        List<Long> addressIds = jdbcTemplate.queryForList(ORPHANED_ADDRESSES_SQL, new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("createdBefore", Timestamp.valueOf(LocalDateTime.now().minusDays(addressMinAgeDays)))
+                .addValue("limit", batchSize), Long.class);
+        if (!addressIds.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM addresses WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", addressIds));
+        }
+        long lastId = addressIds.isEmpty() ? afterId : addressIds.get(addressIds.size() - 1);
+        return new Batch(addressIds, lastId, addressIds.size() < batchSize);
+    }
+
+    /**
+     * Drop cached state for deleted rows once their batch has committed.
+     */
+    private void evict(String name, List<Long> deleted) {
+        if (deleted.isEmpty()) {
+            return;
+        }
+        if (CARTS.equals(name)) {
+            deleted.forEach(cartSummaryCache::invalidate);
+        } else {
+            addressService.evict(deleted);
+        }
+    }
+
+    /**
+     * Wait until the connection pool has spare capacity.
+     *
+     * @return false if the pool stayed busy through every pause
+     */
+    private boolean waitForCapacity() {
+        for (int pauses = 0; isUnderLoad(); pauses++) {
+            if (pauses == maxBusyPauses) {
+                return false;
+            }
+            try {
+                Thread.sleep(busyPauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isUnderLoad() {
+        if (!(dataSource instanceof HikariDataSource hikari)) {
+            return false;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            return false;
+        }
+        return pool.getThreadsAwaitingConnection() > 0
+                || pool.getActiveConnections() > maxPoolUtilization * hikari.getMaximumPoolSize();
+    }
+
+    /**
+     * One batch's outcome.
+     *
+     * @param deleted user IDs of deleted carts, or IDs of deleted addresses
+     * @param lastId highest ID the batch examined
+     * @param passComplete whether the batch reached the end of the table
+     */
+    private record Batch(List<Long> deleted, long lastId, boolean passComplete) {
+    }
+}
@@ -0,0 +1,380 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahalaxmi.ecommerce.dto.OrderDto;
+import com.mahalaxmi.ecommerce.dto.OrderItemDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Service for streaming full catalog and order exports.
+ * Rows are read through a forward-only, streaming JDBC cursor and written straight to the
+ * response, so heap use stays flat regardless of how many rows are exported.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+
+    private static final String PRODUCTS_SQL =
+            "SELECT p.id, p.name, p.brand, p.model, p.type, p.price, p.stock_quantity, " +
+            "p.category_id, p.active, p.featured, p.created_at, p.updated_at " +
+            "FROM products p ORDER BY p.id";
+
+    private static final String ORDERS_SQL =
+            "SELECT o.id, o.order_number, o.user_id, u.email, o.status, o.payment_status, o.payment_method, " +
+            "o.subtotal, o.tax, o.shipping_cost, o.total, o.tracking_number, o.created_at, o.shipped_at, " +
+            "o.delivered_at, oi.id AS item_id, oi.product_id, oi.quantity, oi.price AS item_price, " +
+            "oi.subtotal AS item_subtotal " +
+            "FROM orders o JOIN users u ON u.id = o.user_id " +
+            "LEFT JOIN order_items oi ON oi.order_id = o.id " +
+            "ORDER BY o.id, oi.id";
+
+    private static final String ARCHIVED_ORDERS_SQL =
+            "SELECT a.user_id, a.customer_email, a.payload FROM archived_orders a ORDER BY a.id";
+
+    private static final String PRODUCTS_CSV_HEADER =
+            "id,name,brand,model,type,price,stock_quantity,category_id,active,featured,created_at,updated_at";
+
+    private static final String ORDERS_CSV_HEADER =
+            "order_id,order_number,user_id,email,status,payment_status,payment_method,subtotal,tax," +
+            "shipping_cost,total,tracking_number,created_at,shipped_at,delivered_at,item_id,product_id," +
+            "quantity,item_price,item_subtotal";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OrderArchiveService orderArchiveService;
+
+    /**
+     * Supported export formats.
+     */
+    public enum Format {
+        NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")),
+        CSV("csv", MediaType.parseMediaType("text/csv"));
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public static Format from(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    /**
+     * Stream every product as NDJSON or CSV.
+     *
+     * @param format output format
+     * @param out response stream
+     */
+    public void exportProducts(Format format, OutputStream out) throws IOException {
+        if (format == Format.CSV) {
+            Writer writer = csvWriter(out);
+            writer.write(PRODUCTS_CSV_HEADER);
+            writer.write('\n');
+            stream(PRODUCTS_SQL, rs -> writeCsvRow(writer, rs, 12));
+            writer.flush();
+            return;
+        }
+
+        JsonGenerator generator = jsonGenerator(out);
+        stream(PRODUCTS_SQL, rs -> {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("id"));
+            generator.writeStringField("name", rs.getString("name"));
+            generator.writeStringField("brand", rs.getString("brand"));
+            generator.writeStringField("model", rs.getString("model"));
+            generator.writeStringField("type", rs.getString("type"));
+            writeDecimal(generator, "price", rs.getBigDecimal("price"));
+            generator.writeNumberField("stockQuantity", rs.getInt("stock_quantity"));
+            writeLong(generator, "categoryId", rs, "category_id");
+            generator.writeBooleanField("active", rs.getBoolean("active"));
+            generator.writeBooleanField("featured", rs.getBoolean("featured"));
+            writeTimestamp(generator, "createdAt", rs.getTimestamp("created_at"));
+            writeTimestamp(generator, "updatedAt", rs.getTimestamp("updated_at"));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        });
+        generator.flush();
+    }
+
+    /**
+     * Stream every order with its items: live orders, then archived ones decoded from their
+     * stored payload, in the same shape. NDJSON emits one object per order with nested items;
+     * CSV emits one row per order item.
+     *
+     * @param format output format
+     * @param out response stream
+     */
+    public void exportOrders(Format format, OutputStream out) throws IOException {
+        if (format == Format.CSV) {
+            Writer writer = csvWriter(out);
+            writer.write(ORDERS_CSV_HEADER);
+            writer.write('\n');
+            stream(ORDERS_SQL, rs -> writeCsvRow(writer, rs, 20));
+            stream(ARCHIVED_ORDERS_SQL, rs -> writeArchivedCsvRows(writer, rs));
+            writer.flush();
+            return;
+        }
+
+        JsonGenerator generator = jsonGenerator(out);
+        long[] currentOrderId = {-1L};
+        stream(ORDERS_SQL, rs -> {
+            long orderId = rs.getLong("id");
+            if (orderId != currentOrderId[0]) {
+                if (currentOrderId[0] != -1L) {
+                    endOrder(generator);
+                }
+                currentOrderId[0] = orderId;
+                startOrder(generator, rs);
+            }
+            long itemId = rs.getLong("item_id");
+            if (!rs.wasNull()) {
+                generator.writeStartObject();
+                generator.writeNumberField("id", itemId);
+                generator.writeNumberField("productId", rs.getLong("product_id"));
+                generator.writeNumberField("quantity", rs.getInt("quantity"));
+                writeDecimal(generator, "price", rs.getBigDecimal("item_price"));
+                writeDecimal(generator, "subtotal", rs.getBigDecimal("item_subtotal"));
+                generator.writeEndObject();
+            }
+        });
+        if (currentOrderId[0] != -1L) {
+            endOrder(generator);
+        }
+        stream(ARCHIVED_ORDERS_SQL, rs -> writeArchivedOrder(generator, rs));
+        generator.flush();
+    }
+
+    private void writeArchivedOrder(JsonGenerator generator, ResultSet rs) throws SQLException, IOException {
+        OrderDto order = orderArchiveService.decompress(rs.getBytes("payload"));
+        generator.writeStartObject();
+        generator.writeNumberField("id", order.getId());
+        generator.writeStringField("orderNumber", order.getOrderNumber());
+        generator.writeNumberField("userId", rs.getLong("user_id"));
+        generator.writeStringField("email", rs.getString("customer_email"));
+        generator.writeStringField("status", order.getStatus());
+        generator.writeStringField("paymentStatus", order.getPaymentStatus());
+        generator.writeStringField("paymentMethod", order.getPaymentMethod());
+        writeDecimal(generator, "subtotal", order.getSubtotal());
+        writeDecimal(generator, "tax", order.getTax());
+        writeDecimal(generator, "shippingCost", order.getShippingCost());
+        writeDecimal(generator, "total", order.getTotal());
+        generator.writeStringField("trackingNumber", order.getTrackingNumber());
+        writeTimestamp(generator, "createdAt", timestamp(order.getCreatedAt()));
+        writeTimestamp(generator, "shippedAt", timestamp(order.getShippedAt()));
+        writeTimestamp(generator, "deliveredAt", timestamp(order.getDeliveredAt()));
+        generator.writeArrayFieldStart("items");
+        for (OrderItemDto item : items(order)) {
+            generator.writeStartObject();
+            generator.writeNumberField("id", item.getId());
+            if (item.getProduct() != null) {
+                generator.writeNumberField("productId", item.getProduct().getId());
+            } else {
+                generator.writeNullField("productId");
+            }
+            generator.writeNumberField("quantity", item.getQuantity());
+            writeDecimal(generator, "price", item.getPrice());
+            writeDecimal(generator, "subtotal", item.getSubtotal());
+            generator.writeEndObject();
+        }
+        endOrder(generator);
+    }
+
+    /**
+     * Write an archived order as CSV rows, formatted as the live rows are: one per item, or one
+     * with empty item columns for an order without items.
+     */
+    private void writeArchivedCsvRows(Writer writer, ResultSet rs) throws SQLException, IOException {
+        OrderDto order = orderArchiveService.decompress(rs.getBytes("payload"));
+        Object[] orderColumns = {
+                order.getId(), order.getOrderNumber(), rs.getLong("user_id"), rs.getString("customer_email"),
+                order.getStatus(), order.getPaymentStatus(), order.getPaymentMethod(), order.getSubtotal(),
+                order.getTax(), order.getShippingCost(), order.getTotal(), order.getTrackingNumber(),
+                order.getCreatedAt(), order.getShippedAt(), order.getDeliveredAt()
+        };
+        List<OrderItemDto> items = items(order);
+        if (items.isEmpty()) {
+            writeCsvValues(writer, orderColumns, new Object[5]);
+        }
+        for (OrderItemDto item : items) {
+            writeCsvValues(writer, orderColumns, new Object[]{
+                    item.getId(), item.getProduct() != null ? item.getProduct().getId() : null,
+                    item.getQuantity(), item.getPrice(), item.getSubtotal()
+            });
+        }
+    }
+
+    private static List<OrderItemDto> items(OrderDto order) {
+        return order.getItems() != null ? order.getItems() : List.of();
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    private void startOrder(JsonGenerator generator, ResultSet rs) throws SQLException, IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", rs.getLong("id"));
+        generator.writeStringField("orderNumber", rs.getString("order_number"));
+        generator.writeNumberField("userId", rs.getLong("user_id"));
+        generator.writeStringField("email", rs.getString("email"));
+        generator.writeStringField("status", rs.getString("status"));
+        generator.writeStringField("paymentStatus", rs.getString("payment_status"));
+        generator.writeStringField("paymentMethod", rs.getString("payment_method"));
+        writeDecimal(generator, "subtotal", rs.getBigDecimal("subtotal"));
+        writeDecimal(generator, "tax", rs.getBigDecimal("tax"));
+        writeDecimal(generator, "shippingCost", rs.getBigDecimal("shipping_cost"));
+        writeDecimal(generator, "total", rs.getBigDecimal("total"));
+        generator.writeStringField("trackingNumber", rs.getString("tracking_number"));
+        writeTimestamp(generator, "createdAt", rs.getTimestamp("created_at"));
+        writeTimestamp(generator, "shippedAt", rs.getTimestamp("shipped_at"));
+        writeTimestamp(generator, "deliveredAt", rs.getTimestamp("delivered_at"));
+        generator.writeArrayFieldStart("items");
+    }
+
+    private void endOrder(JsonGenerator generator) throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * Run a query over a forward-only, read-only cursor. A fetch size of Integer.MIN_VALUE makes
+     * MySQL Connector/J stream rows one at a time instead of buffering the whole result set.
+     */
+    private void stream(String sql, RowWriter rowWriter) {
+        PreparedStatementCreator creator = connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        };
+
+        long[] rows = {0L};
+        jdbcTemplate.query(creator, rs -> {
+            try {
+                rowWriter.write(rs);
+                rows[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.info("Exported {} rows", rows[0]);
+    }
+
+    private JsonGenerator jsonGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private Writer csvWriter(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    private void writeCsvRow(Writer writer, ResultSet rs, int columns) throws SQLException, IOException {
+        for (int i = 1; i <= columns; i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+            Object value = rs.getObject(i);
+            if (value != null) {
+                writer.write(escapeCsv(value.toString()));
+            }
+        }
+        writer.write('\n');
+    }
+
+    private void writeCsvValues(Writer writer, Object[]... groups) throws IOException {
+        boolean first = true;
+        for (Object[] values : groups) {
+            for (Object value : values) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                if (value != null) {
+                    writer.write(escapeCsv(value.toString()));
+                }
+            }
+        }
+        writer.write('\n');
+    }
+
+    private String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private void writeDecimal(JsonGenerator generator, String field, BigDecimal value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    private void writeLong(JsonGenerator generator, String field, ResultSet rs, String column)
+            throws SQLException, IOException {
+        long value = rs.getLong(column);
+        if (rs.wasNull()) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    private void writeTimestamp(JsonGenerator generator, String field, Timestamp value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeStringField(field, value.toLocalDateTime().toString());
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+}
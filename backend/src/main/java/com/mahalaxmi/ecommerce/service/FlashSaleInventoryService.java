@@ -0,0 +1,535 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.dto.FlashSaleStatusDto;
+import com.mahalaxmi.ecommerce.entity.Order;
+import com.mahalaxmi.ecommerce.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service for flash-sale inventory.
+ * <p>
+ * Products in flash-sale mode keep their sellable stock in an in-memory counter that checkout
+ * decrements with a CAS loop, so a hot SKU never serializes on its products row. Every committed
+ * reservation is appended to the {@link ReservationLog}, tagged with its order number, before the
+ * order commits, and a scheduled writer folds the log into products.stock_quantity in batches.
+ * Each product row records the last log sequence applied, which makes the writer idempotent and
+ * lets startup recovery replay only the entries that had not reached the database.
+ * <p>
+ * While a product is in flash-sale mode its stock can only change through the counter; direct
+ * stock edits are rejected.
+ * <p>
+ * Counters are local to this instance, so flash-sale mode assumes a single application node.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FlashSaleInventoryService {
+
+    private static final String APPLY_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, flash_sale_log_seq = ?, version = version + 1 " +
+            "WHERE id = ? AND flash_sale_log_seq < ? AND stock_quantity >= ?";
+
+    private static final String CLAMP_SQL =
+            "UPDATE products SET stock_quantity = 0, flash_sale_log_seq = ?, version = version + 1 " +
+            "WHERE id = ? AND flash_sale_log_seq < ?";
+
+    private static final int ORDER_LOOKUP_CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ReservationLog reservationLog;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final Queue<ReservationLog.Entry> pending = new ConcurrentLinkedQueue<>();
+    private final List<ReservationLog.Entry> failed = new ArrayList<>();
+    private volatile boolean ready;
+
+    @Value("${application.inventory.flash-sale.batch-size}")
+    private int batchSize;
+
+    @Value("${application.inventory.flash-sale.log-compact-bytes}")
+    private long logCompactBytes;
+
+    @Value("${application.inventory.flash-sale.drain-timeout-ms}")
+    private long drainTimeoutMs;
+
+    /**
+     * Outcome of a flash-sale reservation attempt.
+     */
+    public enum Reservation {
+        NOT_FLASH_SALE,
+        RESERVED,
+        INSUFFICIENT
+    }
+
+    /**
+     * Try to reserve units from a product's in-memory counter. Must be called inside a
+     * transaction: the reservation is logged just before commit and returned on rollback.
+     *
+     * @param productId product ID
+     * @param quantity units to reserve
+     * @param heldByOthers units held for other shoppers' carts, which the counter must keep
+     * @param orderNumber number of the order being placed, logged so recovery can tell whether it committed
+     * @return NOT_FLASH_SALE if the product is not in flash-sale mode, otherwise the outcome
+     */
+    public Reservation tryReserve(Long productId, int quantity, int heldByOthers, String orderNumber) {
+        Counter counter = counters.get(productId);
+        if (counter == null || !counter.enter()) {
+            return Reservation.NOT_FLASH_SALE;
+        }
+
+        int current;
+        do {
+            current = counter.available.get();
+            if (current - heldByOthers < quantity) {
+                counter.exit();
+                return Reservation.INSUFFICIENT;
+            }
+        } while (!counter.available.compareAndSet(current, current - quantity));
+
+        register(new LoggedAdjustment(productId, quantity, orderNumber, ReservationLog.Kind.RESERVE, counter));
+        return Reservation.RESERVED;
+    }
+
+    /**
+     * Return units to a product's in-memory counter once the surrounding transaction commits.
+     *
+     * @param productId product ID
+     * @param quantity units to release
+     * @param orderNumber number of the order being cancelled
+     * @return false if the product is not in flash-sale mode and stock must be released in the database
+     */
+    public boolean release(Long productId, int quantity, String orderNumber) {
+        Counter counter = counters.get(productId);
+        if (counter == null || !counter.enter()) {
+            return false;
+        }
+        register(new LoggedAdjustment(productId, -quantity, orderNumber, ReservationLog.Kind.RELEASE, counter));
+        return true;
+    }
+
+    private void register(LoggedAdjustment adjustment) {
+        try {
+            TransactionSynchronizationManager.registerSynchronization(adjustment);
+        } catch (RuntimeException e) {
+            adjustment.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            throw e;
+        }
+    }
+
+    /**
+     * Units left in a product's flash-sale counter.
+     *
+     * @param productId product ID
+     * @return remaining units, or null if the product is not in flash-sale mode
+     */
+    public Integer availableQuantity(Long productId) {
+        Counter counter = counters.get(productId);
+        return counter != null ? counter.available.get() : null;
+    }
+
+    /**
+     * Get a product's flash-sale state.
+     *
+     * @param productId product ID
+     * @return flash-sale status
+     */
+    public FlashSaleStatusDto getStatus(Long productId) {
+        Counter counter = counters.get(productId);
+        return FlashSaleStatusDto.builder()
+                .productId(productId)
+                .enabled(counter != null)
+                .availableQuantity(counter != null ? counter.available.get() : null)
+                .build();
+    }
+
+    /**
+     * Switch a product into flash-sale mode, seeding its counter from the current stock.
+     *
+     * @param productId product ID
+     * @return flash-sale status
+     */
+    @Transactional
+    public FlashSaleStatusDto enable(Long productId) {
+        int stock = lockStock(productId);
+        jdbcTemplate.update("UPDATE products SET flash_sale = true, version = version + 1 WHERE id = ?", productId);
+
+        // Install the counter only after commit; until then checkout sees flash_sale = true and rejects
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                counters.putIfAbsent(productId, new Counter(stock));
+            }
+        });
+        log.info("Enabled flash-sale mode for product {} with {} units", productId, stock);
+
+        return FlashSaleStatusDto.builder()
+                .productId(productId)
+                .enabled(true)
+                .availableQuantity(stock)
+                .build();
+    }
+
+    /**
+     * Switch a product back to database-backed stock after reconciling pending reservations.
+     * The counter stops taking reservations, checkouts already holding one are waited for, and
+     * every logged entry is applied before the flag is cleared. Checkouts for the product are
+     * rejected until then; if reconciling fails the counter is reopened.
+     *
+     * @param productId product ID
+     * @return flash-sale status
+     */
+    public FlashSaleStatusDto disable(Long productId) {
+        Counter counter = counters.get(productId);
+        if (counter != null) {
+            counter.closed = true;
+            try {
+                awaitQuiesced(productId, counter);
+                drain();
+            } catch (RuntimeException e) {
+                counter.closed = false;
+                throw e;
+            }
+            counters.remove(productId, counter);
+        } else {
+            drain();
+        }
+        if (jdbcTemplate.update("UPDATE products SET flash_sale = false, version = version + 1 WHERE id = ?", productId) == 0) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        log.info("Disabled flash-sale mode for product {}", productId);
+        return getStatus(productId);
+    }
+
+    /**
+     * Fold logged reservations into products.stock_quantity in one batch.
+     */
+    @Scheduled(fixedDelayString = "${application.inventory.flash-sale.flush-interval-ms}")
+    public synchronized void flush() {
+        if (ready) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * Apply every pending entry, failing if any batch cannot be applied.
+     */
+    private synchronized void drain() {
+        if (!ready) {
+            throw new IllegalStateException("Flash-sale inventory is still recovering");
+        }
+        while (!pending.isEmpty() || !failed.isEmpty()) {
+            flushBatch();
+            if (!failed.isEmpty()) {
+                throw new RuntimeException("Failed to reconcile flash-sale reservations; try again");
+            }
+        }
+    }
+
+    private void awaitQuiesced(Long productId, Counter counter) {
+        long deadline = System.currentTimeMillis() + drainTimeoutMs;
+        while (counter.inFlight.get() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new RuntimeException("Timed out waiting for checkouts of product " + productId + " to finish");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while disabling flash-sale mode", e);
+            }
+        }
+    }
+
+    private void flushBatch() {
+        List<ReservationLog.Entry> batch = new ArrayList<>(failed);
+        failed.clear();
+        ReservationLog.Entry entry;
+        while (batch.size() < batchSize && (entry = pending.poll()) != null) {
+            batch.add(entry);
+        }
+        if (batch.isEmpty()) {
+            compactLog();
+            return;
+        }
+
+        try {
+            apply(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to reconcile {} flash-sale reservations, will retry", batch.size(), e);
+            failed.addAll(batch);
+        }
+    }
+
+    /**
+     * Replay reservations that were logged but not yet applied, then load counters for
+     * products still in flash-sale mode.
+     * <p>
+     * An entry is logged just before its transaction commits, so a crash can leave entries whose
+     * order never committed. Those are checked against the orders table: a reservation counts only
+     * if its order exists and a release only if its order is cancelled. Uncommitted entries not yet
+     * applied are dropped, and those already applied are reversed under a sequence one past the
+     * log's last, so running recovery again does not reverse them twice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void recover() throws IOException {
+        List<ReservationLog.Entry> entries = reservationLog.readAll();
+        long maxSequence = 0;
+        for (ReservationLog.Entry logged : entries) {
+            maxSequence = Math.max(maxSequence, logged.sequence());
+        }
+        if (!entries.isEmpty()) {
+            Map<String, Order.OrderStatus> statuses = orderStatuses(entries);
+            Map<Long, Long> appliedSequences = appliedSequences(entries);
+            long reversalSequence = maxSequence + 1;
+            List<ReservationLog.Entry> replay = new ArrayList<>(entries.size());
+            int uncommitted = 0;
+            for (ReservationLog.Entry logged : entries) {
+                if (isCommitted(logged, statuses)) {
+                    replay.add(logged);
+                    continue;
+                }
+                uncommitted++;
+                Long applied = appliedSequences.get(logged.productId());
+                if (applied != null && logged.sequence() <= applied) {
+                    replay.add(new ReservationLog.Entry(reversalSequence, logged.productId(), -logged.quantity(),
+                            logged.orderNumber(), logged.kind()));
+                }
+            }
+            apply(replay);
+            log.info("Replayed {} flash-sale reservation log entries, discarding {} from uncommitted orders",
+                    entries.size(), uncommitted);
+        }
+
+        Long appliedSequence = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(flash_sale_log_seq), 0) FROM products", Long.class);
+        reservationLog.reset(Math.max(maxSequence, appliedSequence != null ? appliedSequence : 0) + 1);
+
+        jdbcTemplate.query("SELECT id, stock_quantity FROM products WHERE flash_sale = true", rs -> {
+            counters.put(rs.getLong("id"), new Counter(rs.getInt("stock_quantity")));
+        });
+        ready = true;
+        log.info("Flash-sale inventory ready with {} active products", counters.size());
+    }
+
+    private static boolean isCommitted(ReservationLog.Entry logged, Map<String, Order.OrderStatus> statuses) {
+        if (logged.orderNumber() == null) {
+            return true;
+        }
+        Order.OrderStatus status = statuses.get(logged.orderNumber());
+        return logged.kind() == ReservationLog.Kind.RELEASE
+                ? status == Order.OrderStatus.CANCELLED
+                : status != null;
+    }
+
+    /**
+     * Current status of every order the entries refer to, including archived orders.
+     */
+    private Map<String, Order.OrderStatus> orderStatuses(List<ReservationLog.Entry> entries) {
+        List<String> orderNumbers = entries.stream()
+                .map(ReservationLog.Entry::orderNumber)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<String, Order.OrderStatus> statuses = new HashMap<>();
+        for (int from = 0; from < orderNumbers.size(); from += ORDER_LOOKUP_CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource("numbers",
+                    orderNumbers.subList(from, Math.min(from + ORDER_LOOKUP_CHUNK_SIZE, orderNumbers.size())));
+            for (String table : List.of("orders", "archived_orders")) {
+                namedParameterJdbcTemplate.query(
+                        "SELECT order_number, status FROM " + table + " WHERE order_number IN (:numbers)", params,
+                        rs -> {
+                            statuses.put(rs.getString("order_number"), Order.OrderStatus.valueOf(rs.getString("status")));
+                        });
+            }
+        }
+        return statuses;
+    }
+
+    private Map<Long, Long> appliedSequences(List<ReservationLog.Entry> entries) {
+        Map<Long, Long> appliedSequences = new HashMap<>();
+        namedParameterJdbcTemplate.query(
+                "SELECT id, flash_sale_log_seq FROM products WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", entries.stream().map(ReservationLog.Entry::productId).distinct().toList()),
+                rs -> {
+                    appliedSequences.put(rs.getLong("id"), rs.getLong("flash_sale_log_seq"));
+                });
+        return appliedSequences;
+    }
+
+    private void apply(List<ReservationLog.Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> appliedSequences = appliedSequences(entries);
+
+        // Net change and highest sequence per product, in product ID order.
+        // Entries already covered by a product's checkpoint were applied before a crash.
+        Map<Long, long[]> byProduct = new TreeMap<>();
+        for (ReservationLog.Entry logged : entries) {
+            Long applied = appliedSequences.get(logged.productId());
+            if (applied == null || logged.sequence() <= applied) {
+                continue;
+            }
+            long[] totals = byProduct.computeIfAbsent(logged.productId(), id -> new long[2]);
+            totals[0] += logged.quantity();
+            totals[1] = Math.max(totals[1], logged.sequence());
+        }
+
+        List<Object[]> updates = new ArrayList<>(byProduct.size());
+        byProduct.forEach((productId, totals) ->
+                updates.add(new Object[]{totals[0], totals[1], productId, totals[1], totals[0]}));
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(APPLY_SQL, updates);
+
+        // Rows the floor guard held back would otherwise go negative; clamp them so the writer moves on
+        List<Object[]> clamps = new ArrayList<>();
+        namedParameterJdbcTemplate.query(
+                "SELECT id, flash_sale_log_seq, stock_quantity FROM products WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", byProduct.keySet()),
+                rs -> {
+                    long[] totals = byProduct.get(rs.getLong("id"));
+                    if (rs.getLong("flash_sale_log_seq") < totals[1]) {
+                        log.error("Flash-sale reservations for product {} exceed its stock by {}; clamping to 0",
+                                rs.getLong("id"), totals[0] - rs.getInt("stock_quantity"));
+                        clamps.add(new Object[]{totals[1], rs.getLong("id"), totals[1]});
+                    }
+                });
+        if (!clamps.isEmpty()) {
+            jdbcTemplate.batchUpdate(CLAMP_SQL, clamps);
+        }
+    }
+
+    private void compactLog() {
+        try {
+            if (reservationLog.compactIf(() -> pending.isEmpty() && failed.isEmpty(), logCompactBytes)) {
+                log.debug("Compacted flash-sale reservation log");
+            }
+        } catch (IOException e) {
+            log.warn("Failed to compact flash-sale reservation log", e);
+        }
+    }
+
+    private int lockStock(Long productId) {
+        try {
+            Integer stock = jdbcTemplate.queryForObject(
+                    "SELECT stock_quantity FROM products WHERE id = ? FOR UPDATE", Integer.class, productId);
+            return stock != null ? stock : 0;
+        } catch (EmptyResultDataAccessException e) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+    }
+
+    /**
+     * Logs a counter adjustment right before the surrounding transaction commits and
+     * undoes it if the transaction does not commit.
+     */
+    private class LoggedAdjustment implements TransactionSynchronization {
+
+        private final Long productId;
+        private final int quantity;
+        private final String orderNumber;
+        private final ReservationLog.Kind kind;
+        private final Counter counter;
+        private boolean logged;
+
+        LoggedAdjustment(Long productId, int quantity, String orderNumber, ReservationLog.Kind kind, Counter counter) {
+            this.productId = productId;
+            this.quantity = quantity;
+            this.orderNumber = orderNumber;
+            this.kind = kind;
+            this.counter = counter;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            reservationLog.append(productId, quantity, orderNumber, kind, pending::add);
+            logged = true;
+        }
+
+        @Override
+        public void afterCommit() {
+            if (quantity < 0) {
+                counter.available.addAndGet(-quantity);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                if (quantity > 0) {
+                    counter.available.addAndGet(quantity);
+                }
+                if (logged) {
+                    try {
+                        reservationLog.append(productId, -quantity, orderNumber, kind, pending::add);
+                    } catch (UncheckedIOException e) {
+                        log.error("Failed to log compensation for product {}", productId, e);
+                    }
+                }
+            } finally {
+                counter.exit();
+            }
+        }
+    }
+
+    /**
+     * A product's in-memory stock, with the number of transactions holding an adjustment that
+     * has not completed yet. Once closed it takes no new adjustments.
+     */
+    private static final class Counter {
+
+        private final AtomicInteger available;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile boolean closed;
+
+        Counter(int available) {
+            this.available = new AtomicInteger(available);
+        }
+
+        boolean enter() {
+            // Counted before checking the flag, so disable either sees this adjustment or we see the flag
+            inFlight.incrementAndGet();
+            if (closed) {
+                exit();
+                return false;
+            }
+            return true;
+        }
+
+        void exit() {
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.mahalaxmi.ecommerce.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes an anonymous shopper's cart into a signed cookie, so guest carts take no server-side
+ * storage.
+ * <p>
+ * The payload is a format version followed by the line count and each line's product ID and
+ * quantity as unsigned varints, in the order the lines were added; a typical line takes three or
+ * four bytes. It is followed by a truncated HMAC-SHA256 signature, and both are base64url
+ * encoded. A cookie that is malformed or fails verification is treated as an empty cart.
+ */
+@Service
+@Slf4j
+public class GuestCartCodec {
+
+    public static final String COOKIE_NAME = "guest_cart";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final byte FORMAT_VERSION = 1;
+    private static final int SIGNATURE_BYTES = 16;
+
+    private final SecretKeySpec signingKey;
+    private final Duration maxAge;
+    private final boolean secure;
+    private final String sameSite;
+    private final int maxLines;
+
+    public GuestCartCodec(
+            @Value("${application.cart.guest.secret}") String secret,
+            @Value("${application.cart.guest.max-age-days}") long maxAgeDays,
+            @Value("${application.cart.guest.cookie-secure}") boolean secure,
+            @Value("${application.cart.guest.cookie-same-site}") String sameSite,
+            @Value("${application.cart.guest.max-lines}") int maxLines) {
+        this.signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.maxAge = Duration.ofDays(maxAgeDays);
+        this.secure = secure;
+        this.sameSite = sameSite;
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * Most lines a guest cart can hold, keeping the cookie well under browser size limits.
+     */
+    public int getMaxLines() {
+        return maxLines;
+    }
+
+    /**
+     * Decode a guest cart cookie.
+     *
+     * @param value the cookie value, or null if there is none
+     * @return quantity per product ID in the order the lines were added; empty if the cookie is
+     *         missing, malformed or not signed by this application
+     */
+    public Map<Long, Integer> decode(String value) {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        if (value == null || value.isEmpty()) {
+            return lines;
+        }
+        try {
+            int dot = value.indexOf('.');
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payload = decoder.decode(value.substring(0, dot));
+            byte[] signature = decoder.decode(value.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(payload))) {
+                throw new IllegalArgumentException("Bad signature");
+            }
+            if (payload[0] != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown format version " + payload[0]);
+            }
+            int[] position = {1};
+            long count = readVarint(payload, position);
+            for (long i = 0; i < count && i < maxLines; i++) {
+                long productId = readVarint(payload, position);
+                long quantity = readVarint(payload, position);
+                if (quantity > 0 && quantity <= Integer.MAX_VALUE) {
+                    lines.put(productId, (int) quantity);
+                }
+            }
+            return lines;
+        } catch (RuntimeException e) {
+            log.debug("Ignoring invalid guest cart cookie: {}", e.getMessage());
+            return new LinkedHashMap<>();
+        }
+    }
+
+    /**
+     * Build the cookie holding a guest cart, or one that deletes the cookie if the cart is empty.
+     *
+     * @param lines quantity per product ID, in the order the lines were added
+     */
+    public ResponseCookie cookie(Map<Long, Integer> lines) {
+        if (lines.isEmpty()) {
+            return expiredCookie();
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(2 + lines.size() * 4);
+        payload.write(FORMAT_VERSION);
+        writeVarint(payload, lines.size());
+        lines.forEach((productId, quantity) -> {
+            writeVarint(payload, productId);
+            writeVarint(payload, quantity);
+        });
+        byte[] bytes = payload.toByteArray();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return baseCookie(encoder.encodeToString(bytes) + "." + encoder.encodeToString(sign(bytes)))
+                .maxAge(maxAge)
+                .build();
+    }
+
+    /**
+     * Build a cookie that deletes the guest cart, e.g. once it has been merged into a user's cart.
+     */
+    public ResponseCookie expiredCookie() {
+        return baseCookie("").maxAge(0).build();
+    }
+
+    private ResponseCookie.ResponseCookieBuilder baseCookie(String value) {
+        // Login and registration need the cookie as well as the cart endpoints
+        return ResponseCookie.from(COOKIE_NAME, value)
+                .path("/api")
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite(sameSite);
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return Arrays.copyOf(mac.doFinal(payload), SIGNATURE_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign guest cart", e);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,269 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahalaxmi.ecommerce.entity.IdempotencyRecord;
+import com.mahalaxmi.ecommerce.exception.IdempotencyConflictException;
+import com.mahalaxmi.ecommerce.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Service that makes requests carrying an Idempotency-Key safe to retry.
+ * <p>
+ * The first request with a key claims it in the idempotency_keys table and runs; its response
+ * is stored in the same transaction as the work itself, so a crash never leaves an order
+ * without its recorded response. Replays are answered from a bounded in-memory LRU cache or
+ * the table without re-running the work. Concurrent duplicates on this instance wait on the
+ * first request's future; duplicates on other instances poll the claimed row until it completes.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Duration staleAfter;
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedResponse> responseCache;
+
+    public IdempotencyService(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${application.idempotency.ttl-hours}") long ttlHours,
+            @Value("${application.idempotency.cache-size}") int cacheSize,
+            @Value("${application.idempotency.wait-timeout-ms}") long waitTimeoutMillis,
+            @Value("${application.idempotency.stale-after-seconds}") long staleAfterSeconds) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitTimeout = Duration.ofMillis(waitTimeoutMillis);
+        this.staleAfter = Duration.ofSeconds(staleAfterSeconds);
+        this.responseCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Run an action at most once per (user, key). Replays with the same request return the
+     * stored response; replays with a different request are rejected.
+     *
+     * @param userId the user sending the request
+     * @param key the Idempotency-Key header value
+     * @param request the request body, used to fingerprint the request
+     * @param responseType the response type, used to restore stored responses
+     * @param action the work to perform; joins the transaction that records the response
+     * @return the response of the first successful execution
+     */
+    public <T> T execute(Long userId, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String cacheKey = userId + ":" + key;
+        String fingerprint = fingerprint(request);
+
+        CachedResponse cached = responseCache.get(cacheKey);
+        if (cached != null && cached.expiresAt().isAfter(LocalDateTime.now())) {
+            checkFingerprint(cached.fingerprint(), fingerprint);
+            return responseType.cast(cached.response());
+        }
+
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight existing = inFlight.putIfAbsent(cacheKey, mine);
+        if (existing != null) {
+            checkFingerprint(existing.fingerprint(), fingerprint);
+            return responseType.cast(await(existing.future()));
+        }
+
+        try {
+            T response = claimAndRun(userId, key, fingerprint, responseType, action);
+            responseCache.put(cacheKey, new CachedResponse(fingerprint, response, LocalDateTime.now().plus(ttl)));
+            mine.future().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.future().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    /**
+     * Delete expired idempotency records.
+     */
+    @Scheduled(fixedDelayString = "${application.idempotency.cleanup-interval-ms}")
+    public void deleteExpired() {
+        int deleted = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency records", deleted);
+        }
+    }
+
+    private <T> T claimAndRun(Long userId, String key, String fingerprint, Class<T> responseType, Supplier<T> action) {
+        IdempotencyRecord claim = claim(userId, key, fingerprint, responseType);
+        if (claim.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+            return readResponse(claim, responseType);
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                T response = action.get();
+                claim.setStatus(IdempotencyRecord.Status.COMPLETED);
+                claim.setResponse(writeResponse(response));
+                idempotencyRecordRepository.save(claim);
+                return response;
+            });
+        } catch (RuntimeException e) {
+            // Free the key so the client can retry after a failure
+            idempotencyRecordRepository.deleteById(claim.getId());
+            throw e;
+        }
+    }
+
+    /**
+     * Claim the key, or return the completed record of an earlier request with the same key.
+     */
+    private IdempotencyRecord claim(Long userId, String key, String fingerprint, Class<?> responseType) {
+        long deadline = System.currentTimeMillis() + waitTimeout.toMillis();
+        while (true) {
+            Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, key);
+            if (existing.isPresent()) {
+                IdempotencyRecord record = existing.get();
+                LocalDateTime now = LocalDateTime.now();
+                boolean expired = record.getExpiresAt().isBefore(now);
+                boolean abandoned = record.getStatus() == IdempotencyRecord.Status.IN_PROGRESS
+                        && record.getCreatedAt() != null
+                        && record.getCreatedAt().plus(staleAfter).isBefore(now);
+                if (expired || abandoned) {
+                    idempotencyRecordRepository.deleteById(record.getId());
+                    continue;
+                }
+                checkFingerprint(record.getRequestHash(), fingerprint);
+                if (record.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                    return record;
+                }
+                // Another instance is processing this key; wait for it to finish
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new IdempotencyConflictException(HttpStatus.CONFLICT,
+                            "A request with this Idempotency-Key is still being processed");
+                }
+                sleep();
+                continue;
+            }
+
+            try {
+                return idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .userId(userId)
+                        .idempotencyKey(key)
+                        .requestHash(fingerprint)
+                        .status(IdempotencyRecord.Status.IN_PROGRESS)
+                        .expiresAt(LocalDateTime.now().plus(ttl))
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                // Lost the race to another instance; re-read its claim
+                log.debug("Idempotency key {} claimed concurrently for user {}", key, userId);
+            }
+        }
+    }
+
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a duplicate request", e);
+        }
+    }
+
+    private void checkFingerprint(String stored, String actual) {
+        if (!stored.equals(actual)) {
+            throw new IdempotencyConflictException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used with a different request");
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to fingerprint request", e);
+        }
+    }
+
+    private String writeResponse(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to store idempotent response", e);
+        }
+    }
+
+    private <T> T readResponse(IdempotencyRecord record, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(record.getResponse().getBytes(StandardCharsets.UTF_8), responseType);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read stored idempotent response", e);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a duplicate request", e);
+        }
+    }
+
+    private record InFlight(String fingerprint, CompletableFuture<Object> future) {
+    }
+
+    private record CachedResponse(String fingerprint, Object response, LocalDateTime expiresAt) {
+    }
+}
@@ -0,0 +1,149 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahalaxmi.ecommerce.dto.OrderDto;
+import com.mahalaxmi.ecommerce.entity.ArchivedOrder;
+import com.mahalaxmi.ecommerce.entity.Order;
+import com.mahalaxmi.ecommerce.repository.ArchivedOrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service for the cold order archive.
+ * <p>
+ * Order queries go to the hot {@code orders} table by default; callers ask this service
+ * explicitly when an order may have been archived.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderArchiveService {
+
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Build the archive record for an order.
+     *
+     * @param order the order, with its user loaded
+     * @param dto the order's full DTO, stored compressed
+     */
+    public ArchivedOrder toArchivedOrder(Order order, OrderDto dto) {
+        return ArchivedOrder.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .userId(order.getUser().getId())
+                .customerEmail(order.getUser().getEmail())
+                .status(order.getStatus())
+                .paymentStatus(order.getPaymentStatus())
+                .total(order.getTotal())
+                .createdAt(order.getCreatedAt())
+                .archivedAt(LocalDateTime.now())
+                .payload(compress(dto))
+                .build();
+    }
+
+    /**
+     * Find an archived order by ID.
+     *
+     * @param userId owner to check, or null to skip the check (admin view)
+     * @param orderId the order ID
+     */
+    @Transactional(readOnly = true)
+    public Optional<OrderDto> findById(Long userId, Long orderId) {
+        return archivedOrderRepository.findById(orderId)
+                .filter(archived -> userId == null || archived.getUserId().equals(userId))
+                .map(archived -> decompress(archived.getPayload()));
+    }
+
+    /**
+     * Find an archived order by order number.
+     *
+     * @param userId owner to check, or null to skip the check (admin view)
+     * @param orderNumber the order number
+     */
+    @Transactional(readOnly = true)
+    public Optional<OrderDto> findByOrderNumber(Long userId, String orderNumber) {
+        return archivedOrderRepository.findByOrderNumber(orderNumber)
+                .filter(archived -> userId == null || archived.getUserId().equals(userId))
+                .map(archived -> decompress(archived.getPayload()));
+    }
+
+    /**
+     * Search archived orders by order number or customer email; a blank keyword lists all of them.
+     */
+    @Transactional(readOnly = true)
+    public Page<OrderDto> search(String keyword, Pageable pageable) {
+        Page<ArchivedOrder> page = keyword == null || keyword.isBlank()
+                ? archivedOrderRepository.findAllByOrderByCreatedAtDesc(pageable)
+                : archivedOrderRepository.search(keyword, pageable);
+        return page.map(archived -> decompress(archived.getPayload()));
+    }
+
+    /**
+     * Number of archived orders.
+     */
+    @Transactional(readOnly = true)
+    public long count() {
+        return archivedOrderRepository.count();
+    }
+
+    /**
+     * Revenue from paid archived orders.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal sumTotalRevenue() {
+        return archivedOrderRepository.sumTotalRevenue();
+    }
+
+    /**
+     * Number of archived orders per status.
+     */
+    @Transactional(readOnly = true)
+    public Map<Order.OrderStatus, Long> countByStatus() {
+        Map<Order.OrderStatus, Long> counts = new EnumMap<>(Order.OrderStatus.class);
+        for (Object[] row : archivedOrderRepository.countByStatus()) {
+            counts.put((Order.OrderStatus) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    private byte[] compress(OrderDto dto) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, dto);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress order " + dto.getOrderNumber(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode an archived order's stored payload.
+     *
+     * @param payload the {@code payload} column of {@code archived_orders}
+     */
+    public OrderDto decompress(byte[] payload) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readValue(in, OrderDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived order", e);
+        }
+    }
+}
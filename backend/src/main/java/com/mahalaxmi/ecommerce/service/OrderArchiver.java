@@ -0,0 +1,128 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.entity.ArchivedOrder;
+import com.mahalaxmi.ecommerce.entity.Order;
+import com.mahalaxmi.ecommerce.entity.OrderItem;
+import com.mahalaxmi.ecommerce.repository.ArchivedOrderRepository;
+import com.mahalaxmi.ecommerce.repository.ArchivedProductSalesRepository;
+import com.mahalaxmi.ecommerce.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Moves delivered and cancelled orders older than the retention period from the hot
+ * {@code orders}/{@code order_items} tables into {@code archived_orders}.
+ * <p>
+ * Each batch is archived and deleted in one transaction, so an order is never in both tiers
+ * or in neither. Order summaries are left in place so order history still lists archived orders,
+ * and the items of paid orders are added to {@code archived_product_sales} so sales reports keep
+ * counting them.
+ */
+@Component
+@Slf4j
+public class OrderArchiver {
+
+    private static final Set<Order.OrderStatus> ARCHIVABLE_STATUSES =
+            EnumSet.of(Order.OrderStatus.DELIVERED, Order.OrderStatus.CANCELLED);
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ArchivedProductSalesRepository archivedProductSalesRepository;
+    private final OrderArchiveService orderArchiveService;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.orders.archive.enabled}")
+    private boolean enabled;
+
+    @Value("${application.orders.archive.after-months}")
+    private int afterMonths;
+
+    @Value("${application.orders.archive.batch-size}")
+    private int batchSize;
+
+    public OrderArchiver(
+            OrderRepository orderRepository,
+            ArchivedOrderRepository archivedOrderRepository,
+            ArchivedProductSalesRepository archivedProductSalesRepository,
+            OrderArchiveService orderArchiveService,
+            OrderService orderService,
+            PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.archivedProductSalesRepository = archivedProductSalesRepository;
+        this.orderArchiveService = orderArchiveService;
+        this.orderService = orderService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Archive eligible orders batch by batch until none are left.
+     */
+    @Scheduled(cron = "${application.orders.archive.cron}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minusMonths(afterMonths);
+        int total = 0;
+        int archived;
+        do {
+            archived = transactionTemplate.execute(status -> archiveBatch(before));
+            total += archived;
+        } while (archived == batchSize);
+
+        if (total > 0) {
+            log.info("Archived {} orders created before {}", total, before);
+        }
+    }
+
+    private int archiveBatch(LocalDateTime before) {
+        List<Long> ids = orderRepository.findArchivableIds(ARCHIVABLE_STATUSES, before, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Order> orders = orderRepository.findWithDetailsByIdIn(ids);
+        List<ArchivedOrder> records = orders.stream()
+                .map(order -> orderArchiveService.toArchivedOrder(order, orderService.convertToDto(order)))
+                .toList();
+        archivedOrderRepository.saveAll(records);
+        addProductSales(orders);
+        orderRepository.deleteAll(orders);
+        return orders.size();
+    }
+
+    /**
+     * Fold the items of paid orders into the archived per-product totals, one row per product
+     * in ascending ID order so concurrent batches lock rows in the same order.
+     */
+    private void addProductSales(List<Order> orders) {
+        Map<Long, Long> quantities = new TreeMap<>();
+        Map<Long, BigDecimal> revenues = new TreeMap<>();
+        for (Order order : orders) {
+            if (order.getPaymentStatus() != Order.PaymentStatus.PAID) {
+                continue;
+            }
+            for (OrderItem item : order.getItems()) {
+                Long productId = item.getProduct().getId();
+                quantities.merge(productId, (long) item.getQuantity(), Long::sum);
+                revenues.merge(productId, item.getSubtotal(), BigDecimal::add);
+            }
+        }
+        quantities.forEach((productId, quantity) ->
+                archivedProductSalesRepository.add(productId, quantity, revenues.get(productId)));
+    }
+}
@@ -2,17 +2,24 @@ package com.mahalaxmi.ecommerce.service;
 
 import com.mahalaxmi.ecommerce.dto.*;
 import com.mahalaxmi.ecommerce.entity.*;
+import com.mahalaxmi.ecommerce.event.OrderCreatedEvent;
+import com.mahalaxmi.ecommerce.exception.InsufficientStockException;
 import com.mahalaxmi.ecommerce.repository.*;
+import com.mahalaxmi.ecommerce.util.SnowflakeIdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -25,8 +32,18 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final CartRepository cartRepository;
-    private final AddressRepository addressRepository;
+    private final CartStore cartStore;
+    private final CartSummaryCache cartSummaryCache;
+    private final AddressService addressService;
     private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final FlashSaleInventoryService flashSaleInventoryService;
+    private final StockHoldService stockHoldService;
+    private final SnowflakeIdGenerator orderIdGenerator;
+    private final OutboxService outboxService;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderArchiveService orderArchiveService;
+    private final CheckoutQuoteService checkoutQuoteService;
 
     /**
      * Create a new order from the user's cart.
@@ -35,40 +52,41 @@ public class OrderService {
     public OrderDto createOrder(Long userId, CreateOrderRequest request) {
         log.info("Creating order for user: {}", userId);
 
-        // Get user
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        // Get user's cart
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
-
-        if (cart.getItems() == null || cart.getItems().isEmpty()) {
+        // Persist pending cart edits, then read every cart line with its product's current state in one query
+        cartStore.flush(userId);
+        List<CheckoutLine> lines = cartRepository.findCheckoutLines(userId);
+        if (lines.isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
+        checkoutQuoteService.validate(lines);
+        User user = userRepository.getReferenceById(userId);
 
-        // Create or get shipping address
-        Address shippingAddress = createAddress(user, request.getShippingAddress());
-        addressRepository.save(shippingAddress);
+        // Reserve stock up front; any shortfall rolls back the whole order
+        String orderNumber = generateOrderNumber();
+        reserveStock(orderNumber, userId, lines);
 
-        // Calculate totals
-        BigDecimal subtotal = cart.getItems().stream()
-                .map(item -> item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Reuse the user's matching address if they have shipped here before
+        Address shippingAddress = addressService.findOrCreate(user, request.getShippingAddress());
 
-        BigDecimal shippingCost = calculateShippingCost(subtotal, request.getShippingMethod());
-        BigDecimal tax = subtotal.multiply(BigDecimal.valueOf(0.18)); // 18% GST
-        BigDecimal total = subtotal.add(shippingCost).add(tax);
+        // Take totals from the quote if the cart is unchanged since it was issued
+        String postalCode = request.getShippingAddress().getPostalCode();
+        CheckoutQuoteService.Totals totals = request.getQuoteId() != null
+                ? checkoutQuoteService.redeem(userId, request.getQuoteId(), request.getShippingMethod(),
+                        request.getCouponCode(), postalCode, lines)
+                : checkoutQuoteService.price(lines, request.getShippingMethod(), request.getCouponCode(), postalCode);
 
         // Create order
         Order order = Order.builder()
-                .orderNumber(generateOrderNumber())
+                .orderNumber(orderNumber)
                 .user(user)
-                .subtotal(subtotal)
-                .tax(tax)
-                .shippingCost(shippingCost)
-                .total(total)
+                .subtotal(totals.subtotal().toBigDecimal())
+                .discount(totals.discount().toBigDecimal())
+                .couponCode(totals.couponCode())
+                .tax(totals.tax().toBigDecimal())
+                .shippingCost(totals.shippingCost().toBigDecimal())
+                .total(totals.total().toBigDecimal())
                 .status(Order.OrderStatus.PENDING)
+                .stockReserved(true)
                 .paymentStatus(Order.PaymentStatus.PENDING)
                 .paymentMethod(Order.PaymentMethod.valueOf(request.getPaymentMethod()))
                 .shippingAddress(shippingAddress)
@@ -76,14 +94,14 @@ public class OrderService {
                 .notes(request.getNotes())
                 .build();
 
-        // Create order items from cart
-        List<OrderItem> orderItems = cart.getItems().stream()
-                .map(cartItem -> OrderItem.builder()
+        // Create order items from the cart snapshot
+        List<OrderItem> orderItems = lines.stream()
+                .map(line -> OrderItem.builder()
                         .order(order)
-                        .product(cartItem.getProduct())
-                        .quantity(cartItem.getQuantity())
-                        .price(cartItem.getProduct().getPrice())
-                        .subtotal(cartItem.getProduct().getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity())))
+                        .product(productRepository.getReferenceById(line.getProductId()))
+                        .quantity(line.getQuantity())
+                        .price(line.getPrice())
+                        .subtotal(line.getSubtotal().toBigDecimal())
                         .build())
                 .collect(Collectors.toList());
 
@@ -92,30 +110,85 @@ public class OrderService {
         // Save order
         Order savedOrder = orderRepository.save(order);
         log.info("Order created successfully: {}", savedOrder.getOrderNumber());
-
-        // Clear cart
-        cart.getItems().clear();
-        cartRepository.save(cart);
-
-        return mapToDto(savedOrder);
+        orderSummaryService.recordCreated(savedOrder, lines.stream()
+                .map(CheckoutLine::getThumbnailUrl)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null));
+
+        // Post-checkout work runs off the request path once this transaction commits
+        outboxService.publish("Order", savedOrder.getId(), OutboxEvent.EventType.ORDER_CREATED,
+                OrderCreatedEvent.builder()
+                        .orderId(savedOrder.getId())
+                        .orderNumber(savedOrder.getOrderNumber())
+                        .userId(userId)
+                        .total(savedOrder.getTotal())
+                        .items(lines.stream()
+                                .map(line -> new OrderCreatedEvent.Line(
+                                        line.getProductId(), line.getQuantity(), line.getPrice()))
+                                .collect(Collectors.toList()))
+                        .createdAt(savedOrder.getCreatedAt())
+                        .build());
+
+        // Clear cart; its stock holds are replaced by the order's reservation once committed
+        cartRepository.deleteItemsByCartId(lines.get(0).getCartId());
+        cartRepository.incrementVersion(lines.get(0).getCartId());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cartStore.evict(userId);
+                cartSummaryCache.invalidate(userId);
+                stockHoldService.releaseAll(userId);
+            }
+        });
+
+        // Answer from the snapshot rather than lazily loading each product
+        List<OrderItemDto> itemDtos = new ArrayList<>(orderItems.size());
+        for (int i = 0; i < orderItems.size(); i++) {
+            CheckoutLine line = lines.get(i);
+            OrderItem item = orderItems.get(i);
+            itemDtos.add(OrderItemDto.builder()
+                    .id(item.getId())
+                    .product(ProductDto.builder()
+                            .id(line.getProductId())
+                            .name(line.getProductName())
+                            .imageUrls(line.getThumbnailUrl() != null
+                                    ? new ArrayList<>(List.of(line.getThumbnailUrl()))
+                                    : new ArrayList<>())
+                            .price(line.getPrice())
+                            .build())
+                    .quantity(item.getQuantity())
+                    .price(item.getPrice())
+                    .subtotal(item.getSubtotal())
+                    .build());
+        }
+        return mapToDto(savedOrder, itemDtos);
     }
 
     /**
-     * Get orders for a specific user.
+     * Load a page of orders from a page of their IDs, preserving the page order.
+     * Runs a fixed number of queries regardless of page size.
      */
     @Transactional(readOnly = true)
-    public Page<OrderDto> getUserOrders(Long userId, Pageable pageable) {
-        return orderRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable)
-                .map(this::mapToDto);
+    public Page<OrderDto> loadOrderPage(Page<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return orderIds.map(id -> null);
+        }
+        Map<Long, Order> orders = orderRepository.findWithDetailsByIdIn(orderIds.getContent()).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return orderIds.map(id -> mapToDto(orders.get(id)));
     }
 
     /**
-     * Get order by ID for a specific user.
+     * Get order by ID for a specific user, falling back to the archive.
      */
     @Transactional(readOnly = true)
     public OrderDto getOrderById(Long userId, Long orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            return orderArchiveService.findById(userId, orderId)
+                    .orElseThrow(() -> new RuntimeException("Order not found"));
+        }
 
         if (!order.getUser().getId().equals(userId)) {
             throw new RuntimeException("Order not found");
@@ -125,12 +198,15 @@ public class OrderService {
     }
 
     /**
-     * Get order by order number.
+     * Get order by order number, falling back to the archive.
      */
     @Transactional(readOnly = true)
     public OrderDto getOrderByNumber(Long userId, String orderNumber) {
-        Order order = orderRepository.findByOrderNumber(orderNumber)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
+        Order order = orderRepository.findByOrderNumber(orderNumber).orElse(null);
+        if (order == null) {
+            return orderArchiveService.findByOrderNumber(userId, orderNumber)
+                    .orElseThrow(() -> new RuntimeException("Order not found"));
+        }
 
         if (!order.getUser().getId().equals(userId)) {
             throw new RuntimeException("Order not found");
@@ -139,31 +215,67 @@ public class OrderService {
         return mapToDto(order);
     }
 
-    private Address createAddress(User user, CreateOrderRequest.ShippingAddressDto addressDto) {
-        return Address.builder()
-                .user(user)
-                .street(addressDto.getStreet())
-                .city(addressDto.getCity())
-                .state(addressDto.getState())
-                .postalCode(addressDto.getPostalCode())
-                .country(addressDto.getCountry())
-                .type(Address.AddressType.SHIPPING)
-                .isDefault(false)
-                .build();
+    /**
+     * Reserve stock for every cart line with a conditional decrement.
+     * Lines are processed in ascending product ID order so concurrent checkouts
+     * always lock product rows in the same order and cannot deadlock.
+     */
+    private void reserveStock(String orderNumber, Long userId, List<CheckoutLine> lines) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        Map<Long, String> names = new TreeMap<>();
+        for (CheckoutLine line : lines) {
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+            names.putIfAbsent(line.getProductId(), line.getProductName());
+        }
+
+        quantities.forEach((productId, quantity) -> {
+            if (!reserve(orderNumber, userId, productId, quantity)) {
+                log.warn("Insufficient stock for product {} (requested {})", productId, quantity);
+                throw new InsufficientStockException(productId, names.get(productId));
+            }
+        });
     }
 
-    private BigDecimal calculateShippingCost(BigDecimal subtotal, String shippingMethod) {
-        if (subtotal.compareTo(BigDecimal.valueOf(50000)) >= 0) {
-            return BigDecimal.ZERO; // Free shipping for orders >= 50000
+    private boolean reserve(String orderNumber, Long userId, Long productId, int quantity) {
+        // Units in other shoppers' carts stay held; the buyer's own hold is consumed by this order
+        int heldByOthers = stockHoldService.heldByOthers(userId, productId);
+        switch (flashSaleInventoryService.tryReserve(productId, quantity, heldByOthers, orderNumber)) {
+            case RESERVED:
+                return true;
+            case INSUFFICIENT:
+                return false;
+            default:
+                break;
         }
-        if ("express".equalsIgnoreCase(shippingMethod)) {
-            return BigDecimal.valueOf(499);
+        if (productRepository.decrementStock(productId, quantity, heldByOthers) == 1) {
+            return true;
         }
-        return BigDecimal.valueOf(199); // Standard shipping
+        // Flash-sale mode may have been switched on since the first attempt
+        return flashSaleInventoryService.tryReserve(productId, quantity, heldByOthers, orderNumber)
+                == FlashSaleInventoryService.Reservation.RESERVED;
+    }
+
+    /**
+     * Return the stock reserved by an order, e.g. when it is cancelled. Orders placed before
+     * checkout reserved stock are skipped.
+     */
+    public void releaseStock(Order order) {
+        if (!Boolean.TRUE.equals(order.getStockReserved())) {
+            return;
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : order.getItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        quantities.forEach((productId, quantity) -> {
+            if (!flashSaleInventoryService.release(productId, quantity, order.getOrderNumber())) {
+                productRepository.incrementStock(productId, quantity);
+            }
+        });
     }
 
     private String generateOrderNumber() {
-        return "ORD-" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+        return "ORD-" + SnowflakeIdGenerator.toBase32(orderIdGenerator.nextId());
     }
 
     /**
@@ -174,13 +286,19 @@ public class OrderService {
     }
 
     private OrderDto mapToDto(Order order) {
+        return mapToDto(order, order.getItems().stream()
+                .map(this::mapItemToDto)
+                .collect(Collectors.toList()));
+    }
+
+    private OrderDto mapToDto(Order order, List<OrderItemDto> items) {
         return OrderDto.builder()
                 .id(order.getId())
                 .orderNumber(order.getOrderNumber())
-                .items(order.getItems().stream()
-                        .map(this::mapItemToDto)
-                        .collect(Collectors.toList()))
+                .items(items)
                 .subtotal(order.getSubtotal())
+                .discount(order.getDiscount())
+                .couponCode(order.getCouponCode())
                 .tax(order.getTax())
                 .shippingCost(order.getShippingCost())
                 .total(order.getTotal())
@@ -0,0 +1,236 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.event.OrderEventHandler;
+import com.mahalaxmi.ecommerce.event.OrderStatusChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes order status changes to connected clients over Server-Sent Events.
+ * <p>
+ * Customers receive changes to their own orders and admins receive every change. Connections are
+ * held as async servlet requests, so an idle subscriber costs no thread. Each subscriber has its
+ * own queue, drained by one virtual thread at a time: a slow client cannot hold up the others,
+ * and every client receives events in the order they arrived. Events arrive from the outbox after
+ * the status change has committed and carry the outbox event ID, which clients send back as
+ * Last-Event-ID when reconnecting to replay what they missed from a bounded in-memory buffer.
+ */
+@Service
+@Slf4j
+public class OrderStatusStreamService implements OrderEventHandler {
+
+    private static final String EVENT_NAME = "order-status";
+
+    private final Map<Long, Set<Subscriber>> customerSubscribers = new ConcurrentHashMap<>();
+    private final Set<Subscriber> adminSubscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final long timeoutMillis;
+
+    // Ring buffer of recent events for resuming clients, in arrival order; guarded by this service's lock
+    private final StreamedEvent[] recentEvents;
+    private int nextSlot;
+
+    public OrderStatusStreamService(
+            @Value("${application.orders.stream.timeout-ms}") long timeoutMillis,
+            @Value("${application.orders.stream.replay-buffer-size}") int replayBufferSize) {
+        this.timeoutMillis = timeoutMillis;
+        this.recentEvents = new StreamedEvent[replayBufferSize];
+    }
+
+    /**
+     * Open a stream for a user.
+     *
+     * @param user the authenticated user
+     * @param lastEventId ID of the last event the client received, or null
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter subscribe(User user, Long lastEventId) {
+        boolean admin = user.getRole() == User.Role.ADMIN;
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis), user.getId(), admin);
+        SseEmitter emitter = subscriber.emitter;
+
+        Runnable remove = () -> unsubscribe(subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        // Registering and queueing the replay together puts every event in the queue exactly once and in order
+        synchronized (this) {
+            if (admin) {
+                adminSubscribers.add(subscriber);
+            } else {
+                customerSubscribers.compute(user.getId(), (id, group) -> {
+                    Set<Subscriber> subscribers = group != null ? group : ConcurrentHashMap.<Subscriber>newKeySet();
+                    subscribers.add(subscriber);
+                    return subscribers;
+                });
+            }
+            if (lastEventId != null) {
+                for (StreamedEvent event : eventsAfter(lastEventId)) {
+                    if (subscriber.canSee(event)) {
+                        subscriber.enqueue(toSse(event));
+                    }
+                }
+            }
+        }
+        return emitter;
+    }
+
+    @Override
+    public synchronized void onOrderStatusChanged(OrderStatusChangedEvent event, long eventId) {
+        StreamedEvent streamed = new StreamedEvent(eventId, event.getUserId(), event);
+        remember(streamed);
+
+        SseEmitter.SseEventBuilder sse = toSse(streamed);
+        adminSubscribers.forEach(subscriber -> subscriber.enqueue(sse));
+        Set<Subscriber> owners = customerSubscribers.get(event.getUserId());
+        if (owners != null) {
+            owners.forEach(subscriber -> subscriber.enqueue(sse));
+        }
+    }
+
+    /**
+     * Send a comment line to every subscriber so proxies keep idle connections open and
+     * dead ones are detected.
+     */
+    @Scheduled(fixedDelayString = "${application.orders.stream.heartbeat-ms}")
+    public void heartbeat() {
+        List<Subscriber> all = new ArrayList<>(adminSubscribers);
+        customerSubscribers.values().forEach(all::addAll);
+        for (Subscriber subscriber : all) {
+            subscriber.enqueue(SseEmitter.event().comment("keepalive"));
+        }
+    }
+
+    /**
+     * Number of open streams.
+     */
+    public int getSubscriberCount() {
+        return adminSubscribers.size() + customerSubscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        adminSubscribers.forEach(subscriber -> subscriber.emitter.complete());
+        customerSubscribers.values().forEach(group -> group.forEach(subscriber -> subscriber.emitter.complete()));
+        sender.shutdown();
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(StreamedEvent event) {
+        return SseEmitter.event()
+                .id(String.valueOf(event.id()))
+                .name(EVENT_NAME)
+                .data(event.payload());
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscriber.admin) {
+            adminSubscribers.remove(subscriber);
+            return;
+        }
+        customerSubscribers.computeIfPresent(subscriber.userId, (id, group) -> {
+            group.remove(subscriber);
+            return group.isEmpty() ? null : group;
+        });
+    }
+
+    private void remember(StreamedEvent event) {
+        recentEvents[nextSlot] = event;
+        nextSlot = (nextSlot + 1) % recentEvents.length;
+    }
+
+    /**
+     * Events that arrived after the given one, in arrival order. Outbox IDs of different orders
+     * need not arrive in ascending order, so IDs are only compared if the event has already left
+     * the buffer.
+     */
+    private List<StreamedEvent> eventsAfter(long lastEventId) {
+        List<StreamedEvent> buffered = new ArrayList<>(recentEvents.length);
+        int last = -1;
+        for (int i = 0; i < recentEvents.length; i++) {
+            StreamedEvent event = recentEvents[(nextSlot + i) % recentEvents.length];
+            if (event != null) {
+                if (event.id() == lastEventId) {
+                    last = buffered.size();
+                }
+                buffered.add(event);
+            }
+        }
+        if (last >= 0) {
+            return buffered.subList(last + 1, buffered.size());
+        }
+        return buffered.stream().filter(event -> event.id() > lastEventId).toList();
+    }
+
+    private record StreamedEvent(long id, Long userId, OrderStatusChangedEvent payload) {
+    }
+
+    /**
+     * An open stream. Events are queued and sent by at most one task at a time, in queue order.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final boolean admin;
+        private final Queue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, Long userId, boolean admin) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.admin = admin;
+        }
+
+        boolean canSee(StreamedEvent event) {
+            return admin || userId.equals(event.userId());
+        }
+
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            queue.add(event);
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; the stream is being completed
+                    sending.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // Client went away; the emitter callbacks may not fire until the next write
+                        unsubscribe(this);
+                        queue.clear();
+                    }
+                }
+                sending.set(false);
+                // An event queued after the last poll but before the flag was cleared has no task yet
+            } while (!queue.isEmpty() && sending.compareAndSet(false, true));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.dto.OrderSummaryDto;
+import com.mahalaxmi.ecommerce.dto.OrderSummaryPageDto;
+import com.mahalaxmi.ecommerce.entity.Order;
+import com.mahalaxmi.ecommerce.entity.OrderItem;
+import com.mahalaxmi.ecommerce.entity.OrderSummary;
+import com.mahalaxmi.ecommerce.repository.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Service maintaining and serving the order history read model.
+ * <p>
+ * Summaries are written in the same transaction as the order change they reflect, so a customer
+ * sees a new order in their history as soon as checkout returns. History is paged by keyset on
+ * (created_at, order_id) rather than by offset, so deep pages cost the same as the first.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSummaryService {
+
+    private static final int MAX_PAGE_SIZE = 50;
+
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Record the summary of a newly created order.
+     *
+     * @param order the saved order
+     * @param thumbnailUrl image shown for the order, or null
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Order order, String thumbnailUrl) {
+        List<OrderItem> items = order.getItems();
+        orderSummaryRepository.save(OrderSummary.builder()
+                .orderId(order.getId())
+                .userId(order.getUser().getId())
+                .orderNumber(order.getOrderNumber())
+                .status(order.getStatus())
+                .total(order.getTotal())
+                .itemCount(items.stream().mapToInt(OrderItem::getQuantity).sum())
+                .thumbnailUrl(thumbnailUrl)
+                .createdAt(order.getCreatedAt())
+                .build());
+    }
+
+    /**
+     * Record a status change.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChanged(Long orderId, Order.OrderStatus status) {
+        if (orderSummaryRepository.updateStatus(orderId, status) == 0) {
+            log.warn("No order summary for order {}, it will be added by the next backfill", orderId);
+        }
+    }
+
+    /**
+     * Record many status changes with one batched update.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChanges(Map<Long, Order.OrderStatus> statuses) {
+        List<Map.Entry<Long, Order.OrderStatus>> entries = new ArrayList<>(statuses.entrySet());
+        jdbcTemplate.batchUpdate("UPDATE order_summary SET status = ? WHERE order_id = ?", entries, entries.size(),
+                (ps, entry) -> {
+                    ps.setString(1, entry.getValue().name());
+                    ps.setLong(2, entry.getKey());
+                });
+    }
+
+    /**
+     * Get a page of a user's order history, newest first.
+     *
+     * @param userId the user ID
+     * @param cursor cursor from the previous page, or null for the first page
+     * @param size page size
+     */
+    @Transactional(readOnly = true)
+    public OrderSummaryPageDto getUserOrders(Long userId, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to learn whether another page follows
+        PageRequest pageRequest = PageRequest.of(0, limit + 1);
+
+        List<OrderSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderSummaryRepository.findFirstPage(userId, pageRequest);
+        } else {
+            Position position = decodeCursor(cursor);
+            rows = orderSummaryRepository.findPageAfter(userId, position.createdAt(), position.orderId(), pageRequest);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<OrderSummary> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+
+        return OrderSummaryPageDto.builder()
+                .items(page.stream().map(this::convertToDto).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Add summaries for orders that do not have one yet, e.g. orders placed before the
+     * read model existed. Rows written concurrently by checkout are left alone.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int inserted = jdbcTemplate.update(
+                "INSERT IGNORE INTO order_summary " +
+                "(order_id, user_id, order_number, status, total, item_count, thumbnail_url, created_at) " +
+                "SELECT o.id, o.user_id, o.order_number, o.status, o.total, " +
+                "(SELECT COALESCE(SUM(oi.quantity), 0) FROM order_items oi WHERE oi.order_id = o.id), " +
+                "(SELECT pi.image_url FROM order_items oi JOIN product_images pi ON pi.product_id = oi.product_id " +
+                " WHERE oi.order_id = o.id ORDER BY oi.id, pi.image_order LIMIT 1), " +
+                "o.created_at " +
+                "FROM orders o LEFT JOIN order_summary s ON s.order_id = o.id WHERE s.order_id IS NULL");
+        if (inserted > 0) {
+            log.info("Backfilled {} order summaries", inserted);
+        }
+    }
+
+    private OrderSummaryDto convertToDto(OrderSummary summary) {
+        return OrderSummaryDto.builder()
+                .id(summary.getOrderId())
+                .orderNumber(summary.getOrderNumber())
+                .status(summary.getStatus().name())
+                .total(summary.getTotal())
+                .itemCount(summary.getItemCount())
+                .thumbnailUrl(summary.getThumbnailUrl())
+                .createdAt(summary.getCreatedAt())
+                .build();
+    }
+
+    private static String encodeCursor(OrderSummary last) {
+        String raw = last.getCreatedAt() + "|" + last.getOrderId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new Position(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    private record Position(LocalDateTime createdAt, Long orderId) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahalaxmi.ecommerce.entity.OutboxEvent;
+import com.mahalaxmi.ecommerce.event.OrderCreatedEvent;
+import com.mahalaxmi.ecommerce.event.OrderEventHandler;
+import com.mahalaxmi.ecommerce.event.OrderStatusChangedEvent;
+import com.mahalaxmi.ecommerce.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers outbox events to every registered {@link OrderEventHandler}.
+ * <p>
+ * Each poll locks a batch of due events with SKIP LOCKED, leases them by pushing their next
+ * attempt time forward, and hands them to a bounded worker pool. A delivered event is marked
+ * DISPATCHED; a failed one is retried with exponential backoff until it reaches the attempt
+ * limit and is parked as FAILED. If the application stops mid-delivery, the lease runs out and
+ * the event is picked up again, so delivery is at-least-once.
+ * <p>
+ * A poll claims only the oldest undelivered event of each order, so workers never deliver two
+ * events of one order at the same time and each order's events arrive in the order they were
+ * written; the next one is claimed by the poll after the previous one was delivered.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OrderEventHandler> handlers;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+
+    @Value("${application.outbox.batch-size}")
+    private int batchSize;
+
+    @Value("${application.outbox.lease-ms}")
+    private long leaseMillis;
+
+    @Value("${application.outbox.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${application.outbox.initial-backoff-ms}")
+    private long initialBackoffMillis;
+
+    @Value("${application.outbox.max-backoff-ms}")
+    private long maxBackoffMillis;
+
+    @Value("${application.outbox.retention-days}")
+    private long retentionDays;
+
+    public OutboxDispatcher(
+            OutboxEventRepository outboxEventRepository,
+            List<OrderEventHandler> handlers,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${application.outbox.workers}") int workers,
+            @Value("${application.outbox.queue-capacity}") int queueCapacity) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlers = handlers;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Claim due events and submit them for delivery.
+     */
+    @Scheduled(fixedDelayString = "${application.outbox.poll-interval-ms}")
+    public void poll() {
+        int capacity = Math.min(batchSize, executor.getQueue().remainingCapacity());
+        if (capacity == 0) {
+            return;
+        }
+
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> events = outboxEventRepository.lockDueEvents(now, PageRequest.of(0, capacity));
+            LocalDateTime leaseUntil = now.plusNanos(leaseMillis * 1_000_000);
+            events.forEach(event -> {
+                event.setStatus(OutboxEvent.Status.IN_PROGRESS);
+                event.setNextAttemptAt(leaseUntil);
+            });
+            return events;
+        });
+        if (claimed == null) {
+            return;
+        }
+
+        for (OutboxEvent event : claimed) {
+            try {
+                executor.execute(() -> deliver(event));
+            } catch (RejectedExecutionException e) {
+                // Left in progress; picked up again once its lease expires
+                log.warn("Outbox worker queue full, deferring event {}", event.getId());
+            }
+        }
+    }
+
+    /**
+     * Remove delivered events past the retention period.
+     */
+    @Scheduled(fixedDelayString = "${application.outbox.cleanup-interval-ms}")
+    public void deleteDispatched() {
+        int deleted = outboxEventRepository.deleteDispatchedBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("Deleted {} dispatched outbox events", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void deliver(OutboxEvent event) {
+        try {
+            switch (event.getEventType()) {
+                case ORDER_CREATED -> {
+                    OrderCreatedEvent payload = objectMapper.readValue(event.getPayload(), OrderCreatedEvent.class);
+                    handlers.forEach(handler -> handler.onOrderCreated(payload, event.getId()));
+                }
+                case ORDER_STATUS_CHANGED -> {
+                    OrderStatusChangedEvent payload =
+                            objectMapper.readValue(event.getPayload(), OrderStatusChangedEvent.class);
+                    handlers.forEach(handler -> handler.onOrderStatusChanged(payload, event.getId()));
+                }
+            }
+            outboxEventRepository.markDispatched(event.getId(), LocalDateTime.now());
+        } catch (Exception e) {
+            int attempts = event.getAttempts() + 1;
+            boolean exhausted = attempts >= maxAttempts;
+            long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempts - 1, 20));
+            log.warn("Delivery of outbox event {} ({}) failed on attempt {}{}", event.getId(),
+                    event.getEventType(), attempts, exhausted ? ", giving up" : "", e);
+            String error = e.getMessage() != null && e.getMessage().length() > 1000
+                    ? e.getMessage().substring(0, 1000)
+                    : e.getMessage();
+            outboxEventRepository.markFailedAttempt(event.getId(),
+                    exhausted ? OutboxEvent.Status.FAILED : OutboxEvent.Status.PENDING,
+                    LocalDateTime.now().plusNanos(backoff * 1_000_000), error);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahalaxmi.ecommerce.entity.OutboxEvent;
+import com.mahalaxmi.ecommerce.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Service for writing events to the transactional outbox.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Record an event in the caller's transaction. It is delivered by the
+     * {@link OutboxDispatcher} only if that transaction commits.
+     *
+     * @param aggregateType type of the changed aggregate, e.g. "Order"
+     * @param aggregateId ID of the changed aggregate
+     * @param eventType event type
+     * @param payload event payload, serialized as JSON
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String aggregateType, Long aggregateId, OutboxEvent.EventType eventType, Object payload) {
+        try {
+            outboxEventRepository.save(OutboxEvent.builder()
+                    .aggregateType(aggregateType)
+                    .aggregateId(aggregateId)
+                    .eventType(eventType)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .nextAttemptAt(LocalDateTime.now())
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize " + eventType + " event", e);
+        }
+    }
+}
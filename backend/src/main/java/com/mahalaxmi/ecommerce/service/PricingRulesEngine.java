@@ -0,0 +1,366 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.repository.CategoryRepository;
+import com.mahalaxmi.ecommerce.util.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Shipping zone rates and GST slabs, loaded from a rules file.
+ * <p>
+ * PIN codes map to zones through sorted, non-overlapping ranges held in parallel primitive arrays
+ * and searched by bisection, so even tens of thousands of individually listed PIN codes take a few
+ * hundred kilobytes and a lookup parses and searches without allocating. Each zone has a standard
+ * and an express rate and a free shipping threshold; unknown or missing PIN codes use the default
+ * zone. GST slabs are set per category by name and inherited by subcategories.
+ * <p>
+ * The file is polled for changes and recompiled in the background. A file that fails to parse is
+ * logged and ignored, leaving the previous rules in place. Until the first load completes, every
+ * PIN code is in a single zone charging the original flat rates and 18% GST. Slabs are resolved
+ * against the category tree again on every poll and after categories are saved, so categories
+ * created or moved later inherit the right slab.
+ */
+@Service
+@Slf4j
+public class PricingRulesEngine {
+
+    private static final String ZONE_PREFIX = "zone.";
+    private static final String PIN_PREFIX = "pin.";
+    private static final String CATEGORY_TAX_PREFIX = "tax.category.";
+
+    private final CategoryRepository categoryRepository;
+    private final Resource rulesLocation;
+    private final AtomicReference<Rules> rules = new AtomicReference<>(Rules.DEFAULT);
+    private volatile long loadedModified = Long.MIN_VALUE;
+    // Last rules file that compiled, for resolving its slabs against a changed category tree
+    private Properties loadedProperties;
+
+    public PricingRulesEngine(
+            CategoryRepository categoryRepository,
+            @Value("${application.pricing.rules-location}") Resource rulesLocation) {
+        this.categoryRepository = categoryRepository;
+        this.rulesLocation = rulesLocation;
+    }
+
+    /**
+     * Shipping cost to a PIN code for an order of the given (discounted) subtotal.
+     *
+     * @param pin PIN code from {@link #parsePin}, or -1 for the default zone
+     * @param shippingMethod "express" or anything else for standard
+     */
+    public Money shippingCost(int pin, String shippingMethod, Money subtotal) {
+        Rules current = rules.get();
+        Zone zone = current.zones[current.zoneIndex(pin)];
+        if (subtotal.isGreaterThanOrEqualTo(zone.freeShippingThreshold)) {
+            return Money.ZERO;
+        }
+        return "express".equals(shippingMethod) ? zone.express : zone.standard;
+    }
+
+    /**
+     * GST rate for products of a category in basis points (1800 = 18%).
+     *
+     * @param categoryId the category ID, or null for uncategorized products
+     */
+    public long taxBasisPoints(Long categoryId) {
+        Rules current = rules.get();
+        if (categoryId != null) {
+            Integer slab = current.categoryBasisPoints.get(categoryId);
+            if (slab != null) {
+                return slab;
+            }
+        }
+        return current.defaultTaxBasisPoints;
+    }
+
+    /**
+     * Load the rules file, replacing the current rules if it parses.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        long modified = lastModified();
+        try (InputStream in = rulesLocation.getInputStream();
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            Properties properties = new Properties();
+            properties.load(reader);
+            Rules next = compile(properties, categoryRepository.findAllNamesAndParentIds());
+            rules.set(next);
+            loadedProperties = properties;
+            log.info("Loaded pricing rules from {}: {} zones, {} PIN ranges, {} categories with GST slabs",
+                    rulesLocation, next.zones.length, next.pinStarts.length, next.categoryBasisPoints.size());
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to load pricing rules from {}, keeping the current rules", rulesLocation, e);
+        }
+        // Record the attempt either way so a broken file is not re-parsed on every poll
+        loadedModified = modified;
+    }
+
+    /**
+     * Reload the rules file if it changed since it was last loaded, and otherwise resolve its GST
+     * slabs against the current category tree.
+     */
+    @Scheduled(fixedDelayString = "${application.pricing.reload-interval-ms}",
+            initialDelayString = "${application.pricing.reload-interval-ms}")
+    public void reloadIfChanged() {
+        long modified = lastModified();
+        if (modified != loadedModified) {
+            reload();
+        } else {
+            refreshCategories();
+        }
+    }
+
+    /**
+     * Resolve the loaded GST slabs against the current category tree. Called after categories
+     * are created or moved.
+     */
+    public synchronized void refreshCategories() {
+        Properties properties = loadedProperties;
+        if (properties == null) {
+            return;
+        }
+        try {
+            Map<Long, Integer> slabs = compileCategorySlabs(properties, categoryRepository.findAllNamesAndParentIds(), false);
+            rules.updateAndGet(current -> current.withCategoryBasisPoints(slabs));
+        } catch (RuntimeException e) {
+            log.warn("Failed to resolve GST slabs against the category tree, keeping the current ones", e);
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return rulesLocation.lastModified();
+        } catch (IOException e) {
+            // Resources inside a jar have no modification time; they only load once
+            return 0;
+        }
+    }
+
+    /**
+     * Parse a six-digit PIN code, ignoring spaces, without allocating.
+     *
+     * @return the PIN code, or -1 if it is missing or malformed
+     */
+    public static int parsePin(CharSequence postalCode) {
+        if (postalCode == null) {
+            return -1;
+        }
+        int pin = 0;
+        int digits = 0;
+        for (int i = 0; i < postalCode.length(); i++) {
+            char c = postalCode.charAt(i);
+            if (c == ' ') {
+                continue;
+            }
+            if (c < '0' || c > '9' || ++digits > 6) {
+                return -1;
+            }
+            pin = pin * 10 + (c - '0');
+        }
+        return digits == 6 ? pin : -1;
+    }
+
+    private static Rules compile(Properties properties, List<Object[]> categories) {
+        // Properties do not keep file order, so index zones by name
+        Map<String, Integer> zoneIndexes = new LinkedHashMap<>();
+        List<Zone> zones = new ArrayList<>();
+        properties.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(ZONE_PREFIX))
+                .sorted()
+                .forEach(key -> {
+                    String name = key.substring(ZONE_PREFIX.length());
+                    zoneIndexes.put(name, zones.size());
+                    zones.add(parseZone(name, properties.getProperty(key)));
+                });
+        if (zones.isEmpty() || zones.size() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Between 1 and " + Byte.MAX_VALUE + " zones must be defined");
+        }
+        int defaultZone = requireZone(zoneIndexes, properties.getProperty("default.zone"), "default.zone");
+
+        List<int[]> ranges = new ArrayList<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith(PIN_PREFIX)) {
+                continue;
+            }
+            String range = key.substring(PIN_PREFIX.length());
+            int dash = range.indexOf('-');
+            int first = parseRulePin(dash < 0 ? range : range.substring(0, dash), key);
+            int last = dash < 0 ? first : parseRulePin(range.substring(dash + 1), key);
+            if (last < first) {
+                throw new IllegalArgumentException("Empty PIN range: " + key);
+            }
+            ranges.add(new int[]{first, last, requireZone(zoneIndexes, properties.getProperty(key), key)});
+        }
+        ranges.sort(Comparator.comparingInt(range -> range[0]));
+
+        // Merge adjacent ranges of the same zone to keep the arrays short
+        int[] starts = new int[ranges.size()];
+        int[] ends = new int[ranges.size()];
+        byte[] rangeZones = new byte[ranges.size()];
+        int count = 0;
+        for (int[] range : ranges) {
+            if (count > 0 && range[0] <= ends[count - 1]) {
+                throw new IllegalArgumentException(String.format("PIN ranges overlap at %06d", range[0]));
+            }
+            if (count > 0 && range[0] == ends[count - 1] + 1 && rangeZones[count - 1] == range[2]) {
+                ends[count - 1] = range[1];
+            } else {
+                starts[count] = range[0];
+                ends[count] = range[1];
+                rangeZones[count] = (byte) range[2];
+                count++;
+            }
+        }
+
+        int defaultTax = parseBasisPoints(properties.getProperty("tax.default", "18"), "tax.default");
+        Map<Long, Integer> categoryBasisPoints = compileCategorySlabs(properties, categories, true);
+
+        return new Rules(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count), Arrays.copyOf(rangeZones, count),
+                zones.toArray(new Zone[0]), defaultZone, categoryBasisPoints, defaultTax);
+    }
+
+    /**
+     * Resolve slabs set by category name to category IDs, extending each to the subcategories
+     * that do not set their own.
+     *
+     * @param warnUnknown log names that match no category; off for the periodic refresh
+     * @throws IllegalArgumentException if a slab names more than one category
+     */
+    private static Map<Long, Integer> compileCategorySlabs(Properties properties, List<Object[]> categories,
+                                                           boolean warnUnknown) {
+        Map<String, Long> idsByName = new HashMap<>();
+        Set<String> ambiguous = new HashSet<>();
+        Map<Long, Long> parents = new HashMap<>();
+        for (Object[] row : categories) {
+            if (idsByName.putIfAbsent((String) row[1], (Long) row[0]) != null) {
+                ambiguous.add((String) row[1]);
+            }
+            parents.put((Long) row[0], (Long) row[2]);
+        }
+
+        Map<Long, Integer> explicit = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith(CATEGORY_TAX_PREFIX)) {
+                continue;
+            }
+            String name = key.substring(CATEGORY_TAX_PREFIX.length());
+            if (ambiguous.contains(name)) {
+                throw new IllegalArgumentException("Several categories are named '" + name + "' in " + key);
+            }
+            Long categoryId = idsByName.get(name);
+            if (categoryId == null) {
+                if (warnUnknown) {
+                    log.warn("Pricing rules set a GST slab for unknown category '{}'", name);
+                }
+                continue;
+            }
+            explicit.put(categoryId, parseBasisPoints(properties.getProperty(key), key));
+        }
+
+        Map<Long, Integer> resolved = new HashMap<>();
+        for (Long categoryId : parents.keySet()) {
+            Set<Long> seen = new HashSet<>();
+            for (Long current = categoryId; current != null && seen.add(current); current = parents.get(current)) {
+                Integer slab = explicit.get(current);
+                if (slab != null) {
+                    resolved.put(categoryId, slab);
+                    break;
+                }
+            }
+        }
+        return resolved;
+    }
+
+    private static Zone parseZone(String name, String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Zone " + name + " must be <standard>,<express>,<free-shipping-threshold>");
+        }
+        Money threshold = Money.of(new BigDecimal(parts[2].trim()));
+        return new Zone(name,
+                Money.of(new BigDecimal(parts[0].trim())),
+                Money.of(new BigDecimal(parts[1].trim())),
+                // A threshold of 0 means shipping is never free in this zone
+                threshold.isZero() ? Money.ofPaise(Long.MAX_VALUE) : threshold);
+    }
+
+    private static int requireZone(Map<String, Integer> zoneIndexes, String name, String key) {
+        Integer index = name != null ? zoneIndexes.get(name.trim()) : null;
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown zone '" + name + "' for " + key);
+        }
+        return index;
+    }
+
+    private static int parseRulePin(String value, String key) {
+        int pin = parsePin(value);
+        if (pin < 0) {
+            throw new IllegalArgumentException("Malformed PIN code in " + key);
+        }
+        return pin;
+    }
+
+    private static int parseBasisPoints(String percent, String key) {
+        try {
+            return new BigDecimal(percent.trim()).movePointRight(2).intValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed GST percentage for " + key, e);
+        }
+    }
+
+    private record Zone(String name, Money standard, Money express, Money freeShippingThreshold) {
+    }
+
+    private record Rules(int[] pinStarts, int[] pinEnds, byte[] pinZones, Zone[] zones, int defaultZone,
+                         Map<Long, Integer> categoryBasisPoints, int defaultTaxBasisPoints) {
+
+        static final Rules DEFAULT = new Rules(new int[0], new int[0], new byte[0],
+                new Zone[]{new Zone("NATIONAL", Money.ofRupees(199), Money.ofRupees(499), Money.ofRupees(50000))},
+                0, Map.of(), 1800);
+
+        Rules withCategoryBasisPoints(Map<Long, Integer> slabs) {
+            return new Rules(pinStarts, pinEnds, pinZones, zones, defaultZone, slabs, defaultTaxBasisPoints);
+        }
+
+        int zoneIndex(int pin) {
+            if (pin < 0) {
+                return defaultZone;
+            }
+            // Last range starting at or before the PIN code
+            int low = 0;
+            int high = pinStarts.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (pinStarts[mid] <= pin) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high >= 0 && pin <= pinEnds[high] ? pinZones[high] : defaultZone;
+        }
+    }
+}
@@ -1,26 +1,41 @@
 package com.mahalaxmi.ecommerce.service;
 
+import com.mahalaxmi.ecommerce.dto.BulkProductUpdateRequest;
+import com.mahalaxmi.ecommerce.dto.BulkProductUpdateResponse;
+import com.mahalaxmi.ecommerce.dto.FlashSaleStatusDto;
 import com.mahalaxmi.ecommerce.dto.ProductDto;
 import com.mahalaxmi.ecommerce.entity.Product;
+import com.mahalaxmi.ecommerce.exception.VersionConflictException;
 import com.mahalaxmi.ecommerce.repository.ProductRepository;
+import com.mahalaxmi.ecommerce.repository.ProductRepositoryCustom;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service for managing products.
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ProductService {
 
+    private static final int BULK_UPDATE_CHUNK_SIZE = 500;
+
     private final ProductRepository productRepository;
     private final ModelMapper modelMapper;
+    private final FlashSaleInventoryService flashSaleInventoryService;
+    private final StockHoldService stockHoldService;
 
     /**
      * Get all active products with pagination.
@@ -117,6 +132,7 @@ public class ProductService {
     @Transactional
     public ProductDto createProduct(ProductDto productDto) {
         Product product = convertToEntity(productDto);
+        product.setVersion(null);
         Product savedProduct = productRepository.save(product);
         return convertToDto(savedProduct);
     }
@@ -133,13 +149,105 @@ public class ProductService {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
 
+        Long version = existingProduct.getVersion();
+        if (productDto.getVersion() != null && !productDto.getVersion().equals(version)) {
+            throw new VersionConflictException("Product was changed by someone else; review the current values and try again",
+                    convertToDto(existingProduct));
+        }
+
+        if (Boolean.TRUE.equals(existingProduct.getFlashSale()) && productDto.getStockQuantity() != null
+                && !productDto.getStockQuantity().equals(existingProduct.getStockQuantity())) {
+            throw new RuntimeException("Stock for product " + id
+                    + " is managed by flash-sale mode; disable flash-sale mode before changing it");
+        }
+
         modelMapper.map(productDto, existingProduct);
         existingProduct.setId(id);
+        // Concurrent edits committed after this read are caught by the version check on save
+        existingProduct.setVersion(version);
 
         Product updatedProduct = productRepository.save(existingProduct);
         return convertToDto(updatedProduct);
     }
 
+    /**
+     * Apply price and stock changes for many products without loading entities (admin only).
+     * Each chunk is committed in its own transaction so a large sync never holds row locks for long.
+     * Stock changes for products in flash-sale mode are rejected, as the counter owns their stock.
+     *
+     * @param request the (id, price, stockQuantity) updates; later entries win for duplicate IDs
+     * @return summary of applied and unknown product IDs
+     */
+    public BulkProductUpdateResponse bulkUpdateProducts(BulkProductUpdateRequest request) {
+        Map<Long, BulkProductUpdateRequest.Item> byId = new LinkedHashMap<>();
+        for (BulkProductUpdateRequest.Item item : request.getItems()) {
+            byId.put(item.getId(), item);
+        }
+
+        List<BulkProductUpdateRequest.Item> items = new ArrayList<>(byId.values());
+        List<Long> notFoundIds = new ArrayList<>();
+        List<Long> flashSaleIds = new ArrayList<>();
+        int submitted = 0;
+        int updated = 0;
+
+        for (int from = 0; from < items.size(); from += BULK_UPDATE_CHUNK_SIZE) {
+            List<BulkProductUpdateRequest.Item> chunk =
+                    items.subList(from, Math.min(from + BULK_UPDATE_CHUNK_SIZE, items.size()));
+            List<Long> chunkIds = chunk.stream().map(BulkProductUpdateRequest.Item::getId).toList();
+            Set<Long> existingIds = productRepository.findExistingIds(chunkIds);
+            Set<Long> chunkFlashSaleIds = productRepository.findFlashSaleIds(chunkIds);
+
+            List<BulkProductUpdateRequest.Item> applicable = new ArrayList<>(chunk.size());
+            for (BulkProductUpdateRequest.Item item : chunk) {
+                if (!existingIds.contains(item.getId())) {
+                    notFoundIds.add(item.getId());
+                } else if (item.getStockQuantity() != null && chunkFlashSaleIds.contains(item.getId())) {
+                    flashSaleIds.add(item.getId());
+                } else {
+                    applicable.add(item);
+                }
+            }
+
+            if (!applicable.isEmpty()) {
+                ProductRepositoryCustom.UpdateCounts counts = productRepository.batchUpdatePriceAndStock(applicable);
+                submitted += counts.submitted();
+                updated += counts.updated();
+            }
+        }
+
+        log.info("Bulk product update: {} requested, {} submitted, {} updated, {} not found, {} in flash-sale mode",
+                request.getItems().size(), submitted, updated, notFoundIds.size(), flashSaleIds.size());
+
+        return BulkProductUpdateResponse.builder()
+                .requested(request.getItems().size())
+                .submitted(submitted)
+                .updated(updated)
+                .notFoundIds(notFoundIds)
+                .flashSaleIds(flashSaleIds)
+                .build();
+    }
+
+    /**
+     * Get a product's flash-sale inventory state (admin only).
+     *
+     * @param id product ID
+     * @return flash-sale status
+     */
+    public FlashSaleStatusDto getFlashSaleStatus(Long id) {
+        return flashSaleInventoryService.getStatus(id);
+    }
+
+    /**
+     * Enable or disable flash-sale inventory mode for a product (admin only).
+     *
+     * @param id product ID
+     * @param enabled whether flash-sale mode should be on
+     * @return flash-sale status
+     */
+    public FlashSaleStatusDto setFlashSale(Long id, boolean enabled) {
+        return enabled ? flashSaleInventoryService.enable(id) : flashSaleInventoryService.disable(id);
+    }
+
     /**
      * Delete a product (admin only).
      *
@@ -154,7 +262,11 @@ public class ProductService {
     }
 
     private ProductDto convertToDto(Product product) {
-        return modelMapper.map(product, ProductDto.class);
+        ProductDto productDto = modelMapper.map(product, ProductDto.class);
+        Integer flashSaleStock = flashSaleInventoryService.availableQuantity(product.getId());
+        int stock = flashSaleStock != null ? flashSaleStock : product.getStockQuantity();
+        productDto.setAvailableQuantity(stockHoldService.availableToSell(product.getId(), stock));
+        return productDto;
     }
 
     private Product convertToEntity(ProductDto productDto) {
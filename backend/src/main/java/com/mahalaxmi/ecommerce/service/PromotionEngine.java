@@ -0,0 +1,271 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.entity.Promotion;
+import com.mahalaxmi.ecommerce.exception.CheckoutValidationException;
+import com.mahalaxmi.ecommerce.repository.CategoryRepository;
+import com.mahalaxmi.ecommerce.repository.PromotionRepository;
+import com.mahalaxmi.ecommerce.util.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Evaluates promotions against cart lines without touching the database.
+ * <p>
+ * Active promotions are compiled into rule lists indexed by product, category (including every
+ * subcategory of a targeted category) and brand. Evaluation looks up each line's rules in those
+ * indexes in a single pass, accumulating the quantity and subtotal each rule matched, and then
+ * applies the rules whose thresholds were met. A new compilation replaces the current one
+ * atomically, so readers always see a complete rule set; it is rebuilt when admins edit
+ * promotions and periodically to pick up edits made on other instances.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PromotionEngine {
+
+    private final PromotionRepository promotionRepository;
+    private final CategoryRepository categoryRepository;
+
+    private final AtomicReference<CompiledPromotions> compiled = new AtomicReference<>(CompiledPromotions.EMPTY);
+
+    /**
+     * A cart line as seen by the engine.
+     */
+    public record Line(Long productId, Long categoryId, String brand, int quantity, Money subtotal) {
+    }
+
+    /**
+     * A promotion that applied, with the amount it took off (zero for free shipping).
+     */
+    public record Applied(Long promotionId, String name, String code, Money discount) {
+    }
+
+    /**
+     * Outcome of evaluating promotions. The discount never exceeds the lines' subtotal.
+     */
+    public record Result(Money discount, boolean freeShipping, List<Applied> applied) {
+
+        public static final Result NONE = new Result(Money.ZERO, false, List.of());
+    }
+
+    /**
+     * Evaluate the current promotions against cart lines.
+     *
+     * @param lines the cart lines
+     * @param couponCode coupon code supplied by the customer, or null
+     * @return the discount and whether shipping is free
+     * @throws CheckoutValidationException if the coupon code is unknown, inactive or expired
+     */
+    public Result evaluate(List<Line> lines, String couponCode) {
+        CompiledPromotions promotions = compiled.get();
+        long now = System.currentTimeMillis();
+        String coupon = normalizeCode(couponCode);
+        if (coupon != null && !promotions.isLiveCoupon(coupon, now)) {
+            throw new CheckoutValidationException(List.of(String.format("Coupon '%s' is not valid", couponCode.trim())));
+        }
+        if (promotions.rules.length == 0 || lines.isEmpty()) {
+            return Result.NONE;
+        }
+
+        int[] matchedQuantity = new int[promotions.rules.length];
+        long[] matchedPaise = new long[promotions.rules.length];
+        long subtotalPaise = 0;
+        for (Line line : lines) {
+            long linePaise = line.subtotal().toPaise();
+            subtotalPaise = Math.addExact(subtotalPaise, linePaise);
+            Rule[][] candidates = {
+                    promotions.global,
+                    promotions.byProduct.get(line.productId()),
+                    line.categoryId() != null ? promotions.byCategory.get(line.categoryId()) : null,
+                    line.brand() != null ? promotions.byBrand.get(line.brand().toLowerCase(Locale.ROOT)) : null
+            };
+            for (Rule[] rules : candidates) {
+                if (rules == null) {
+                    continue;
+                }
+                for (Rule rule : rules) {
+                    if (rule.isLive(now, coupon)) {
+                        matchedQuantity[rule.index] += line.quantity();
+                        matchedPaise[rule.index] = Math.addExact(matchedPaise[rule.index], linePaise);
+                    }
+                }
+            }
+        }
+
+        Money subtotal = Money.ofPaise(subtotalPaise);
+        Money discount = Money.ZERO;
+        boolean freeShipping = false;
+        List<Applied> applied = new ArrayList<>();
+        for (Rule rule : promotions.rules) {
+            int quantity = matchedQuantity[rule.index];
+            if (quantity == 0 || quantity < rule.minQuantity || matchedPaise[rule.index] < rule.minSubtotalPaise) {
+                continue;
+            }
+            if (rule.type == Promotion.PromotionType.FREE_SHIPPING) {
+                freeShipping = true;
+                applied.add(new Applied(rule.id, rule.name, rule.code, Money.ZERO));
+            } else {
+                Money amount = Money.ofPaise(matchedPaise[rule.index]).timesBasisPoints(rule.basisPoints);
+                // Stacked promotions never take the lines below zero
+                Money remaining = subtotal.minus(discount);
+                if (amount.compareTo(remaining) > 0) {
+                    amount = remaining;
+                }
+                if (!amount.isZero()) {
+                    discount = discount.plus(amount);
+                    applied.add(new Applied(rule.id, rule.name, rule.code, amount));
+                }
+            }
+        }
+        return applied.isEmpty() ? Result.NONE : new Result(discount, freeShipping, applied);
+    }
+
+    /**
+     * Recompile the active promotions and swap them in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        CompiledPromotions next = compile(promotionRepository.findByActiveTrue(), categoryRepository.findAllParentIds());
+        compiled.set(next);
+        log.debug("Compiled {} active promotions", next.rules.length);
+    }
+
+    /**
+     * Pick up promotion edits made on other instances.
+     */
+    @Scheduled(fixedDelayString = "${application.promotions.refresh-interval-ms}",
+            initialDelayString = "${application.promotions.refresh-interval-ms}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh promotions, keeping the current set", e);
+        }
+    }
+
+    /**
+     * Normalize a coupon code for lookup, or null if none was given.
+     */
+    public static String normalizeCode(String code) {
+        return code == null || code.isBlank() ? null : code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static CompiledPromotions compile(List<Promotion> promotions, List<Object[]> categoryParents) {
+        Map<Long, Long> parents = new HashMap<>();
+        for (Object[] row : categoryParents) {
+            parents.put((Long) row[0], (Long) row[1]);
+        }
+
+        List<Rule> rules = new ArrayList<>(promotions.size());
+        List<Rule> global = new ArrayList<>();
+        Map<Long, List<Rule>> byProduct = new HashMap<>();
+        Map<Long, List<Rule>> byCategory = new HashMap<>();
+        Map<String, List<Rule>> byBrand = new HashMap<>();
+        Map<String, Rule> byCode = new HashMap<>();
+        for (Promotion promotion : promotions) {
+            Rule rule = new Rule(rules.size(), promotion);
+            rules.add(rule);
+            if (rule.code != null) {
+                byCode.put(rule.code, rule);
+            }
+            switch (promotion.getScope()) {
+                case ALL -> global.add(rule);
+                case PRODUCT -> byProduct.computeIfAbsent(promotion.getTargetId(), id -> new ArrayList<>()).add(rule);
+                case BRAND -> byBrand.computeIfAbsent(promotion.getTargetBrand().toLowerCase(Locale.ROOT),
+                        brand -> new ArrayList<>()).add(rule);
+                case CATEGORY -> {
+                    // Index under every category whose ancestry includes the target
+                    for (Long categoryId : parents.keySet()) {
+                        if (descendsFrom(categoryId, promotion.getTargetId(), parents)) {
+                            byCategory.computeIfAbsent(categoryId, id -> new ArrayList<>()).add(rule);
+                        }
+                    }
+                }
+            }
+        }
+        return new CompiledPromotions(rules.toArray(new Rule[0]), global.toArray(new Rule[0]),
+                toArrays(byProduct), toArrays(byCategory), toArrays(byBrand), byCode);
+    }
+
+    private static boolean descendsFrom(Long categoryId, Long ancestorId, Map<Long, Long> parents) {
+        Set<Long> seen = new HashSet<>();
+        for (Long current = categoryId; current != null && seen.add(current); current = parents.get(current)) {
+            if (current.equals(ancestorId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <K> Map<K, Rule[]> toArrays(Map<K, List<Rule>> index) {
+        Map<K, Rule[]> arrays = new HashMap<>(Math.max(16, index.size() * 2));
+        index.forEach((key, rules) -> arrays.put(key, rules.toArray(new Rule[0])));
+        return arrays;
+    }
+
+    private record CompiledPromotions(Rule[] rules, Rule[] global, Map<Long, Rule[]> byProduct,
+                                      Map<Long, Rule[]> byCategory, Map<String, Rule[]> byBrand,
+                                      Map<String, Rule> byCode) {
+
+        static final CompiledPromotions EMPTY =
+                new CompiledPromotions(new Rule[0], new Rule[0], Map.of(), Map.of(), Map.of(), Map.of());
+
+        boolean isLiveCoupon(String code, long now) {
+            Rule rule = byCode.get(code);
+            return rule != null && rule.isLive(now, code);
+        }
+    }
+
+    private static final class Rule {
+
+        final int index;
+        final Long id;
+        final String name;
+        final String code;
+        final Promotion.PromotionType type;
+        final long basisPoints;
+        final int minQuantity;
+        final long minSubtotalPaise;
+        final long startsAt;
+        final long endsAt;
+
+        Rule(int index, Promotion promotion) {
+            this.index = index;
+            this.id = promotion.getId();
+            this.name = promotion.getName();
+            this.code = normalizeCode(promotion.getCode());
+            this.type = promotion.getType();
+            this.basisPoints = promotion.getPercentOff() != null
+                    ? promotion.getPercentOff().movePointRight(2).longValue()
+                    : 0;
+            this.minQuantity = promotion.getMinQuantity() != null ? promotion.getMinQuantity() : 1;
+            this.minSubtotalPaise = promotion.getMinSubtotal() != null
+                    ? Money.of(promotion.getMinSubtotal()).toPaise()
+                    : 0;
+            this.startsAt = promotion.getStartsAt() != null
+                    ? promotion.getStartsAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : Long.MIN_VALUE;
+            this.endsAt = promotion.getEndsAt() != null
+                    ? promotion.getEndsAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : Long.MAX_VALUE;
+        }
+
+        boolean isLive(long now, String coupon) {
+            return now >= startsAt && now < endsAt && (code == null || code.equals(coupon));
+        }
+    }
+}
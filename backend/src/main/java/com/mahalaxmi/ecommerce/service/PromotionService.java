@@ -0,0 +1,145 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.dto.PromotionDto;
+import com.mahalaxmi.ecommerce.entity.Promotion;
+import com.mahalaxmi.ecommerce.repository.PromotionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Service for managing promotions and coupons. Every change recompiles the promotion engine
+ * once it commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PromotionService {
+
+    private final PromotionRepository promotionRepository;
+    private final PromotionEngine promotionEngine;
+
+    /**
+     * Get all promotions, newest first.
+     */
+    @Transactional(readOnly = true)
+    public List<PromotionDto> getAllPromotions() {
+        return promotionRepository.findAll(Sort.by(Sort.Direction.DESC, "id")).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Create a promotion.
+     */
+    @Transactional
+    public PromotionDto createPromotion(PromotionDto dto) {
+        Promotion promotion = new Promotion();
+        apply(promotion, dto);
+        if (promotion.getCode() != null && promotionRepository.existsByCode(promotion.getCode())) {
+            throw new RuntimeException("Coupon code already exists: " + promotion.getCode());
+        }
+        Promotion saved = promotionRepository.save(promotion);
+        log.info("Created promotion {} ({})", saved.getId(), saved.getName());
+        reloadAfterCommit();
+        return convertToDto(saved);
+    }
+
+    /**
+     * Update a promotion.
+     */
+    @Transactional
+    public PromotionDto updatePromotion(Long id, PromotionDto dto) {
+        Promotion promotion = promotionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Promotion not found with id: " + id));
+        String previousCode = promotion.getCode();
+        apply(promotion, dto);
+        if (promotion.getCode() != null && !promotion.getCode().equals(previousCode)
+                && promotionRepository.existsByCode(promotion.getCode())) {
+            throw new RuntimeException("Coupon code already exists: " + promotion.getCode());
+        }
+        Promotion saved = promotionRepository.save(promotion);
+        log.info("Updated promotion {} ({})", saved.getId(), saved.getName());
+        reloadAfterCommit();
+        return convertToDto(saved);
+    }
+
+    /**
+     * Delete a promotion.
+     */
+    @Transactional
+    public void deletePromotion(Long id) {
+        if (!promotionRepository.existsById(id)) {
+            throw new RuntimeException("Promotion not found with id: " + id);
+        }
+        promotionRepository.deleteById(id);
+        log.info("Deleted promotion {}", id);
+        reloadAfterCommit();
+    }
+
+    private void apply(Promotion promotion, PromotionDto dto) {
+        Promotion.PromotionType type = Promotion.PromotionType.valueOf(dto.getType());
+        Promotion.PromotionScope scope = Promotion.PromotionScope.valueOf(dto.getScope());
+        if (type == Promotion.PromotionType.PERCENT_OFF && dto.getPercentOff() == null) {
+            throw new RuntimeException("Percent off is required for PERCENT_OFF promotions");
+        }
+        if ((scope == Promotion.PromotionScope.PRODUCT || scope == Promotion.PromotionScope.CATEGORY)
+                && dto.getTargetId() == null) {
+            throw new RuntimeException("Target ID is required for " + scope + " promotions");
+        }
+        if (scope == Promotion.PromotionScope.BRAND && (dto.getTargetBrand() == null || dto.getTargetBrand().isBlank())) {
+            throw new RuntimeException("Target brand is required for BRAND promotions");
+        }
+        if (dto.getStartsAt() != null && dto.getEndsAt() != null && !dto.getEndsAt().isAfter(dto.getStartsAt())) {
+            throw new RuntimeException("Promotion must end after it starts");
+        }
+
+        promotion.setName(dto.getName());
+        promotion.setCode(PromotionEngine.normalizeCode(dto.getCode()));
+        promotion.setType(type);
+        promotion.setScope(scope);
+        promotion.setTargetId(scope == Promotion.PromotionScope.PRODUCT || scope == Promotion.PromotionScope.CATEGORY
+                ? dto.getTargetId() : null);
+        promotion.setTargetBrand(scope == Promotion.PromotionScope.BRAND ? dto.getTargetBrand().trim() : null);
+        promotion.setPercentOff(type == Promotion.PromotionType.PERCENT_OFF ? dto.getPercentOff() : null);
+        promotion.setMinQuantity(dto.getMinQuantity() != null ? dto.getMinQuantity() : 1);
+        promotion.setMinSubtotal(dto.getMinSubtotal());
+        promotion.setStartsAt(dto.getStartsAt());
+        promotion.setEndsAt(dto.getEndsAt());
+        promotion.setActive(dto.getActive() == null || dto.getActive());
+    }
+
+    private void reloadAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                promotionEngine.reload();
+            }
+        });
+    }
+
+    private PromotionDto convertToDto(Promotion promotion) {
+        return PromotionDto.builder()
+                .id(promotion.getId())
+                .name(promotion.getName())
+                .code(promotion.getCode())
+                .type(promotion.getType().name())
+                .scope(promotion.getScope().name())
+                .targetId(promotion.getTargetId())
+                .targetBrand(promotion.getTargetBrand())
+                .percentOff(promotion.getPercentOff())
+                .minQuantity(promotion.getMinQuantity())
+                .minSubtotal(promotion.getMinSubtotal())
+                .startsAt(promotion.getStartsAt())
+                .endsAt(promotion.getEndsAt())
+                .active(promotion.getActive())
+                .build();
+    }
+}
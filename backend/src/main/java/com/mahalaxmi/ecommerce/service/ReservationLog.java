@@ -0,0 +1,191 @@
+package com.mahalaxmi.ecommerce.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Append-only, fsync'd log of flash-sale stock reservations.
+ * Each line is "sequence productId quantity orderNumber kind"; a negative quantity returns stock.
+ * The order number and kind let recovery tell whether the transaction that logged an entry
+ * committed. Lines written before they were recorded have only the first three fields.
+ * Concurrent appenders share fsyncs (group commit), so durability costs one
+ * force per burst of reservations rather than one per checkout.
+ */
+@Component
+@Slf4j
+public class ReservationLog {
+
+    /**
+     * What an entry's order was doing when it was logged.
+     */
+    public enum Kind {
+        /**
+         * Checkout reserving stock; the order exists once the transaction commits.
+         */
+        RESERVE,
+        /**
+         * Cancellation returning stock; the order is cancelled once the transaction commits.
+         */
+        RELEASE
+    }
+
+    /**
+     * A single log entry. A compensation for a transaction that did not commit carries the
+     * original entry's order number and kind with the quantity negated.
+     *
+     * @param orderNumber the order the entry belongs to, or null for entries logged without one
+     * @param kind the order change, or null for entries logged without one
+     */
+    public record Entry(long sequence, long productId, int quantity, String orderNumber, Kind kind) {
+    }
+
+    private final Path path;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+
+    private FileChannel channel;
+    private long nextSequence = 1;
+    private volatile long bytesWritten;
+    private volatile long bytesSynced;
+
+    public ReservationLog(@Value("${application.inventory.flash-sale.log-path}") String path) {
+        this.path = Paths.get(path);
+    }
+
+    /**
+     * Read every complete entry currently in the log. A torn trailing line left by a crash is ignored.
+     *
+     * @return entries in sequence order
+     */
+    public List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return entries;
+        }
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String[] parts = line.trim().split(" ");
+            if (parts.length != 3 && parts.length != 5) {
+                log.warn("Skipping malformed reservation log line: {}", line);
+                continue;
+            }
+            try {
+                entries.add(new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Integer.parseInt(parts[2]),
+                        parts.length == 5 ? parts[3] : null,
+                        parts.length == 5 ? Kind.valueOf(parts[4]) : null));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping malformed reservation log line: {}", line);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Truncate the log and start numbering new entries from the given sequence.
+     * Only called once every logged entry has been applied to the database.
+     *
+     * @param firstSequence sequence for the next appended entry
+     */
+    public void reset(long firstSequence) throws IOException {
+        synchronized (appendLock) {
+            if (channel == null) {
+                Path parent = path.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            }
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+            nextSequence = firstSequence;
+        }
+    }
+
+    /**
+     * Durably append an entry. The listener is invoked under the append lock so
+     * consumers observe entries in sequence order.
+     *
+     * @param productId product the reservation applies to
+     * @param quantity units reserved (positive) or released (negative)
+     * @param orderNumber order the adjustment belongs to
+     * @param kind what the order's transaction is doing
+     * @param listener callback receiving the appended entry
+     * @return the appended entry
+     */
+    public Entry append(long productId, int quantity, String orderNumber, Kind kind, Consumer<Entry> listener) {
+        Entry entry;
+        long position;
+        synchronized (appendLock) {
+            if (channel == null) {
+                throw new IllegalStateException("Reservation log is not open");
+            }
+            entry = new Entry(nextSequence++, productId, quantity, orderNumber, kind);
+            byte[] line = (entry.sequence() + " " + productId + " " + quantity + " " + orderNumber + " " + kind + "\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append reservation log entry", e);
+            }
+            bytesWritten += line.length;
+            position = bytesWritten;
+            listener.accept(entry);
+        }
+        syncUpTo(position);
+        return entry;
+    }
+
+    /**
+     * Truncate the log if the given condition holds while no appends are in progress.
+     *
+     * @param drained checked under the append lock; true when every entry has been applied
+     * @return true if the log was truncated
+     */
+    public boolean compactIf(BooleanSupplier drained, long thresholdBytes) throws IOException {
+        synchronized (appendLock) {
+            if (channel == null || channel.size() < thresholdBytes || !drained.getAsBoolean()) {
+                return false;
+            }
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+            return true;
+        }
+    }
+
+    private void syncUpTo(long position) {
+        if (bytesSynced >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (bytesSynced >= position) {
+                return;
+            }
+            long target = bytesWritten;
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to sync reservation log", e);
+            }
+            bytesSynced = target;
+        }
+    }
+}
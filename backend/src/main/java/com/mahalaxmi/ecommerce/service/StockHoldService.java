@@ -0,0 +1,239 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.util.HierarchicalTimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Service for short-lived cart stock holds.
+ * <p>
+ * Adding or updating a cart line places a hold for that line's quantity, so other shoppers
+ * see stock minus active holds as available-to-sell. Holds expire after a fixed TTL. Expiry
+ * is driven by a single {@link HierarchicalTimingWheel} advanced once per tick, so there is
+ * no scheduled task per hold and no table scan. Holds live in memory on this instance.
+ */
+@Service
+@Slf4j
+public class StockHoldService {
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final HierarchicalTimingWheel<Hold> wheel;
+
+    private final Map<Long, Map<Long, Hold>> holdsByUser = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> heldByProduct = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StockHoldService(
+            @Value("${application.cart.stock-hold.enabled}") boolean enabled,
+            @Value("${application.cart.stock-hold.ttl-seconds}") long ttlSeconds,
+            @Value("${application.cart.stock-hold.tick-ms}") long tickMillis) {
+        this(enabled, ttlSeconds, tickMillis, System::currentTimeMillis);
+    }
+
+    public StockHoldService(boolean enabled, long ttlSeconds, long tickMillis, LongSupplier clock) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.clock = clock;
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, 64, 3, clock.getAsLong());
+    }
+
+    /**
+     * Hold stock for a user's cart line, replacing any previous hold for the same product.
+     * Always succeeds when holds are disabled.
+     *
+     * @param userId user ID
+     * @param productId product ID
+     * @param quantity total quantity of the cart line
+     * @param stock current stock of the product
+     * @return false if stock minus other shoppers' holds cannot cover the quantity
+     */
+    public boolean hold(Long userId, Long productId, int quantity, int stock) {
+        if (!enabled) {
+            return true;
+        }
+
+        while (true) {
+            Map<Long, Hold> userHolds = holdsByUser.computeIfAbsent(userId, id -> new ConcurrentHashMap<>());
+            synchronized (userHolds) {
+                // An emptied map may have been dropped after we looked it up; retry with the live one
+                if (holdsByUser.get(userId) == userHolds) {
+                    return hold(userHolds, userId, productId, quantity, stock);
+                }
+            }
+        }
+    }
+
+    private boolean hold(Map<Long, Hold> userHolds, Long userId, Long productId, int quantity, int stock) {
+        Hold previous = userHolds.get(productId);
+        int ownHeld = previous != null ? previous.quantity : 0;
+
+        AtomicInteger held = heldByProduct.computeIfAbsent(productId, id -> new AtomicInteger());
+        int current;
+        do {
+            current = held.get();
+            if (current - ownHeld + quantity > stock) {
+                removeIfEmpty(userId, userHolds);
+                return false;
+            }
+        } while (!held.compareAndSet(current, current - ownHeld + quantity));
+
+        Hold hold = new Hold(userId, productId, quantity);
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+        synchronized (wheel) {
+            hold.timeout = wheel.schedule(hold, clock.getAsLong() + ttlMillis);
+        }
+        userHolds.put(productId, hold);
+        return true;
+    }
+
+    /**
+     * Release a user's hold on a product.
+     *
+     * @param userId user ID
+     * @param productId product ID
+     */
+    public void release(Long userId, Long productId) {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Hold> userHolds = holdsByUser.get(userId);
+        if (userHolds == null) {
+            return;
+        }
+        synchronized (userHolds) {
+            Hold hold = userHolds.remove(productId);
+            if (hold != null) {
+                hold.timeout.cancel();
+                heldByProduct.get(productId).addAndGet(-hold.quantity);
+            }
+            removeIfEmpty(userId, userHolds);
+        }
+    }
+
+    /**
+     * Release every hold a user has, e.g. after checkout or clearing the cart.
+     *
+     * @param userId user ID
+     */
+    public void releaseAll(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Hold> userHolds = holdsByUser.get(userId);
+        if (userHolds == null) {
+            return;
+        }
+        synchronized (userHolds) {
+            userHolds.values().forEach(hold -> {
+                hold.timeout.cancel();
+                heldByProduct.get(hold.productId).addAndGet(-hold.quantity);
+            });
+            userHolds.clear();
+            holdsByUser.remove(userId, userHolds);
+        }
+    }
+
+    /**
+     * Units of a product held by shoppers other than the given user. Checkout keeps these back,
+     * while the buyer's own hold is consumed by the order.
+     *
+     * @param userId user ID
+     * @param productId product ID
+     * @return held quantity, or 0 when holds are disabled
+     */
+    public int heldByOthers(Long userId, Long productId) {
+        if (!enabled) {
+            return 0;
+        }
+        AtomicInteger held = heldByProduct.get(productId);
+        if (held == null) {
+            return 0;
+        }
+        Map<Long, Hold> userHolds = holdsByUser.get(userId);
+        Hold own = userHolds != null ? userHolds.get(productId) : null;
+        return Math.max(0, held.get() - (own != null ? own.quantity : 0));
+    }
+
+    /**
+     * Stock available to new shoppers: stock minus all active holds.
+     *
+     * @param productId product ID
+     * @param stock current stock of the product
+     * @return available-to-sell quantity
+     */
+    public int availableToSell(Long productId, int stock) {
+        if (!enabled) {
+            return stock;
+        }
+        AtomicInteger held = heldByProduct.get(productId);
+        return held != null ? Math.max(0, stock - held.get()) : stock;
+    }
+
+    /**
+     * Advance the timing wheel and drop expired holds.
+     */
+    @Scheduled(fixedRateString = "${application.cart.stock-hold.tick-ms}")
+    public void expireHolds() {
+        if (!enabled) {
+            return;
+        }
+        List<Hold> expired = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(clock.getAsLong(), expired::add);
+        }
+        // Released outside the wheel lock; hold() takes the user lock before the wheel lock
+        expired.forEach(this::expire);
+    }
+
+    private void expire(Hold hold) {
+        Map<Long, Hold> userHolds = holdsByUser.get(hold.userId);
+        if (userHolds == null) {
+            return;
+        }
+        synchronized (userHolds) {
+            if (userHolds.remove(hold.productId, hold)) {
+                heldByProduct.get(hold.productId).addAndGet(-hold.quantity);
+                log.debug("Expired stock hold of {} units of product {} for user {}",
+                        hold.quantity, hold.productId, hold.userId);
+            }
+            removeIfEmpty(hold.userId, userHolds);
+        }
+    }
+
+    /**
+     * Drop a user's emptied hold map; callers hold its lock, which {@code hold} re-checks.
+     */
+    private void removeIfEmpty(Long userId, Map<Long, Hold> userHolds) {
+        if (userHolds.isEmpty()) {
+            holdsByUser.remove(userId, userHolds);
+        }
+    }
+
+    private static final class Hold {
+
+        private final Long userId;
+        private final Long productId;
+        private final int quantity;
+        private HierarchicalTimingWheel.Timeout<Hold> timeout;
+
+        private Hold(Long userId, Long productId, int quantity) {
+            this.userId = userId;
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+}
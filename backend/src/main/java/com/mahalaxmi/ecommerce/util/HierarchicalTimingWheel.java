@@ -0,0 +1,150 @@
+package com.mahalaxmi.ecommerce.util;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for large numbers of short-lived timeouts.
+ * <p>
+ * Level 0 has one bucket per tick; each higher level covers a whole rotation of the level
+ * below it per bucket. Scheduling and cancelling are O(1), and advancing the clock only
+ * touches the buckets whose time has come, cascading entries from coarser levels down as
+ * they get close to expiring. Timeouts beyond the top level's span are parked in its last
+ * bucket and re-cascaded until they fit.
+ * <p>
+ * The wheel is not thread-safe; callers synchronize access.
+ *
+ * @param <T> payload type delivered on expiry
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int slotBits;
+    private final int slotMask;
+    private final List<List<ArrayDeque<Timeout<T>>>> levels;
+    private long currentTick;
+
+    /**
+     * @param tickMillis resolution of the wheel in milliseconds
+     * @param slotsPerLevel buckets per level, rounded up to a power of two
+     * @param levelCount number of levels
+     * @param startMillis current time in milliseconds
+     */
+    public HierarchicalTimingWheel(long tickMillis, int slotsPerLevel, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || slotsPerLevel < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel configuration");
+        }
+        this.tickMillis = tickMillis;
+        this.slotBits = 32 - Integer.numberOfLeadingZeros(slotsPerLevel - 1);
+        this.slotMask = (1 << slotBits) - 1;
+        this.levels = new ArrayList<>(levelCount);
+        for (int level = 0; level < levelCount; level++) {
+            List<ArrayDeque<Timeout<T>>> buckets = new ArrayList<>(1 << slotBits);
+            for (int i = 0; i < 1 << slotBits; i++) {
+                buckets.add(new ArrayDeque<>());
+            }
+            levels.add(buckets);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedule a payload to expire at the given time.
+     *
+     * @param payload value delivered on expiry
+     * @param expiresAtMillis absolute expiry time in milliseconds
+     * @return handle that can cancel the timeout
+     */
+    public Timeout<T> schedule(T payload, long expiresAtMillis) {
+        long deadlineTick = Math.max(currentTick + 1, (expiresAtMillis + tickMillis - 1) / tickMillis);
+        Timeout<T> timeout = new Timeout<>(payload, deadlineTick);
+        place(timeout);
+        return timeout;
+    }
+
+    /**
+     * Advance the wheel to the given time, delivering every timeout that has expired.
+     *
+     * @param nowMillis current time in milliseconds
+     * @param onExpired receives payloads of expired, non-cancelled timeouts
+     */
+    public void advance(long nowMillis, Consumer<T> onExpired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+
+            ArrayDeque<Timeout<T>> bucket = levels.get(0).get((int) (currentTick & slotMask));
+            Timeout<T> timeout;
+            while ((timeout = bucket.poll()) != null) {
+                if (timeout.cancelled) {
+                    continue;
+                }
+                if (timeout.deadlineTick <= currentTick) {
+                    onExpired.accept(timeout.payload);
+                } else {
+                    place(timeout);
+                }
+            }
+        }
+    }
+
+    private void cascade() {
+        for (int level = 1; level < levels.size(); level++) {
+            int shift = slotBits * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            ArrayDeque<Timeout<T>> bucket = levels.get(level).get((int) ((currentTick >>> shift) & slotMask));
+            Timeout<T> timeout;
+            while ((timeout = bucket.poll()) != null) {
+                if (!timeout.cancelled) {
+                    place(timeout);
+                }
+            }
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delay = timeout.deadlineTick - currentTick;
+        for (int level = 0; level < levels.size(); level++) {
+            int shift = slotBits * (level + 1);
+            if (delay < (1L << shift) || level == levels.size() - 1) {
+                long tick = delay < (1L << shift) ? timeout.deadlineTick : currentTick + (1L << shift) - 1;
+                int index = (int) ((tick >>> (slotBits * level)) & slotMask);
+                levels.get(level).get(index).add(timeout);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Handle for a scheduled timeout.
+     *
+     * @param <T> payload type
+     */
+    public static final class Timeout<T> {
+
+        private final T payload;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Cancel the timeout; it is dropped lazily when its bucket is next visited.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
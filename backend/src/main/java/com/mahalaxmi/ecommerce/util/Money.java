@@ -0,0 +1,124 @@
+package com.mahalaxmi.ecommerce.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable rupee amount held as a whole number of paise.
+ * <p>
+ * Arithmetic is exact integer arithmetic and fails with {@link ArithmeticException} on overflow
+ * rather than wrapping. The only rounding happens when applying a rate or ratio
+ * ({@link #timesBasisPoints}, {@link #scaledBy}), which rounds half up to the nearest paisa, and
+ * when converting a {@link BigDecimal} with more than two decimal places. Convert to and from
+ * {@link BigDecimal} only at the persistence and JSON edges.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+    private static final long BASIS_POINTS = 10_000;
+
+    private final long paise;
+
+    private Money(long paise) {
+        this.paise = paise;
+    }
+
+    public static Money ofPaise(long paise) {
+        return paise == 0 ? ZERO : new Money(paise);
+    }
+
+    public static Money ofRupees(long rupees) {
+        return ofPaise(Math.multiplyExact(rupees, 100L));
+    }
+
+    /**
+     * Convert a decimal rupee amount, rounding half up to the nearest paisa.
+     */
+    public static Money of(BigDecimal rupees) {
+        return ofPaise(rupees.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public long toPaise() {
+        return paise;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(paise, SCALE);
+    }
+
+    public Money plus(Money other) {
+        return ofPaise(Math.addExact(paise, other.paise));
+    }
+
+    public Money minus(Money other) {
+        return ofPaise(Math.subtractExact(paise, other.paise));
+    }
+
+    public Money times(long quantity) {
+        return ofPaise(Math.multiplyExact(paise, quantity));
+    }
+
+    /**
+     * Apply a rate given in basis points (1800 = 18%), rounding half up to the nearest paisa.
+     */
+    public Money timesBasisPoints(long basisPoints) {
+        return scaledBy(basisPoints, BASIS_POINTS);
+    }
+
+    /**
+     * Multiply by {@code numerator / denominator}, rounding half up to the nearest paisa.
+     * The intermediate product may exceed a long; only the result has to fit.
+     *
+     * @param denominator a positive divisor
+     */
+    public Money scaledBy(long numerator, long denominator) {
+        long high = Math.multiplyHigh(paise, numerator);
+        long low = paise * numerator;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            long quotient = low / denominator;
+            long remainder = low % denominator;
+            // Half up means away from zero on a tie, as BigDecimal's HALF_UP
+            if (Math.abs(remainder) >= denominator - Math.abs(remainder)) {
+                quotient += Long.signum(low);
+            }
+            return ofPaise(quotient);
+        }
+        return ofPaise(BigDecimal.valueOf(paise)
+                .multiply(BigDecimal.valueOf(numerator))
+                .divide(BigDecimal.valueOf(denominator), 0, RoundingMode.HALF_UP)
+                .longValueExact());
+    }
+
+    public boolean isZero() {
+        return paise == 0;
+    }
+
+    public boolean isGreaterThanOrEqualTo(Money other) {
+        return paise >= other.paise;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(paise, other.paise);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && paise == other.paise;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(paise);
+    }
+
+    /**
+     * Plain decimal rupee amount, e.g. "1234.50".
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.mahalaxmi.ecommerce.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free, time-ordered 63-bit ID generator in the style of Snowflake.
+ * <p>
+ * Layout, most significant bits first: 41 bits of milliseconds since {@link #EPOCH_MILLIS},
+ * a 12-bit per-millisecond sequence, then a 10-bit node ID. The timestamp and sequence are kept
+ * together in one {@link AtomicLong} and advanced with a single CAS: the next value is the larger
+ * of "now with sequence 0" and "last + 1". A sequence overflow therefore carries into the
+ * timestamp, borrowing the next millisecond instead of blocking, and a clock that steps
+ * backwards never produces a duplicate. Because the node ID sits below the sequence, IDs from
+ * different nodes can never collide.
+ */
+public class SnowflakeIdGenerator {
+
+    /** Custom epoch: 2024-01-01T00:00:00Z. */
+    public static final long EPOCH_MILLIS = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final char[] BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int BASE32_LENGTH = 13;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    private final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    /**
+     * Generate the next ID. Safe for concurrent use without locking.
+     *
+     * @return a unique, increasing ID
+     */
+    public long nextId() {
+        long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long last;
+        long next;
+        do {
+            last = lastTimeAndSequence.get();
+            next = Math.max(now, last + 1);
+        } while (!lastTimeAndSequence.compareAndSet(last, next));
+        return (next << NODE_BITS) | nodeId;
+    }
+
+    /**
+     * Encode an ID as a fixed-width, 13-character Crockford base32 string.
+     * Fixed width keeps the encoded form sortable in the same order as the IDs.
+     *
+     * @param id a non-negative ID
+     * @return the encoded ID
+     */
+    public static String toBase32(long id) {
+        char[] chars = new char[BASE32_LENGTH];
+        for (int i = BASE32_LENGTH - 1; i >= 0; i--) {
+            chars[i] = BASE32[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
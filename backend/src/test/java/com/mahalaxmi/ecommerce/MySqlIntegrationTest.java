@@ -0,0 +1,30 @@
+package com.mahalaxmi.ecommerce;
+
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test that runs against a real MySQL database, since the behaviour under test (row
+ * locks, conditional updates, unique keys) depends on it. Set TEST_DATABASE_URL, plus
+ * TEST_DATABASE_USERNAME and TEST_DATABASE_PASSWORD if they differ from root/root, to run them;
+ * without it they are skipped.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE_URL", matches = ".+")
+@TestPropertySource(properties = {
+        "spring.datasource.url=${TEST_DATABASE_URL}",
+        "spring.datasource.username=${TEST_DATABASE_USERNAME:root}",
+        "spring.datasource.password=${TEST_DATABASE_PASSWORD:root}",
+        "spring.jpa.show-sql=false",
+        "application.inventory.flash-sale.log-path=target/test-flash-sale-reservations.log"
+})
+public @interface MySqlIntegrationTest {
+}
@@ -0,0 +1,39 @@
+package com.mahalaxmi.ecommerce;
+
+import com.mahalaxmi.ecommerce.entity.Product;
+import com.mahalaxmi.ecommerce.entity.User;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Builders for the users and products that {@link MySqlIntegrationTest}s create. Emails and
+ * product names get a random suffix, so tests can share one database and be run repeatedly.
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    /**
+     * A customer with a unique email, e.g. "cart-&lt;uuid&gt;@example.com" for the label "Cart".
+     */
+    public static User.UserBuilder user(String label) {
+        return User.builder()
+                .firstName(label)
+                .lastName("Tester")
+                .email(label.toLowerCase() + "-" + UUID.randomUUID() + "@example.com")
+                .password("not-used");
+    }
+
+    /**
+     * An active server product with a unique name, e.g. "Cart SKU &lt;uuid&gt;" for the label "Cart".
+     */
+    public static Product.ProductBuilder product(String label, String price, int stock) {
+        return Product.builder()
+                .name(label + " SKU " + UUID.randomUUID())
+                .price(new BigDecimal(price))
+                .stockQuantity(stock)
+                .type(Product.ProductType.SERVER);
+    }
+}
@@ -0,0 +1,76 @@
+package com.mahalaxmi.ecommerce.controller;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.config.JwtService;
+import com.mahalaxmi.ecommerce.entity.Product;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.repository.ProductRepository;
+import com.mahalaxmi.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Streaming exports are written on an async dispatch after the admin request was authorized; the
+ * stateless security chain has no authentication left at that point and must let it through.
+ */
+@MySqlIntegrationTest
+@AutoConfigureMockMvc
+class AdminExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Test
+    void productExportCompletesOnItsAsyncDispatch() throws Exception {
+        Product product = productRepository.save(TestFixtures.product("Export test", "2499.00", 4).build());
+
+        MvcResult started = mockMvc.perform(get("/api/admin/export/products")
+                        .param("format", "csv")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(User.Role.ADMIN)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(product.getName())));
+    }
+
+    @Test
+    void exportsStillRequireAnAdmin() throws Exception {
+        mockMvc.perform(get("/api/admin/export/products")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(User.Role.CUSTOMER)))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * A real token, so authentication happens in the JWT filter on the first dispatch only,
+     * exactly as in production.
+     */
+    private String bearer(User.Role role) {
+        User user = userRepository.save(TestFixtures.user("Export")
+                .role(role)
+                .build());
+        return "Bearer " + jwtService.generateToken(user);
+    }
+}
@@ -0,0 +1,66 @@
+package com.mahalaxmi.ecommerce.controller;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.config.JwtService;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The order status stream is opened with a short-lived stream ticket in the URL; access tokens
+ * are never accepted there, and tickets are accepted nowhere else.
+ */
+@MySqlIntegrationTest
+@AutoConfigureMockMvc
+class OrderStreamAuthTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Test
+    void streamOpensWithATicket() throws Exception {
+        User user = createUser();
+        mockMvc.perform(post("/api/orders/stream/ticket")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtService.generateToken(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ticket").isString());
+
+        mockMvc.perform(get("/api/orders/stream").param("ticket", jwtService.generateStreamTicket(user)))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void accessTokensAreRejectedInTheUrl() throws Exception {
+        mockMvc.perform(get("/api/orders/stream").param("ticket", jwtService.generateToken(createUser())))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void ticketsAreRejectedAsBearerTokens() throws Exception {
+        mockMvc.perform(get("/api/orders")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtService.generateStreamTicket(createUser())))
+                .andExpect(status().isForbidden());
+    }
+
+    private User createUser() {
+        return userRepository.save(TestFixtures.user("Stream").build());
+    }
+}
@@ -0,0 +1,76 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.entity.OutboxEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The dispatcher claims one event per order at a time, oldest first, and an event waiting for a
+ * retry holds back the order's later events until it is delivered or parked.
+ */
+@MySqlIntegrationTest
+@TestPropertySource(properties = "application.outbox.poll-interval-ms=3600000")
+class OutboxEventRepositoryTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void onlyTheOldestUndeliveredEventOfAnOrderIsClaimed() {
+        long order = ThreadLocalRandom.current().nextLong(1L << 40, 1L << 50);
+        long otherOrder = order + 1;
+        OutboxEvent confirmed = publish(order, OutboxEvent.EventType.ORDER_CREATED);
+        OutboxEvent shipped = publish(order, OutboxEvent.EventType.ORDER_STATUS_CHANGED);
+        publish(order, OutboxEvent.EventType.ORDER_STATUS_CHANGED);
+        OutboxEvent other = publish(otherOrder, OutboxEvent.EventType.ORDER_CREATED);
+        Set<Long> orders = Set.of(order, otherOrder);
+
+        assertThat(claimable(orders)).containsExactly(confirmed.getId(), other.getId());
+
+        // A failed delivery waiting for its retry holds back the order's later events
+        outboxEventRepository.markFailedAttempt(confirmed.getId(), OutboxEvent.Status.PENDING,
+                LocalDateTime.now().plusMinutes(5), "handler failed");
+        assertThat(claimable(orders)).containsExactly(other.getId());
+
+        // Once it is parked, the next event goes out
+        outboxEventRepository.markFailedAttempt(confirmed.getId(), OutboxEvent.Status.FAILED,
+                LocalDateTime.now().plusMinutes(5), "handler failed");
+        assertThat(claimable(orders)).containsExactly(shipped.getId(), other.getId());
+
+        outboxEventRepository.markDispatched(other.getId(), LocalDateTime.now());
+        assertThat(claimable(orders)).containsExactly(shipped.getId());
+    }
+
+    private OutboxEvent publish(long orderId, OutboxEvent.EventType type) {
+        return outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateType("Order")
+                .aggregateId(orderId)
+                .eventType(type)
+                .payload("{}")
+                .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                .build());
+    }
+
+    private List<Long> claimable(Set<Long> orderIds) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                outboxEventRepository.lockDueEvents(LocalDateTime.now(), PageRequest.of(0, 10_000)).stream()
+                        .filter(event -> orderIds.contains(event.getAggregateId()))
+                        .map(OutboxEvent::getId)
+                        .toList());
+    }
+}
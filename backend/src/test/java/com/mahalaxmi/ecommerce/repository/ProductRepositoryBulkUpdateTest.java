@@ -0,0 +1,54 @@
+package com.mahalaxmi.ecommerce.repository;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.dto.BulkProductUpdateRequest;
+import com.mahalaxmi.ecommerce.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batched price and stock updates only count the rows the database reports as changed, with
+ * batch rewriting enabled as in production.
+ */
+@MySqlIntegrationTest
+class ProductRepositoryBulkUpdateTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void countsOnlyRowsTheDatabaseUpdated() {
+        Product priced = createProduct();
+        Product stocked = createProduct();
+        Product flashSale = createProduct();
+        jdbcTemplate.update("UPDATE products SET flash_sale = true WHERE id = ?", flashSale.getId());
+        Product deleted = createProduct();
+        productRepository.deleteById(deleted.getId());
+
+        ProductRepositoryCustom.UpdateCounts counts = productRepository.batchUpdatePriceAndStock(List.of(
+                new BulkProductUpdateRequest.Item(priced.getId(), new BigDecimal("12.50"), null),
+                new BulkProductUpdateRequest.Item(stocked.getId(), null, 7),
+                // Stock changes skip products in flash-sale mode
+                new BulkProductUpdateRequest.Item(flashSale.getId(), null, 7),
+                new BulkProductUpdateRequest.Item(deleted.getId(), new BigDecimal("1.00"), null)));
+
+        assertThat(counts).isEqualTo(new ProductRepositoryCustom.UpdateCounts(4, 2));
+        assertThat(productRepository.findById(priced.getId()).orElseThrow().getPrice()).isEqualByComparingTo("12.50");
+        assertThat(productRepository.findById(stocked.getId()).orElseThrow().getStockQuantity()).isEqualTo(7);
+        assertThat(productRepository.findById(flashSale.getId()).orElseThrow().getStockQuantity()).isEqualTo(10);
+    }
+
+    private Product createProduct() {
+        return productRepository.save(TestFixtures.product("Bulk update", "10.00", 10).build());
+    }
+}
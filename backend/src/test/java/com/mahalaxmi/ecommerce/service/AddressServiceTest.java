@@ -0,0 +1,104 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.dto.CreateOrderRequest;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.repository.AddressRepository;
+import com.mahalaxmi.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkout address resolution: concurrent checkouts to the same new address share one row, and a
+ * rolled back insert is not reused.
+ */
+@MySqlIntegrationTest
+class AddressServiceTest {
+
+    private static final int CHECKOUTS = 20;
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void concurrentCheckoutsToANewAddressShareOneRow() throws Exception {
+        User user = createUser();
+        CreateOrderRequest.ShippingAddressDto address = address("12 Concurrent Lane");
+
+        ExecutorService executor = Executors.newFixedThreadPool(CHECKOUTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> attempts = new ArrayList<>(CHECKOUTS);
+        try {
+            for (int i = 0; i < CHECKOUTS; i++) {
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    return transactionTemplate.execute(status -> addressService.findOrCreate(user, address).getId());
+                }));
+            }
+            start.countDown();
+
+            Set<Long> ids = new HashSet<>();
+            for (Future<Long> attempt : attempts) {
+                ids.add(attempt.get(1, TimeUnit.MINUTES));
+            }
+            assertThat(ids).hasSize(1);
+            assertThat(addressRepository.findByUserId(user.getId())).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rolledBackInsertIsNotReused() {
+        User user = createUser();
+        CreateOrderRequest.ShippingAddressDto address = address("34 Rollback Road");
+
+        Long rolledBackId = transactionTemplate.execute(status -> {
+            Long id = addressService.findOrCreate(user, address).getId();
+            status.setRollbackOnly();
+            return id;
+        });
+        assertThat(addressRepository.existsById(rolledBackId)).isFalse();
+
+        Long id = transactionTemplate.execute(status -> addressService.findOrCreate(user, address).getId());
+        assertThat(id).isNotEqualTo(rolledBackId);
+        assertThat(addressRepository.existsById(id)).isTrue();
+    }
+
+    private User createUser() {
+        return userRepository.save(TestFixtures.user("Address").build());
+    }
+
+    private static CreateOrderRequest.ShippingAddressDto address(String street) {
+        return CreateOrderRequest.ShippingAddressDto.builder()
+                .street(street)
+                .city("Pune")
+                .state("Maharashtra")
+                .postalCode("411001")
+                .country("India")
+                .build();
+    }
+}
@@ -0,0 +1,172 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.dto.BulkOrderStatusUpdateRequest;
+import com.mahalaxmi.ecommerce.dto.BulkOrderStatusUpdateResponse;
+import com.mahalaxmi.ecommerce.entity.Order;
+import com.mahalaxmi.ecommerce.entity.OrderItem;
+import com.mahalaxmi.ecommerce.entity.Product;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.repository.OrderRepository;
+import com.mahalaxmi.ecommerce.repository.ProductRepository;
+import com.mahalaxmi.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bulk status changes follow the order lifecycle, stamp shipping and delivery times, return stock
+ * for cancelled orders and account for every requested entry.
+ */
+@MySqlIntegrationTest
+class BulkOrderStatusServiceTest {
+
+    @Autowired
+    private BulkOrderStatusService bulkOrderStatusService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void rejectsChangesTheLifecycleDoesNotAllow() {
+        Order pending = createOrder(Order.OrderStatus.PENDING);
+        Order delivered = createOrder(Order.OrderStatus.DELIVERED);
+
+        BulkOrderStatusUpdateResponse response = bulkOrderStatusService.updateStatuses(request(
+                item(pending, "DELIVERED"),
+                item(delivered, "SHIPPED"),
+                item(pending.getId() + 1_000_000_000L, "SHIPPED"),
+                item(pending, "LOST")));
+
+        assertThat(response.getUpdated()).isZero();
+        assertThat(response.getFailed()).isEqualTo(3);
+        assertThat(response.getSuperseded()).isEqualTo(1);
+        assertThat(response.getResults()).extracting(BulkOrderStatusUpdateResponse.Result::getError)
+                .containsExactly("Unknown status: LOST", "Cannot change status from DELIVERED to SHIPPED",
+                        "Order not found");
+        assertThat(status(pending)).isEqualTo(Order.OrderStatus.PENDING);
+        assertThat(status(delivered)).isEqualTo(Order.OrderStatus.DELIVERED);
+    }
+
+    @Test
+    void stampsShippedAndDeliveredTimesOnce() {
+        Order order = createOrder(Order.OrderStatus.CONFIRMED);
+
+        bulkOrderStatusService.updateStatuses(request(item(order, "SHIPPED", "TRACK-1")));
+        Order shipped = orderRepository.findById(order.getId()).orElseThrow();
+        assertThat(shipped.getStatus()).isEqualTo(Order.OrderStatus.SHIPPED);
+        assertThat(shipped.getTrackingNumber()).isEqualTo("TRACK-1");
+        assertThat(shipped.getShippedAt()).isNotNull();
+        assertThat(shipped.getDeliveredAt()).isNull();
+
+        // Repeating a status keeps its first time, and a blank tracking number keeps the old one
+        bulkOrderStatusService.updateStatuses(request(item(order, "SHIPPED", null)));
+        bulkOrderStatusService.updateStatuses(request(item(order, "DELIVERED", null)));
+        Order delivered = orderRepository.findById(order.getId()).orElseThrow();
+        assertThat(delivered.getStatus()).isEqualTo(Order.OrderStatus.DELIVERED);
+        assertThat(delivered.getTrackingNumber()).isEqualTo("TRACK-1");
+        assertThat(delivered.getShippedAt()).isEqualTo(shipped.getShippedAt());
+        assertThat(delivered.getDeliveredAt()).isNotNull();
+    }
+
+    @Test
+    void cancellingReturnsReservedStock() {
+        Order order = createOrder(Order.OrderStatus.CONFIRMED);
+        Long productId = order.getItems().get(0).getProduct().getId();
+
+        BulkOrderStatusUpdateResponse response = bulkOrderStatusService.updateStatuses(
+                request(item(order, "cancelled")));
+
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(status(order)).isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(13);
+    }
+
+    @Test
+    void manifestsCountEveryLineAndListOnlyFailures() throws Exception {
+        Order first = createOrder(Order.OrderStatus.CONFIRMED);
+        Order second = createOrder(Order.OrderStatus.CONFIRMED);
+        Order third = createOrder(Order.OrderStatus.PENDING);
+        String manifest = String.join("\n",
+                "orderId,status,trackingNumber",
+                first.getId() + ",PROCESSING,",
+                "",
+                "not-a-number,SHIPPED,",
+                second.getId() + ",,TRACK-2",
+                first.getId() + ",SHIPPED,TRACK-1",
+                third.getId() + ",DELIVERED,");
+
+        BulkOrderStatusUpdateResponse response = bulkOrderStatusService.updateStatuses(
+                new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(response.getRequested()).isEqualTo(5);
+        assertThat(response.getUpdated()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(response.getSuperseded()).isEqualTo(1);
+        assertThat(response.getResults()).extracting(BulkOrderStatusUpdateResponse.Result::getError)
+                .containsExactly("Line 4: invalid order ID", "Cannot change status from PENDING to DELIVERED");
+        // The later line for the first order wins
+        assertThat(status(first)).isEqualTo(Order.OrderStatus.SHIPPED);
+        assertThat(status(second)).isEqualTo(Order.OrderStatus.SHIPPED);
+    }
+
+    private Order.OrderStatus status(Order order) {
+        return orderRepository.findById(order.getId()).orElseThrow().getStatus();
+    }
+
+    private static BulkOrderStatusUpdateRequest request(BulkOrderStatusUpdateRequest.Item... items) {
+        BulkOrderStatusUpdateRequest request = new BulkOrderStatusUpdateRequest();
+        request.setItems(List.of(items));
+        return request;
+    }
+
+    private static BulkOrderStatusUpdateRequest.Item item(Order order, String status) {
+        return item(order.getId(), status);
+    }
+
+    private static BulkOrderStatusUpdateRequest.Item item(Long orderId, String status) {
+        return new BulkOrderStatusUpdateRequest.Item(orderId, status, null);
+    }
+
+    private static BulkOrderStatusUpdateRequest.Item item(Order order, String status, String trackingNumber) {
+        return new BulkOrderStatusUpdateRequest.Item(order.getId(), status, trackingNumber);
+    }
+
+    private Order createOrder(Order.OrderStatus status) {
+        User user = userRepository.save(TestFixtures.user("Bulk").build());
+        Product product = productRepository.save(TestFixtures.product("Bulk status", "10.00", 10).build());
+        BigDecimal subtotal = new BigDecimal("30.00");
+        Order order = Order.builder()
+                .orderNumber("BULK-" + UUID.randomUUID())
+                .user(user)
+                .status(status)
+                .stockReserved(true)
+                .subtotal(subtotal)
+                .tax(BigDecimal.ZERO)
+                .shippingCost(BigDecimal.ZERO)
+                .total(subtotal)
+                .build();
+        order.setItems(List.of(OrderItem.builder()
+                .order(order)
+                .product(product)
+                .quantity(3)
+                .price(product.getPrice())
+                .subtotal(subtotal)
+                .build()));
+        return orderRepository.save(order);
+    }
+}
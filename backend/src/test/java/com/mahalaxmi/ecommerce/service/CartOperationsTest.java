@@ -0,0 +1,198 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.dto.AddToCartRequest;
+import com.mahalaxmi.ecommerce.dto.CartDto;
+import com.mahalaxmi.ecommerce.dto.CartItemDto;
+import com.mahalaxmi.ecommerce.dto.CartOperationsRequest;
+import com.mahalaxmi.ecommerce.dto.CartSummaryDto;
+import com.mahalaxmi.ecommerce.dto.CreateOrderRequest;
+import com.mahalaxmi.ecommerce.entity.Product;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.exception.VersionConflictException;
+import com.mahalaxmi.ecommerce.repository.ProductRepository;
+import com.mahalaxmi.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Batched cart operations apply in order and all or nothing, and the cart badge summary follows
+ * every cart change and is dropped at checkout.
+ */
+@MySqlIntegrationTest
+class CartOperationsTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartSummaryCache cartSummaryCache;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void operationsApplyInOrder() {
+        signIn(createUser());
+        Product keyboard = createProduct(100);
+        Product mouse = createProduct(100);
+
+        CartDto cart = cartService.applyOperations(request(null,
+                add(keyboard, 2),
+                add(mouse, 1),
+                update(keyboard, 5),
+                remove(mouse),
+                add(mouse, 3),
+                add(keyboard, 1)));
+
+        assertThat(quantities(cart)).containsOnly(Map.entry(keyboard.getId(), 6), Map.entry(mouse.getId(), 3));
+
+        // Updating to zero removes the line, and a later ADD brings it back
+        cart = cartService.applyOperations(request(cart.getVersion(),
+                update(keyboard, 0),
+                add(keyboard, 2),
+                remove(mouse)));
+        assertThat(quantities(cart)).containsOnly(Map.entry(keyboard.getId(), 2));
+    }
+
+    @Test
+    void operationsBasedOnAnOldVersionConflict() {
+        signIn(createUser());
+        Product keyboard = createProduct(100);
+        CartDto loaded = cartService.applyOperations(request(null, add(keyboard, 2)));
+        Long itemId = loaded.getItems().get(0).getId();
+        cartService.updateCartItem(itemId, 3, loaded.getVersion());
+
+        assertThatThrownBy(() -> cartService.applyOperations(request(loaded.getVersion(), update(keyboard, 7))))
+                .isInstanceOf(VersionConflictException.class);
+        assertThat(quantities(cartService.getCart())).containsOnly(Map.entry(keyboard.getId(), 3));
+
+        // Adds alone do not depend on the version
+        CartDto added = cartService.applyOperations(request(loaded.getVersion(), add(keyboard, 1)));
+        assertThat(quantities(added)).containsOnly(Map.entry(keyboard.getId(), 4));
+    }
+
+    @Test
+    void aFailingOperationAppliesNone() {
+        signIn(createUser());
+        Product keyboard = createProduct(100);
+        Product scarce = createProduct(2);
+        CartDto before = cartService.applyOperations(request(null, add(keyboard, 2)));
+
+        assertThatThrownBy(() -> cartService.applyOperations(request(before.getVersion(),
+                update(keyboard, 4),
+                CartOperationsRequest.Operation.builder().op("ADD").productId(Long.MAX_VALUE).quantity(1).build(),
+                add(scarce, 1))))
+                .hasMessage("Operation 2: product not found");
+
+        assertThatThrownBy(() -> cartService.applyOperations(request(before.getVersion(),
+                update(keyboard, 4),
+                add(scarce, 2),
+                add(scarce, 1))))
+                .hasMessage("Insufficient stock for product " + scarce.getId());
+
+        CartDto after = cartService.getCart();
+        assertThat(quantities(after)).containsOnly(Map.entry(keyboard.getId(), 2));
+        assertThat(after.getVersion()).isEqualTo(before.getVersion());
+
+        // The stock held for the failed batch was given back
+        CartDto retried = cartService.applyOperations(request(after.getVersion(), update(keyboard, 100), add(scarce, 2)));
+        assertThat(quantities(retried)).containsOnly(Map.entry(keyboard.getId(), 100), Map.entry(scarce.getId(), 2));
+    }
+
+    @Test
+    void cartChangesRefreshTheSummaryAndCheckoutDropsIt() {
+        User user = createUser();
+        signIn(user);
+        Product keyboard = createProduct(100);
+        Product mouse = createProduct(100);
+
+        assertThat(cartService.getSummary().getItemCount()).isZero();
+
+        CartDto added = cartService.addToCart(AddToCartRequest.builder().productId(keyboard.getId()).quantity(2).build());
+        assertSummary(cartService.getSummary(), 1, "2998.00");
+
+        cartService.applyOperations(request(added.getVersion(), add(mouse, 1), update(keyboard, 1)));
+        assertSummary(cartService.getSummary(), 2, "2998.00");
+
+        cartService.removeFromCart(added.getItems().get(0).getId(), null);
+        assertSummary(cartService.getSummary(), 1, "1499.00");
+
+        orderService.createOrder(user.getId(), CreateOrderRequest.builder()
+                .shippingAddress(CreateOrderRequest.ShippingAddressDto.builder()
+                        .street("1 Badge Street")
+                        .city("Pune")
+                        .state("Maharashtra")
+                        .postalCode("411001")
+                        .country("India")
+                        .build())
+                .paymentMethod("CASH_ON_DELIVERY")
+                .build());
+        assertThat(cartSummaryCache.get(user.getId())).isNull();
+        assertThat(cartService.getSummary().getItemCount()).isZero();
+    }
+
+    private static void assertSummary(CartSummaryDto summary, int itemCount, String total) {
+        assertThat(summary.getItemCount()).isEqualTo(itemCount);
+        assertThat(summary.getTotal()).isEqualByComparingTo(total);
+    }
+
+    private static Map<Long, Integer> quantities(CartDto cart) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartItemDto item : cart.getItems()) {
+            quantities.put(item.getProduct().getId(), item.getQuantity());
+        }
+        return quantities;
+    }
+
+    private static CartOperationsRequest request(Long version, CartOperationsRequest.Operation... operations) {
+        return CartOperationsRequest.builder().operations(List.of(operations)).version(version).build();
+    }
+
+    private static CartOperationsRequest.Operation add(Product product, int quantity) {
+        return CartOperationsRequest.Operation.builder().op("ADD").productId(product.getId()).quantity(quantity).build();
+    }
+
+    private static CartOperationsRequest.Operation update(Product product, int quantity) {
+        return CartOperationsRequest.Operation.builder().op("update").productId(product.getId()).quantity(quantity).build();
+    }
+
+    private static CartOperationsRequest.Operation remove(Product product) {
+        return CartOperationsRequest.Operation.builder().op("REMOVE").productId(product.getId()).build();
+    }
+
+    private static void signIn(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private User createUser() {
+        return userRepository.save(TestFixtures.user("Cart").build());
+    }
+
+    private Product createProduct(int stock) {
+        return productRepository.save(TestFixtures.product("Cart test", "1499.00", stock).build());
+    }
+}
@@ -0,0 +1,197 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.dto.AddToCartRequest;
+import com.mahalaxmi.ecommerce.dto.CartDto;
+import com.mahalaxmi.ecommerce.entity.Product;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.exception.VersionConflictException;
+import com.mahalaxmi.ecommerce.repository.CartRepository;
+import com.mahalaxmi.ecommerce.repository.ProductRepository;
+import com.mahalaxmi.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Many threads mutating one cart, as several open tabs do: concurrent adds are all kept, and
+ * quantity changes based on the same cart version conflict for all but one writer. Flushes from
+ * two instances holding the same cart version conflict in the database as well.
+ */
+@MySqlIntegrationTest
+class CartServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int ADDS_PER_THREAD = 10;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void concurrentAddsToOneCartAreAllKept() throws Exception {
+        User user = createUser();
+        Product product = createProduct();
+
+        List<Boolean> results = runConcurrently(() -> {
+            signIn(user);
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                cartService.addToCart(AddToCartRequest.builder().productId(product.getId()).quantity(1).build());
+            }
+            return true;
+        });
+        assertThat(results).containsOnly(true);
+
+        signIn(user);
+        CartDto cart = cartService.getCart();
+        assertThat(cart.getItems()).hasSize(1);
+        assertThat(cart.getItems().get(0).getQuantity()).isEqualTo(THREADS * ADDS_PER_THREAD);
+
+        cartStore.flush(user.getId());
+        assertThat(quantityInDatabase(user, product)).isEqualTo(THREADS * ADDS_PER_THREAD);
+    }
+
+    @Test
+    void changesBasedOnTheSameVersionConflictForAllButOne() throws Exception {
+        User user = createUser();
+        Product product = createProduct();
+        signIn(user);
+        CartDto loaded = cartService.addToCart(AddToCartRequest.builder().productId(product.getId()).quantity(1).build());
+        Long itemId = loaded.getItems().get(0).getId();
+        Long version = loaded.getVersion();
+
+        List<Boolean> results = runConcurrently(() -> {
+            signIn(user);
+            try {
+                cartService.updateCartItem(itemId, 2, version);
+                return true;
+            } catch (VersionConflictException e) {
+                assertThat(e.getCurrent()).isInstanceOf(CartDto.class);
+                return false;
+            }
+        });
+
+        assertThat(results).containsOnlyOnce(true);
+        assertThat(cartService.getCart().getVersion()).isGreaterThan(version);
+    }
+
+    @Test
+    void flushesFromTheSameVersionConflictForTheSecondInstance() {
+        User user = createUser();
+        Product product = createProduct();
+        signIn(user);
+        Long itemId = cartService.addToCart(AddToCartRequest.builder().productId(product.getId()).quantity(1).build())
+                .getItems().get(0).getId();
+        cartStore.flush(user.getId());
+
+        // A second instance loads the same cart version before this one flushes its change
+        CartStore otherInstance = new CartStore(cartRepository, productRepository, modelMapper, transactionManager,
+                CartStore.Durability.WRITE_BEHIND, 100, 1800, 300);
+        otherInstance.withCart(user, CartStore.CachedCart::getVersion);
+
+        cartService.updateCartItem(itemId, 2, null);
+        otherInstance.withCart(user, cart -> {
+            otherInstance.setQuantity(cart, product.getId(), 5);
+            return null;
+        });
+
+        cartStore.flush(user.getId());
+        assertThatThrownBy(() -> otherInstance.flush(user.getId()))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(quantityInDatabase(user, product)).isEqualTo(2);
+        // The stale changes were dropped and the next access reads the winning write
+        int reloaded = otherInstance.withCart(user, cart -> cart.line(product.getId()).quantity());
+        assertThat(reloaded).isEqualTo(2);
+    }
+
+    private Integer quantityInDatabase(User user, Product product) {
+        return jdbcTemplate.queryForObject(
+                "SELECT i.quantity FROM cart_items i JOIN carts c ON c.id = i.cart_id WHERE c.user_id = ? AND i.product_id = ?",
+                Integer.class, user.getId(), product.getId());
+    }
+
+    private List<Boolean> runConcurrently(Callable<Boolean> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>(THREADS);
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return task.call();
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                }));
+            }
+            start.countDown();
+
+            List<Boolean> results = new ArrayList<>(THREADS);
+            for (Future<Boolean> future : futures) {
+                results.add(future.get(1, TimeUnit.MINUTES));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void signIn(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private User createUser() {
+        return userRepository.save(TestFixtures.user("Cart").build());
+    }
+
+    private Product createProduct() {
+        return productRepository.save(TestFixtures.product("Cart test", "1499.00", 10_000).build());
+    }
+}
@@ -0,0 +1,56 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The sweeper only deletes carts it has claimed: carts in memory are never claimed, and a claimed
+ * cart is not loaded until the sweep releases it.
+ */
+@MySqlIntegrationTest
+class CartStoreSweepTest {
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void cartsInMemoryAreNotClaimed() {
+        User user = createUser();
+        cartStore.withCart(user, cart -> cart);
+
+        assertThat(cartStore.claimForSweep(List.of(user.getId()))).isEmpty();
+    }
+
+    @Test
+    void claimedCartsAreLoadedOnlyAfterTheSweep() throws Exception {
+        User user = createUser();
+        assertThat(cartStore.claimForSweep(List.of(user.getId()))).containsExactly(user.getId());
+        // A second sweep must not claim the same user
+        assertThat(cartStore.claimForSweep(List.of(user.getId()))).isEmpty();
+
+        CompletableFuture<Long> load = CompletableFuture.supplyAsync(
+                () -> cartStore.withCart(user, CartStore.CachedCart::getUserId));
+        Thread.sleep(200);
+        assertThat(load).isNotDone();
+
+        cartStore.releaseSweep(List.of(user.getId()));
+        assertThat(load.get(1, TimeUnit.MINUTES)).isEqualTo(user.getId());
+    }
+
+    private User createUser() {
+        return userRepository.save(TestFixtures.user("Sweep").build());
+    }
+}
@@ -0,0 +1,171 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.dto.CheckoutLine;
+import com.mahalaxmi.ecommerce.exception.CheckoutValidationException;
+import com.mahalaxmi.ecommerce.repository.CartRepository;
+import com.mahalaxmi.ecommerce.repository.CategoryRepository;
+import com.mahalaxmi.ecommerce.util.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A quote is redeemed only by the user it was issued to, for the same shipping method, coupon,
+ * cart lines and PIN code, before it expires and with its signature intact. Every rejection goes
+ * through {@link CheckoutValidationException} so the client is asked to review the new total.
+ */
+class CheckoutQuoteServiceTest {
+
+    private static final long USER_ID = 7L;
+    private static final String SECRET = "quote-test-secret";
+    private static final String PIN = "400001";
+
+    private final List<CheckoutLine> cart = new ArrayList<>();
+    private CartRepository cartRepository;
+    private CheckoutQuoteService quotes;
+
+    @BeforeEach
+    void setUp() {
+        cart.add(new CheckoutLine(1L, 10L, "Keyboard", 3L, "Acme", new BigDecimal("1499.00"), 20, true, false, 2, null));
+        cart.add(new CheckoutLine(1L, 11L, "Mouse", 3L, "Acme", new BigDecimal("599.50"), 20, true, false, 1, null));
+        cartRepository = mock(CartRepository.class);
+        when(cartRepository.findCheckoutLines(USER_ID)).thenAnswer(invocation -> List.copyOf(cart));
+        quotes = service(600);
+    }
+
+    @Test
+    void redeemsTheTotalsOfAnUnchangedCheckout() {
+        String quoteId = quotes.quote(USER_ID, "express", null, PIN).getQuoteId();
+
+        CheckoutQuoteService.Totals totals = quotes.redeem(USER_ID, quoteId, "Express", null, "400 001", cart);
+
+        assertThat(totals.subtotal()).isEqualTo(Money.of(new BigDecimal("3597.50")));
+        assertThat(totals.postalCode()).isEqualTo(400001);
+        assertThat(totals.couponCode()).isNull();
+    }
+
+    @Test
+    void rejectsATamperedQuote() {
+        String quoteId = quotes.quote(USER_ID, null, null, PIN).getQuoteId();
+        int dot = quoteId.indexOf('.');
+        String payload = new String(Base64.getUrlDecoder().decode(quoteId.substring(0, dot)), StandardCharsets.UTF_8);
+        // Halve the total and keep the original signature
+        String[] fields = payload.split("\\|");
+        fields[9] = Long.toString(Long.parseLong(fields[9]) / 2);
+        String tampered = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join("|", fields).getBytes(StandardCharsets.UTF_8)) + quoteId.substring(dot);
+
+        assertInvalid(() -> quotes.redeem(USER_ID, tampered, null, null, PIN, cart));
+        assertInvalid(() -> quotes.redeem(USER_ID, quoteId.substring(0, quoteId.length() - 2), null, null, PIN, cart));
+        assertInvalid(() -> quotes.redeem(USER_ID, quoteId.replace('.', '_'), null, null, PIN, cart));
+        assertInvalid(() -> quotes.redeem(USER_ID, "not a quote", null, null, PIN, cart));
+        assertInvalid(() -> quotes.redeem(USER_ID, ".", null, null, PIN, cart));
+    }
+
+    @Test
+    void rejectsAQuoteSignedWithAnotherKey() {
+        String quoteId = quotes.quote(USER_ID, null, null, PIN).getQuoteId();
+        CheckoutQuoteService otherKey = new CheckoutQuoteService(cartRepository, mock(CartStore.class),
+                promotionEngine(), pricingRulesEngine(), "another-secret", 600, 100);
+
+        assertInvalid(() -> otherKey.redeem(USER_ID, quoteId, null, null, PIN, cart));
+    }
+
+    @Test
+    void rejectsAQuoteForAnotherUserMethodOrCoupon() {
+        String quoteId = quotes.quote(USER_ID, null, null, PIN).getQuoteId();
+
+        assertInvalid(() -> quotes.redeem(USER_ID + 1, quoteId, null, null, PIN, cart));
+        assertInvalid(() -> quotes.redeem(USER_ID, quoteId, "express", null, PIN, cart));
+        assertInvalid(() -> quotes.redeem(USER_ID, quoteId, null, "SAVE10", PIN, cart));
+    }
+
+    @Test
+    void rejectsAnExpiredQuote() {
+        CheckoutQuoteService expiring = service(0);
+        String quoteId = expiring.quote(USER_ID, null, null, PIN).getQuoteId();
+
+        assertThatThrownBy(() -> expiring.redeem(USER_ID, quoteId, null, null, PIN, cart))
+                .isInstanceOf(CheckoutValidationException.class)
+                .hasMessageContaining("expired");
+    }
+
+    @Test
+    void rejectsAQuoteForAChangedCart() {
+        String quoteId = quotes.quote(USER_ID, null, null, PIN).getQuoteId();
+
+        List<CheckoutLine> moreOfOne = copyCart();
+        moreOfOne.get(0).setQuantity(3);
+        List<CheckoutLine> repriced = copyCart();
+        repriced.get(1).setPrice(new BigDecimal("549.50"));
+        List<CheckoutLine> delisted = copyCart();
+        delisted.get(1).setActive(false);
+
+        for (List<CheckoutLine> changed : List.of(moreOfOne, repriced, delisted, cart.subList(0, 1))) {
+            assertThatThrownBy(() -> quotes.redeem(USER_ID, quoteId, null, null, PIN, changed))
+                    .isInstanceOf(CheckoutValidationException.class)
+                    .hasMessageContaining("cart or its prices changed");
+        }
+        // The same price written differently is the same cart
+        List<CheckoutLine> rescaled = copyCart();
+        rescaled.get(0).setPrice(new BigDecimal("1499"));
+        assertThat(quotes.redeem(USER_ID, quoteId, null, null, PIN, rescaled)).isNotNull();
+    }
+
+    @Test
+    void rejectsAQuoteForAChangedPin() {
+        String quoteId = quotes.quote(USER_ID, null, null, PIN).getQuoteId();
+
+        assertThatThrownBy(() -> quotes.redeem(USER_ID, quoteId, null, null, "400002", cart))
+                .isInstanceOf(CheckoutValidationException.class)
+                .hasMessageContaining("PIN code changed");
+        assertThatThrownBy(() -> quotes.redeem(USER_ID, quoteId, null, null, null, cart))
+                .isInstanceOf(CheckoutValidationException.class)
+                .hasMessageContaining("PIN code changed");
+    }
+
+    private CheckoutQuoteService service(long ttlSeconds) {
+        return new CheckoutQuoteService(cartRepository, mock(CartStore.class), promotionEngine(),
+                pricingRulesEngine(), SECRET, ttlSeconds, 100);
+    }
+
+    private static PromotionEngine promotionEngine() {
+        PromotionEngine promotionEngine = mock(PromotionEngine.class);
+        when(promotionEngine.evaluate(anyList(), any())).thenReturn(PromotionEngine.Result.NONE);
+        return promotionEngine;
+    }
+
+    private static PricingRulesEngine pricingRulesEngine() {
+        // Never loaded, so every PIN code is in the default zone
+        return new PricingRulesEngine(mock(CategoryRepository.class), new ByteArrayResource(new byte[0]));
+    }
+
+    private List<CheckoutLine> copyCart() {
+        List<CheckoutLine> copy = new ArrayList<>();
+        for (CheckoutLine line : cart) {
+            copy.add(new CheckoutLine(line.getCartId(), line.getProductId(), line.getProductName(),
+                    line.getCategoryId(), line.getBrand(), line.getPrice(), line.getStockQuantity(),
+                    line.getActive(), line.getFlashSale(), line.getQuantity(), line.getThumbnailUrl()));
+        }
+        return copy;
+    }
+
+    private static void assertInvalid(Runnable redeem) {
+        assertThatThrownBy(redeem::run)
+                .isInstanceOf(CheckoutValidationException.class)
+                .hasMessageContaining("quote is not valid");
+    }
+}
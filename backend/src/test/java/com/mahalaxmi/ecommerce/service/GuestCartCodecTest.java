@@ -0,0 +1,133 @@
+package com.mahalaxmi.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guest cart cookies decode to the lines they were built from, in order, and anything that was
+ * not signed by the same key, or was cut short or altered, decodes to an empty cart.
+ */
+class GuestCartCodecTest {
+
+    private static final String SECRET = "guest-cart-test-secret";
+
+    private final GuestCartCodec codec = codec(SECRET, 50);
+
+    @Test
+    void roundTripsLinesInOrderAcrossVarintLengths() {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        lines.put(127L, 1);
+        lines.put(128L, 127);
+        lines.put(16_383L, 128);
+        lines.put(16_384L, 99);
+        lines.put(5L, Integer.MAX_VALUE);
+        lines.put(1L << 35, 3);
+        lines.put(Long.MAX_VALUE, 2);
+        lines.put(0L, 1);
+
+        Map<Long, Integer> decoded = codec.decode(codec.cookie(lines).getValue());
+
+        assertThat(decoded).containsExactlyEntriesOf(lines);
+    }
+
+    @Test
+    void emptyCartsDeleteTheCookie() {
+        assertThat(codec.cookie(Map.of()).getMaxAge()).isZero();
+        assertThat(codec.decode(codec.cookie(Map.of()).getValue())).isEmpty();
+        assertThat(codec.decode(null)).isEmpty();
+    }
+
+    @Test
+    void rejectsCookiesThatWereAltered() {
+        String value = codec.cookie(Map.of(42L, 2)).getValue();
+        int dot = value.indexOf('.');
+        byte[] payload = Base64.getUrlDecoder().decode(value.substring(0, dot));
+        payload[payload.length - 1]++;
+        String raisedQuantity = encode(payload) + value.substring(dot);
+
+        assertThat(codec.decode(value)).containsExactly(Map.entry(42L, 2));
+        assertThat(codec.decode(raisedQuantity)).isEmpty();
+        assertThat(codec.decode(value.substring(0, dot))).isEmpty();
+        assertThat(codec.decode(value + "AA")).isEmpty();
+        assertThat(codec.decode("!!!." + value.substring(dot + 1))).isEmpty();
+        assertThat(codec(SECRET + "-other", 50).decode(value)).isEmpty();
+    }
+
+    @Test
+    void rejectsTruncatedSignatures() {
+        String value = codec.cookie(Map.of(42L, 2)).getValue();
+        int dot = value.indexOf('.');
+        byte[] signature = Base64.getUrlDecoder().decode(value.substring(dot + 1));
+
+        for (int length = 0; length < signature.length; length++) {
+            String truncated = value.substring(0, dot + 1) + encode(Arrays.copyOf(signature, length));
+            assertThat(codec.decode(truncated)).as("signature of %d bytes", length).isEmpty();
+        }
+    }
+
+    @Test
+    void rejectsSignedPayloadsThatAreMalformed() {
+        // Two lines announced but only one present
+        assertThat(codec.decode(signed(new byte[]{1, 2, 42, 2}))).isEmpty();
+        // A varint whose continuation bit runs off the end
+        assertThat(codec.decode(signed(new byte[]{1, 1, (byte) 0x80}))).isEmpty();
+        // A varint longer than 64 bits
+        assertThat(codec.decode(signed(new byte[]{1, 1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1, 1}))).isEmpty();
+        // An unknown format version
+        assertThat(codec.decode(signed(new byte[]{2, 1, 42, 2}))).isEmpty();
+        assertThat(codec.decode(signed(new byte[0]))).isEmpty();
+
+        assertThat(codec.decode(signed(new byte[]{1, 1, 42, 2}))).containsExactly(Map.entry(42L, 2));
+    }
+
+    @Test
+    void dropsLinesWithoutAValidQuantity() {
+        // Zero, and one past Integer.MAX_VALUE
+        byte[] payload = {1, 3, 1, 0, 2, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08, 3, 1};
+
+        assertThat(codec.decode(signed(payload))).containsExactly(Map.entry(3L, 1));
+    }
+
+    @Test
+    void decodesAtMostMaxLines() {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        for (long productId = 1; productId <= 60; productId++) {
+            lines.put(productId, 1);
+        }
+        String value = codec(SECRET, 100).cookie(lines).getValue();
+
+        Map<Long, Integer> decoded = codec.decode(value);
+
+        assertThat(decoded).hasSize(50);
+        assertThat(decoded.keySet()).first().isEqualTo(1L);
+        assertThat(decoded.keySet()).last().isEqualTo(50L);
+    }
+
+    private static GuestCartCodec codec(String secret, int maxLines) {
+        return new GuestCartCodec(secret, 30, true, "Lax", maxLines);
+    }
+
+    private static String signed(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return encode(payload) + "." + encode(Arrays.copyOf(mac.doFinal(payload), 16));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
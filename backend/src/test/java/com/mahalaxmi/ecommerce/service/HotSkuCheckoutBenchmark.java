@@ -0,0 +1,100 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.EcommerceApplication;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checkout stock reservation throughput on one hot SKU, with flash-sale mode off (conditional
+ * decrement of the product row) and on (in-memory counter plus reservation log). Each operation
+ * reserves one unit in its own committed transaction, as checkout does.
+ * <p>
+ * Needs the database used by the integration tests. Run with {@code TEST_DATABASE_URL=...
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath org.openjdk.jmh.Main HotSkuCheckoutBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(32)
+public class HotSkuCheckoutBenchmark {
+
+    @Param({"false", "true"})
+    private boolean flashSale;
+
+    private ConfigurableApplicationContext context;
+    private FlashSaleInventoryService flashSaleInventoryService;
+    private ProductRepository productRepository;
+    private TransactionTemplate transactionTemplate;
+    private Long productId;
+    private final AtomicLong orderNumbers = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        String url = System.getenv("TEST_DATABASE_URL");
+        if (url == null) {
+            throw new IllegalStateException("Set TEST_DATABASE_URL to run this benchmark");
+        }
+        context = new SpringApplicationBuilder(EcommerceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + System.getenv().getOrDefault("TEST_DATABASE_USERNAME", "root"),
+                        "--spring.datasource.password=" + System.getenv().getOrDefault("TEST_DATABASE_PASSWORD", "root"),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--application.inventory.flash-sale.log-path=target/benchmark-flash-sale-reservations.log");
+        flashSaleInventoryService = context.getBean(FlashSaleInventoryService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        productId = productRepository.save(TestFixtures.product("Benchmark", "49999.00", Integer.MAX_VALUE / 2).build())
+                .getId();
+        if (flashSale) {
+            flashSaleInventoryService.enable(productId);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (flashSale) {
+            flashSaleInventoryService.disable(productId);
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public Boolean reserveOneUnit() {
+        String orderNumber = "BENCH-" + orderNumbers.incrementAndGet();
+        return transactionTemplate.execute(status -> {
+            if (flashSaleInventoryService.tryReserve(productId, 1, 0, orderNumber)
+                    == FlashSaleInventoryService.Reservation.RESERVED) {
+                return true;
+            }
+            return productRepository.decrementStock(productId, 1, 0) == 1;
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.entity.Order;
+import com.mahalaxmi.ecommerce.entity.OrderItem;
+import com.mahalaxmi.ecommerce.entity.Product;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.repository.OrderRepository;
+import com.mahalaxmi.ecommerce.repository.ProductRepository;
+import com.mahalaxmi.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The order export covers archived orders, in the same shape as live ones.
+ */
+@MySqlIntegrationTest
+class OrderExportTest {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportIncludesArchivedOrders() throws Exception {
+        User user = userRepository.save(TestFixtures.user("Export").build());
+        Product product = productRepository.save(TestFixtures.product("Export test", "10.00", 10).build());
+        Order archived = createOrder(user, product);
+        Order live = createOrder(user, product);
+        jdbcTemplate.update("UPDATE orders SET status = 'DELIVERED', created_at = ?, updated_at = created_at WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusYears(2)), archived.getId());
+        orderArchiver.archive();
+        assertThat(orderRepository.existsById(archived.getId())).isFalse();
+
+        List<String> csv = export(ExportService.Format.CSV);
+        String liveRow = rowFor(csv, live);
+        String archivedRow = rowFor(csv, archived);
+        assertThat(archivedRow.split(",", -1)).hasSameSizeAs(liveRow.split(",", -1));
+        assertThat(archivedRow).contains(user.getEmail(), "DELIVERED", "," + product.getId() + ",3,10.00,30.00");
+        // Timestamps are formatted as in live rows
+        assertThat(archivedRow.split(",")[12].charAt(10)).isEqualTo(liveRow.split(",")[12].charAt(10));
+
+        String json = rowFor(export(ExportService.Format.NDJSON), archived);
+        assertThat(json).contains("\"email\":\"" + user.getEmail() + "\"", "\"productId\":" + product.getId(),
+                "\"quantity\":3");
+    }
+
+    private List<String> export(ExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportOrders(format, out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private static String rowFor(List<String> lines, Order order) {
+        return lines.stream()
+                .filter(line -> line.contains(order.getOrderNumber()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Order " + order.getOrderNumber() + " not exported"));
+    }
+
+    private Order createOrder(User user, Product product) {
+        BigDecimal subtotal = new BigDecimal("30.00");
+        Order order = Order.builder()
+                .orderNumber("EXP-" + UUID.randomUUID())
+                .user(user)
+                .subtotal(subtotal)
+                .tax(BigDecimal.ZERO)
+                .shippingCost(BigDecimal.ZERO)
+                .total(subtotal)
+                .build();
+        order.setItems(List.of(OrderItem.builder()
+                .order(order)
+                .product(product)
+                .quantity(3)
+                .price(product.getPrice())
+                .subtotal(subtotal)
+                .build()));
+        return orderRepository.save(order);
+    }
+}
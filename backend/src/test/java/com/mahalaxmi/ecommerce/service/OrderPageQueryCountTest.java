@@ -0,0 +1,137 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.dto.OrderDto;
+import com.mahalaxmi.ecommerce.entity.Address;
+import com.mahalaxmi.ecommerce.entity.Order;
+import com.mahalaxmi.ecommerce.entity.OrderItem;
+import com.mahalaxmi.ecommerce.entity.Product;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.repository.AddressRepository;
+import com.mahalaxmi.ecommerce.repository.OrderRepository;
+import com.mahalaxmi.ecommerce.repository.ProductRepository;
+import com.mahalaxmi.ecommerce.repository.UserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Admin order lists load a page with a fixed number of statements, however many orders, items,
+ * products and images the page holds.
+ */
+@MySqlIntegrationTest
+@TestPropertySource(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.mahalaxmi.ecommerce.service.OrderPageQueryCountTest$StatementCounter")
+class OrderPageQueryCountTest {
+
+    private static final int ORDERS = 10;
+    private static final int ITEMS_PER_ORDER = 5;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @BeforeEach
+    void createOrders() {
+        User user = userRepository.save(TestFixtures.user("Query").build());
+        Address address = addressRepository.save(Address.builder()
+                .user(user)
+                .street("1 Count Street")
+                .city("Pune")
+                .state("Maharashtra")
+                .postalCode("411001")
+                .country("India")
+                .type(Address.AddressType.SHIPPING)
+                .isDefault(false)
+                .build());
+
+        for (int o = 0; o < ORDERS; o++) {
+            Order order = Order.builder()
+                    .orderNumber("QC-" + UUID.randomUUID())
+                    .user(user)
+                    .subtotal(new BigDecimal("5000.00"))
+                    .tax(BigDecimal.ZERO)
+                    .shippingCost(BigDecimal.ZERO)
+                    .total(new BigDecimal("5000.00"))
+                    .shippingAddress(address)
+                    .billingAddress(address)
+                    .build();
+            List<OrderItem> items = new ArrayList<>(ITEMS_PER_ORDER);
+            for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                items.add(OrderItem.builder()
+                        .order(order)
+                        .product(createProduct())
+                        .quantity(1)
+                        .price(new BigDecimal("1000.00"))
+                        .subtotal(new BigDecimal("1000.00"))
+                        .build());
+            }
+            order.setItems(items);
+            orderRepository.save(order);
+        }
+    }
+
+    @Test
+    void orderPagesLoadWithAConstantNumberOfStatements() {
+        long smallPage = statementsToLoad(2);
+        long fullPage = statementsToLoad(ORDERS);
+
+        // Order IDs, total count, orders with items, products and addresses, then product images
+        assertThat(fullPage).isEqualTo(smallPage).isLessThanOrEqualTo(4);
+    }
+
+    private long statementsToLoad(int pageSize) {
+        StatementCounter.COUNT.get().set(0);
+
+        Page<OrderDto> page = adminService.getAllOrders(PageRequest.of(0, pageSize));
+
+        assertThat(page.getContent()).hasSize(pageSize)
+                .allSatisfy(order -> assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER));
+        return StatementCounter.COUNT.get().get();
+    }
+
+    private Product createProduct() {
+        return productRepository.save(TestFixtures.product("Query count", "1000.00", 10)
+                .imageUrls(new ArrayList<>(List.of("https://example.com/front.jpg", "https://example.com/back.jpg")))
+                .build());
+    }
+
+    /**
+     * Counts the statements Hibernate prepares on the current thread, so scheduled jobs running
+     * alongside the test are not counted.
+     */
+    public static class StatementCounter implements StatementInspector {
+
+        static final ThreadLocal<AtomicLong> COUNT = ThreadLocal.withInitial(AtomicLong::new);
+
+        @Override
+        public String inspect(String sql) {
+            COUNT.get().incrementAndGet();
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.repository.CategoryRepository;
+import com.mahalaxmi.ecommerce.util.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * PIN parsing, zone lookup over merged ranges, rejected rules files and GST slabs inherited down
+ * the category tree, without a database.
+ */
+class PricingRulesEngineTest {
+
+    private static final String ZONES = """
+            zone.LOCAL=99,249,25000
+            zone.REGIONAL=149,399,40000
+            zone.NATIONAL=199,499,50000
+            default.zone=NATIONAL
+            """;
+
+    private static final Money SMALL_ORDER = Money.ofRupees(100);
+
+    @TempDir
+    Path dir;
+
+    private Path rulesFile;
+    private final List<Object[]> categories = new ArrayList<>();
+    private PricingRulesEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        rulesFile = dir.resolve("pricing-rules.properties");
+        engine = new PricingRulesEngine(mockRepository(), new FileSystemResource(rulesFile));
+    }
+
+    @Test
+    void parsesSixDigitPinsIgnoringSpaces() {
+        assertThat(PricingRulesEngine.parsePin("400001")).isEqualTo(400001);
+        assertThat(PricingRulesEngine.parsePin(" 400 001 ")).isEqualTo(400001);
+        assertThat(PricingRulesEngine.parsePin("000123")).isEqualTo(123);
+
+        assertThat(PricingRulesEngine.parsePin(null)).isEqualTo(-1);
+        assertThat(PricingRulesEngine.parsePin("")).isEqualTo(-1);
+        assertThat(PricingRulesEngine.parsePin("40001")).isEqualTo(-1);
+        assertThat(PricingRulesEngine.parsePin("4000011")).isEqualTo(-1);
+        assertThat(PricingRulesEngine.parsePin("40000A")).isEqualTo(-1);
+        assertThat(PricingRulesEngine.parsePin("400-001")).isEqualTo(-1);
+    }
+
+    @Test
+    void looksUpZonesAcrossMergedRanges() throws IOException {
+        writeRules(ZONES + """
+                pin.400001-400104=LOCAL
+                pin.400105-400200=LOCAL
+                pin.400300=LOCAL
+                pin.400201-400299=REGIONAL
+                """);
+        engine.reload();
+
+        // Adjacent ranges of the same zone, checked at each edge
+        assertThat(shipping(400001)).isEqualTo(Money.ofRupees(99));
+        assertThat(shipping(400104)).isEqualTo(Money.ofRupees(99));
+        assertThat(shipping(400105)).isEqualTo(Money.ofRupees(99));
+        assertThat(shipping(400200)).isEqualTo(Money.ofRupees(99));
+        assertThat(shipping(400201)).isEqualTo(Money.ofRupees(149));
+        assertThat(shipping(400299)).isEqualTo(Money.ofRupees(149));
+        assertThat(shipping(400300)).isEqualTo(Money.ofRupees(99));
+
+        // Unlisted and missing PIN codes use the default zone
+        assertThat(shipping(400000)).isEqualTo(Money.ofRupees(199));
+        assertThat(shipping(400301)).isEqualTo(Money.ofRupees(199));
+        assertThat(shipping(-1)).isEqualTo(Money.ofRupees(199));
+
+        assertThat(engine.shippingCost(400001, "express", SMALL_ORDER)).isEqualTo(Money.ofRupees(249));
+        assertThat(engine.shippingCost(400001, "standard", Money.ofRupees(25000))).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    void overlappingRangesAreRejectedKeepingThePreviousRules() throws IOException {
+        writeRules(ZONES + "pin.400001-400104=LOCAL\n");
+        engine.reload();
+
+        writeRules(ZONES + """
+                pin.400001-400104=LOCAL
+                pin.400100-400200=REGIONAL
+                """);
+        engine.reload();
+
+        assertThat(shipping(400100)).isEqualTo(Money.ofRupees(99));
+        assertThat(shipping(400150)).isEqualTo(Money.ofRupees(199));
+    }
+
+    @Test
+    void subcategoriesInheritTheNearestSlab() throws IOException {
+        categories.add(new Object[]{1L, "Electronics", null});
+        categories.add(new Object[]{2L, "Laptops", 1L});
+        categories.add(new Object[]{3L, "Gaming Laptops", 2L});
+        categories.add(new Object[]{4L, "Books", null});
+        categories.add(new Object[]{5L, "Accessories", 1L});
+        writeRules(ZONES + """
+                tax.default=12
+                tax.category.Electronics=18
+                tax.category.Gaming\\ Laptops=28
+                tax.category.Books=5
+                """);
+        engine.reload();
+
+        assertThat(engine.taxBasisPoints(1L)).isEqualTo(1800);
+        assertThat(engine.taxBasisPoints(2L)).isEqualTo(1800);
+        assertThat(engine.taxBasisPoints(3L)).isEqualTo(2800);
+        assertThat(engine.taxBasisPoints(4L)).isEqualTo(500);
+        assertThat(engine.taxBasisPoints(5L)).isEqualTo(1800);
+        assertThat(engine.taxBasisPoints(99L)).isEqualTo(1200);
+        assertThat(engine.taxBasisPoints(null)).isEqualTo(1200);
+    }
+
+    @Test
+    void categoriesAddedAfterLoadingPickUpTheirSlab() throws IOException {
+        categories.add(new Object[]{1L, "Electronics", null});
+        writeRules(ZONES + """
+                tax.default=12
+                tax.category.Electronics=18
+                tax.category.Books=5
+                """);
+        engine.reload();
+        assertThat(engine.taxBasisPoints(2L)).isEqualTo(1200);
+
+        // A subcategory and a category named by the file, created without touching the file
+        categories.add(new Object[]{2L, "Laptops", 1L});
+        categories.add(new Object[]{3L, "Books", null});
+        engine.reloadIfChanged();
+
+        assertThat(engine.taxBasisPoints(2L)).isEqualTo(1800);
+        assertThat(engine.taxBasisPoints(3L)).isEqualTo(500);
+    }
+
+    @Test
+    void ambiguousCategoryNamesAreRejected() throws IOException {
+        categories.add(new Object[]{1L, "Accessories", null});
+        writeRules(ZONES + "tax.category.Accessories=28\n");
+        engine.reload();
+        assertThat(engine.taxBasisPoints(1L)).isEqualTo(2800);
+
+        // A second category with the same name leaves the slab as resolved before
+        categories.add(new Object[]{2L, "Accessories", null});
+        engine.refreshCategories();
+        assertThat(engine.taxBasisPoints(1L)).isEqualTo(2800);
+        assertThat(engine.taxBasisPoints(2L)).isEqualTo(1800);
+
+        // And a fresh load with the duplicate fails outright
+        PricingRulesEngine fresh = new PricingRulesEngine(
+                mockRepository(), new FileSystemResource(rulesFile));
+        fresh.reload();
+        assertThat(fresh.taxBasisPoints(1L)).isEqualTo(1800);
+    }
+
+    private CategoryRepository mockRepository() {
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.findAllNamesAndParentIds()).thenAnswer(invocation -> List.copyOf(categories));
+        return categoryRepository;
+    }
+
+    private Money shipping(int pin) {
+        return engine.shippingCost(pin, "standard", SMALL_ORDER);
+    }
+
+    private void writeRules(String rules) throws IOException {
+        Files.writeString(rulesFile, rules);
+    }
+}
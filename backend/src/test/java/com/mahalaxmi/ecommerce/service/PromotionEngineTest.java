@@ -0,0 +1,175 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.entity.Promotion;
+import com.mahalaxmi.ecommerce.entity.Promotion.PromotionScope;
+import com.mahalaxmi.ecommerce.entity.Promotion.PromotionType;
+import com.mahalaxmi.ecommerce.exception.CheckoutValidationException;
+import com.mahalaxmi.ecommerce.repository.CategoryRepository;
+import com.mahalaxmi.ecommerce.repository.PromotionRepository;
+import com.mahalaxmi.ecommerce.util.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Promotions compiled into product, category subtree and brand indexes, evaluated against cart
+ * lines without a database.
+ */
+class PromotionEngineTest {
+
+    // Electronics (1) > Computers (2) > Laptops (3), and Books (4)
+    private static final List<Object[]> CATEGORIES = List.of(
+            new Object[]{1L, null},
+            new Object[]{2L, 1L},
+            new Object[]{3L, 2L},
+            new Object[]{4L, null});
+
+    private final List<Promotion> promotions = new ArrayList<>();
+    private PromotionEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        PromotionRepository promotionRepository = mock(PromotionRepository.class);
+        when(promotionRepository.findByActiveTrue()).thenAnswer(invocation -> List.copyOf(promotions));
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.findAllParentIds()).thenReturn(CATEGORIES);
+        engine = new PromotionEngine(promotionRepository, categoryRepository);
+    }
+
+    @Test
+    void categoryPromotionsApplyToTheWholeSubtree() {
+        add(percentOff(1L, "Computers", "10").scope(PromotionScope.CATEGORY).targetId(2L));
+
+        PromotionEngine.Result result = engine.evaluate(List.of(
+                line(100L, 2L, null, 1, 1000),
+                line(101L, 3L, null, 1, 2000),
+                line(102L, 1L, null, 1, 4000),
+                line(103L, 4L, null, 1, 8000),
+                line(104L, null, null, 1, 16000)), null);
+
+        // Only Computers and Laptops lines count: 10% of 30.00
+        assertThat(result.discount()).isEqualTo(Money.ofPaise(300));
+        assertThat(result.applied()).extracting(PromotionEngine.Applied::promotionId).containsExactly(1L);
+    }
+
+    @Test
+    void brandsMatchIgnoringCase() {
+        add(percentOff(1L, "Acme", "20").scope(PromotionScope.BRAND).targetBrand("ACME"));
+
+        PromotionEngine.Result result = engine.evaluate(List.of(
+                line(100L, 4L, "acme", 1, 1000),
+                line(101L, 4L, "Acme", 1, 1000),
+                line(102L, 4L, "Acme Corp", 1, 1000),
+                line(103L, 4L, null, 1, 1000)), null);
+
+        assertThat(result.discount()).isEqualTo(Money.ofPaise(400));
+    }
+
+    @Test
+    void productPromotionsApplyOnlyToTheirProduct() {
+        add(percentOff(1L, "Deal", "50").scope(PromotionScope.PRODUCT).targetId(100L));
+
+        PromotionEngine.Result result = engine.evaluate(List.of(
+                line(100L, 4L, null, 2, 1000),
+                line(101L, 4L, null, 1, 1000)), null);
+
+        assertThat(result.discount()).isEqualTo(Money.ofPaise(500));
+    }
+
+    @Test
+    void minimumQuantityCountsEveryMatchingLine() {
+        add(percentOff(1L, "Buy three", "10").scope(PromotionScope.CATEGORY).targetId(1L).minQuantity(3));
+
+        assertThat(engine.evaluate(List.of(
+                line(100L, 2L, null, 1, 1000),
+                line(101L, 3L, null, 1, 1000),
+                line(102L, 4L, null, 5, 1000)), null)).isEqualTo(PromotionEngine.Result.NONE);
+
+        assertThat(engine.evaluate(List.of(
+                line(100L, 2L, null, 1, 1000),
+                line(101L, 3L, null, 2, 2000)), null).discount()).isEqualTo(Money.ofPaise(300));
+    }
+
+    @Test
+    void minimumSubtotalCountsOnlyMatchingLines() {
+        add(percentOff(1L, "Spend 50", "10").scope(PromotionScope.BRAND).targetBrand("acme")
+                .minSubtotal(new BigDecimal("50.00")));
+        add(Promotion.builder().id(2L).name("Free shipping over 100").type(PromotionType.FREE_SHIPPING)
+                .scope(PromotionScope.ALL).minSubtotal(new BigDecimal("100.00")));
+
+        PromotionEngine.Result below = engine.evaluate(List.of(
+                line(100L, 4L, "acme", 1, 4999),
+                line(101L, 4L, "other", 1, 5001)), null);
+        assertThat(below.discount()).isEqualTo(Money.ZERO);
+        assertThat(below.freeShipping()).isTrue();
+        assertThat(below.applied()).extracting(PromotionEngine.Applied::promotionId).containsExactly(2L);
+
+        PromotionEngine.Result atThreshold = engine.evaluate(List.of(
+                line(100L, 4L, "acme", 1, 5000),
+                line(101L, 4L, "other", 1, 4999)), null);
+        assertThat(atThreshold.discount()).isEqualTo(Money.ofPaise(500));
+        assertThat(atThreshold.freeShipping()).isFalse();
+    }
+
+    @Test
+    void stackedPromotionsNeverExceedTheSubtotal() {
+        add(percentOff(1L, "Sitewide", "60").scope(PromotionScope.ALL));
+        add(percentOff(2L, "Books", "70").scope(PromotionScope.CATEGORY).targetId(4L));
+        add(percentOff(3L, "Acme", "50").scope(PromotionScope.BRAND).targetBrand("acme"));
+
+        PromotionEngine.Result result = engine.evaluate(List.of(
+                line(100L, 4L, "acme", 1, 10000)), null);
+
+        // 60.00 + 40.00 of the 70.00 left, and nothing for the third
+        assertThat(result.discount()).isEqualTo(Money.ofPaise(10000));
+        assertThat(result.applied()).extracting(PromotionEngine.Applied::discount)
+                .containsExactly(Money.ofPaise(6000), Money.ofPaise(4000));
+    }
+
+    @Test
+    void couponRulesApplyOnlyWithTheirCode() {
+        add(percentOff(1L, "Coupon", "10").scope(PromotionScope.ALL).code("save10"));
+        add(percentOff(2L, "Expired", "10").scope(PromotionScope.ALL).code("OLD10")
+                .endsAt(LocalDateTime.now().minusDays(1)));
+        add(percentOff(3L, "Upcoming", "10").scope(PromotionScope.ALL)
+                .startsAt(LocalDateTime.now().plusDays(1)));
+        List<PromotionEngine.Line> lines = List.of(line(100L, 4L, null, 1, 10000));
+
+        assertThat(engine.evaluate(lines, null)).isEqualTo(PromotionEngine.Result.NONE);
+        PromotionEngine.Result withCoupon = engine.evaluate(lines, " Save10 ");
+        assertThat(withCoupon.discount()).isEqualTo(Money.ofPaise(1000));
+        assertThat(withCoupon.applied()).extracting(PromotionEngine.Applied::code).containsExactly("SAVE10");
+
+        assertThatThrownBy(() -> engine.evaluate(lines, "OLD10"))
+                .isInstanceOf(CheckoutValidationException.class);
+        assertThatThrownBy(() -> engine.evaluate(lines, "NOPE"))
+                .isInstanceOf(CheckoutValidationException.class);
+    }
+
+    private void add(Promotion.PromotionBuilder promotion) {
+        promotions.add(promotion.build());
+        engine.reload();
+    }
+
+    private static Promotion.PromotionBuilder percentOff(Long id, String name, String percent) {
+        return Promotion.builder()
+                .id(id)
+                .name(name)
+                .type(PromotionType.PERCENT_OFF)
+                .percentOff(new BigDecimal(percent));
+    }
+
+    private static PromotionEngine.Line line(Long productId, Long categoryId, String brand, int quantity,
+                                             long subtotalPaise) {
+        return new PromotionEngine.Line(productId, categoryId, brand, quantity, Money.ofPaise(subtotalPaise));
+    }
+}
@@ -0,0 +1,110 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.dto.DashboardStatsDto;
+import com.mahalaxmi.ecommerce.entity.Category;
+import com.mahalaxmi.ecommerce.entity.Order;
+import com.mahalaxmi.ecommerce.entity.OrderItem;
+import com.mahalaxmi.ecommerce.entity.Product;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.repository.ArchivedOrderRepository;
+import com.mahalaxmi.ecommerce.repository.CategoryRepository;
+import com.mahalaxmi.ecommerce.repository.OrderRepository;
+import com.mahalaxmi.ecommerce.repository.ProductRepository;
+import com.mahalaxmi.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dashboard sales reports count paid orders in both the live tables and the archive.
+ */
+@MySqlIntegrationTest
+class SalesReportTest {
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void topProductsAndCategorySalesIncludeArchivedOrders() {
+        Category category = categoryRepository.save(Category.builder()
+                .name("Report test " + UUID.randomUUID())
+                .build());
+        Product product = productRepository.save(TestFixtures.product("Report test", "10.00", 10)
+                .category(category)
+                .build());
+        User user = userRepository.save(TestFixtures.user("Report").build());
+
+        Order archived = createPaidOrder(user, product, 600_000);
+        createPaidOrder(user, product, 400_000);
+        jdbcTemplate.update("UPDATE orders SET status = 'DELIVERED', created_at = ?, updated_at = created_at WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusYears(2)), archived.getId());
+
+        orderArchiver.archive();
+        assertThat(orderRepository.existsById(archived.getId())).isFalse();
+        assertThat(archivedOrderRepository.findByOrderNumber(archived.getOrderNumber())).isPresent();
+
+        // The database is shared with earlier runs, so look the product up in the full ranking
+        assertThat(orderRepository.findTopSellingProducts(Integer.MAX_VALUE))
+                .filteredOn(sales -> sales.productId().equals(product.getId()))
+                .singleElement()
+                .satisfies(sales -> {
+                    assertThat(sales.quantitySold()).isEqualTo(1_000_000);
+                    assertThat(sales.revenue()).isEqualByComparingTo("10000000.00");
+                });
+
+        DashboardStatsDto stats = adminService.getDashboardStats();
+        assertThat(stats.getSalesByCategory().get(category.getName())).isEqualByComparingTo("10000000.00");
+    }
+
+    private Order createPaidOrder(User user, Product product, int quantity) {
+        BigDecimal subtotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+        Order order = Order.builder()
+                .orderNumber("RPT-" + UUID.randomUUID())
+                .user(user)
+                .subtotal(subtotal)
+                .tax(BigDecimal.ZERO)
+                .shippingCost(BigDecimal.ZERO)
+                .total(subtotal)
+                .paymentStatus(Order.PaymentStatus.PAID)
+                .build();
+        order.setItems(List.of(OrderItem.builder()
+                .order(order)
+                .product(product)
+                .quantity(quantity)
+                .price(product.getPrice())
+                .subtotal(subtotal)
+                .build()));
+        return orderRepository.save(order);
+    }
+}
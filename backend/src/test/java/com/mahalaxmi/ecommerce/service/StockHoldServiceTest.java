@@ -0,0 +1,117 @@
+package com.mahalaxmi.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cart stock holds: other shoppers' holds are kept back from checkout, a shopper's own hold is not,
+ * and released holds stop counting. Expiry runs on a manual clock through the timing wheel, whose
+ * 64 one-second buckets per level put a 900 second hold on the second level until it cascades down.
+ */
+class StockHoldServiceTest {
+
+    private static final long PRODUCT = 7L;
+    private static final long HOLDER = 1L;
+    private static final long BUYER = 2L;
+
+    private static final long TTL_SECONDS = 900;
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final long start = now.get();
+    private final StockHoldService holds = new StockHoldService(true, TTL_SECONDS, 1000, now::get);
+
+    @Test
+    void othersHoldsAreKeptBackFromCheckout() {
+        assertThat(holds.hold(HOLDER, PRODUCT, 4, 5)).isTrue();
+        assertThat(holds.hold(BUYER, PRODUCT, 1, 5)).isTrue();
+
+        assertThat(holds.heldByOthers(BUYER, PRODUCT)).isEqualTo(4);
+        assertThat(holds.heldByOthers(HOLDER, PRODUCT)).isEqualTo(1);
+        assertThat(holds.availableToSell(PRODUCT, 5)).isZero();
+        assertThat(holds.hold(BUYER, PRODUCT, 2, 5)).isFalse();
+    }
+
+    @Test
+    void releasedHoldsStopCounting() {
+        holds.hold(HOLDER, PRODUCT, 3, 5);
+        holds.release(HOLDER, PRODUCT);
+        assertThat(holds.heldByOthers(BUYER, PRODUCT)).isZero();
+
+        // The holder's emptied map was dropped; holding again must still be tracked
+        assertThat(holds.hold(HOLDER, PRODUCT, 2, 5)).isTrue();
+        assertThat(holds.heldByOthers(BUYER, PRODUCT)).isEqualTo(2);
+
+        holds.releaseAll(HOLDER);
+        assertThat(holds.availableToSell(PRODUCT, 5)).isEqualTo(5);
+    }
+
+    @Test
+    void holdsExpireAfterTheTtlAsTheWheelTicks() {
+        holds.hold(HOLDER, PRODUCT, 3, 5);
+
+        // Tick every second as the scheduler does, across the cascade from the second level
+        tickTo(TTL_SECONDS - 1);
+        assertThat(holds.heldByOthers(BUYER, PRODUCT)).isEqualTo(3);
+
+        tickTo(TTL_SECONDS);
+        assertThat(holds.heldByOthers(BUYER, PRODUCT)).isZero();
+        assertThat(holds.availableToSell(PRODUCT, 5)).isEqualTo(5);
+    }
+
+    @Test
+    void holdsExpireWhenTheWheelSkipsAhead() {
+        holds.hold(HOLDER, PRODUCT, 3, 5);
+
+        // A late tick advances past the deadline in one step
+        advanceBy(TTL_SECONDS - 1);
+        assertThat(holds.heldByOthers(BUYER, PRODUCT)).isEqualTo(3);
+        advanceBy(10 * TTL_SECONDS);
+        assertThat(holds.heldByOthers(BUYER, PRODUCT)).isZero();
+    }
+
+    @Test
+    void releasedAndReplacedHoldsDoNotExpireTwice() {
+        holds.hold(HOLDER, PRODUCT, 3, 5);
+        tickTo(100);
+        holds.release(HOLDER, PRODUCT);
+        assertThat(holds.heldByOthers(BUYER, PRODUCT)).isZero();
+
+        // A new hold, then a larger one replacing it, each restarting the TTL
+        tickTo(500);
+        holds.hold(HOLDER, PRODUCT, 1, 5);
+        tickTo(600);
+        holds.hold(HOLDER, PRODUCT, 2, 5);
+
+        // The released hold's and the replaced hold's deadlines pass without effect
+        tickTo(600 + TTL_SECONDS - 1);
+        assertThat(holds.heldByOthers(BUYER, PRODUCT)).isEqualTo(2);
+
+        tickTo(600 + TTL_SECONDS);
+        assertThat(holds.heldByOthers(BUYER, PRODUCT)).isZero();
+        assertThat(holds.hold(BUYER, PRODUCT, 5, 5)).isTrue();
+    }
+
+    @Test
+    void disabledHoldsReserveNothing() {
+        StockHoldService disabled = new StockHoldService(false, TTL_SECONDS, 1000, now::get);
+        assertThat(disabled.hold(HOLDER, PRODUCT, 10, 5)).isTrue();
+        assertThat(disabled.heldByOthers(BUYER, PRODUCT)).isZero();
+    }
+
+    /**
+     * Tick once per second until the given number of seconds after the test started.
+     */
+    private void tickTo(long seconds) {
+        while (now.get() < start + seconds * 1000) {
+            advanceBy(1);
+        }
+    }
+
+    private void advanceBy(long seconds) {
+        now.addAndGet(seconds * 1000);
+        holds.expireHolds();
+    }
+}
@@ -0,0 +1,158 @@
+package com.mahalaxmi.ecommerce.service;
+
+import com.mahalaxmi.ecommerce.MySqlIntegrationTest;
+import com.mahalaxmi.ecommerce.TestFixtures;
+import com.mahalaxmi.ecommerce.dto.CreateOrderRequest;
+import com.mahalaxmi.ecommerce.dto.OrderDto;
+import com.mahalaxmi.ecommerce.dto.UpdateOrderStatusRequest;
+import com.mahalaxmi.ecommerce.entity.Address;
+import com.mahalaxmi.ecommerce.entity.Product;
+import com.mahalaxmi.ecommerce.entity.User;
+import com.mahalaxmi.ecommerce.exception.CheckoutValidationException;
+import com.mahalaxmi.ecommerce.exception.InsufficientStockException;
+import com.mahalaxmi.ecommerce.repository.AddressRepository;
+import com.mahalaxmi.ecommerce.repository.CartRepository;
+import com.mahalaxmi.ecommerce.repository.ProductRepository;
+import com.mahalaxmi.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Stock reservation at checkout: hundreds of buyers check out the last units of one product at
+ * the same moment and exactly as many orders as there are units succeed; a cancelled order
+ * returns its stock once.
+ */
+@MySqlIntegrationTest
+class StockReservationStressTest {
+
+    private static final int UNITS = 5;
+    private static final int BUYERS = 200;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Test
+    void concurrentCheckoutsNeverOversellTheLastUnits() throws Exception {
+        Product product = createProduct(UNITS);
+        CreateOrderRequest request = orderRequest();
+
+        List<Long> buyerIds = new ArrayList<>(BUYERS);
+        for (int i = 0; i < BUYERS; i++) {
+            buyerIds.add(createBuyer(product.getId(), request.getShippingAddress()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>(BUYERS);
+        try {
+            for (Long buyerId : buyerIds) {
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.createOrder(buyerId, request);
+                        return true;
+                    } catch (InsufficientStockException | CheckoutValidationException e) {
+                        // Rejected by the reservation, or by validation once stock has run out
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get(2, TimeUnit.MINUTES)) {
+                    succeeded++;
+                }
+            }
+
+            assertThat(succeeded).isEqualTo(UNITS);
+            assertThat(stockOf(product)).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void cancelledOrderReturnsItsStockOnce() {
+        Product product = createProduct(3);
+        CreateOrderRequest request = orderRequest();
+        OrderDto order = orderService.createOrder(createBuyer(product.getId(), request.getShippingAddress()), request);
+        assertThat(stockOf(product)).isEqualTo(2);
+
+        adminService.updateOrderStatus(order.getId(), UpdateOrderStatusRequest.builder().status("CANCELLED").build());
+        assertThat(stockOf(product)).isEqualTo(3);
+
+        assertThatThrownBy(() -> adminService.updateOrderStatus(order.getId(),
+                UpdateOrderStatusRequest.builder().status("PENDING").build()))
+                .hasMessageContaining("Cannot change status");
+        assertThat(stockOf(product)).isEqualTo(3);
+    }
+
+    private Product createProduct(int stock) {
+        return productRepository.save(TestFixtures.product("Stress test", "49999.00", stock).build());
+    }
+
+    private int stockOf(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStockQuantity();
+    }
+
+    private static CreateOrderRequest orderRequest() {
+        return CreateOrderRequest.builder()
+                .shippingAddress(CreateOrderRequest.ShippingAddressDto.builder()
+                        .street("1 Test Street")
+                        .city("Pune")
+                        .state("Maharashtra")
+                        .postalCode("411001")
+                        .country("India")
+                        .build())
+                .paymentMethod("CASH_ON_DELIVERY")
+                .build();
+    }
+
+    private Long createBuyer(Long productId, CreateOrderRequest.ShippingAddressDto shippingAddress) {
+        User user = userRepository.save(TestFixtures.user("Stress").build());
+        // Checkout reuses the saved address, so each attempt needs only its own connection
+        addressRepository.save(Address.builder()
+                .user(user)
+                .street(shippingAddress.getStreet())
+                .city(shippingAddress.getCity())
+                .state(shippingAddress.getState())
+                .postalCode(shippingAddress.getPostalCode())
+                .country(shippingAddress.getCountry())
+                .type(Address.AddressType.SHIPPING)
+                .isDefault(false)
+                .contentHash(AddressService.contentHash(shippingAddress))
+                .build());
+        long cartId = cartRepository.insertCart(user.getId());
+        cartRepository.upsertItems(cartId, Map.of(productId, 1));
+        return user.getId();
+    }
+}
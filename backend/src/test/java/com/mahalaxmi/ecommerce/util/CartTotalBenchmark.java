@@ -0,0 +1,76 @@
+package com.mahalaxmi.ecommerce.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart totalling at 1, 10 and 100 lines: line subtotals, cart subtotal and 18% tax, with the
+ * previous {@link BigDecimal} arithmetic against {@link Money}.
+ * <p>
+ * Run with {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-cp %classpath org.openjdk.jmh.Main CartTotalBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartTotalBenchmark {
+
+    private static final long TAX_BASIS_POINTS = 1800;
+
+    @Param({"1", "10", "100"})
+    private int lines;
+
+    private BigDecimal[] decimalPrices;
+    private Money[] moneyPrices;
+    private int[] quantities;
+
+    @Setup
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        decimalPrices = new BigDecimal[lines];
+        moneyPrices = new Money[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            long paise = random.nextLong(100_00, 5_00_000_00);
+            decimalPrices[i] = BigDecimal.valueOf(paise, 2);
+            moneyPrices[i] = Money.ofPaise(paise);
+            quantities[i] = random.nextInt(1, 6);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            subtotal = subtotal.add(decimalPrices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        BigDecimal tax = subtotal.multiply(BigDecimal.valueOf(0.18));
+        return subtotal.add(tax);
+    }
+
+    @Benchmark
+    public long money() {
+        Money subtotal = Money.ZERO;
+        for (int i = 0; i < lines; i++) {
+            subtotal = subtotal.plus(moneyPrices[i].times(quantities[i]));
+        }
+        Money tax = subtotal.timesBasisPoints(TAX_BASIS_POINTS);
+        return subtotal.plus(tax).toPaise();
+    }
+}
@@ -0,0 +1,131 @@
+package com.mahalaxmi.ecommerce.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Rounding in {@link Money#scaledBy} and {@link Money#of} agrees with {@link BigDecimal} half up,
+ * on ties, negative amounts, products that overflow a long and at the edges of the range.
+ */
+class MoneyTest {
+
+    @Test
+    void tiesRoundAwayFromZero() {
+        assertScaled(5, 1, 10, 1);
+        assertScaled(-5, 1, 10, -1);
+        assertScaled(15, 1, 10, 2);
+        assertScaled(-15, 1, 10, -2);
+        assertScaled(1, 1, 2, 1);
+        assertScaled(-1, 1, 2, -1);
+        assertScaled(3, 1, 2, 2);
+        assertScaled(1, -1, 2, -1);
+        // Just either side of a tie
+        assertScaled(4999, 1, 10_000, 0);
+        assertScaled(5001, 1, 10_000, 1);
+        assertScaled(-4999, 1, 10_000, 0);
+        assertScaled(-5001, 1, 10_000, -1);
+    }
+
+    @Test
+    void basisPointsRoundHalfUp() {
+        // 18% of 25 paise is 4.5 paise
+        assertThat(Money.ofPaise(25).timesBasisPoints(1800)).isEqualTo(Money.ofPaise(5));
+        assertThat(Money.ofPaise(-25).timesBasisPoints(1800)).isEqualTo(Money.ofPaise(-5));
+        assertThat(Money.ofPaise(24).timesBasisPoints(1800)).isEqualTo(Money.ofPaise(4));
+        assertThat(Money.ofRupees(999).timesBasisPoints(1800)).isEqualTo(Money.ofPaise(17982));
+    }
+
+    @Test
+    void agreesWithBigDecimalOnRandomAmounts() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 100_000; i++) {
+            long paise = random.nextLong(-10_000_000_000L, 10_000_000_000L);
+            long numerator = random.nextLong(-100_000, 100_000);
+            long denominator = random.nextLong(1, 100_000);
+            assertMatchesBigDecimal(paise, numerator, denominator);
+        }
+    }
+
+    @Test
+    void productsOverflowingALongAreExact() {
+        // Products past 2^63 whose result still fits take the wide path
+        assertMatchesBigDecimal(Long.MAX_VALUE / 3, 7, 10);
+        assertMatchesBigDecimal(-(Long.MAX_VALUE / 3), 7, 10);
+        assertMatchesBigDecimal(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+        assertMatchesBigDecimal(Long.MAX_VALUE, 3, 4);
+        assertMatchesBigDecimal(Long.MAX_VALUE / 2 + 1, 2, 2);
+        assertMatchesBigDecimal(1L << 40, 1L << 40, 1L << 30);
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 10_000; i++) {
+            long paise = random.nextLong(Long.MIN_VALUE / 2, Long.MAX_VALUE / 2);
+            long denominator = random.nextLong(2, 1_000_000);
+            long numerator = random.nextLong(1, denominator);
+            assertMatchesBigDecimal(paise, numerator, denominator);
+        }
+    }
+
+    @Test
+    void handlesTheEdgesOfTheRange() {
+        assertMatchesBigDecimal(Long.MIN_VALUE, 1, 1);
+        assertMatchesBigDecimal(Long.MIN_VALUE, 1, 3);
+        assertMatchesBigDecimal(Long.MIN_VALUE, 1, Long.MAX_VALUE);
+        assertMatchesBigDecimal(Long.MIN_VALUE, -1, 2);
+        assertMatchesBigDecimal(Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+        assertMatchesBigDecimal(Long.MAX_VALUE, 1, 1);
+        assertMatchesBigDecimal(Long.MAX_VALUE, -1, 1);
+        assertMatchesBigDecimal(Long.MAX_VALUE, 1, Long.MAX_VALUE);
+        assertMatchesBigDecimal(1, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertMatchesBigDecimal(0, Long.MIN_VALUE, 1);
+
+        // Results that do not fit fail rather than wrap
+        assertThatThrownBy(() -> Money.ofPaise(Long.MIN_VALUE).scaledBy(-1, 1))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofPaise(Long.MAX_VALUE).scaledBy(3, 2))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofPaise(Long.MIN_VALUE).scaledBy(Long.MIN_VALUE, 1))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void convertsBigDecimalRoundingHalfUp() {
+        assertThat(Money.of(new BigDecimal("12.345"))).isEqualTo(Money.ofPaise(1235));
+        assertThat(Money.of(new BigDecimal("12.3449"))).isEqualTo(Money.ofPaise(1234));
+        assertThat(Money.of(new BigDecimal("-12.345"))).isEqualTo(Money.ofPaise(-1235));
+        assertThat(Money.of(new BigDecimal("0.005"))).isEqualTo(Money.ofPaise(1));
+        assertThat(Money.of(new BigDecimal("0.004"))).isEqualTo(Money.ZERO);
+        assertThat(Money.of(new BigDecimal("-0.005"))).isEqualTo(Money.ofPaise(-1));
+        assertThat(Money.of(new BigDecimal("1E+3"))).isEqualTo(Money.ofRupees(1000));
+        assertThat(Money.of(new BigDecimal("99.9"))).isEqualTo(Money.ofPaise(9990));
+        assertThat(Money.of(new BigDecimal("92233720368547758.07"))).isEqualTo(Money.ofPaise(Long.MAX_VALUE));
+        assertThat(Money.of(new BigDecimal("-92233720368547758.08"))).isEqualTo(Money.ofPaise(Long.MIN_VALUE));
+
+        assertThatThrownBy(() -> Money.of(new BigDecimal("92233720368547758.075")))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("92233720368547758.08")))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    private static void assertScaled(long paise, long numerator, long denominator, long expected) {
+        assertThat(Money.ofPaise(paise).scaledBy(numerator, denominator).toPaise())
+                .as("%d * %d / %d", paise, numerator, denominator)
+                .isEqualTo(expected);
+        assertMatchesBigDecimal(paise, numerator, denominator);
+    }
+
+    private static void assertMatchesBigDecimal(long paise, long numerator, long denominator) {
+        long expected = BigDecimal.valueOf(paise)
+                .multiply(BigDecimal.valueOf(numerator))
+                .divide(BigDecimal.valueOf(denominator), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+        assertThat(Money.ofPaise(paise).scaledBy(numerator, denominator).toPaise())
+                .as("%d * %d / %d", paise, numerator, denominator)
+                .isEqualTo(expected);
+    }
+}
@@ -0,0 +1,105 @@
+package com.mahalaxmi.ecommerce.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Snowflake IDs: unique and increasing under contention, across sequence overflow and when the
+ * clock steps backwards.
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 250_000;
+
+    @Test
+    void concurrentCallersGetUniqueIdsIncreasingPerThread() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        long[] ids = new long[THREADS * IDS_PER_THREAD];
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> workers = new ArrayList<>(THREADS);
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t * IDS_PER_THREAD;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    long previous = -1;
+                    boolean increasing = true;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        long id = generator.nextId();
+                        increasing &= id > previous;
+                        previous = id;
+                        ids[offset + i] = id;
+                    }
+                    return increasing;
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> worker : workers) {
+                assertThat(worker.get(1, TimeUnit.MINUTES)).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // Each thread wrote its own slice; the futures above published them
+        assertThat(Arrays.stream(ids).distinct().count()).isEqualTo(ids.length);
+    }
+
+    @Test
+    void clockRegressionNeverRepeatsAnId() {
+        AtomicLong now = new AtomicLong(SnowflakeIdGenerator.EPOCH_MILLIS + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, now::get);
+
+        long before = generator.nextId();
+        now.addAndGet(-5_000);
+        long after = generator.nextId();
+
+        assertThat(after).isGreaterThan(before);
+    }
+
+    @Test
+    void sequenceOverflowBorrowsTheNextMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> SnowflakeIdGenerator.EPOCH_MILLIS + 1);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void nodesNeverCollideInTheSameMillisecond() {
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1, () -> SnowflakeIdGenerator.EPOCH_MILLIS);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2, () -> SnowflakeIdGenerator.EPOCH_MILLIS);
+
+        assertThat(first.nextId()).isNotEqualTo(second.nextId());
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(1024))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void base32PreservesOrder() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0);
+        long smaller = generator.nextId();
+        long larger = generator.nextId();
+
+        assertThat(SnowflakeIdGenerator.toBase32(smaller)).hasSize(13)
+                .isLessThan(SnowflakeIdGenerator.toBase32(larger));
+    }
+}
@@ -0,0 +1,61 @@
+-- ============================================
+-- Mahalaxmi E-Commerce Address Deduplication Script
+-- Run this in MySQL Workbench (MySQL 8.0+) after deploying the
+-- version that adds addresses.content_hash
+-- ============================================
+
+-- Select the database first
+USE mahalaxmi_ecommerce;
+
+-- STEP 1: Hash every address
+-- Normalization must match AddressService: trim, collapse whitespace,
+-- lower-case, and strip spaces from the postal code
+-- ============================================
+CREATE TABLE address_hashes AS
+SELECT id,
+       user_id,
+       SHA2(CONCAT_WS('|',
+           LOWER(REGEXP_REPLACE(TRIM(street), '\\s+', ' ')),
+           LOWER(REGEXP_REPLACE(TRIM(city), '\\s+', ' ')),
+           LOWER(REGEXP_REPLACE(TRIM(state), '\\s+', ' ')),
+           LOWER(REGEXP_REPLACE(TRIM(postal_code), '\\s+', '')),
+           LOWER(REGEXP_REPLACE(TRIM(country), '\\s+', ' '))
+       ), 256) AS content_hash
+FROM addresses;
+
+-- STEP 2: Map each duplicate to the oldest address with the same hash
+-- ============================================
+CREATE TABLE address_duplicates AS
+SELECT h.id, k.keep_id
+FROM address_hashes h
+JOIN (SELECT user_id, content_hash, MIN(id) AS keep_id
+      FROM address_hashes
+      GROUP BY user_id, content_hash) k
+  ON k.user_id = h.user_id AND k.content_hash = h.content_hash
+WHERE h.id <> k.keep_id;
+
+-- STEP 3: Point orders at the surviving addresses
+-- (CREATE TABLE commits implicitly, so the transaction starts here)
+-- ============================================
+START TRANSACTION;
+
+UPDATE orders o JOIN address_duplicates d ON o.shipping_address_id = d.id
+SET o.shipping_address_id = d.keep_id;
+
+UPDATE orders o JOIN address_duplicates d ON o.billing_address_id = d.id
+SET o.billing_address_id = d.keep_id;
+
+-- STEP 4: Delete the duplicates and store the hash on the survivors
+-- ============================================
+DELETE a FROM addresses a JOIN address_duplicates d ON a.id = d.id;
+
+UPDATE addresses a JOIN address_hashes h ON a.id = h.id
+SET a.content_hash = h.content_hash;
+
+COMMIT;
+
+DROP TABLE address_duplicates;
+DROP TABLE address_hashes;
+
+-- Verify: should return no rows
+-- SELECT user_id, content_hash, COUNT(*) FROM addresses GROUP BY user_id, content_hash HAVING COUNT(*) > 1;
@@ -0,0 +1,59 @@
+-- ============================================
+-- Mahalaxmi E-Commerce Cart Item Deduplication Script
+-- Run this in MySQL Workbench (MySQL 8.0+) before starting the
+-- version that adds the unique (cart_id, product_id) index on cart_items.
+-- Hibernate cannot create that index while duplicate lines exist,
+-- and cart upserts rely on it.
+-- ============================================
+
+-- Select the database first
+USE mahalaxmi_ecommerce;
+
+-- STEP 1: Map each duplicate line to the oldest line for the same product
+-- ============================================
+CREATE TABLE cart_item_duplicates AS
+SELECT i.id, k.keep_id
+FROM cart_items i
+JOIN (SELECT cart_id, product_id, MIN(id) AS keep_id
+      FROM cart_items
+      GROUP BY cart_id, product_id
+      HAVING COUNT(*) > 1) k
+  ON k.cart_id = i.cart_id AND k.product_id = i.product_id
+WHERE i.id <> k.keep_id;
+
+-- STEP 2: Add the duplicates' quantities to the surviving lines, then delete them
+-- (CREATE TABLE commits implicitly, so the transaction starts here)
+-- ============================================
+START TRANSACTION;
+
+UPDATE cart_items i
+JOIN (SELECT d.keep_id, SUM(dup.quantity) AS extra
+      FROM cart_item_duplicates d
+      JOIN cart_items dup ON dup.id = d.id
+      GROUP BY d.keep_id) s
+  ON i.id = s.keep_id
+SET i.quantity = i.quantity + s.extra,
+    i.version = i.version + 1;
+
+DELETE i FROM cart_items i JOIN cart_item_duplicates d ON i.id = d.id;
+
+COMMIT;
+
+DROP TABLE cart_item_duplicates;
+
+-- STEP 3: Create the unique index, unless Hibernate already did
+-- ============================================
+SET @create_index = (
+    SELECT IF(COUNT(*) = 0,
+              'ALTER TABLE cart_items ADD CONSTRAINT uk_cart_items_cart_product UNIQUE (cart_id, product_id)',
+              'DO 0')
+    FROM information_schema.statistics
+    WHERE table_schema = DATABASE()
+      AND table_name = 'cart_items'
+      AND index_name = 'uk_cart_items_cart_product');
+PREPARE create_index FROM @create_index;
+EXECUTE create_index;
+DEALLOCATE PREPARE create_index;
+
+-- Verify: should return no rows
+-- SELECT cart_id, product_id, COUNT(*) FROM cart_items GROUP BY cart_id, product_id HAVING COUNT(*) > 1;
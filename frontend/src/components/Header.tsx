@@ -22,17 +22,16 @@ const Header = () => {
   const navigate = useNavigate();
   const location = useLocation();
   const { isAuthenticated, user, logout } = useAuthStore();
-  const { cart, fetchCart } = useCartStore();
+  const { summary, fetchSummary } = useCartStore();
   const [mobileMenuOpen, setMobileMenuOpen] = useState(false);
   const [searchOpen, setSearchOpen] = useState(false);
   const [searchQuery, setSearchQuery] = useState('');
   const [isScrolled, setIsScrolled] = useState(false);
 
+  // Guests have a cart too; logging in merges it into the user's cart
   useEffect(() => {
-    if (isAuthenticated) {
-      fetchCart().catch(() => {});
-    }
-  }, [isAuthenticated, fetchCart]);
+    fetchSummary().catch(() => {});
+  }, [isAuthenticated, fetchSummary]);
 
   useEffect(() => {
     const handleScroll = () => {
@@ -164,21 +163,21 @@ const Header = () => {
                 <Search className="h-5 w-5 text-gray-700" />
               </button>
 
+              {/* Cart */}
+              <Link
+                to="/cart"
+                className="relative p-2 hover:bg-gray-100 rounded-lg transition-colors"
+              >
+                <ShoppingCart className="h-6 w-6 text-gray-700" />
+                {summary && summary.itemCount > 0 && (
+                  <span className="absolute -top-1 -right-1 bg-primary-600 text-white text-xs font-bold rounded-full h-5 w-5 flex items-center justify-center animate-pulse">
+                    {summary.itemCount > 99 ? '99+' : summary.itemCount}
+                  </span>
+                )}
+              </Link>
+
               {isAuthenticated ? (
                 <>
-                  {/* Cart */}
-                  <Link
-                    to="/cart"
-                    className="relative p-2 hover:bg-gray-100 rounded-lg transition-colors"
-                  >
-                    <ShoppingCart className="h-6 w-6 text-gray-700" />
-                    {cart && cart.itemCount > 0 && (
-                      <span className="absolute -top-1 -right-1 bg-primary-600 text-white text-xs font-bold rounded-full h-5 w-5 flex items-center justify-center animate-pulse">
-                        {cart.itemCount > 99 ? '99+' : cart.itemCount}
-                      </span>
-                    )}
-                  </Link>
-
                   {/* User Menu */}
                   <div className="relative group">
                     <button className="flex items-center space-x-2 p-2 hover:bg-gray-100 rounded-lg transition-colors">
@@ -1,7 +1,6 @@
 import { Link } from 'react-router-dom';
 import { ShoppingCart } from 'lucide-react';
 import { Product } from '@/types';
-import { useAuthStore } from '@/store/authStore';
 import { useCartStore } from '@/store/cartStore';
 import Badge from './ui/Badge';
 import toast from 'react-hot-toast';
@@ -12,18 +11,12 @@ interface ProductCardProps {
 }
 
 const ProductCard = ({ product, showAddToCart = true }: ProductCardProps) => {
-  const isAuthenticated = useAuthStore((state) => state.isAuthenticated);
   const addToCart = useCartStore((state) => state.addToCart);
 
   const handleAddToCart = async (e: React.MouseEvent) => {
     e.preventDefault();
     e.stopPropagation();
 
-    if (!isAuthenticated) {
-      toast.error('Please login to add items to cart');
-      return;
-    }
-
     try {
       await addToCart(product.id, 1);
       toast.success('Added to cart!');
@@ -1,12 +1,14 @@
 import axios, { AxiosInstance, AxiosRequestConfig } from 'axios';
 
-const API_BASE_URL = import.meta.env.VITE_API_URL || 'http://localhost:8080/api';
+export const API_BASE_URL = import.meta.env.VITE_API_URL || 'http://localhost:8080/api';
 
 /**
  * Axios instance with default configuration
  */
 const apiClient: AxiosInstance = axios.create({
   baseURL: API_BASE_URL,
+  // Sends the guest cart cookie
+  withCredentials: true,
   headers: {
     'Content-Type': 'application/json',
   },
@@ -2,12 +2,13 @@ import { useEffect } from 'react';
 import { Link, useNavigate } from 'react-router-dom';
 import { Trash2, Plus, Minus, ShoppingBag, ArrowRight, ShieldCheck, Truck } from 'lucide-react';
 import toast from 'react-hot-toast';
+import axios from 'axios';
 import { useCartStore } from '@/store/cartStore';
 import { Button, LoadingOverlay, Badge } from '@/components/ui';
 
 const Cart = () => {
   const navigate = useNavigate();
-  const { cart, isLoading, fetchCart, updateQuantity, removeItem } = useCartStore();
+  const { cart, isLoading, fetchCart, updateQuantity, removeItem, flushPending } = useCartStore();
 
   useEffect(() => {
     fetchCart().catch(() => {
@@ -15,12 +16,21 @@ const Cart = () => {
     });
   }, [fetchCart]);
 
+  // Queued changes are sent together, so one conflict rejects them all; show it once
+  const showCartError = (error: unknown, message: string) => {
+    if (axios.isAxiosError(error) && error.response?.status === 409) {
+      toast.error('Your cart was changed in another tab and has been refreshed', { id: 'cart-conflict' });
+    } else {
+      toast.error(message);
+    }
+  };
+
   const handleUpdateQuantity = async (itemId: number, newQuantity: number) => {
     if (newQuantity < 1) return;
     try {
       await updateQuantity(itemId, newQuantity);
     } catch (error) {
-      toast.error('Failed to update quantity');
+      showCartError(error, 'Failed to update quantity');
     }
   };
 
@@ -29,7 +39,16 @@ const Cart = () => {
       await removeItem(itemId);
       toast.success('Item removed from cart');
     } catch (error) {
-      toast.error('Failed to remove item');
+      showCartError(error, 'Failed to remove item');
+    }
+  };
+
+  const handleCheckout = async () => {
+    try {
+      await flushPending();
+      navigate('/checkout');
+    } catch (error) {
+      showCartError(error, 'Failed to update cart');
     }
   };
 
@@ -58,9 +77,9 @@ const Cart = () => {
     );
   }
 
-  const subtotal = cart.total;
-  const shipping = subtotal >= 50000 ? 0 : 500;
-  const total = subtotal + shipping;
+  const subtotal = cart.subtotal ?? cart.total;
+  const shipping = cart.total >= 50000 ? 0 : 500;
+  const total = cart.total + shipping;
 
   return (
     <div className="min-h-screen bg-gray-50 py-8">
@@ -172,6 +191,14 @@ const Cart = () => {
                   <span>Subtotal ({cart.itemCount} items)</span>
                   <span className="font-medium text-gray-900">₹{subtotal.toLocaleString('en-IN')}</span>
                 </div>
+                {cart.promotions?.map((promotion) => (
+                  <div key={promotion.promotionId} className="flex justify-between text-green-600">
+                    <span>{promotion.name}</span>
+                    <span className="font-medium">
+                      {promotion.discount > 0 ? `-₹${promotion.discount.toLocaleString('en-IN')}` : 'Applied'}
+                    </span>
+                  </div>
+                ))}
                 <div className="flex justify-between text-gray-600">
                   <span>Shipping</span>
                   <span className={`font-medium ${shipping === 0 ? 'text-green-600' : 'text-gray-900'}`}>
@@ -180,7 +207,7 @@ const Cart = () => {
                 </div>
                 {shipping > 0 && (
                   <p className="text-sm text-gray-500 bg-gray-50 p-3 rounded-lg">
-                    Add ₹{(50000 - subtotal).toLocaleString('en-IN')} more to get free shipping
+                    Add ₹{(50000 - cart.total).toLocaleString('en-IN')} more to get free shipping
                   </p>
                 )}
                 <div className="border-t pt-4">
@@ -197,7 +224,7 @@ const Cart = () => {
               <Button
                 size="lg"
                 className="w-full"
-                onClick={() => navigate('/checkout')}
+                onClick={handleCheckout}
                 rightIcon={<ArrowRight className="h-5 w-5" />}
               >
                 Proceed to Checkout
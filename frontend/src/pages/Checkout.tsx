@@ -1,4 +1,4 @@
-import { useState } from 'react';
+import { useEffect, useState } from 'react';
 import { useNavigate, Link } from 'react-router-dom';
 import { useCartStore } from '@/store/cartStore';
 import { 
@@ -15,7 +15,10 @@ import {
   Banknote,
   ArrowLeft
 } from 'lucide-react';
+import axios from 'axios';
 import { api } from '@/lib/api';
+import { orderService } from '@/services/orderService';
+import { CheckoutQuote } from '@/types';
 import { Button } from '@/components/ui';
 
 // Step indicator component
@@ -92,10 +95,49 @@ const Checkout = () => {
 
   const [paymentMethod, setPaymentMethod] = useState<'CREDIT_CARD' | 'DEBIT_CARD' | 'UPI' | 'NET_BANKING' | 'CASH_ON_DELIVERY'>('CASH_ON_DELIVERY');
 
-  const subtotal = cart?.total || 0;
-  const shippingCost = shippingMethod === 'free' ? 0 : shippingMethod === 'express' ? 499 : subtotal >= 50000 ? 0 : 199;
-  const tax = subtotal * 0.18;
-  const total = subtotal + shippingCost + tax;
+  const [quote, setQuote] = useState<CheckoutQuote | null>(null);
+
+  const [couponInput, setCouponInput] = useState('');
+  const [couponCode, setCouponCode] = useState('');
+  const [couponError, setCouponError] = useState('');
+
+  // Shipping depends on the delivery zone, so quote once a complete PIN code is entered
+  const pin = shippingAddress.postalCode.replace(/\s/g, '');
+  const quotePostalCode = /^\d{6}$/.test(pin) ? pin : undefined;
+
+  const loadQuote = async () => {
+    try {
+      setQuote(await orderService.getQuote(shippingMethod, couponCode || undefined, quotePostalCode));
+    } catch (error) {
+      console.error('Failed to load quote:', error);
+      if (couponCode && axios.isAxiosError(error) && error.response?.status === 409) {
+        // Unknown or expired coupon; quote again without it
+        setCouponError(error.response.data?.problems?.[0] || 'This coupon is not valid');
+        setCouponCode('');
+        return;
+      }
+      setQuote(null);
+    }
+  };
+
+  useEffect(() => {
+    if (cart && cart.items.length > 0) {
+      loadQuote();
+    }
+  }, [shippingMethod, couponCode, quotePostalCode, cart]);
+
+  const handleApplyCoupon = () => {
+    setCouponError('');
+    setCouponCode(couponInput.trim());
+  };
+
+  // Server quote is authoritative; the local estimate only shows until it arrives
+  const subtotal = quote?.subtotal ?? (cart?.subtotal ?? cart?.total ?? 0);
+  const discount = quote?.discount ?? (cart?.discount || 0);
+  const shippingCost = quote?.shippingCost
+    ?? (shippingMethod === 'free' ? 0 : shippingMethod === 'express' ? 499 : subtotal >= 50000 ? 0 : 199);
+  const tax = quote?.tax ?? (subtotal - discount) * 0.18;
+  const total = quote?.total ?? subtotal - discount + shippingCost + tax;
 
   const handlePlaceOrder = async (e: React.FormEvent) => {
     e.preventDefault();
@@ -107,6 +149,8 @@ const Checkout = () => {
         paymentMethod,
         shippingMethod,
         notes: '',
+        quoteId: quote?.quoteId,
+        couponCode: quote?.couponCode,
       };
 
       await api.post('/orders', orderData);
@@ -118,7 +162,13 @@ const Checkout = () => {
       }, 3000);
     } catch (error) {
       console.error('Failed to place order:', error);
-      alert('Failed to place order. Please try again.');
+      if (axios.isAxiosError(error) && error.response?.status === 409) {
+        // Cart or prices changed since the quote; show the new total before retrying
+        await loadQuote();
+        alert(error.response.data?.message || 'Your order total has changed. Please review and try again.');
+      } else {
+        alert('Failed to place order. Please try again.');
+      }
     } finally {
       setLoading(false);
     }
@@ -453,12 +503,38 @@ const Checkout = () => {
                   ))}
                 </div>
 
+                {/* Coupon */}
+                <div className="border-t pt-4 mb-4">
+                  <div className="flex gap-2">
+                    <input
+                      type="text"
+                      value={couponInput}
+                      onChange={(e) => setCouponInput(e.target.value)}
+                      className="input-field"
+                      placeholder="Coupon code"
+                    />
+                    <Button type="button" variant="outline" onClick={handleApplyCoupon}>
+                      Apply
+                    </Button>
+                  </div>
+                  {couponError && <p className="text-sm text-red-600 mt-2">{couponError}</p>}
+                  {quote?.couponCode && (
+                    <p className="text-sm text-green-600 mt-2">Coupon {quote.couponCode} applied</p>
+                  )}
+                </div>
+
                 {/* Price Breakdown */}
                 <div className="border-t pt-4 space-y-3">
                   <div className="flex justify-between text-sm text-gray-600">
                     <span>Subtotal ({cart.itemCount} items)</span>
                     <span>₹{subtotal.toLocaleString('en-IN')}</span>
                   </div>
+                  {discount > 0 && (
+                    <div className="flex justify-between text-sm text-green-600">
+                      <span>Discount{quote?.couponCode ? ` (${quote.couponCode})` : ''}</span>
+                      <span>-₹{discount.toLocaleString('en-IN')}</span>
+                    </div>
+                  )}
                   <div className="flex justify-between text-sm text-gray-600">
                     <span>Shipping</span>
                     {shippingCost === 0 ? (
@@ -468,7 +544,7 @@ const Checkout = () => {
                     )}
                   </div>
                   <div className="flex justify-between text-sm text-gray-600">
-                    <span>GST (18%)</span>
+                    <span>GST</span>
                     <span>₹{tax.toLocaleString('en-IN', { maximumFractionDigits: 0 })}</span>
                   </div>
                   <div className="border-t pt-3 flex justify-between text-lg font-bold">
@@ -18,7 +18,6 @@ import toast from 'react-hot-toast';
 import { Product } from '@/types';
 import { productService } from '@/services/productService';
 import { useCartStore } from '@/store/cartStore';
-import { useAuthStore } from '@/store/authStore';
 import ProductCard from '@/components/ProductCard';
 import { Button, Badge, LoadingOverlay } from '@/components/ui';
 
@@ -32,7 +31,6 @@ const ProductDetail = () => {
   const [activeTab, setActiveTab] = useState<'description' | 'specifications' | 'reviews'>('description');
   const [isAddingToCart, setIsAddingToCart] = useState(false);
 
-  const isAuthenticated = useAuthStore((state) => state.isAuthenticated);
   const addToCart = useCartStore((state) => state.addToCart);
 
   useEffect(() => {
@@ -63,11 +61,6 @@ const ProductDetail = () => {
   }, [id]);
 
   const handleAddToCart = async () => {
-    if (!isAuthenticated) {
-      toast.error('Please login to add items to cart');
-      return;
-    }
-
     if (!product) return;
 
     setIsAddingToCart(true);
@@ -22,19 +22,17 @@ import {
   AlertCircle
 } from 'lucide-react';
 import axios from 'axios';
+import { orderService } from '@/services/orderService';
 import { Button, Badge, Spinner } from '@/components/ui';
 
-interface Order {
+interface OrderSummary {
   id: number;
   orderNumber: string;
   createdAt: string;
   status: string;
   total: number;
-  items: Array<{
-    productName: string;
-    quantity: number;
-    price: number;
-  }>;
+  itemCount: number;
+  thumbnailUrl?: string;
 }
 
 interface Address {
@@ -54,7 +52,8 @@ const Profile = () => {
   const [searchParams, setSearchParams] = useSearchParams();
   const tabFromUrl = searchParams.get('tab') as 'profile' | 'orders' | 'addresses' | 'settings' | null;
   const [activeTab, setActiveTab] = useState<'profile' | 'orders' | 'addresses' | 'settings'>(tabFromUrl || 'profile');
-  const [orders, setOrders] = useState<Order[]>([]);
+  const [orders, setOrders] = useState<OrderSummary[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState(false);
   const [saving, setSaving] = useState(false);
 
@@ -80,16 +79,26 @@ const Profile = () => {
     }
   }, [activeTab]);
 
+  useEffect(() => {
+    if (activeTab !== 'orders') return;
+    return orderService.subscribeToStatusChanges((event) => {
+      setOrders((prev) =>
+        prev.map((order) => (order.id === event.orderId ? { ...order, status: event.status } : order))
+      );
+    });
+  }, [activeTab]);
+
   const handleTabChange = (tab: typeof activeTab) => {
     setActiveTab(tab);
     setSearchParams({ tab });
   };
 
-  const fetchOrders = async () => {
+  const fetchOrders = async (cursor?: string) => {
     setLoading(true);
     try {
-      const response = await axios.get('/api/orders/my-orders');
-      setOrders(response.data);
+      const response = await axios.get('/api/orders', { params: { cursor, size: 10 } });
+      setOrders((prev) => (cursor ? [...prev, ...response.data.items] : response.data.items));
+      setNextCursor(response.data.nextCursor);
     } catch (error) {
       console.error('Failed to fetch orders:', error);
     } finally {
@@ -280,7 +289,7 @@ const Profile = () => {
                   <p className="text-sm text-gray-500 mt-1">View and track your orders</p>
                 </div>
                 <div className="p-8">
-                  {loading ? (
+                  {loading && orders.length === 0 ? (
                     <div className="flex justify-center py-12">
                       <Spinner size="lg" />
                     </div>
@@ -325,22 +334,21 @@ const Profile = () => {
                               </Badge>
                             </div>
                             
-                            <div className="border-t border-gray-100 pt-4">
-                              {order.items.slice(0, 2).map((item, index) => (
-                                <div key={index} className="flex justify-between py-2 text-sm">
-                                  <span className="text-gray-700">
-                                    {item.productName} × {item.quantity}
-                                  </span>
-                                  <span className="font-medium text-gray-900">
-                                    ₹{item.price.toLocaleString('en-IN')}
-                                  </span>
+                            <div className="border-t border-gray-100 pt-4 flex items-center gap-4">
+                              {order.thumbnailUrl ? (
+                                <img
+                                  src={order.thumbnailUrl}
+                                  alt=""
+                                  className="h-16 w-16 rounded-lg object-cover border border-gray-100"
+                                />
+                              ) : (
+                                <div className="h-16 w-16 rounded-lg bg-gray-100 flex items-center justify-center">
+                                  <Package className="h-6 w-6 text-gray-400" />
                                 </div>
-                              ))}
-                              {order.items.length > 2 && (
-                                <p className="text-sm text-gray-500 py-2">
-                                  +{order.items.length - 2} more items
-                                </p>
                               )}
+                              <span className="text-sm text-gray-700">
+                                {order.itemCount} {order.itemCount === 1 ? 'item' : 'items'}
+                              </span>
                             </div>
                             
                             <div className="border-t border-gray-100 pt-4 mt-4 flex flex-wrap justify-between items-center gap-4">
@@ -358,6 +366,13 @@ const Profile = () => {
                           </div>
                         );
                       })}
+                      {nextCursor && (
+                        <div className="flex justify-center pt-2">
+                          <Button variant="outline" onClick={() => fetchOrders(nextCursor)} disabled={loading}>
+                            {loading ? 'Loading...' : 'Load More Orders'}
+                          </Button>
+                        </div>
+                      )}
                     </div>
                   )}
                 </div>
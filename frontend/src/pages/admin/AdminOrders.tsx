@@ -1,5 +1,6 @@
 import { useEffect, useState } from 'react';
 import { adminService, UpdateOrderStatusRequest } from '@/services/adminService';
+import { orderService } from '@/services/orderService';
 import { Order, PageResponse } from '@/types';
 import { Spinner } from '@/components/ui';
 
@@ -18,6 +19,17 @@ const AdminOrders = () => {
     loadOrders();
   }, [page, statusFilter]);
 
+  useEffect(() => {
+    return orderService.subscribeToStatusChanges((event) => {
+      const apply = (order: Order): Order =>
+        order.id === event.orderId
+          ? { ...order, status: event.status, trackingNumber: event.trackingNumber ?? order.trackingNumber }
+          : order;
+      setOrders((prev) => prev.map(apply));
+      setSelectedOrder((prev) => (prev ? apply(prev) : prev));
+    });
+  }, []);
+
   const loadOrders = async () => {
     try {
       setLoading(true);
@@ -1,4 +1,5 @@
 import { useEffect, useState } from 'react';
+import axios from 'axios';
 import { productService } from '@/services/productService';
 import { categoryService } from '@/services/categoryService';
 import { Product, Category } from '@/types';
@@ -130,7 +131,7 @@ const AdminProducts = () => {
       };
 
       if (editingProduct) {
-        await productService.updateProduct(editingProduct.id, productData);
+        await productService.updateProduct(editingProduct.id, { ...productData, version: editingProduct.version });
         setSuccessMessage('Product updated successfully!');
       } else {
         await productService.createProduct(productData);
@@ -141,7 +142,13 @@ const AdminProducts = () => {
       loadProducts();
       setTimeout(() => setSuccessMessage(null), 3000);
     } catch (err) {
-      setError('Failed to save product');
+      if (axios.isAxiosError(err) && err.response?.status === 409 && err.response.data?.current) {
+        // Keep the form as edited; saving again overwrites the other change
+        setEditingProduct(err.response.data.current as Product);
+        setError('This product was changed by someone else while you were editing. Save again to overwrite their changes.');
+      } else {
+        setError('Failed to save product');
+      }
       console.error(err);
     }
   };
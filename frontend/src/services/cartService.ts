@@ -1,5 +1,5 @@
 import { api } from '@/lib/api';
-import { Cart, AddToCartRequest } from '@/types';
+import { Cart, CartSummary, AddToCartRequest, CartOperationsRequest } from '@/types';
 
 export const cartService = {
   /**
@@ -9,6 +9,13 @@ export const cartService = {
     return api.get<Cart>('/cart');
   },
 
+  /**
+   * Get the cart's item count and total for the cart badge
+   */
+  getSummary: async (): Promise<CartSummary> => {
+    return api.get<CartSummary>('/cart/summary');
+  },
+
   /**
    * Add item to cart
    */
@@ -32,6 +39,13 @@ export const cartService = {
     return api.delete<Cart>(`/cart/items/${itemId}`);
   },
 
+  /**
+   * Apply several cart changes at once, in order
+   */
+  applyOperations: async (request: CartOperationsRequest): Promise<Cart> => {
+    return api.patch<Cart>('/cart', request);
+  },
+
   /**
    * Clear entire cart
    */
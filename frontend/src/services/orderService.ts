@@ -0,0 +1,73 @@
+import { api, API_BASE_URL } from '@/lib/api';
+import { CheckoutQuote, OrderStatusEvent, StreamTicket } from '@/types';
+
+const STREAM_RETRY_MS = 3000;
+
+export const orderService = {
+  /**
+   * Get a signed, short-lived quote for the current cart
+   */
+  getQuote: async (shippingMethod: string, couponCode?: string, postalCode?: string): Promise<CheckoutQuote> => {
+    return api.post<CheckoutQuote>('/orders/quote', { shippingMethod, couponCode, postalCode });
+  },
+
+  /**
+   * Subscribe to live order status changes (own orders, or all orders for admins).
+   * The stream is opened with a short-lived ticket; when the browser cannot resume it with
+   * that ticket, a new one is fetched and the stream resumes after the last event received.
+   * Call the returned function to stop.
+   */
+  subscribeToStatusChanges: (onEvent: (event: OrderStatusEvent) => void): (() => void) => {
+    if (!localStorage.getItem('token')) {
+      return () => {};
+    }
+    let source: EventSource | null = null;
+    let lastEventId: string | null = null;
+    let stopped = false;
+
+    const connect = async () => {
+      try {
+        const { ticket } = await api.post<StreamTicket>('/orders/stream/ticket');
+        if (stopped) {
+          return;
+        }
+        const params = new URLSearchParams({ ticket });
+        if (lastEventId) {
+          params.set('lastEventId', lastEventId);
+        }
+        source = new EventSource(`${API_BASE_URL}/orders/stream?${params}`);
+        source.addEventListener('order-status', (message) => {
+          const event = message as MessageEvent;
+          lastEventId = event.lastEventId;
+          onEvent(JSON.parse(event.data));
+        });
+        source.onerror = () => {
+          // The browser gives up once a retry with the expired ticket is rejected
+          if (source?.readyState === EventSource.CLOSED && !stopped) {
+            setTimeout(connect, STREAM_RETRY_MS);
+          }
+        };
+      } catch {
+        if (!stopped) {
+          setTimeout(connect, STREAM_RETRY_MS);
+        }
+      }
+    };
+    connect();
+
+    return () => {
+      stopped = true;
+      source?.close();
+    };
+  },
+};
+    }
+    const source = new EventSource(
+      `${API_BASE_URL}/orders/stream?access_token=${encodeURIComponent(token)}`
+    );
+    source.addEventListener('order-status', (message) => {
+      onEvent(JSON.parse((message as MessageEvent).data));
+    });
+    return () => source.close();
+  },
+};
@@ -1,73 +1,149 @@
 import { create } from 'zustand';
-import { Cart } from '@/types';
+import axios from 'axios';
+import { Cart, CartOperation, CartSummary } from '@/types';
 import { cartService } from '@/services/cartService';
 
+// Quantity changes and removals are shown immediately and sent together once edits pause
+const FLUSH_DELAY_MS = 400;
+
+let pending: CartOperation[] = [];
+// Cart version the pending changes were made against
+let pendingVersion: number | undefined;
+let waiters: { resolve: () => void; reject: (error: unknown) => void }[] = [];
+let flushTimer: ReturnType<typeof setTimeout> | null = null;
+
+const summaryOf = (cart: Cart): CartSummary => ({ itemCount: cart.itemCount, total: cart.total });
+
+const applyLocally = (cart: Cart, operation: CartOperation): Cart => {
+  const items = operation.op === 'REMOVE' || (operation.quantity ?? 0) <= 0
+    ? cart.items.filter((item) => item.id !== operation.itemId)
+    : cart.items.map((item) => item.id === operation.itemId
+      ? { ...item, quantity: operation.quantity!, subtotal: item.product.price * operation.quantity! }
+      : item);
+  // Totals are approximate until the server responds with promotions applied
+  const subtotal = items.reduce((sum, item) => sum + item.subtotal, 0);
+  return { ...cart, items, itemCount: items.length, subtotal, total: Math.max(0, subtotal - cart.discount) };
+};
+
 interface CartState {
   cart: Cart | null;
+  summary: CartSummary | null;
   isLoading: boolean;
   fetchCart: () => Promise<void>;
+  fetchSummary: () => Promise<void>;
   addToCart: (productId: number, quantity: number) => Promise<void>;
   updateQuantity: (itemId: number, quantity: number) => Promise<void>;
   removeItem: (itemId: number) => Promise<void>;
   clearCart: () => Promise<void>;
+  flushPending: () => Promise<void>;
 }
 
-export const useCartStore = create<CartState>((set) => ({
-  cart: null,
-  isLoading: false,
-
-  fetchCart: async () => {
-    set({ isLoading: true });
-    try {
-      const cart = await cartService.getCart();
-      set({ cart, isLoading: false });
-    } catch (error) {
-      set({ isLoading: false });
-      throw error;
+export const useCartStore = create<CartState>((set, get) => {
+  const enqueue = (operation: CartOperation): Promise<void> => {
+    const cart = get().cart;
+    if (pending.length === 0) {
+      pendingVersion = cart?.version;
     }
-  },
-
-  addToCart: async (productId: number, quantity: number) => {
-    set({ isLoading: true });
-    try {
-      const cart = await cartService.addToCart({ productId, quantity });
-      set({ cart, isLoading: false });
-    } catch (error) {
-      set({ isLoading: false });
-      throw error;
+    if (cart) {
+      const updated = applyLocally(cart, operation);
+      set({ cart: updated, summary: summaryOf(updated) });
     }
-  },
-
-  updateQuantity: async (itemId: number, quantity: number) => {
-    set({ isLoading: true });
-    try {
-      const cart = await cartService.updateCartItem(itemId, quantity);
-      set({ cart, isLoading: false });
-    } catch (error) {
-      set({ isLoading: false });
-      throw error;
+    pending.push(operation);
+    if (flushTimer) {
+      clearTimeout(flushTimer);
     }
-  },
+    flushTimer = setTimeout(() => {
+      get().flushPending().catch(() => undefined);
+    }, FLUSH_DELAY_MS);
+    return new Promise((resolve, reject) => {
+      waiters.push({ resolve, reject });
+    });
+  };
 
-  removeItem: async (itemId: number) => {
-    set({ isLoading: true });
-    try {
-      const cart = await cartService.removeFromCart(itemId);
-      set({ cart, isLoading: false });
-    } catch (error) {
-      set({ isLoading: false });
-      throw error;
-    }
-  },
+  return {
+    cart: null,
+    summary: null,
+    isLoading: false,
 
-  clearCart: async () => {
-    set({ isLoading: true });
-    try {
-      const cart = await cartService.clearCart();
-      set({ cart, isLoading: false });
-    } catch (error) {
-      set({ isLoading: false });
-      throw error;
-    }
-  },
-}));
+    fetchCart: async () => {
+      set({ isLoading: true });
+      try {
+        const cart = await cartService.getCart();
+        set({ cart, summary: summaryOf(cart), isLoading: false });
+      } catch (error) {
+        set({ isLoading: false });
+        throw error;
+      }
+    },
+
+    fetchSummary: async () => {
+      const summary = await cartService.getSummary();
+      set({ summary });
+    },
+
+    addToCart: async (productId: number, quantity: number) => {
+      set({ isLoading: true });
+      try {
+        await get().flushPending();
+        const cart = await cartService.addToCart({ productId, quantity });
+        set({ cart, summary: summaryOf(cart), isLoading: false });
+      } catch (error) {
+        set({ isLoading: false });
+        throw error;
+      }
+    },
+
+    updateQuantity: (itemId: number, quantity: number) =>
+      enqueue({ op: 'UPDATE', itemId, quantity }),
+
+    removeItem: (itemId: number) =>
+      enqueue({ op: 'REMOVE', itemId }),
+
+    clearCart: async () => {
+      set({ isLoading: true });
+      try {
+        await get().flushPending();
+        const cart = await cartService.clearCart();
+        set({ cart, summary: summaryOf(cart), isLoading: false });
+      } catch (error) {
+        set({ isLoading: false });
+        throw error;
+      }
+    },
+
+    flushPending: async () => {
+      if (flushTimer) {
+        clearTimeout(flushTimer);
+        flushTimer = null;
+      }
+      if (pending.length === 0) {
+        return;
+      }
+      const operations = pending;
+      const batchWaiters = waiters;
+      pending = [];
+      waiters = [];
+      try {
+        const cart = await cartService.applyOperations({ operations, version: pendingVersion });
+        set({ cart, summary: summaryOf(cart) });
+        batchWaiters.forEach((waiter) => waiter.resolve());
+      } catch (error) {
+        // Nothing was applied; show the cart as the server has it
+        batchWaiters.forEach((waiter) => waiter.reject(error));
+        if (axios.isAxiosError(error) && error.response?.status === 409 && error.response.data?.current) {
+          // Changed in another tab; the conflict carries the current cart
+          const current = error.response.data.current as Cart;
+          set({ cart: current, summary: summaryOf(current) });
+        } else {
+          try {
+            const current = await cartService.getCart();
+            set({ cart: current, summary: summaryOf(current) });
+          } catch {
+            // Keep the optimistic cart; the next fetch corrects it
+          }
+        }
+        throw error;
+      }
+    },
+  };
+});
@@ -37,6 +37,7 @@ export interface Product {
   description: string;
   price: number;
   stockQuantity: number;
+  availableQuantity?: number;
   brand: string;
   model: string;
   type: 'SERVER' | 'DESKTOP_COMPUTER' | 'LAPTOP' | 'WORKSTATION' | 'COMPONENT';
@@ -45,6 +46,7 @@ export interface Product {
   category: Category;
   active: boolean;
   featured: boolean;
+  version?: number;
 }
 
 export interface Category {
@@ -63,11 +65,27 @@ export interface CartItem {
   subtotal: number;
 }
 
+export interface AppliedPromotion {
+  promotionId: number;
+  name: string;
+  code?: string;
+  discount: number;
+}
+
 export interface Cart {
   id: number;
   items: CartItem[];
+  subtotal: number;
+  discount: number;
+  promotions: AppliedPromotion[];
   total: number;
   itemCount: number;
+  version?: number;
+}
+
+export interface CartSummary {
+  itemCount: number;
+  total: number;
 }
 
 export interface AddToCartRequest {
@@ -75,6 +93,18 @@ export interface AddToCartRequest {
   quantity: number;
 }
 
+export interface CartOperationsRequest {
+  operations: CartOperation[];
+  version?: number;
+}
+
+export interface CartOperation {
+  op: 'ADD' | 'UPDATE' | 'REMOVE';
+  productId?: number;
+  itemId?: number;
+  quantity?: number;
+}
+
 export interface Address {
   id: number;
   street: string;
@@ -99,6 +129,8 @@ export interface Order {
   orderNumber: string;
   items: OrderItem[];
   subtotal: number;
+  discount?: number;
+  couponCode?: string;
   tax: number;
   shippingCost: number;
   total: number;
@@ -114,6 +146,42 @@ export interface Order {
   deliveredAt?: string;
 }
 
+export interface CheckoutQuote {
+  quoteId: string;
+  lines: Array<{
+    productId: number;
+    productName: string;
+    thumbnailUrl?: string;
+    quantity: number;
+    price: number;
+    subtotal: number;
+  }>;
+  subtotal: number;
+  discount: number;
+  couponCode?: string;
+  promotions: AppliedPromotion[];
+  tax: number;
+  shippingCost: number;
+  total: number;
+  shippingMethod: string;
+  expiresAt: string;
+}
+
+export interface OrderStatusEvent {
+  orderId: number;
+  orderNumber: string;
+  userId: number;
+  previousStatus: Order['status'];
+  status: Order['status'];
+  trackingNumber?: string;
+  changedAt: string;
+}
+
+export interface StreamTicket {
+  ticket: string;
+  expiresInMs: number;
+}
+
 export interface PageResponse<T> {
   content: T[];
   totalElements: number;